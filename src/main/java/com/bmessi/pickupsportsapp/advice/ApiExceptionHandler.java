@@ -30,6 +30,7 @@ import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 
 import com.bmessi.pickupsportsapp.exception.UsernameTakenException;
 import com.bmessi.pickupsportsapp.security.MfaRequiredException;
+import com.bmessi.pickupsportsapp.security.PasswordHashingSaturatedException;
 
 import java.time.Instant;
 import java.util.HashMap;
@@ -167,6 +168,17 @@ public class ApiExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).headers(h).body(body);
     }
 
+    // 503: Password hashing pool saturated (load shedding)
+    @ExceptionHandler(PasswordHashingSaturatedException.class)
+    public ResponseEntity<Map<String, Object>> handleHashingSaturated(PasswordHashingSaturatedException ex,
+                                                                      HttpServletRequest req) {
+        HttpHeaders h = noStoreHeaders();
+        h.add("Retry-After", String.valueOf(ex.getRetryAfterSeconds()));
+        Map<String, Object> body = baseBody("temporarily_unavailable", "Server is busy, please try again shortly",
+                HttpStatus.SERVICE_UNAVAILABLE.value(), req);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).headers(h).body(body);
+    }
+
     // 4xx/5xx explicit
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<Map<String, Object>> handleResponseStatus(ResponseStatusException ex, HttpServletRequest req) {
@@ -1,5 +1,6 @@
 package com.bmessi.pickupsportsapp.config;
 
+import com.bmessi.pickupsportsapp.config.properties.PushDeliveryProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -32,4 +33,25 @@ public class AsyncConfig {
         exec.initialize();
         return exec;
     }
+
+    /**
+     * Bounded pool for outbound Web Push HTTP calls; sized by push.delivery.send-concurrency.
+     * Callers run the task themselves when the queue is full, which throttles the dispatcher.
+     */
+    @Bean(name = "pushSendExecutor")
+    public ThreadPoolTaskExecutor pushSendExecutor(PushDeliveryProperties props) {
+        int threads = Math.max(1, props.getSendConcurrency());
+        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+        exec.setCorePoolSize(threads);
+        exec.setMaxPoolSize(threads);
+        exec.setQueueCapacity(Math.max(threads, props.getBatchSize()));
+        exec.setKeepAliveSeconds(30);
+        exec.setAllowCoreThreadTimeOut(true);
+        exec.setThreadNamePrefix("push-send-");
+        exec.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        exec.setWaitForTasksToCompleteOnShutdown(true);
+        exec.setAwaitTerminationSeconds(10);
+        exec.initialize();
+        return exec;
+    }
 }
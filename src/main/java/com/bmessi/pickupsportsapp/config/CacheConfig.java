@@ -98,13 +98,6 @@ public class CacheConfig {
                         .expireAfterWrite(Duration.ofMinutes(5))
                         .build()
         ));
-        caches.add(new CaffeineCache(
-                "notifications-first-page",
-                Caffeine.newBuilder()
-                        .maximumSize(5_000)
-                        .expireAfterWrite(Duration.ofSeconds(60))
-                        .build()
-        ));
 
         SimpleCacheManager mgr = new SimpleCacheManager();
         mgr.setCaches(caches);
@@ -0,0 +1,19 @@
+package com.bmessi.pickupsportsapp.config;
+
+import com.bmessi.pickupsportsapp.service.chat.ChatReplaySubscribeInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class ChatReplayInboundConfig implements WebSocketMessageBrokerConfigurer {
+
+    private final ChatReplaySubscribeInterceptor replayInterceptor;
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(replayInterceptor);
+    }
+}
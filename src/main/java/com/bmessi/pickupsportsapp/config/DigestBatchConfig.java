@@ -0,0 +1,92 @@
+package com.bmessi.pickupsportsapp.config;
+
+import com.bmessi.pickupsportsapp.service.digest.DigestChunkWriter;
+import com.bmessi.pickupsportsapp.service.digest.DigestRecipient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
+import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Digest email job: a keyset-paged reader streams opted-in users by id, and each chunk's upcoming
+ * games are loaded with one query and published to the digest email queue as one message.
+ * The reader's position is kept in the step execution context, so a failed run restarts after the
+ * last committed chunk. Job parameters: {@code mode} ({@code daily}|{@code weekly}) and {@code runDate}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "digest.enabled", havingValue = "true", matchIfMissing = false)
+public class DigestBatchConfig {
+
+    @Value("${digest.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${emails.digest-queue:emails.digest.queue}")
+    private String digestQueue;
+
+    @Bean
+    @StepScope
+    public JdbcPagingItemReader<DigestRecipient> digestRecipientReader(DataSource dataSource,
+                                                                       @Value("#{jobParameters['mode']}") String mode) {
+        String prefColumn = "weekly".equals(mode) ? "email_digest_weekly" : "email_digest_daily";
+        return new JdbcPagingItemReaderBuilder<DigestRecipient>()
+                .name("digestRecipientReader")
+                .dataSource(dataSource)
+                .selectClause("SELECT id, username")
+                .fromClause("FROM app_user")
+                .whereClause("WHERE id IN (SELECT user_id FROM user_notification_prefs WHERE " + prefColumn + " = TRUE)")
+                .sortKeys(Map.of("id", Order.ASCENDING))
+                .pageSize(Math.max(1, chunkSize))
+                .rowMapper((rs, n) -> new DigestRecipient(rs.getLong("id"), rs.getString("username")))
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public DigestChunkWriter digestChunkWriter(JdbcTemplate jdbc,
+                                               RabbitTemplate rabbitTemplate,
+                                               MeterRegistry meterRegistry,
+                                               Clock clock,
+                                               @Value("#{jobParameters['mode']}") String mode) {
+        boolean weekly = "weekly".equals(mode);
+        return new DigestChunkWriter(jdbc, rabbitTemplate, meterRegistry, clock, digestQueue,
+                weekly ? "weekly" : "daily", Duration.ofDays(weekly ? 7 : 1));
+    }
+
+    @Bean
+    public Job digestJob(JobRepository jobRepository,
+                         PlatformTransactionManager transactionManager,
+                         JdbcPagingItemReader<DigestRecipient> digestRecipientReader,
+                         DigestChunkWriter digestChunkWriter) {
+        Step send = new StepBuilder("sendDigests", jobRepository)
+                .<DigestRecipient, DigestRecipient>chunk(Math.max(1, chunkSize), transactionManager)
+                .reader(digestRecipientReader)
+                .writer(digestChunkWriter)
+                .faultTolerant()
+                .retry(AmqpException.class)
+                .retryLimit(3)
+                .build();
+
+        return new JobBuilder("digestJob", jobRepository)
+                .start(send)
+                .build();
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
- * Declares the email queue and its dead-letter queue.
+ * Declares the email queues (single jobs and digest chunks) and their dead-letter queues.
  */
 @Configuration
 public class EmailQueueConfig {
@@ -15,6 +15,9 @@ public class EmailQueueConfig {
     @Value("${emails.queue:emails.queue}")
     private String emailQueue;
 
+    @Value("${emails.digest-queue:emails.digest.queue}")
+    private String digestQueue;
+
     @Bean
     public Queue emailsQueue() {
         return QueueBuilder.durable(emailQueue)
@@ -27,4 +30,17 @@ public class EmailQueueConfig {
     public Queue emailsDlq() {
         return QueueBuilder.durable(emailQueue + ".dlq").build();
     }
+
+    @Bean
+    public Queue emailsDigestQueue() {
+        return QueueBuilder.durable(digestQueue)
+                .withArgument("x-dead-letter-exchange", "")
+                .withArgument("x-dead-letter-routing-key", digestQueue + ".dlq")
+                .build();
+    }
+
+    @Bean
+    public Queue emailsDigestDlq() {
+        return QueueBuilder.durable(digestQueue + ".dlq").build();
+    }
 }
@@ -1,75 +1,182 @@
 package com.bmessi.pickupsportsapp.config;
 
 import com.bmessi.pickupsportsapp.service.notification.NotificationService;
-import lombok.RequiredArgsConstructor;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
-import java.util.List;
-import java.util.Map;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
 
+/**
+ * Sends 24h and 1h game reminders.
+ *
+ * Each run covers exactly the reminder times elapsed since the previous run, (processed_until, now],
+ * tracked per kind in game_reminder_watermark, so no game falls between two windows. Due recipients
+ * (owner and participants) come from one set-based query and already-sent pairs are excluded through
+ * the game_reminder_sent ledger. Reminders are published one game at a time, in bulk chunks; right
+ * after each game the recipients whose chunk was handed to the broker go into the ledger, and the
+ * watermark moves only when every recipient of the window was published. A failed chunk therefore
+ * leaves the window open and the next run retries exactly the recipients still missing. A crash
+ * between publish and ledger write can repeat a reminder but never drop one. Ledger inserts ignore
+ * pairs already recorded, so runs that overlap despite ShedLock do not fail on the key.
+ */
 @Component
-@RequiredArgsConstructor
-@org.springframework.boot.autoconfigure.condition.ConditionalOnProperty(name = "notification.service.enabled", havingValue = "true", matchIfMissing = false)
+@ConditionalOnProperty(name = "notification.service.enabled", havingValue = "true", matchIfMissing = false)
 public class GameRemindersScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(GameRemindersScheduler.class);
 
+    enum Kind {
+        H24("24h", Duration.ofHours(24)),
+        H1("1h", Duration.ofHours(1));
+
+        final String key;
+        final Duration lead;
+
+        Kind(String key, Duration lead) {
+            this.key = key;
+            this.lead = lead;
+        }
+    }
+
+    record Due(long gameId, long userId, String username, String sport, String location) {}
+
     private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
     private final NotificationService notificationService;
+    private final Clock clock;
+    private final Duration firstRunLookback;
+    private final Duration ledgerRetention;
 
-    // Remind 24 hours before
-    @Scheduled(cron = "${reminders.games.24h.cron:0 0 8 * * *}")
-    public void remind24h() {
-        sendReminders(24);
+    public GameRemindersScheduler(JdbcTemplate jdbc,
+                                  PlatformTransactionManager txManager,
+                                  NotificationService notificationService,
+                                  Clock clock,
+                                  @Value("${reminders.games.first-run-lookback-minutes:5}") long firstRunLookbackMinutes,
+                                  @Value("${reminders.games.ledger-retention-days:7}") long ledgerRetentionDays) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.notificationService = notificationService;
+        this.clock = clock;
+        this.firstRunLookback = Duration.ofMinutes(Math.max(1, firstRunLookbackMinutes));
+        this.ledgerRetention = Duration.ofDays(Math.max(1, ledgerRetentionDays));
     }
 
-    // Remind 1 hour before
-    @Scheduled(cron = "${reminders.games.1h.cron:0 0 * * * *}")
-    public void remind1h() {
-        sendReminders(1);
+    @Scheduled(cron = "${reminders.games.cron:0 */5 * * * *}")
+    @SchedulerLock(name = "gameReminders", lockAtMostFor = "PT4M")
+    public void run() {
+        for (Kind kind : Kind.values()) {
+            try {
+                sendReminders(kind);
+            } catch (Exception e) {
+                log.warn("Game reminder job ({}) failed: {}", kind.key, e.getMessage(), e);
+            }
+        }
+        try {
+            jdbc.update("DELETE FROM game_reminder_sent WHERE sent_at < ?", Timestamp.from(clock.instant().minus(ledgerRetention)));
+        } catch (Exception e) {
+            log.debug("Reminder ledger cleanup failed: {}", e.getMessage());
+        }
     }
 
-    private void sendReminders(int hoursAhead) {
-        try {
-            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
-            OffsetDateTime from = now.plusHours(hoursAhead);
-            OffsetDateTime to = from.plusMinutes(15); // small window
-            List<Map<String, Object>> games = jdbc.queryForList("""
-                SELECT g.id, g.sport, COALESCE(CAST(g.location AS TEXT), '') AS location, g.time,
-                       u.username AS owner
-                  FROM game g
-                  JOIN app_user u ON u.id = g.user_id
-                 WHERE g.time >= ? AND g.time < ?
-                """, java.sql.Timestamp.from(from.toInstant()), java.sql.Timestamp.from(to.toInstant()));
-            for (var g : games) {
-                Long gameId = ((Number) g.get("id")).longValue();
-                String sport = String.valueOf(g.get("sport"));
-                String location = String.valueOf(g.get("location"));
-                String owner = String.valueOf(g.get("owner"));
-                // notify owner
-                safeDispatch(owner, "system", sport, location, "reminder");
-                // notify participants
-                List<String> participants = jdbc.queryForList("""
-                    SELECT u.username FROM game_participants gp
-                    JOIN app_user u ON u.id = gp.user_id
-                    WHERE gp.game_id = ?
-                    """, String.class, gameId);
-                for (String p : participants) {
-                    safeDispatch(p, "system", sport, location, "reminder");
-                }
+    void sendReminders(Kind kind) {
+        Instant now = clock.instant();
+        Instant from = watermark(kind).orElse(now.minus(firstRunLookback));
+        if (!from.isBefore(now)) return;
+
+        // Reminder time = game time - lead, so games in (from + lead, now + lead] are due; skip games already started
+        Timestamp lo = Timestamp.from(max(from.plus(kind.lead), now));
+        Timestamp hi = Timestamp.from(now.plus(kind.lead));
+        List<Due> due = jdbc.query("""
+                SELECT r.game_id, r.user_id, u.username, g.sport, COALESCE(CAST(g.location AS TEXT), '') AS location
+                  FROM (
+                        SELECT g.id AS game_id, g.user_id AS user_id
+                          FROM game g
+                         WHERE g.time > ? AND g.time <= ?
+                        UNION
+                        SELECT gp.game_id, gp.user_id
+                          FROM game_participants gp
+                          JOIN game g ON g.id = gp.game_id
+                         WHERE g.time > ? AND g.time <= ?
+                       ) r
+                  JOIN game g ON g.id = r.game_id
+                  JOIN app_user u ON u.id = r.user_id
+                 WHERE NOT EXISTS (
+                        SELECT 1 FROM game_reminder_sent s
+                         WHERE s.game_id = r.game_id AND s.user_id = r.user_id AND s.kind = ?)
+                """, (rs, n) -> new Due(rs.getLong("game_id"), rs.getLong("user_id"), rs.getString("username"),
+                        String.valueOf(rs.getString("sport")), rs.getString("location")),
+                lo, hi, lo, hi, kind.key);
+
+        // Bulk events per game; each game's published recipients are recorded before the next game goes out
+        Map<Long, List<Due>> byGame = new LinkedHashMap<>();
+        for (Due d : due) byGame.computeIfAbsent(d.gameId(), k -> new ArrayList<>()).add(d);
+        Timestamp sentAt = Timestamp.from(now);
+        List<Due> sent = new ArrayList<>(due.size());
+        byGame.values().forEach(rows -> {
+            Due first = rows.get(0);
+            List<String> recipients = rows.stream().map(Due::username).toList();
+            Set<String> published = new HashSet<>();
+            try {
+                published.addAll(notificationService.createGameNotifications(recipients, "system", first.sport(), first.location(), "reminder"));
+            } catch (Exception e) {
+                log.debug("Reminder publish for game {} failed: {}", first.gameId(), e.getMessage());
             }
-        } catch (Exception e) {
-            log.warn("Game reminder job failed: {}", e.getMessage(), e);
+            List<Due> ok = rows.stream().filter(d -> published.contains(d.username())).toList();
+            if (!ok.isEmpty()) {
+                recordSent(kind, ok, sentAt);
+                sent.addAll(ok);
+            }
+            if (ok.size() < rows.size()) {
+                log.warn("Failed to publish {} of {} {} reminders for game {}; retrying next run",
+                        rows.size() - ok.size(), rows.size(), kind.key, first.gameId());
+            }
+        });
+
+        if (sent.size() == due.size()) {
+            tx.executeWithoutResult(status -> advanceWatermark(kind, now));
+        }
+        if (!due.isEmpty()) {
+            log.info("Sent {} of {} {} reminders for {} games", sent.size(), due.size(), kind.key, byGame.size());
+        }
+    }
+
+    private void recordSent(Kind kind, List<Due> rows, Timestamp sentAt) {
+        jdbc.batchUpdate("INSERT INTO game_reminder_sent (game_id, user_id, kind, sent_at) VALUES (?, ?, ?, ?) "
+                        + "ON CONFLICT DO NOTHING",
+                rows, rows.size(), (ps, d) -> {
+                    ps.setLong(1, d.gameId());
+                    ps.setLong(2, d.userId());
+                    ps.setString(3, kind.key);
+                    ps.setTimestamp(4, sentAt);
+                });
+    }
+
+    private Optional<Instant> watermark(Kind kind) {
+        List<Timestamp> ts = jdbc.queryForList(
+                "SELECT processed_until FROM game_reminder_watermark WHERE kind = ?", Timestamp.class, kind.key);
+        return ts.isEmpty() || ts.get(0) == null ? Optional.empty() : Optional.of(ts.get(0).toInstant());
+    }
+
+    private void advanceWatermark(Kind kind, Instant until) {
+        Timestamp ts = Timestamp.from(until);
+        if (jdbc.update("UPDATE game_reminder_watermark SET processed_until = ? WHERE kind = ?", ts, kind.key) == 0) {
+            jdbc.update("INSERT INTO game_reminder_watermark (kind, processed_until) VALUES (?, ?)", kind.key, ts);
         }
     }
 
-    private void safeDispatch(String recipient, String actor, String sport, String location, String action) {
-        try { notificationService.createGameNotification(recipient, actor, sport, location, action); } catch (Exception ignore) {}
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
     }
 }
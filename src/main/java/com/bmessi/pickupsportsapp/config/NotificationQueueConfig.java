@@ -7,7 +7,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
- * Declares the notification queue and its dead-letter queue.
+ * Declares the notification queues (per-recipient and bulk game events) and their dead-letter queues.
  */
 @Configuration
 public class NotificationQueueConfig {
@@ -15,6 +15,9 @@ public class NotificationQueueConfig {
     @Value("${notifications.queue:notifications.queue}")
     private String notificationQueue;
 
+    @Value("${notifications.bulk-queue:notifications.bulk.queue}")
+    private String bulkQueue;
+
     @Bean
     public Queue notificationsQueue() {
         return QueueBuilder.durable(notificationQueue)
@@ -27,5 +30,17 @@ public class NotificationQueueConfig {
     public Queue notificationsDlq() {
         return QueueBuilder.durable(notificationQueue + ".dlq").build();
     }
-}
 
+    @Bean
+    public Queue notificationsBulkQueue() {
+        return QueueBuilder.durable(bulkQueue)
+                .withArgument("x-dead-letter-exchange", "")
+                .withArgument("x-dead-letter-routing-key", bulkQueue + ".dlq")
+                .build();
+    }
+
+    @Bean
+    public Queue notificationsBulkDlq() {
+        return QueueBuilder.durable(bulkQueue + ".dlq").build();
+    }
+}
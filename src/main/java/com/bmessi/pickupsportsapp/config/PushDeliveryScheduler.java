@@ -1,138 +1,116 @@
 package com.bmessi.pickupsportsapp.config;
 
-import com.bmessi.pickupsportsapp.entity.PushOutbox;
-import com.bmessi.pickupsportsapp.repository.PushOutboxRepository;
-import com.bmessi.pickupsportsapp.repository.PushSubscriptionRepository;
-import io.micrometer.core.instrument.MeterRegistry;
-import lombok.RequiredArgsConstructor;
+import com.bmessi.pickupsportsapp.config.properties.PushDeliveryProperties;
+import com.bmessi.pickupsportsapp.service.push.PushOutboxDispatcher;
+import com.bmessi.pickupsportsapp.service.push.PushOutboxWakeup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.time.Instant;
-import java.util.List;
 
+import java.time.Duration;
+
+/**
+ * Drives the push outbox. Runs on every node: batches are claimed with SKIP LOCKED and leased, so
+ * concurrent nodes split the work instead of double-sending.
+ *
+ * The loop drains as soon as {@link PushOutboxWakeup} is rung (local enqueue or a Postgres NOTIFY
+ * from another node). Polling is only a safety net: the idle wait starts at
+ * {@code push.delivery.min-idle-poll-ms} and doubles up to {@code push.delivery.max-idle-poll-ms}
+ * while nothing is due, and resets once work shows up. The former fixed poll interval,
+ * {@code push.delivery.fixed-delay-ms}, is no longer read; a warning is logged when it is still set.
+ */
 @Component
-@RequiredArgsConstructor
-public class PushDeliveryScheduler {
+public class PushDeliveryScheduler implements SmartLifecycle {
 
     private static final Logger log = LoggerFactory.getLogger(PushDeliveryScheduler.class);
+    private static final long STOP_TIMEOUT_MS = 10_000;
+
+    private final PushOutboxDispatcher dispatcher;
+    private final PushOutboxWakeup wakeup;
+    private final PushDeliveryProperties props;
+    private final boolean autoStartup;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    public PushDeliveryScheduler(PushOutboxDispatcher dispatcher,
+                                 PushOutboxWakeup wakeup,
+                                 PushDeliveryProperties props,
+                                 @Value("${push.delivery.auto-start:true}") boolean autoStartup,
+                                 @Value("${push.delivery.fixed-delay-ms:#{null}}") Long legacyFixedDelayMs) {
+        this.dispatcher = dispatcher;
+        this.wakeup = wakeup;
+        this.props = props;
+        this.autoStartup = autoStartup;
+        if (legacyFixedDelayMs != null) {
+            log.warn("push.delivery.fixed-delay-ms is no longer used; the outbox is drained on enqueue and polled "
+                    + "between push.delivery.min-idle-poll-ms and push.delivery.max-idle-poll-ms");
+        }
+    }
 
-    private final PushOutboxRepository outbox;
-    private final PushSubscriptionRepository subs;
-    private final MeterRegistry meterRegistry;
-    private final com.bmessi.pickupsportsapp.config.properties.VapidProperties vapid;
-    private final com.bmessi.pickupsportsapp.config.properties.PushDeliveryProperties props;
-    private final com.bmessi.pickupsportsapp.service.push.WebPushClient client;
-
-    // Poll every minute by default
-    @Scheduled(fixedDelayString = "${push.delivery.fixed-delay-ms:60000}")
-    @Transactional
-    public void flush() {
-        List<PushOutbox> batch = outbox.findTop100ByStatusOrderByCreatedAtAsc(PushOutbox.Status.PENDING);
-        if (batch.isEmpty()) return;
+    /** Drains everything currently due; returns the number of rows processed. */
+    public int flush() {
+        try {
+            int n = dispatcher.drain();
+            if (n > 0) log.debug("Push outbox: processed {} rows", n);
+            return n;
+        } catch (Exception e) {
+            log.warn("Push outbox dispatch failed: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
 
-        for (PushOutbox row : batch) {
+    private void loop() {
+        long minIdle = Math.max(50L, props.getMinIdlePollMs());
+        long maxIdle = Math.max(minIdle, props.getMaxIdlePollMs());
+        long idle = minIdle;
+        while (running) {
             try {
-                // Respect nextAttemptAt for backoff
-                if (row.getNextAttemptAt() != null && row.getNextAttemptAt().isAfter(Instant.now())) {
-                    continue;
-                }
-                var list = subs.findByUser_Username(row.getUser().getUsername());
-                if (list.isEmpty()) {
-                    // Nothing to send to; mark sent for idempotency avoidance
-                    markSent(row);
+                if (flush() > 0) {
+                    idle = minIdle;
                     continue;
                 }
-
-                int delivered = 0;
-                int gone = 0;
-                int transientErr = 0;
-
-                for (var s : list) {
-                    var result = client.send(
-                            s.getEndpoint(),
-                            toJson(row),
-                            vapid.getPublicKey(),
-                            vapid.getPrivateKey(),
-                            row.getTitle()
-                    );
-                    switch (result.code()) {
-                        case OK -> {
-                            delivered++;
-                        }
-                        case GONE, NOT_FOUND -> {
-                            gone++;
-                            try { subs.deleteByUser_UsernameAndEndpoint(row.getUser().getUsername(), s.getEndpoint()); } catch (Exception ignore) {}
-                        }
-                        case TRANSIENT_ERROR -> {
-                            transientErr++;
-                        }
-                    }
-                }
-
-                if (delivered > 0) {
-                    markSent(row);
-                    meter("push.delivered", "ok");
-                } else if (gone > 0 && transientErr == 0) {
-                    // all gone/not found
-                    markDead(row, "unsubscribed");
-                    meter("push.dead", "unsubscribed");
-                } else {
-                    // retry with backoff
-                    backoff(row, "transient");
-                    meter("push.retry", "transient");
-                }
-            } catch (Exception e) {
-                backoff(row, e.getClass().getSimpleName());
-                log.warn("Push delivery failed: {}", e.getMessage(), e);
+                idle = wakeup.await(Duration.ofMillis(idle)) ? minIdle : Math.min(maxIdle, idle * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
     }
 
-    private void markSent(PushOutbox row) {
-        row.setStatus(PushOutbox.Status.SENT);
-        row.setSentAt(Instant.now());
-        outbox.save(row);
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::loop, "push-dispatch");
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    private void markDead(PushOutbox row, String reason) {
-        row.setStatus(PushOutbox.Status.FAILED);
-        row.setDeadAt(Instant.now());
-        row.setDeadReason(reason);
-        outbox.save(row);
-    }
-
-    private void backoff(PushOutbox row, String reason) {
-        int rc = row.getRetryCount() + 1;
-        row.setRetryCount(rc);
-        long base = Math.max(1000, props.getBaseBackoffMs());
-        long max = Math.max(base, props.getMaxBackoffMs());
-        long exp = Math.min(max, (long) (base * Math.pow(2, Math.min(rc, 10))));
-        long jitter = (long) (Math.random() * (base / 2));
-        row.setNextAttemptAt(Instant.now().plusMillis(exp + jitter));
-        row.setError(reason);
-        if (rc >= props.getMaxRetries()) {
-            markDead(row, "max_retries");
-        } else {
-            outbox.save(row);
+    /** Returns once the loop has finished its current batch, or after {@value #STOP_TIMEOUT_MS} ms. */
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = thread;
+        if (t == null) return;
+        t.interrupt();
+        try {
+            t.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        if (t.isAlive()) log.warn("Push dispatch loop did not stop within {} ms", STOP_TIMEOUT_MS);
+        thread = null;
     }
 
-    private void meter(String name, String reason) {
-        try { meterRegistry.counter(name, "reason", reason).increment(); } catch (Exception ignore) {}
-    }
-
-    private String toJson(PushOutbox row) {
-        String title = row.getTitle() == null ? "" : row.getTitle();
-        String body = row.getBody() == null ? "" : row.getBody();
-        String link = row.getLink() == null ? "" : row.getLink();
-        return "{\"title\":\"" + escape(title) + "\",\"body\":\"" + escape(body) + "\",\"link\":\"" + escape(link) + "\"}";
+    @Override
+    public boolean isRunning() {
+        return running;
     }
 
-    private String escape(String s) {
-        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    @Override
+    public boolean isAutoStartup() {
+        return autoStartup;
     }
 }
@@ -1,5 +1,6 @@
 package com.bmessi.pickupsportsapp.config;
 
+import com.bmessi.pickupsportsapp.service.notification.NotificationInbox;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import io.micrometer.core.instrument.Gauge;
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import jakarta.annotation.PostConstruct;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -27,13 +29,20 @@ public class RetentionCleanupScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(RetentionCleanupScheduler.class);
 
+    // Only read notifications older than cutoff; prefer readAt, fall back to updatedAt when necessary
+    private static final String EXPIRED_NOTIFICATIONS = "where n.read = true and " +
+            "((n.readAt is not null and n.readAt < :cutoff) " +
+            "or (n.readAt is null and n.updatedAt is not null and n.updatedAt < :cutoff))";
+
     @PersistenceContext
     private EntityManager em;
 
     private final MeterRegistry meterRegistry;
+    private final NotificationInbox inbox;
 
-    public RetentionCleanupScheduler(MeterRegistry meterRegistry) {
+    public RetentionCleanupScheduler(MeterRegistry meterRegistry, NotificationInbox inbox) {
         this.meterRegistry = meterRegistry;
+        this.inbox = inbox;
     }
 
     @Value("${retention.chat.messages.days:60}")
@@ -89,14 +98,15 @@ public class RetentionCleanupScheduler {
         try {
             if (notificationsDays > 0) {
                 Instant cutoff = Instant.now().minus(notificationsDays, ChronoUnit.DAYS);
-                // Delete only read notifications older than cutoff; prefer readAt, fall back to updatedAt when necessary
-                deletedNotifs = em.createQuery(
-                                "delete from Notification n " +
-                                        "where n.read = true and " +
-                                        "((n.readAt is not null and n.readAt < :cutoff) " +
-                                        "or (n.readAt is null and n.updatedAt is not null and n.updatedAt < :cutoff))")
+                // Cached inboxes of the affected users would keep serving the deleted rows
+                List<String> owners = em.createQuery(
+                                "select distinct n.user.username from Notification n " + EXPIRED_NOTIFICATIONS, String.class)
+                        .setParameter("cutoff", cutoff)
+                        .getResultList();
+                deletedNotifs = em.createQuery("delete from Notification n " + EXPIRED_NOTIFICATIONS)
                         .setParameter("cutoff", cutoff)
                         .executeUpdate();
+                if (deletedNotifs > 0) owners.forEach(inbox::invalidateOnCommit);
             }
         } catch (Exception e) {
             log.warn("Failed to cleanup Notification: {}", e.getMessage());
@@ -1,57 +1,37 @@
 package com.bmessi.pickupsportsapp.config;
 
-import io.github.resilience4j.ratelimiter.RateLimiter;
-import io.github.resilience4j.ratelimiter.RateLimiterConfig;
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
+import com.bmessi.pickupsportsapp.security.ratelimit.RsvpRateLimitFilter;
+import com.bmessi.pickupsportsapp.security.ratelimit.SlidingWindowRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.filter.OncePerRequestFilter;
-
-import java.io.IOException;
-import java.time.Duration;
 
 @Configuration
 public class RsvpRateLimitConfig {
 
+    /**
+     * Ordered after the Spring Security chain so the per-user budget is keyed by the authenticated principal.
+     * Buckets are shared with the HTTP limiter and follow {@code security.rate-limit.redis-enabled}.
+     */
     @Bean
-    public FilterRegistrationBean<OncePerRequestFilter> rsvpRateLimitFilter() {
-        RateLimiter limiter = RateLimiter.of("rsvp", RateLimiterConfig.custom()
-                .limitRefreshPeriod(Duration.ofSeconds(10))
-                .limitForPeriod(4)
-                .timeoutDuration(Duration.ZERO)
-                .build());
-
-        OncePerRequestFilter filter = new OncePerRequestFilter() {
-            @Override
-            protected boolean shouldNotFilter(HttpServletRequest request) {
-                String uri = request.getRequestURI();
-                return !(("POST".equals(request.getMethod()) && uri.matches("/games/\\d+/join")) ||
-                        ("DELETE".equals(request.getMethod()) && uri.matches("/games/\\d+/leave")));
-            }
-
-            @Override
-            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
-                    throws ServletException, IOException {
-                if (!limiter.acquirePermission()) {
-                    long retryAfter = limiter.getRateLimiterConfig().getLimitRefreshPeriod().toSeconds();
-                    response.setStatus(429);
-                    response.setContentType("application/json");
-                    response.setHeader("Retry-After", String.valueOf(retryAfter));
-                    response.getWriter().write("{\"error\":\"too_many_requests\",\"retryAfter\":" + retryAfter + "}");
-                    return;
-                }
-                filterChain.doFilter(request, response);
-            }
-        };
+    public FilterRegistrationBean<RsvpRateLimitFilter> rsvpRateLimitFilter(
+            SlidingWindowRateLimiter limiter,
+            MeterRegistry meterRegistry,
+            @Value("${rsvp.rate-limit.per-user.limit:4}") int perUserLimit,
+            @Value("${rsvp.rate-limit.per-user.window-seconds:10}") int perUserWindow,
+            @Value("${rsvp.rate-limit.per-game.limit:60}") int perGameLimit,
+            @Value("${rsvp.rate-limit.per-game.window-seconds:10}") int perGameWindow) {
+        RsvpRateLimitFilter filter = new RsvpRateLimitFilter(limiter, meterRegistry,
+                new RsvpRateLimitFilter.Budget(Math.max(1, perUserLimit), Math.max(1, perUserWindow)),
+                new RsvpRateLimitFilter.Budget(Math.max(1, perGameLimit), Math.max(1, perGameWindow)));
 
-        FilterRegistrationBean<OncePerRequestFilter> bean = new FilterRegistrationBean<>();
+        FilterRegistrationBean<RsvpRateLimitFilter> bean = new FilterRegistrationBean<>();
         bean.setFilter(filter);
         bean.addUrlPatterns("/games/*");
-        bean.setOrder(Integer.MIN_VALUE + 1);
+        bean.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
         return bean;
     }
 }
@@ -1,8 +1,10 @@
 package com.bmessi.pickupsportsapp.config;
 
+import com.bmessi.pickupsportsapp.security.IsolatedPasswordEncoder;
 import com.bmessi.pickupsportsapp.security.JwtAuthorizationFilter;
 import com.bmessi.pickupsportsapp.security.JwtTokenService;
-import com.bmessi.pickupsportsapp.repository.RevokedTokenRepository;
+import com.bmessi.pickupsportsapp.security.PasswordHashingExecutor;
+import com.bmessi.pickupsportsapp.security.TokenRevocationService;
 import com.bmessi.pickupsportsapp.service.auth.AuthService;
 import com.bmessi.pickupsportsapp.exception.GlobalExceptionHandler;
 import com.bmessi.pickupsportsapp.security.RestAuthenticationEntryPoint;
@@ -17,22 +19,44 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import org.springframework.beans.factory.annotation.Value;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 public class SecurityConfig {
 
     private static final String AUTH_HEADER_NAME   = "Authorization";
     private static final String AUTH_HEADER_PREFIX = "Bearer ";
 
+    /**
+     * Hashes run on the bounded {@link PasswordHashingExecutor}, never on a web worker. New hashes use
+     * {@code security.password.encoder} (bcrypt or argon2) and are stored with an {@code {id}} prefix; existing
+     * un-prefixed hashes are bcrypt and get rehashed on the next successful login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor hashing,
+                                           @Value("${security.password.encoder:bcrypt}") String encoderId,
+                                           @Value("${security.password.bcrypt-strength:10}") int bcryptStrength) {
+        return new IsolatedPasswordEncoder(delegatingPasswordEncoder(encoderId, bcryptStrength), hashing);
+    }
+
+    public static PasswordEncoder delegatingPasswordEncoder(String encoderId, int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encoderId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
     }
 
     @Bean
@@ -45,13 +69,13 @@ public class SecurityConfig {
     public SecurityFilterChain apiChain(HttpSecurity http,
                                         UserDetailsService userDetailsService,
                                         JwtTokenService jwtTokenService,
-                                        RevokedTokenRepository revokedTokenRepository,
+                                        TokenRevocationService tokenRevocationService,
                                         AuthenticationManager authenticationManager,
                                         AuthService authService,
                                         @Value("${security.login.rate-limit:20}") int loginRateLimitPerMinute,
                                         @Value("${springdoc.api-docs.enabled:false}") boolean apiDocsEnabled) throws Exception {
 
-        var jwtAuthz = new JwtAuthorizationFilter(userDetailsService, jwtTokenService, revokedTokenRepository, AUTH_HEADER_NAME, AUTH_HEADER_PREFIX);
+        var jwtAuthz = new JwtAuthorizationFilter(userDetailsService, jwtTokenService, tokenRevocationService, AUTH_HEADER_NAME, AUTH_HEADER_PREFIX);
 
         http
             .csrf(csrf -> csrf.disable())
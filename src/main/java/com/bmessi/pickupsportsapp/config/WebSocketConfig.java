@@ -1,5 +1,6 @@
 package com.bmessi.pickupsportsapp.config;
 
+import com.bmessi.pickupsportsapp.websocket.OutboundBackpressurePolicy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,6 +17,7 @@ import org.springframework.web.socket.config.annotation.WebSocketTransportRegist
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketJwtAuthInterceptor webSocketJwtAuthInterceptor;
+    private final OutboundBackpressurePolicy outboundBackpressurePolicy;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -41,8 +43,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
         registration
                 .setMessageSizeLimit(128 * 1024)      // 128 KB
-                .setSendTimeLimit(10_000)             // 10 seconds
-                .setSendBufferSizeLimit(512 * 1024);  // 512 KB
+                .setSendTimeLimit(10_000)             // 10 seconds (outer bound; slow consumers are evicted earlier)
+                .setSendBufferSizeLimit(512 * 1024)   // 512 KB
+                // per-session bounded queues: drop-oldest typing/presence, guaranteed chat, early eviction
+                .addDecoratorFactory(outboundBackpressurePolicy);
     }
 
     @Bean
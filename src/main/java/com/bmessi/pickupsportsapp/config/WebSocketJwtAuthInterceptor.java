@@ -1,9 +1,8 @@
 package com.bmessi.pickupsportsapp.config;
 
 import com.bmessi.pickupsportsapp.config.properties.JwtProperties;
-import com.bmessi.pickupsportsapp.security.JwtTokenService;
+import com.bmessi.pickupsportsapp.security.WsConnectAuthCache;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessagingException;
@@ -12,6 +11,7 @@ import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
@@ -21,11 +21,11 @@ import java.util.stream.Collectors;
 @Component
 public class WebSocketJwtAuthInterceptor implements ChannelInterceptor {
 
-    private final JwtTokenService jwtTokenService;
+    private final WsConnectAuthCache connectAuthCache;
     private final JwtProperties jwtProps;
 
-    public WebSocketJwtAuthInterceptor(JwtTokenService jwtTokenService, JwtProperties jwtProps) {
-        this.jwtTokenService = jwtTokenService;
+    public WebSocketJwtAuthInterceptor(WsConnectAuthCache connectAuthCache, JwtProperties jwtProps) {
+        this.connectAuthCache = connectAuthCache;
         this.jwtProps = jwtProps;
     }
 
@@ -57,9 +57,12 @@ public class WebSocketJwtAuthInterceptor implements ChannelInterceptor {
         }
 
         String token = stripPrefix(raw, prefix);
-        Jws<Claims> jws = jwtTokenService.parse(token); // validates issuer/audience/exp per your service
-        Claims claims = jws.getPayload();
+        // Verified principals are cached by token fingerprint so reconnect storms skip re-verification
+        acc.setUser(connectAuthCache.authenticate(token, WebSocketJwtAuthInterceptor::toAuthentication));
+    }
 
+    /** Builds the session principal from verified claims (validated issuer/audience/exp). */
+    private static Authentication toAuthentication(Claims claims) {
         String username = claims.getSubject();
         if (username == null || username.trim().isEmpty()) {
             throw new MessagingException("JWT subject missing");
@@ -82,8 +85,7 @@ public class WebSocketJwtAuthInterceptor implements ChannelInterceptor {
                 .map(r -> new SimpleGrantedAuthority("ROLE_" + r.toUpperCase()))
                 .collect(Collectors.toSet());
 
-        var auth = new UsernamePasswordAuthenticationToken(username, "N/A", authorities);
-        acc.setUser(auth);
+        return new UsernamePasswordAuthenticationToken(username, "N/A", authorities);
     }
 
     private static String firstHeader(StompHeaderAccessor acc, String name) {
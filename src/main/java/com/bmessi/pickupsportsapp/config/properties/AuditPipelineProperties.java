@@ -0,0 +1,118 @@
+package com.bmessi.pickupsportsapp.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Asynchronous audit writing.
+ * Prefix: audit.pipeline
+ *
+ * When disabled, admin and host audit rows are saved synchronously by the calling request.
+ */
+@Component
+@ConfigurationProperties(prefix = "audit.pipeline")
+public class AuditPipelineProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Events buffered in memory (rounded up to a power of two); when full, events spill straight to disk.
+     */
+    private int capacity = 16_384;
+
+    /**
+     * Rows per JDBC batch.
+     */
+    private int batchSize = 500;
+
+    /**
+     * How long the writer sleeps when there is nothing to write (milliseconds).
+     */
+    private long idleWaitMs = 50;
+
+    /**
+     * After a failed write, how long events go straight to the spill file before the database is tried again (milliseconds).
+     */
+    private long retryMs = 5_000;
+
+    /**
+     * Directory of the spill file.
+     */
+    private String spillDir = Path.of(System.getProperty("java.io.tmpdir"), "pickupsports-audit").toString();
+
+    /**
+     * Force spilled events to the device before returning; slower, but survives a host crash.
+     */
+    private boolean spillFsync = false;
+
+    /**
+     * How long shutdown waits for buffered events to be written or spilled (milliseconds).
+     */
+    private long shutdownTimeoutMs = 5_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getIdleWaitMs() {
+        return idleWaitMs;
+    }
+
+    public void setIdleWaitMs(long idleWaitMs) {
+        this.idleWaitMs = idleWaitMs;
+    }
+
+    public long getRetryMs() {
+        return retryMs;
+    }
+
+    public void setRetryMs(long retryMs) {
+        this.retryMs = retryMs;
+    }
+
+    public String getSpillDir() {
+        return spillDir;
+    }
+
+    public void setSpillDir(String spillDir) {
+        this.spillDir = spillDir;
+    }
+
+    public boolean isSpillFsync() {
+        return spillFsync;
+    }
+
+    public void setSpillFsync(boolean spillFsync) {
+        this.spillFsync = spillFsync;
+    }
+
+    public long getShutdownTimeoutMs() {
+        return shutdownTimeoutMs;
+    }
+
+    public void setShutdownTimeoutMs(long shutdownTimeoutMs) {
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+}
@@ -18,10 +18,14 @@ public class LoginPolicyProperties {
     // Rate limiting / lockout (optional)
     private int maxFailuresPerUser = 5;
     private int maxFailuresPerIp = 30;
+    // Failures from one /24 (IPv4) or /64 (IPv6) network within the IP window
+    private int maxFailuresPerNetwork = 100;
     private int lockoutMinutes = 15;
     private int ipWindowMinutes = 10;
     private int requestsPerIpPerMinute = 60;
     private boolean distributedEnabled = false;
+    // Upper bound on usernames/addresses/networks tracked in memory
+    private int maxTrackedKeys = 100_000;
 
     // Getters/setters
 
@@ -88,4 +92,20 @@ public class LoginPolicyProperties {
     public void setDistributedEnabled(boolean distributedEnabled) {
         this.distributedEnabled = distributedEnabled;
     }
+
+    public int getMaxFailuresPerNetwork() {
+        return maxFailuresPerNetwork;
+    }
+
+    public void setMaxFailuresPerNetwork(int maxFailuresPerNetwork) {
+        this.maxFailuresPerNetwork = maxFailuresPerNetwork;
+    }
+
+    public int getMaxTrackedKeys() {
+        return maxTrackedKeys;
+    }
+
+    public void setMaxTrackedKeys(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
 }
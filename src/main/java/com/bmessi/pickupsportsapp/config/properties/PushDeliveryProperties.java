@@ -9,6 +9,12 @@ public class PushDeliveryProperties {
     private int maxRetries = 5;
     private long baseBackoffMs = 5000;
     private long maxBackoffMs = 300000;
+    private int batchSize = 100;
+    private int sendConcurrency = 16;
+    private long leaseMs = 120000;
+    private int maxBatchesPerRun = 20;
+    private long minIdlePollMs = 1000;
+    private long maxIdlePollMs = 60000;
 
     public int getMaxRetries() { return maxRetries; }
     public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
@@ -16,4 +22,16 @@ public class PushDeliveryProperties {
     public void setBaseBackoffMs(long baseBackoffMs) { this.baseBackoffMs = baseBackoffMs; }
     public long getMaxBackoffMs() { return maxBackoffMs; }
     public void setMaxBackoffMs(long maxBackoffMs) { this.maxBackoffMs = maxBackoffMs; }
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public int getSendConcurrency() { return sendConcurrency; }
+    public void setSendConcurrency(int sendConcurrency) { this.sendConcurrency = sendConcurrency; }
+    public long getLeaseMs() { return leaseMs; }
+    public void setLeaseMs(long leaseMs) { this.leaseMs = leaseMs; }
+    public int getMaxBatchesPerRun() { return maxBatchesPerRun; }
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) { this.maxBatchesPerRun = maxBatchesPerRun; }
+    public long getMinIdlePollMs() { return minIdlePollMs; }
+    public void setMinIdlePollMs(long minIdlePollMs) { this.minIdlePollMs = minIdlePollMs; }
+    public long getMaxIdlePollMs() { return maxIdlePollMs; }
+    public void setMaxIdlePollMs(long maxIdlePollMs) { this.maxIdlePollMs = maxIdlePollMs; }
 }
@@ -0,0 +1,90 @@
+package com.bmessi.pickupsportsapp.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTTP rate limiting policies.
+ * Prefix: security.rate-limit
+ *
+ * Routes are matched in order against the request path using Spring path patterns
+ * (e.g. {@code /games/{id}/join}); requests matching none use the default policy.
+ */
+@Component
+@ConfigurationProperties(prefix = "security.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Share counters across nodes through Redis. When false (or Redis is unreachable) limits are per node.
+     */
+    private boolean redisEnabled = false;
+
+    /**
+     * How often locally counted requests are reconciled with Redis (milliseconds).
+     */
+    private long syncMs = 200;
+
+    /**
+     * Upper bound on rate-limit keys held in memory; least recently used keys are dropped first.
+     */
+    private int maxKeys = 100_000;
+
+    /**
+     * Path segments kept when normalizing an unmatched URI; deeper segments collapse into one key.
+     */
+    private int maxPathDepth = 4;
+
+    private Policy defaults = new Policy("default", null, null, 100, 60);
+
+    private List<Policy> routes = new ArrayList<>();
+
+    public static class Policy {
+        private String name;
+        private String pattern;
+        private List<String> methods = new ArrayList<>();
+        private int limit = 100;
+        private int windowSeconds = 60;
+
+        public Policy() {
+        }
+
+        public Policy(String name, String pattern, List<String> methods, int limit, int windowSeconds) {
+            this.name = name;
+            this.pattern = pattern;
+            if (methods != null) this.methods = methods;
+            this.limit = limit;
+            this.windowSeconds = windowSeconds;
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getPattern() { return pattern; }
+        public void setPattern(String pattern) { this.pattern = pattern; }
+        public List<String> getMethods() { return methods; }
+        public void setMethods(List<String> methods) { this.methods = methods; }
+        public int getLimit() { return limit; }
+        public void setLimit(int limit) { this.limit = limit; }
+        public int getWindowSeconds() { return windowSeconds; }
+        public void setWindowSeconds(int windowSeconds) { this.windowSeconds = windowSeconds; }
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isRedisEnabled() { return redisEnabled; }
+    public void setRedisEnabled(boolean redisEnabled) { this.redisEnabled = redisEnabled; }
+    public long getSyncMs() { return syncMs; }
+    public void setSyncMs(long syncMs) { this.syncMs = syncMs; }
+    public int getMaxKeys() { return maxKeys; }
+    public void setMaxKeys(int maxKeys) { this.maxKeys = maxKeys; }
+    public int getMaxPathDepth() { return maxPathDepth; }
+    public void setMaxPathDepth(int maxPathDepth) { this.maxPathDepth = maxPathDepth; }
+    public Policy getDefaults() { return defaults; }
+    public void setDefaults(Policy defaults) { this.defaults = defaults; }
+    public List<Policy> getRoutes() { return routes; }
+    public void setRoutes(List<Policy> routes) { this.routes = routes; }
+}
@@ -0,0 +1,104 @@
+package com.bmessi.pickupsportsapp.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refresh-token storage.
+ * Prefix: security.refresh-store
+ *
+ * With {@code redis-enabled} the session record lives in Redis and refresh_token is written behind
+ * for auditing and session listing; otherwise refresh_token is read and written directly.
+ */
+@Component
+@ConfigurationProperties(prefix = "security.refresh-store")
+public class RefreshTokenStoreProperties {
+
+    private boolean redisEnabled = false;
+
+    /**
+     * How often queued writes are flushed to refresh_token (milliseconds).
+     */
+    private long flushMs = 500;
+
+    /**
+     * Writes per flushed batch.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Writes held in memory; when full further writes are dropped and left to the consistency check.
+     */
+    private int queueCapacity = 50_000;
+
+    /**
+     * Attempts for a failed batch before it is dropped and left to the consistency check.
+     */
+    private int maxRetries = 5;
+
+    /**
+     * How often active refresh_token rows are checked against Redis (milliseconds).
+     */
+    private long reconcileMs = 300_000;
+
+    /**
+     * Rows checked per consistency run; runs page through the table and wrap around.
+     */
+    private int reconcileBatchSize = 1_000;
+
+    public boolean isRedisEnabled() {
+        return redisEnabled;
+    }
+
+    public void setRedisEnabled(boolean redisEnabled) {
+        this.redisEnabled = redisEnabled;
+    }
+
+    public long getFlushMs() {
+        return flushMs;
+    }
+
+    public void setFlushMs(long flushMs) {
+        this.flushMs = flushMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getReconcileMs() {
+        return reconcileMs;
+    }
+
+    public void setReconcileMs(long reconcileMs) {
+        this.reconcileMs = reconcileMs;
+    }
+
+    public int getReconcileBatchSize() {
+        return reconcileBatchSize;
+    }
+
+    public void setReconcileBatchSize(int reconcileBatchSize) {
+        this.reconcileBatchSize = reconcileBatchSize;
+    }
+}
@@ -1,7 +1,10 @@
 package com.bmessi.pickupsportsapp.controller;
 
+import com.bmessi.pickupsportsapp.entity.User;
 import com.bmessi.pickupsportsapp.entity.auth.RefreshToken;
 import com.bmessi.pickupsportsapp.repository.RefreshTokenRepository;
+import com.bmessi.pickupsportsapp.repository.UserRepository;
+import com.bmessi.pickupsportsapp.service.auth.RefreshTokenService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
@@ -13,7 +16,6 @@ import com.bmessi.pickupsportsapp.dto.api.UpdatedResponse;
 import static com.bmessi.pickupsportsapp.web.ApiResponseUtils.noStore;
 
 import java.security.Principal;
-import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +25,8 @@ import java.util.Map;
 public class AuthSessionsController {
 
     private final RefreshTokenRepository repo;
+    private final RefreshTokenService refreshTokenService;
+    private final UserRepository userRepository;
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
@@ -50,8 +54,7 @@ public class AuthSessionsController {
         if (target == null) {
             return ResponseEntity.status(404).headers(noStore()).build();
         }
-        target.setRevokedAt(Instant.now());
-        repo.save(target);
+        refreshTokenService.revoke(target);
         return ResponseEntity.ok().headers(noStore()).body(new UpdatedResponse(1));
     }
 
@@ -59,14 +62,16 @@ public class AuthSessionsController {
     @PreAuthorize("isAuthenticated()")
     @Transactional
     public ResponseEntity<UpdatedResponse> revokeAll(Principal principal) {
+        // Redis first: it also holds the sessions whose rows are still queued for writing
+        Long userId = userRepository.findOptionalByUsername(principal.getName()).map(User::getId).orElse(null);
+        int inStore = refreshTokenService.revokeAllForUser(userId);
         List<RefreshToken> rows = repo.findByUser_UsernameAndRevokedAtIsNull(principal.getName());
         int count = 0;
         for (RefreshToken rt : rows) {
-            rt.setRevokedAt(Instant.now());
-            repo.save(rt);
+            refreshTokenService.revoke(rt);
             count++;
         }
-        return ResponseEntity.ok().headers(noStore()).body(new UpdatedResponse(count));
+        return ResponseEntity.ok().headers(noStore()).body(new UpdatedResponse(Math.max(count, inStore)));
     }
 
     
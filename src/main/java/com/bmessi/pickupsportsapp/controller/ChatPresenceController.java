@@ -38,17 +38,29 @@ public class ChatPresenceController {
                 ));
     }
 
+    /**
+     * Without {@code sinceVersion} returns the count (and optionally the users) as before, plus the version.
+     * With {@code sinceVersion} returns only the joins/leaves since that version, falling back to a full
+     * {@code PresenceSnapshotDTO} when the server no longer holds enough history to build the delta.
+     * Live changes are pushed to {@code /topic/games/{gameId}/presence/delta}.
+     */
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Map<String, Object>> list(@PathVariable Long gameId,
-                                                    @RequestParam(defaultValue = "false") boolean includeUsers) {
+    public ResponseEntity<?> list(@PathVariable Long gameId,
+                                  @RequestParam(defaultValue = "false") boolean includeUsers,
+                                  @RequestParam(required = false) Long sinceVersion) {
+        if (sinceVersion != null) {
+            var delta = presence.delta(gameId, sinceVersion);
+            if (delta.isPresent()) {
+                return ResponseEntity.ok().headers(noStore()).body(delta.get());
+            }
+            return ResponseEntity.ok().headers(noStore()).body(presence.snapshot(gameId));
+        }
         var info = presence.list(gameId, includeUsers);
         return ResponseEntity.ok()
                 .headers(noStore())
                 .body(includeUsers
-                        ? Map.of("count", info.count(), "users", info.users())
-                        : Map.of("count", info.count()));
+                        ? Map.of("count", info.count(), "users", info.users(), "version", info.version())
+                        : Map.of("count", info.count(), "version", info.version()));
     }
-
-    
 }
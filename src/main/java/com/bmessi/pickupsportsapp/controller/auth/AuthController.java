@@ -29,6 +29,8 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import com.bmessi.pickupsportsapp.security.VelocityCheckService;
 import com.bmessi.pickupsportsapp.security.CaptchaService;
+import com.bmessi.pickupsportsapp.security.PasswordHashingSaturatedException;
+import com.bmessi.pickupsportsapp.security.LoginAttemptService;
 
 @RestController
 @RequestMapping("/auth")
@@ -44,7 +46,7 @@ public class AuthController {
     private final Optional<com.bmessi.pickupsportsapp.service.VerificationService> verificationService;
     private final Optional<com.bmessi.pickupsportsapp.service.PasswordResetService> passwordResetService;
     private final Optional<com.bmessi.pickupsportsapp.service.EmailService> emailService;
-    private final com.bmessi.pickupsportsapp.security.LoginAttemptService loginAttemptService;
+    private final LoginAttemptService loginAttemptService;
     private final com.bmessi.pickupsportsapp.security.SecurityAuditService securityAuditService;
     private final com.bmessi.pickupsportsapp.service.AdminAuditService adminAuditService;
     private final com.bmessi.pickupsportsapp.repository.UserRepository userRepository;
@@ -66,7 +68,7 @@ public class AuthController {
                          @Autowired(required = false) com.bmessi.pickupsportsapp.service.VerificationService verificationService,
                          @Autowired(required = false) com.bmessi.pickupsportsapp.service.PasswordResetService passwordResetService,
                          @Autowired(required = false) com.bmessi.pickupsportsapp.service.EmailService emailService,
-                         com.bmessi.pickupsportsapp.security.LoginAttemptService loginAttemptService,
+                         LoginAttemptService loginAttemptService,
                          com.bmessi.pickupsportsapp.security.SecurityAuditService securityAuditService,
                          com.bmessi.pickupsportsapp.service.AdminAuditService adminAuditService,
                          com.bmessi.pickupsportsapp.repository.UserRepository userRepository,
@@ -110,13 +112,45 @@ public class AuthController {
             @Valid
             @org.springframework.web.bind.annotation.RequestBody LoginRequest request,
             @Parameter(hidden = true) jakarta.servlet.http.HttpServletRequest httpRequest) {
+        String clientIp = clientAddress(httpRequest);
         try {
             log.debug("Login attempt for user: {}", request.username());
 
+            LoginAttemptService.Verdict verdict = loginAttemptService.check(request.username(), clientIp);
+            if (verdict == LoginAttemptService.Verdict.USER_LOCKED) {
+                return ResponseEntity.status(423)
+                        .headers(noStore())
+                        .body(Map.of(
+                                "error", "account_locked",
+                                "message", "Too many failed attempts, please try again later",
+                                "timestamp", System.currentTimeMillis()
+                        ));
+            }
+            if (verdict == LoginAttemptService.Verdict.USER_CHALLENGED
+                    && !captchaService.verify(httpRequest.getHeader("X-Captcha-Token"))) {
+                return ResponseEntity.status(429)
+                        .headers(noStore())
+                        .body(Map.of(
+                                "error", "too_many_requests",
+                                "captchaRequired", true,
+                                "message", "Please complete CAPTCHA",
+                                "timestamp", System.currentTimeMillis()
+                        ));
+            }
+            if (verdict != LoginAttemptService.Verdict.ALLOWED && verdict != LoginAttemptService.Verdict.USER_CHALLENGED) {
+                securityAuditService.suspiciousActivity("auth_" + verdict.name().toLowerCase(), clientIp);
+                return ResponseEntity.status(429)
+                        .headers(noStore())
+                        .body(Map.of(
+                                "error", "too_many_requests",
+                                "message", "Please try again later",
+                                "timestamp", System.currentTimeMillis()
+                        ));
+            }
+
             // Redis-based rate limit guard (optional)
             try {
-                String ip = httpRequest.getHeader("X-Forwarded-For");
-                if (ip == null || ip.isBlank()) ip = httpRequest.getRemoteAddr();
+                String ip = clientIp;
                 String uname = request.username() == null ? "" : request.username().toLowerCase();
                 String key = "auth:login:" + uname + ":" + ip;
                 int limit = (loginPolicyProperties != null) ? loginPolicyProperties.getRequestsPerIpPerMinute() : 60;
@@ -157,6 +191,7 @@ public class AuthController {
             if (authentication.getPrincipal() instanceof UserDetails userDetails) {
                 username = userDetails.getUsername();
             }
+            loginAttemptService.onSuccess(username, clientIp);
 
             // Enforce verification if required (skip if verification service is not available)
             if (authProps.isVerificationRequired() && verificationService.isPresent() && !verificationService.get().isVerified(username)) {
@@ -171,8 +206,7 @@ public class AuthController {
 
             String deviceId = httpRequest.getHeader("X-Device-Id");
             String userAgent = httpRequest.getHeader("User-Agent");
-            String ip = httpRequest.getHeader("X-Forwarded-For");
-            if (ip == null || ip.isBlank()) ip = httpRequest.getRemoteAddr();
+            String ip = clientIp;
 
             boolean isAdmin = authentication.getAuthorities() != null &&
                     authentication.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equalsIgnoreCase(a.getAuthority()));
@@ -218,8 +252,21 @@ public class AuthController {
                     .headers(headers)
                     .body(tokens);
 
+        } catch (PasswordHashingSaturatedException e) {
+            log.warn("Login shed: password hashing pool saturated");
+            HttpHeaders headers = noStore();
+            headers.add(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            return ResponseEntity.status(503)
+                    .headers(headers)
+                    .body(Map.of(
+                            "error", "temporarily_unavailable",
+                            "message", "Login is busy, please retry shortly",
+                            "retryAfter", e.getRetryAfterSeconds(),
+                            "timestamp", System.currentTimeMillis()
+                    ));
         } catch (BadCredentialsException e) {
             log.debug("Login failed: {}", e.getMessage());
+            loginAttemptService.onFailure(request.username(), clientIp);
             return ResponseEntity.status(401)
                     .headers(noStore())
                     .body(Map.of(
@@ -316,10 +363,14 @@ public class AuthController {
     @PostMapping("/logout")
     public ResponseEntity<Map<String, Object>> logout(
             @Valid
-            @org.springframework.web.bind.annotation.RequestBody RefreshRequest request) {
+            @org.springframework.web.bind.annotation.RequestBody RefreshRequest request,
+            @Parameter(hidden = true) @org.springframework.web.bind.annotation.RequestHeader(
+                    value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
         try {
             log.debug("Logout attempt");
-            authService.logout(request.refreshToken());
+            String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                    ? authorization.substring("Bearer ".length()).trim() : null;
+            authService.logout(request.refreshToken(), accessToken);
             log.debug("Logout successful");
         } catch (Exception e) {
             log.error("Logout error: {}", e.getMessage());
@@ -338,6 +389,16 @@ public class AuthController {
 
     
 
+    /**
+     * The client address as resolved by the container: with {@code server.forward-headers-strategy=native}
+     * {@code X-Forwarded-For} is only honoured when the peer is a trusted proxy
+     * ({@code server.tomcat.remoteip.internal-proxies}), so a client cannot pick the address its failed
+     * logins are counted against.
+     */
+    private static String clientAddress(jakarta.servlet.http.HttpServletRequest req) {
+        return req.getRemoteAddr();
+    }
+
     private String buildRefreshCookie(String value, boolean delete, jakarta.servlet.http.HttpServletRequest req) {
         String name = cookieProps.getName();
         String path = cookieProps.getPath();
@@ -2,6 +2,7 @@ package com.bmessi.pickupsportsapp.controller.chat;
 
 import com.bmessi.pickupsportsapp.dto.chat.ChatMessageDTO;
 import com.bmessi.pickupsportsapp.service.chat.ChatMessagePublisher;
+import com.bmessi.pickupsportsapp.service.chat.ChatReplayBuffer;
 import com.bmessi.pickupsportsapp.service.chat.ChatService;
 import com.bmessi.pickupsportsapp.service.gameaccess.GameAccessService;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
@@ -21,6 +22,7 @@ public class ChatController {
 
     private final ChatService chatService;
     private final ChatMessagePublisher publisher;
+    private final ChatReplayBuffer replayBuffer;
     private final GameAccessService gameAccessService;
     private final com.bmessi.pickupsportsapp.service.chat.ProfanityFilterService profanityFilter;
 
@@ -81,6 +83,9 @@ public class ChatController {
         // Persist and get the canonical record (includes DB messageId, normalized fields, etc.)
         ChatMessageDTO saved = chatService.record(gameId, msg);
 
+        // Stamp the room sequence and keep it for reconnect catch-up (SUBSCRIBE with from-seq)
+        replayBuffer.append(gameId, saved);
+
         // Fan-out (Redis-backed or local depending on your config)
         String destination = "/topic/games/" + gameId + "/chat";
         publisher.publish(destination, saved);
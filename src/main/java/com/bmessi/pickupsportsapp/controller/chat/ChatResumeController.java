@@ -0,0 +1,43 @@
+package com.bmessi.pickupsportsapp.controller.chat;
+
+import com.bmessi.pickupsportsapp.websocket.WsResumeTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.Map;
+
+import static com.bmessi.pickupsportsapp.web.ApiResponseUtils.noStore;
+
+/**
+ * Redeems the resume token a client receives in the close reason when it is evicted as a slow
+ * WebSocket consumer (close code 4008). The response tells the client, per destination, when it
+ * last received a chat frame, so it can fetch only the gap via /games/{id}/chat/since.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ChatResumeController {
+
+    private final WsResumeTokenService resumeTokens;
+
+    @GetMapping("/chat/resume/{token}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Map<String, Object>> resume(@PathVariable String token, Principal principal) {
+        return resumeTokens.redeem(token, principal.getName())
+                .<ResponseEntity<Map<String, Object>>>map(state -> ResponseEntity.ok()
+                        .headers(noStore())
+                        .body(Map.of(
+                                "evictedAt", state.evictedAt(),
+                                "lastDelivered", state.lastDelivered()
+                        )))
+                .orElseGet(() -> ResponseEntity.status(404).headers(noStore()).body(Map.of(
+                        "error", "not_found",
+                        "message", "Resume token expired or unknown",
+                        "timestamp", System.currentTimeMillis()
+                )));
+    }
+}
@@ -2,6 +2,7 @@ package com.bmessi.pickupsportsapp.controller.dev;
 
 import com.bmessi.pickupsportsapp.dto.chat.ChatMessageDTO;
 import com.bmessi.pickupsportsapp.service.chat.ChatMessagePublisher;
+import com.bmessi.pickupsportsapp.service.chat.ChatReplayBuffer;
 import com.bmessi.pickupsportsapp.service.chat.ChatService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
@@ -17,6 +18,7 @@ public class ChatDevController {
 
     private final ChatService chatService;
     private final ChatMessagePublisher publisher;
+    private final ChatReplayBuffer replayBuffer;
 
     // POST /dev/games/{gameId}/chat
     @PostMapping("/dev/games/{gameId}/chat")
@@ -24,9 +26,11 @@ public class ChatDevController {
     public void devSend(@PathVariable Long gameId, @RequestBody ChatMessageDTO msg,
                         @RequestParam(defaultValue = "true") boolean broadcast) {
         if (msg.getSentAt() == null) msg.setSentAt(Instant.now());
-        chatService.record(gameId, msg);
+        ChatMessageDTO saved = chatService.record(gameId, msg);
         if (broadcast) {
-            publisher.publish("/topic/games/" + gameId + "/chat", msg);
+            // Same path as ChatController so dev messages carry a seq and can be replayed
+            replayBuffer.append(gameId, saved);
+            publisher.publish("/topic/games/" + gameId + "/chat", saved);
         }
     }
 }
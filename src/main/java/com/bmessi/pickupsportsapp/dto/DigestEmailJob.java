@@ -0,0 +1,19 @@
+package com.bmessi.pickupsportsapp.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One chunk of digest emails: each entry is a recipient and their upcoming games
+ * (maps with {@code sport}, {@code location} and {@code time}).
+ */
+public record DigestEmailJob(
+        List<Digest> digests,
+        Locale locale
+) implements Serializable {
+
+    public record Digest(String to, List<Map<String, String>> items) implements Serializable {
+    }
+}
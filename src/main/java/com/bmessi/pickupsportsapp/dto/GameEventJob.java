@@ -0,0 +1,20 @@
+package com.bmessi.pickupsportsapp.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One game-wide event fanned out to many recipients; replaces one {@link NotificationJob} per user.
+ */
+public record GameEventJob(
+        List<String> recipients,
+        String actor,
+        String sport,
+        String location,
+        String action,
+        Map<String, String> model,
+        Locale locale
+) implements Serializable {
+}
@@ -0,0 +1,18 @@
+package com.bmessi.pickupsportsapp.dto;
+
+import java.util.List;
+
+/**
+ * Coalesced notification changes for one user, sent on {@code /user/queue/notifications}.
+ * Clients apply {@code allRead}, then {@code read} and {@code deleted} ids, then {@code created};
+ * {@code version} increases with every event from a node, so older events can be ignored.
+ */
+public record NotificationBatchEvent(
+        String type,     // always "batch"
+        long version,
+        boolean allRead,
+        List<Long> read,
+        List<Long> deleted,
+        List<NotificationEvent> created
+) {
+}
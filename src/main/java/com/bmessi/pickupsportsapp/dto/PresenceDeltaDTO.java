@@ -0,0 +1,13 @@
+package com.bmessi.pickupsportsapp.dto;
+
+import java.util.List;
+
+/** Net presence changes that take a client from {@code fromVersion} to {@code version}. */
+public record PresenceDeltaDTO(
+        Long gameId,
+        long fromVersion,
+        long version,
+        long count,
+        List<String> joined,
+        List<String> left
+) {}
@@ -1,9 +1,11 @@
 package com.bmessi.pickupsportsapp.dto;
 
-import java.util.Set;
+import java.util.List;
 
+/** Full presence list for a room at {@code version}; users are sorted case-insensitively. */
 public record PresenceSnapshotDTO(
         Long gameId,
+        long version,
         long count,
-        Set<String> users
+        List<String> users
 ) {}
@@ -17,6 +17,8 @@ public class ChatMessageDTO {
     private String content;
     @Schema(description = "UTC timestamp of when the message was sent", example = "2025-08-25T10:01:00Z")
     private Instant sentAt;
+    @Schema(description = "Per-room broadcast sequence; present on live and replayed WebSocket frames", example = "42")
+    private Long seq;         // monotonically increasing per room, used for reconnect catch-up
 
     public Long getMessageId() { return messageId; }
     public void setMessageId(Long messageId) { this.messageId = messageId; }
@@ -32,4 +34,7 @@ public class ChatMessageDTO {
 
     public Instant getSentAt() { return sentAt; }
     public void setSentAt(Instant sentAt) { this.sentAt = sentAt; }
+
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
 }
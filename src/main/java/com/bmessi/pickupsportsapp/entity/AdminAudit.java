@@ -30,7 +30,6 @@ public class AdminAudit {
     @Column(nullable = false, length = 64)
     private String targetType;
 
-    @Column(nullable = false)
     private Long targetId;
 
     @Column(length = 1024)
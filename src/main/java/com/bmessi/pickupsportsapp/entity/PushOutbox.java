@@ -58,6 +58,10 @@ public class PushOutbox {
 
     private Instant nextAttemptAt;
 
+    // set by each dispatcher claim; outcomes are only written under the claim that sent them
+    @Column(length = 36)
+    private String claimToken;
+
     private Instant deadAt;
 
     @Column(length = 255)
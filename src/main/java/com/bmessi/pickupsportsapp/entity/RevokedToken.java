@@ -22,10 +22,17 @@ import java.time.Instant;
 public class RevokedToken {
 
     @Id
-    @Column(length = 36, nullable = false, unique = true)
+    @Column(length = 255, nullable = false, unique = true)
     private String jti;
 
-    @Column(nullable = false)
+    @Column(name = "revoked_at", nullable = false)
+    @Builder.Default
+    private Instant revokedAt = Instant.now();
+
+    @Column(name = "expires_at")
     private Instant expiresAt;
+
+    @Column(length = 255)
+    private String reason;
 }
 
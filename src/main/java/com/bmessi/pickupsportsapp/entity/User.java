@@ -163,6 +163,11 @@ public class User {
     @Builder.Default
     private boolean mfaEnabled = false;
 
+    // Bumped to invalidate every access token issued so far (carried as the "uv" claim)
+    @Column(name = "token_version", nullable = false)
+    @Builder.Default
+    private long tokenVersion = 0L;
+
     @Column(name = "is_verified")
     @Builder.Default
     private boolean isVerified = false;
@@ -11,6 +11,7 @@ import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -53,6 +54,9 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     """)
     int markAsRead(Long userId, Collection<Long> ids, Instant readTime);
 
+    @Query("SELECT n.id FROM Notification n WHERE n.user.id = :userId AND n.id IN :ids AND n.read = false")
+    List<Long> findUnreadIds(Long userId, Collection<Long> ids);
+
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("DELETE FROM Notification n WHERE n.user.id = :userId AND n.read = true")
     int deleteReadByUser(Long userId);
@@ -0,0 +1,33 @@
+package com.bmessi.pickupsportsapp.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Runs a delegate encoder's {@code encode}/{@code matches} on the {@link PasswordHashingExecutor}.
+ * {@code upgradeEncoding} only inspects the stored hash, so it stays on the calling thread.
+ */
+public class IsolatedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor hashing;
+
+    public IsolatedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor hashing) {
+        this.delegate = delegate;
+        this.hashing = hashing;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hashing.run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hashing.run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
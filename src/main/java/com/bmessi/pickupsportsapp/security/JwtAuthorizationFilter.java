@@ -9,34 +9,48 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.bmessi.pickupsportsapp.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
 
 import java.io.IOException;
-
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authenticates requests from the bearer JWT.
+ *
+ * Tokens carrying {@code roles} and {@code uv} claims are authorized from the claims alone, and
+ * revocation is checked against {@link TokenRevocationService}'s in-memory view, so an authenticated
+ * request does no database work here. Older tokens without those claims fall back to loading the
+ * user until they expire.
+ */
 public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthorizationFilter.class);
 
     private final UserDetailsService userDetailsService;
     private final JwtTokenService tokenService;
-    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenRevocationService revocations;
     private final String authHeaderName;
     private final String authHeaderPrefix;
 
     public JwtAuthorizationFilter(UserDetailsService userDetailsService,
                                   JwtTokenService tokenService,
-                                  RevokedTokenRepository revokedTokenRepository,
+                                  TokenRevocationService revocations,
                                   String authHeaderName,
                                   String authHeaderPrefix) {
         this.userDetailsService = userDetailsService;
         this.tokenService = tokenService;
-        this.revokedTokenRepository = revokedTokenRepository;
+        this.revocations = revocations;
         this.authHeaderName = (authHeaderName == null || authHeaderName.isBlank()) ? "Authorization" : authHeaderName;
         this.authHeaderPrefix = (authHeaderPrefix == null || authHeaderPrefix.isBlank()) ? "Bearer " : authHeaderPrefix;
     }
@@ -92,30 +106,23 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
         }
 
         try {
-            var claims = tokenService.parse(token).getPayload();
-            String jti = claims.getId();
-            boolean revoked = false;
-            if (jti != null) {
-                try {
-                    revoked = revokedTokenRepository.existsById(jti);
-                } catch (Exception ex) {
-                    log.warn("Skipping revoked-token check due to repository error: {}", ex.getMessage());
-                }
-            }
-            if (revoked) {
+            Claims claims = tokenService.parse(token).getPayload();
+            String username = claims.getSubject();
+            if (revocations.isRevoked(claims.getId()) || username == null || username.isBlank()) {
                 SecurityContextHolder.clearContext();
             } else {
-                String username = claims.getSubject();
-                if (username != null && !username.isBlank()) {
-                    var userDetails = userDetailsService.loadUserByUsername(username);
-                    var auth = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    SecurityContext context = SecurityContextHolder.createEmptyContext();
-                    context.setAuthentication(auth);
-                    SecurityContextHolder.setContext(context);
+                UserDetails userDetails = fromClaims(username, claims);
+                if (userDetails == null) {
+                    // issued before roles/uv claims were added
+                    userDetails = userDetailsService.loadUserByUsername(username);
                 }
+                var auth = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(auth);
+                SecurityContextHolder.setContext(context);
             }
         } catch (ExpiredJwtException eje) {
             SecurityContextHolder.clearContext();
@@ -126,4 +133,25 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /** Principal built from the token's claims, or null when the token does not carry them. */
+    private UserDetails fromClaims(String username, Claims claims) {
+        Object roles = claims.get(JwtTokenService.ROLES_CLAIM);
+        Object version = claims.get(JwtTokenService.USER_VERSION_CLAIM);
+        if (!(roles instanceof Collection<?> roleNames) || !(version instanceof Number uv)) {
+            return null;
+        }
+        if (revocations.isStale(username, uv.longValue())) {
+            throw new IllegalStateException("token predates the user's current token version");
+        }
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>(Math.max(1, roleNames.size()));
+        for (Object role : roleNames) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+        }
+        if (authorities.isEmpty()) authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+        return User.withUsername(username)
+                .password("")
+                .authorities(authorities)
+                .build();
+    }
+}
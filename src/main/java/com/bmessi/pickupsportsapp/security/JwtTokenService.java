@@ -12,6 +12,9 @@ public class JwtTokenService {
 
     private static final Duration DEFAULT_CLOCK_SKEW = Duration.ofMinutes(2);
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_VERSION_CLAIM = "uv";
+
     private final SecretKey signingKey;
     private final String issuer;
     private final String audience;
@@ -90,6 +93,17 @@ public class JwtTokenService {
                 .compact();
     }
 
+    /**
+     * Access token carrying the user's roles ({@code roles}) and token version ({@code uv}), so requests
+     * can be authorized from the claims alone.
+     */
+    public String generate(String subject, java.util.Collection<String> roles, long userVersion) {
+        java.util.Map<String, Object> claims = new java.util.HashMap<>();
+        claims.put(ROLES_CLAIM, roles == null ? java.util.List.of() : java.util.List.copyOf(roles));
+        claims.put(USER_VERSION_CLAIM, userVersion);
+        return generateWithClaims(subject, claims);
+    }
+
     public Jws<Claims> parse(String token) {
         if (token == null || token.isBlank()) {
             throw new IllegalArgumentException("token must not be null or blank");
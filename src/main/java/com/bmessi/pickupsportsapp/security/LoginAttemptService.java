@@ -1,124 +1,313 @@
 package com.bmessi.pickupsportsapp.security;
 
 import com.bmessi.pickupsportsapp.config.properties.LoginPolicyProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Tracks failed logins per username, per client address and per client network (/24 for IPv4,
+ * /64 for IPv6), so a botnet rotating through one network is throttled as a whole.
+ *
+ * Counters live in Caffeine caches bounded by {@code auth.login.max-tracked-keys}; each failure
+ * rewrites its entry, so a counter expires once its key has been quiet for the window
+ * ({@code auth.login.lockout-minutes} + 1 for users, {@code auth.login.ip-window-minutes} for
+ * addresses and networks). With {@code auth.login.distributed-enabled} every failure is mirrored to
+ * Redis in one pipelined round trip (INCR + EXPIRE per key), the local counters adopt the global
+ * counts, and {@link #check} consults Redis with a single MGET. Redis failures fall back to the
+ * local counters.
+ *
+ * A username lock only refuses callers that share in the failures: an address or network with failed
+ * logins in the window gets {@link Verdict#USER_LOCKED}. Anyone else trying a locked username gets
+ * {@link Verdict#USER_CHALLENGED} and must pass a CAPTCHA. Failed logins from third parties therefore
+ * cannot lock the owner out, yet attackers cannot keep guessing by switching to clean addresses.
+ */
 @Service
 public class LoginAttemptService {
 
+    private static final Logger log = LoggerFactory.getLogger(LoginAttemptService.class);
+
+    public enum Verdict { ALLOWED, USER_LOCKED, USER_CHALLENGED, IP_BLOCKED, NETWORK_BLOCKED }
+
+    private static final String USER_FAIL = "fail:user:";
+    private static final String USER_LOCK = "lock:user:";
+    private static final String IP_FAIL = "fail:ip:";
+    private static final String NET_FAIL = "fail:net:";
+
     private final LoginPolicyProperties props;
     private final MeterRegistry metrics;
+    private final Optional<StringRedisTemplate> redis;
+    private final Clock clock;
 
-    @org.springframework.beans.factory.annotation.Autowired(required = false)
-    private org.springframework.data.redis.core.StringRedisTemplate redis;
+    private final Cache<String, Integer> userFailures;
+    private final Cache<String, Long> userLocks;
+    private final Cache<String, Integer> addressFailures;
 
-    private static final class UserState {
-        final AtomicInteger failures = new AtomicInteger(0);
-        volatile long lockoutUntilEpochMs = 0;
+    public LoginAttemptService(LoginPolicyProperties props,
+                               MeterRegistry metrics,
+                               Optional<StringRedisTemplate> redis,
+                               Clock clock) {
+        this.props = props;
+        this.metrics = metrics;
+        this.redis = redis;
+        this.clock = clock;
+        int maxKeys = Math.max(1_000, props.getMaxTrackedKeys());
+        this.userFailures = cache(maxKeys, userFailureTtl());
+        this.userLocks = cache(maxKeys, lockoutTtl());
+        this.addressFailures = cache(maxKeys * 2L, ipWindow());
     }
 
-    private static final class IpWindow {
-        volatile long startEpochMs = System.currentTimeMillis();
-        final AtomicInteger failures = new AtomicInteger(0);
-    }
+    /** Whether a login for {@code username} from {@code ip} may proceed. */
+    public Verdict check(String username, String ip) {
+        String user = normalizeUser(username);
+        String address = blankToNull(ip);
+        String network = address == null ? null : networkOf(address);
 
-    private final Map<String, UserState> users = new ConcurrentHashMap<>();
-    private final Map<String, IpWindow> ips = new ConcurrentHashMap<>();
+        if (isDistributed()) {
+            List<String> keys = new ArrayList<>(3);
+            keys.add(user == null ? USER_LOCK : USER_LOCK + user);
+            keys.add(address == null ? IP_FAIL : IP_FAIL + address);
+            keys.add(network == null ? NET_FAIL : NET_FAIL + network);
+            try {
+                List<String> values = redis.get().opsForValue().multiGet(keys);
+                if (values != null && values.size() == 3) {
+                    int ipFailures = address == null ? 0 : parse(values.get(1));
+                    int netFailures = network == null ? 0 : parse(values.get(2));
+                    if (user != null && values.get(0) != null) return lockedFor(address, ipFailures + netFailures);
+                    if (ipFailures > props.getMaxFailuresPerIp()) return Verdict.IP_BLOCKED;
+                    if (netFailures > props.getMaxFailuresPerNetwork()) return Verdict.NETWORK_BLOCKED;
+                    return Verdict.ALLOWED;
+                }
+            } catch (Exception e) {
+                redisFailed(e);
+            }
+        }
 
-    public LoginAttemptService(LoginPolicyProperties props, MeterRegistry metrics) {
-        this.props = props;
-        this.metrics = metrics;
+        int ipFailures = address == null ? 0 : count(IP_FAIL + address);
+        int netFailures = network == null ? 0 : count(NET_FAIL + network);
+        if (user != null) {
+            Long until = userLocks.getIfPresent(user);
+            if (until != null && until > clock.millis()) return lockedFor(address, ipFailures + netFailures);
+        }
+        if (ipFailures > props.getMaxFailuresPerIp()) return Verdict.IP_BLOCKED;
+        if (netFailures > props.getMaxFailuresPerNetwork()) return Verdict.NETWORK_BLOCKED;
+        return Verdict.ALLOWED;
     }
 
     public boolean isUserLocked(String username) {
-        if (username == null || username.isBlank()) return false;
-        if (redis != null && props.getLockoutMinutes() > 0 && props.getMaxFailuresPerUser() > 0
-                && isDistributed()) {
-            String lockKey = "lock:user:" + username.toLowerCase();
-            Boolean exists = redis.hasKey(lockKey);
-            return Boolean.TRUE.equals(exists);
-        }
-        UserState st = users.get(username.toLowerCase());
-        long now = System.currentTimeMillis();
-        return st != null && st.lockoutUntilEpochMs > now;
+        return check(username, null) == Verdict.USER_LOCKED;
     }
 
     public boolean isIpBlocked(String ip) {
-        if (ip == null || ip.isBlank()) return false;
-        IpWindow w = ips.get(ip);
-        if (w == null) return false;
-        long now = System.currentTimeMillis();
-        long windowMs = Duration.ofMinutes(props.getIpWindowMinutes()).toMillis();
-        if (now - w.startEpochMs >= windowMs) return false;
-        return w.failures.get() > props.getMaxFailuresPerIp();
+        Verdict v = check(null, ip);
+        return v == Verdict.IP_BLOCKED || v == Verdict.NETWORK_BLOCKED;
     }
 
     public void onFailure(String username, String ip) {
-        long now = System.currentTimeMillis();
-
-        // per-user failures and lockout
-        if (username != null && !username.isBlank()) {
-            String key = username.toLowerCase();
-
-            if (redis != null && isDistributed()) {
-                String failKey = "fail:user:" + key;
-                Long count = redis.opsForValue().increment(failKey);
-                if (count != null && count == 1L) {
-                    // expire fail counter slightly beyond lockout window to ensure cleanup
-                    redis.expire(failKey, Duration.ofMinutes(props.getLockoutMinutes() + 1));
-                }
-                if (count != null && count >= props.getMaxFailuresPerUser()) {
-                    String lockKey = "lock:user:" + key;
-                    redis.opsForValue().set(lockKey, "1", Duration.ofMinutes(props.getLockoutMinutes()));
-                    metrics.counter("security.login.locked").increment();
-                }
-            } else {
-                UserState st = users.computeIfAbsent(key, k -> new UserState());
-                int fail = st.failures.incrementAndGet();
-                if (fail >= props.getMaxFailuresPerUser()) {
-                    st.lockoutUntilEpochMs = now + Duration.ofMinutes(props.getLockoutMinutes()).toMillis();
-                    metrics.counter("security.login.locked").increment();
-                }
-            }
+        String user = normalizeUser(username);
+        String address = blankToNull(ip);
+        String network = address == null ? null : networkOf(address);
+
+        int userCount = 0;
+        if (user != null) {
+            userCount = userFailures.asMap().merge(user, 1, Integer::sum);
         }
+        if (address != null) addressFailures.asMap().merge(IP_FAIL + address, 1, Integer::sum);
+        if (network != null) addressFailures.asMap().merge(NET_FAIL + network, 1, Integer::sum);
 
-        // per-IP window
-        if (ip != null && !ip.isBlank()) {
-            IpWindow w = ips.computeIfAbsent(ip, k -> new IpWindow());
-            long windowMs = Duration.ofMinutes(props.getIpWindowMinutes()).toMillis();
-            if (now - w.startEpochMs >= windowMs) {
-                w.startEpochMs = now;
-                w.failures.set(0);
-            }
-            w.failures.incrementAndGet();
+        if (isDistributed()) {
+            userCount = Math.max(userCount, mirror(user, address, network));
         }
 
+        if (user != null && props.getMaxFailuresPerUser() > 0 && userCount >= props.getMaxFailuresPerUser()) {
+            lock(user);
+        }
         metrics.counter("security.login.attempts", "result", "failure").increment();
     }
 
     public void onSuccess(String username, String ip) {
-        if (username != null && !username.isBlank()) {
-            if (redis != null && isDistributed()) {
-                String failKey = "fail:user:" + username.toLowerCase();
-                try { redis.delete(failKey); } catch (Exception ignore) {}
-            } else {
-                UserState st = users.get(username.toLowerCase());
-                if (st != null) {
-                    st.failures.set(0);
-                    st.lockoutUntilEpochMs = 0;
+        String user = normalizeUser(username);
+        if (user != null) {
+            userFailures.invalidate(user);
+            userLocks.invalidate(user);
+            if (isDistributed()) {
+                try {
+                    // The lock too: check() reads it before any local state, so it would outlive the success
+                    redis.get().delete(List.of(USER_FAIL + user, USER_LOCK + user));
+                } catch (Exception e) {
+                    redisFailed(e);
                 }
             }
         }
         metrics.counter("security.login.attempts", "result", "success").increment();
     }
 
+    /** Number of usernames, addresses and networks currently tracked in memory. */
+    public long trackedKeys() {
+        userFailures.cleanUp();
+        userLocks.cleanUp();
+        addressFailures.cleanUp();
+        return userFailures.estimatedSize() + userLocks.estimatedSize() + addressFailures.estimatedSize();
+    }
+
+    /** The /24 (IPv4) or /64 (IPv6) network of a literal address, or null when {@code ip} is not one. */
+    public static String networkOf(String ip) {
+        if (ip.indexOf(':') >= 0) {
+            // Only hand pure literals to InetAddress so it never falls back to a DNS lookup
+            for (int i = 0; i < ip.length(); i++) {
+                char c = ip.charAt(i);
+                if (Character.digit(c, 16) < 0 && c != ':' && c != '.') return null;
+            }
+            try {
+                byte[] b = InetAddress.getByName(ip).getAddress();
+                if (b.length == 4) return (b[0] & 0xff) + "." + (b[1] & 0xff) + "." + (b[2] & 0xff) + ".0/24";
+                return String.format(Locale.ROOT, "%x:%x:%x:%x::/64",
+                        ((b[0] & 0xff) << 8) | (b[1] & 0xff), ((b[2] & 0xff) << 8) | (b[3] & 0xff),
+                        ((b[4] & 0xff) << 8) | (b[5] & 0xff), ((b[6] & 0xff) << 8) | (b[7] & 0xff));
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+        int octets = 0;
+        int value = -1;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c == '.') {
+                if (value < 0) return null;
+                octets++;
+                value = -1;
+            } else if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) return null;
+            } else {
+                return null;
+            }
+        }
+        if (octets != 3 || value < 0) return null;
+        return ip.substring(0, ip.lastIndexOf('.')) + ".0/24";
+    }
+
+    // --- Helpers ---
+
+    /** Pipelines INCR + EXPIRE for each key and adopts the global counts; returns the user's global count. */
+    private int mirror(String user, String address, String network) {
+        List<String> keys = new ArrayList<>(3);
+        List<Duration> ttls = new ArrayList<>(3);
+        if (user != null) { keys.add(USER_FAIL + user); ttls.add(userFailureTtl()); }
+        if (address != null) { keys.add(IP_FAIL + address); ttls.add(ipWindow()); }
+        if (network != null) { keys.add(NET_FAIL + network); ttls.add(ipWindow()); }
+        if (keys.isEmpty()) return 0;
+        try {
+            List<Object> results = redis.get().executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (int i = 0; i < keys.size(); i++) {
+                    conn.incr(keys.get(i));
+                    conn.expire(keys.get(i), ttls.get(i).toSeconds());
+                }
+                return null;
+            });
+            int userCount = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                Object r = results.get(i * 2);
+                if (!(r instanceof Number n)) continue;
+                int global = n.intValue();
+                String key = keys.get(i);
+                if (key.startsWith(USER_FAIL)) {
+                    userCount = global;
+                    userFailures.asMap().merge(user, global, Math::max);
+                } else {
+                    addressFailures.asMap().merge(key, global, Math::max);
+                }
+            }
+            return userCount;
+        } catch (Exception e) {
+            redisFailed(e);
+            return 0;
+        }
+    }
+
+    /** Hard lock for callers whose address or network took part in the failures, a challenge for the rest. */
+    private static Verdict lockedFor(String address, int callerFailures) {
+        return address == null || callerFailures > 0 ? Verdict.USER_LOCKED : Verdict.USER_CHALLENGED;
+    }
+
+    private void lock(String user) {
+        userLocks.put(user, clock.millis() + lockoutTtl().toMillis());
+        if (isDistributed()) {
+            try {
+                redis.get().opsForValue().set(USER_LOCK + user, "1", lockoutTtl());
+            } catch (Exception e) {
+                redisFailed(e);
+            }
+        }
+        metrics.counter("security.login.locked").increment();
+    }
+
+    private int count(String key) {
+        Integer n = addressFailures.getIfPresent(key);
+        return n == null ? 0 : n;
+    }
+
+    private <V> Cache<String, V> cache(long maxKeys, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
+    }
+
+    private Duration lockoutTtl() {
+        return Duration.ofMinutes(Math.max(1, props.getLockoutMinutes()));
+    }
+
+    private Duration userFailureTtl() {
+        // slightly beyond the lockout window so the counter outlives the lock it caused
+        return lockoutTtl().plusMinutes(1);
+    }
+
+    private Duration ipWindow() {
+        return Duration.ofMinutes(Math.max(1, props.getIpWindowMinutes()));
+    }
+
     private boolean isDistributed() {
-        return props != null && props.isDistributedEnabled();
+        return props.isDistributedEnabled() && redis.isPresent();
+    }
+
+    private void redisFailed(Exception e) {
+        metrics.counter("security.login.redis.errors").increment();
+        log.debug("Login attempt store unavailable, using local counters: {}", e.getMessage());
+    }
+
+    private static int parse(String v) {
+        if (v == null) return 0;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String normalizeUser(String username) {
+        return username == null || username.isBlank() ? null : username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
     }
 }
@@ -0,0 +1,117 @@
+package com.bmessi.pickupsportsapp.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded pool for password hashing so bcrypt/argon2 CPU cannot starve the web workers.
+ *
+ * {@code security.password.hashing.threads} hashes run at once and at most
+ * {@code security.password.hashing.queue-capacity} wait; beyond that, and when a queued hash waits
+ * longer than {@code security.password.hashing.timeout-ms}, the caller gets a
+ * {@link PasswordHashingSaturatedException} right away. Its {@code Retry-After} is the time the
+ * current queue needs to drain at the recent average hash duration.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor pool;
+    private final int threads;
+    private final long timeoutMs;
+    private final Timer hashTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+    // Exponentially weighted average of hash duration, in milliseconds
+    private volatile double avgHashMs = 100;
+
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   @Value("${security.password.hashing.threads:0}") int threads,
+                                   @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${security.password.hashing.timeout-ms:5000}") long timeoutMs) {
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.timeoutMs = Math.max(100L, timeoutMs);
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.hashTimer = meterRegistry.timer("security.password.hash");
+        this.waitTimer = meterRegistry.timer("security.password.hash.wait");
+        this.rejected = meterRegistry.counter("security.password.hash.rejected");
+        Gauge.builder("security.password.hash.queue.depth", pool, p -> p.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("security.password.hash.active", pool, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /** Runs {@code task} on the hashing pool and waits for its result. */
+    public <T> T run(Supplier<T> task) {
+        long enqueued = System.nanoTime();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                long start = System.nanoTime();
+                waitTimer.record(start - enqueued, TimeUnit.NANOSECONDS);
+                try {
+                    return task.get();
+                } finally {
+                    long took = System.nanoTime() - start;
+                    hashTimer.record(took, TimeUnit.NANOSECONDS);
+                    avgHashMs = avgHashMs * 0.9 + (took / 1_000_000.0) * 0.1;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw saturated();
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw saturated();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw saturated();
+        }
+    }
+
+    public int queueDepth() {
+        return pool.getQueue().size();
+    }
+
+    private PasswordHashingSaturatedException saturated() {
+        rejected.increment();
+        double drainMs = (pool.getQueue().size() + pool.getActiveCount()) * avgHashMs / threads;
+        return new PasswordHashingSaturatedException(Math.max(1L, (long) Math.ceil(drainMs / 1000.0)));
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,18 @@
+package com.bmessi.pickupsportsapp.security;
+
+/**
+ * Thrown when the password hashing pool is full; callers should answer 503 with {@code Retry-After}.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingSaturatedException(long retryAfterSeconds) {
+        super("Password hashing capacity exhausted");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,276 @@
+package com.bmessi.pickupsportsapp.security;
+
+import com.bmessi.pickupsportsapp.util.BloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of {@code revoked_token}, so authenticating a request never queries the database.
+ *
+ * Lookups go through a Bloom filter first: for the common case of a token that was never revoked,
+ * the filter answers "no" without touching the exact set. Entries whose jti is
+ * {@code uv:<username>:<version>} revoke every token of that user whose {@code uv} claim is lower.
+ *
+ * How the view is kept current:
+ * <ul>
+ *   <li>Rows revoked since the last watermark are read every {@code security.revocation.refresh-ms}.
+ *       The watermark is rewound by {@code security.revocation.overlap-ms} to catch late commits.</li>
+ *   <li>Revocations made on this node, or broadcast by others over the Redis channel
+ *       {@value #CHANNEL} ({@code security.revocation.redis.enabled}), apply immediately.</li>
+ *   <li>The filter is rebuilt every {@code security.revocation.rebuild-ms} without expired entries.</li>
+ * </ul>
+ * If the database is unreachable the last view stays in place (fail-open, as before).
+ *
+ * The initial load runs in an early lifecycle phase, ahead of the embedded web server, so no request
+ * or WebSocket CONNECT is authorized against an empty view.
+ */
+@Component
+public class TokenRevocationService implements MessageListener, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    public static final String CHANNEL = "token-revocations";
+    /** Before the web server's start/stop phase ({@code DEFAULT_PHASE - 1024}); stops after it. */
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    static final String USER_VERSION_PREFIX = "uv:";
+
+    private final JdbcTemplate jdbc;
+    private final Optional<StringRedisTemplate> redis;
+    private final Optional<RedisMessageListenerContainer> container;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean pubSub;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final Duration overlap;
+    private final Duration userRevocationTtl;
+
+    private volatile State state;
+    private volatile Instant watermark = Instant.EPOCH;
+    private volatile boolean running;
+
+    private static final class State {
+        final BloomFilter bloom;
+        final Set<String> jtis = ConcurrentHashMap.newKeySet();
+        final Map<String, Long> minUserVersion = new ConcurrentHashMap<>();
+
+        State(long capacity, double fpp) {
+            this.bloom = new BloomFilter(capacity, fpp);
+        }
+
+        void add(String jti) {
+            jtis.add(jti);
+            bloom.put(jti);
+            if (jti.startsWith(USER_VERSION_PREFIX)) {
+                int sep = jti.lastIndexOf(':');
+                if (sep > USER_VERSION_PREFIX.length()) {
+                    try {
+                        long version = Long.parseLong(jti.substring(sep + 1));
+                        minUserVersion.merge(jti.substring(USER_VERSION_PREFIX.length(), sep), version, Math::max);
+                    } catch (NumberFormatException ignore) {
+                        // not a user-version entry after all
+                    }
+                }
+            }
+        }
+    }
+
+    public TokenRevocationService(JdbcTemplate jdbc,
+                                  Optional<StringRedisTemplate> redis,
+                                  Optional<RedisMessageListenerContainer> container,
+                                  MeterRegistry meterRegistry,
+                                  Clock clock,
+                                  @Value("${security.revocation.redis.enabled:false}") boolean pubSub,
+                                  @Value("${security.revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${security.revocation.overlap-ms:300000}") long overlapMs,
+                                  @Value("${security.jwt.expiration-minutes:15}") long tokenMinutes) {
+        this.jdbc = jdbc;
+        this.redis = redis;
+        this.container = container;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.pubSub = pubSub && redis.isPresent() && container.isPresent();
+        this.expectedEntries = Math.max(1_000, expectedEntries);
+        this.falsePositiveRate = falsePositiveRate;
+        this.overlap = Duration.ofMillis(Math.max(0L, overlapMs));
+        // A user-version entry only has to outlive the tokens it revokes (plus the parser's clock skew)
+        this.userRevocationTtl = Duration.ofMinutes(Math.max(1L, tokenMinutes) + 2);
+        this.state = new State(this.expectedEntries, falsePositiveRate);
+        Gauge.builder("security.revocation.entries", this, s -> s.state.jtis.size())
+                .description("Revoked token entries held in memory")
+                .register(meterRegistry);
+    }
+
+    /** True when {@code jti} has been revoked. No I/O. */
+    public boolean isRevoked(String jti) {
+        if (jti == null) return false;
+        State s = state;
+        if (!s.bloom.mightContain(jti)) return false;
+        boolean revoked = s.jtis.contains(jti);
+        if (!revoked) meterRegistry.counter("security.revocation.bloom.false-positive").increment();
+        return revoked;
+    }
+
+    /** True when every token of {@code username} below a newer user version has been revoked. */
+    public boolean isStale(String username, long userVersion) {
+        Long min = state.minUserVersion.get(username);
+        return min != null && userVersion < min;
+    }
+
+    /** Revokes one token by jti. */
+    public void revoke(String jti, Instant expiresAt, String reason) {
+        insert(jti, expiresAt, reason);
+        afterCommit(jti);
+    }
+
+    /**
+     * Revokes all tokens of {@code username} issued before {@code newVersion}; the caller has already
+     * stored {@code newVersion} as the user's token version in the same transaction.
+     */
+    public void revokeUserTokensBefore(String username, long newVersion) {
+        String jti = USER_VERSION_PREFIX + username + ":" + newVersion;
+        insert(jti, clock.instant().plus(userRevocationTtl), "user-version");
+        afterCommit(jti);
+    }
+
+    /** Reads revocations committed since the last watermark. */
+    @Scheduled(fixedDelayString = "${security.revocation.refresh-ms:15000}")
+    public void refresh() {
+        Instant from = watermark.minus(overlap);
+        try {
+            State s = state;
+            Instant[] max = {watermark};
+            jdbc.query("SELECT jti, revoked_at FROM revoked_token WHERE revoked_at >= ?",
+                    rs -> {
+                        s.add(rs.getString("jti"));
+                        Timestamp at = rs.getTimestamp("revoked_at");
+                        if (at != null && at.toInstant().isAfter(max[0])) max[0] = at.toInstant();
+                    }, Timestamp.from(from.isBefore(Instant.EPOCH) ? Instant.EPOCH : from));
+            watermark = max[0];
+        } catch (Exception e) {
+            meterRegistry.counter("security.revocation.refresh.errors").increment();
+            log.warn("Revoked-token refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /** Rebuilds the filter from unexpired rows, sized for the current number of entries. */
+    @Scheduled(fixedDelayString = "${security.revocation.rebuild-ms:3600000}",
+            initialDelayString = "${security.revocation.rebuild-ms:3600000}")
+    public void rebuild() {
+        try {
+            Integer count = jdbc.queryForObject(
+                    "SELECT COUNT(*) FROM revoked_token WHERE expires_at IS NULL OR expires_at > ?",
+                    Integer.class, Timestamp.from(clock.instant()));
+            State fresh = new State(Math.max(expectedEntries, (count == null ? 0 : count) * 2L), falsePositiveRate);
+            Instant[] max = {Instant.EPOCH};
+            jdbc.query("SELECT jti, revoked_at FROM revoked_token WHERE expires_at IS NULL OR expires_at > ?",
+                    rs -> {
+                        fresh.add(rs.getString("jti"));
+                        Timestamp at = rs.getTimestamp("revoked_at");
+                        if (at != null && at.toInstant().isAfter(max[0])) max[0] = at.toInstant();
+                    }, Timestamp.from(clock.instant()));
+            state = fresh;
+            if (max[0].isAfter(watermark)) watermark = max[0];
+            // Pick up anything revoked while the rebuild was reading
+            refresh();
+            log.debug("Revocation filter rebuilt with {} entries", fresh.jtis.size());
+        } catch (Exception e) {
+            meterRegistry.counter("security.revocation.refresh.errors").increment();
+            log.warn("Revocation filter rebuild failed; keeping the current one: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String jti = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!jti.isBlank()) state.add(jti);
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        if (pubSub) {
+            container.get().addMessageListener(this, new ChannelTopic(CHANNEL));
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (pubSub) {
+            container.get().removeMessageListener(this);
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    // --- Helpers ---
+
+    private void insert(String jti, Instant expiresAt, String reason) {
+        try {
+            jdbc.update("INSERT INTO revoked_token (jti, revoked_at, expires_at, reason) VALUES (?, ?, ?, ?)",
+                    jti, Timestamp.from(clock.instant()), expiresAt == null ? null : Timestamp.from(expiresAt), reason);
+        } catch (DuplicateKeyException ignore) {
+            // already revoked
+        }
+    }
+
+    private void afterCommit(String jti) {
+        Runnable apply = () -> {
+            state.add(jti);
+            if (pubSub) {
+                try {
+                    redis.get().convertAndSend(CHANNEL, jti);
+                } catch (Exception e) {
+                    // other nodes still pick it up on their next refresh
+                    log.warn("Failed to broadcast token revocation: {}", e.getMessage());
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+}
@@ -1,21 +1,64 @@
 package com.bmessi.pickupsportsapp.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Simple in-memory velocity checker to detect rapid repeated actions.
  * Not a replacement for a full distributed rate limiter but sufficient
  * for basic suspicious activity detection and logging.
+ *
+ * Each key is an approximate sliding window: the counts of the current and previous fixed window,
+ * weighted by how much of the previous window still overlaps. Both counts and the window index are
+ * packed into one long updated by CAS, so a key costs O(1) memory regardless of its limit and
+ * callers never block each other. Counters are kept per key and window length, so every call is judged
+ * against the window it asks for. A key is dropped two windows after its last event, and at most
+ * {@code security.velocity.max-keys} keys are kept.
  */
 @Service
 public class VelocityCheckService {
 
-    private final Map<String, Deque<Long>> events = new ConcurrentHashMap<>();
+    private static final int COUNT_BITS = 21;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long WINDOW_MASK = (1L << (64 - 2 * COUNT_BITS)) - 1;
+
+    private final Clock clock;
+    private final Cache<CounterKey, Counter> counters;
+
+    private record CounterKey(String key, long windowMs) {}
+
+    public VelocityCheckService(Clock clock,
+                                @Value("${security.velocity.max-keys:100000}") int maxKeys) {
+        this.clock = clock;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(Math.max(1_000, maxKeys))
+                .expireAfter(new Expiry<CounterKey, Counter>() {
+                    @Override
+                    public long expireAfterCreate(CounterKey key, Counter c, long currentTime) {
+                        return c.idleNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(CounterKey key, Counter c, long currentTime, long currentDuration) {
+                        return c.idleNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(CounterKey key, Counter c, long currentTime, long currentDuration) {
+                        return c.idleNanos();
+                    }
+                })
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
+    }
 
     /**
      * Record an action and check if it exceeds the provided limit within the window.
@@ -26,15 +69,68 @@ public class VelocityCheckService {
      * @return true if within limits, false if velocity exceeded
      */
     public boolean incrementAndCheck(String key, int limit, long windowMs) {
-        long now = System.currentTimeMillis();
-        Deque<Long> deque = events.computeIfAbsent(key, k -> new ArrayDeque<>());
-        synchronized (deque) {
-            while (!deque.isEmpty() && now - deque.peekFirst() > windowMs) {
-                deque.pollFirst();
+        long window = Math.max(1L, windowMs);
+        Counter c = counters.get(new CounterKey(key, window), k -> new Counter(k.windowMs()));
+        return c.increment(clock.millis()) <= limit;
+    }
+
+    /** Number of keys currently tracked. */
+    public long trackedKeys() {
+        counters.cleanUp();
+        return counters.estimatedSize();
+    }
+
+    static final class Counter {
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Counter.class, "state", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        final long windowMs;
+        // [window index: 22 bits][current count: 21 bits][previous count: 21 bits]
+        private volatile long state;
+
+        Counter(long windowMs) {
+            this.windowMs = windowMs;
+        }
+
+        long idleNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(windowMs * 2);
+        }
+
+        /** Counts one event at {@code now} and returns the sliding-window estimate including it. */
+        double increment(long now) {
+            long windowIndex = now / windowMs;
+            long w = windowIndex & WINDOW_MASK;
+            long prevW = (windowIndex - 1) & WINDOW_MASK;
+            for (;;) {
+                long s = state;
+                long sw = s >>> (2 * COUNT_BITS);
+                long cur = (s >>> COUNT_BITS) & COUNT_MASK;
+                long prev = s & COUNT_MASK;
+                long nextCur;
+                long nextPrev;
+                if (sw == w) {
+                    nextCur = Math.min(cur + 1, COUNT_MASK);
+                    nextPrev = prev;
+                } else if (sw == prevW) {
+                    nextCur = 1;
+                    nextPrev = cur;
+                } else {
+                    nextCur = 1;
+                    nextPrev = 0;
+                }
+                long next = (w << (2 * COUNT_BITS)) | (nextCur << COUNT_BITS) | nextPrev;
+                if (STATE.compareAndSet(this, s, next)) {
+                    double elapsed = (double) (now % windowMs) / windowMs;
+                    return nextPrev * (1.0 - elapsed) + nextCur;
+                }
             }
-            deque.addLast(now);
-            return deque.size() <= limit;
         }
     }
 }
-
@@ -0,0 +1,124 @@
+package com.bmessi.pickupsportsapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Bounded, short-TTL cache of verified WebSocket CONNECT tokens.
+ *
+ * Keys are SHA-256 fingerprints of the raw JWT, so reconnect storms presenting the same token are
+ * verified once per TTL instead of once per CONNECT. Concurrent misses for one token are coalesced
+ * by the cache. Revocation, both of the token's jti and of every token below the user's current
+ * {@code uv} version, is checked against {@link TokenRevocationService}'s in-memory view on hits and
+ * misses alike, so neither does database I/O and a revoked token stops connecting at once. Cached
+ * entries are also swept against it every {@code ws.connect-auth.revocation-check-ms}.
+ */
+@Component
+public class WsConnectAuthCache {
+
+    private final JwtTokenService tokenService;
+    private final TokenRevocationService revocations;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Cache<String, Entry> cache;
+
+    private record Entry(Authentication authentication, String jti, String username, Long userVersion, Instant expiresAt) {}
+
+    public WsConnectAuthCache(JwtTokenService tokenService,
+                              TokenRevocationService revocations,
+                              MeterRegistry meterRegistry,
+                              Clock clock,
+                              @Value("${ws.connect-auth.cache-size:20000}") long maxEntries,
+                              @Value("${ws.connect-auth.ttl-seconds:60}") long ttlSeconds) {
+        this.tokenService = tokenService;
+        this.revocations = revocations;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(100L, maxEntries))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(5L, ttlSeconds)))
+                .build();
+    }
+
+    /**
+     * Returns the authentication for {@code token}, verifying signature/claims and revocation only on a
+     * cache miss. {@code toAuthentication} maps verified claims to the principal stored on the session.
+     * Invalid, expired or revoked tokens propagate as exceptions and are never cached.
+     */
+    public Authentication authenticate(String token, Function<Claims, Authentication> toAuthentication) {
+        String fp = fingerprint(token);
+        Entry hit = cache.getIfPresent(fp);
+        if (hit != null) {
+            if (revoked(hit)) {
+                cache.invalidate(fp);
+                meterRegistry.counter("ws.connect.auth", "result", "revoked").increment();
+                throw new MessagingException("Token revoked");
+            }
+            if (hit.expiresAt() == null || hit.expiresAt().isAfter(clock.instant())) {
+                meterRegistry.counter("ws.connect.auth", "result", "hit").increment();
+                return hit.authentication();
+            }
+            cache.invalidate(fp);
+        }
+        meterRegistry.counter("ws.connect.auth", "result", "miss").increment();
+        return cache.get(fp, k -> verify(token, toAuthentication)).authentication();
+    }
+
+    private Entry verify(String token, Function<Claims, Authentication> toAuthentication) {
+        Claims claims = tokenService.parse(token).getPayload();
+        Long uv = claims.get(JwtTokenService.USER_VERSION_CLAIM) instanceof Number n ? n.longValue() : null;
+        Instant exp = claims.getExpiration() == null ? null : claims.getExpiration().toInstant();
+        Entry entry = new Entry(null, claims.getId(), claims.getSubject(), uv, exp);
+        if (revoked(entry)) {
+            meterRegistry.counter("ws.connect.auth", "result", "revoked").increment();
+            throw new MessagingException("Token revoked");
+        }
+        return new Entry(toAuthentication.apply(claims), entry.jti(), entry.username(), uv, exp);
+    }
+
+    /** Revoked by jti, or issued before the user's current token version (tokens without {@code uv} predate it). */
+    private boolean revoked(Entry e) {
+        if (revocations.isRevoked(e.jti())) return true;
+        return e.username() != null && e.userVersion() != null && revocations.isStale(e.username(), e.userVersion());
+    }
+
+    /** Drops cached entries that have since been revoked. */
+    @Scheduled(fixedDelayString = "${ws.connect-auth.revocation-check-ms:5000}")
+    public void recheckRevocations() {
+        int evicted = 0;
+        for (var it = cache.asMap().values().iterator(); it.hasNext(); ) {
+            if (revoked(it.next())) {
+                it.remove();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            meterRegistry.counter("ws.connect.auth.revoked-evictions").increment(evicted);
+        }
+    }
+
+    private static String fingerprint(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.bmessi.pickupsportsapp.security.ratelimit;
+
+import com.bmessi.pickupsportsapp.config.properties.RateLimitProperties;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maps a request to its rate-limit policy and a route template, so {@code /games/17/join} and
+ * {@code /games/18/join} share one counter instead of minting a key per id.
+ *
+ * Configured routes win, in declaration order. Otherwise the path is normalized: id-like segments
+ * (numbers, UUIDs, long hex or opaque tokens) become {@code {id}} and anything deeper than
+ * {@code security.rate-limit.max-path-depth} collapses into {@code /**}.
+ */
+@Component
+public class RouteTemplateResolver {
+
+    public record Route(String policyName, String template, int limit, int windowSeconds) {}
+
+    private record Compiled(PathPattern pattern, Set<String> methods, Route route) {}
+
+    private final List<Compiled> routes = new ArrayList<>();
+    private final RateLimitProperties.Policy defaults;
+    private final int maxDepth;
+
+    public RouteTemplateResolver(RateLimitProperties props) {
+        this.defaults = props.getDefaults();
+        this.maxDepth = Math.max(1, props.getMaxPathDepth());
+        for (RateLimitProperties.Policy p : props.getRoutes()) {
+            if (p.getPattern() == null || p.getPattern().isBlank()) continue;
+            Set<String> methods = p.getMethods().stream()
+                    .map(m -> m.trim().toUpperCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+            String name = p.getName() != null ? p.getName() : p.getPattern();
+            routes.add(new Compiled(PathPatternParser.defaultInstance.parse(p.getPattern()), methods,
+                    new Route(name, p.getPattern(), Math.max(1, p.getLimit()), Math.max(1, p.getWindowSeconds()))));
+        }
+    }
+
+    public Route resolve(String method, String uri) {
+        String path = uri == null || uri.isEmpty() ? "/" : uri;
+        if (!routes.isEmpty()) {
+            PathContainer container = PathContainer.parsePath(path);
+            for (Compiled c : routes) {
+                if ((c.methods().isEmpty() || c.methods().contains(method)) && c.pattern().matches(container)) {
+                    return c.route();
+                }
+            }
+        }
+        return new Route(defaults.getName(), normalize(path, maxDepth),
+                Math.max(1, defaults.getLimit()), Math.max(1, defaults.getWindowSeconds()));
+    }
+
+    static String normalize(String path, int maxDepth) {
+        StringBuilder out = new StringBuilder(Math.min(path.length(), 64));
+        int depth = 0;
+        int i = 0;
+        int n = path.length();
+        while (i < n) {
+            while (i < n && path.charAt(i) == '/') i++;
+            if (i >= n) break;
+            int end = path.indexOf('/', i);
+            if (end < 0) end = n;
+            if (depth == maxDepth) {
+                out.append("/**");
+                break;
+            }
+            out.append('/');
+            if (isIdLike(path, i, end)) {
+                out.append("{id}");
+            } else {
+                out.append(path, i, end);
+            }
+            depth++;
+            i = end;
+        }
+        return out.length() == 0 ? "/" : out.toString();
+    }
+
+    private static boolean isIdLike(String s, int from, int to) {
+        int len = to - from;
+        if (len > 32) return true;
+        boolean digitsOnly = true;
+        boolean hexOrDash = true;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') digitsOnly = false;
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == '-')) {
+                hexOrDash = false;
+            }
+        }
+        return digitsOnly || (hexOrDash && len >= 16);
+    }
+}
@@ -0,0 +1,82 @@
+package com.bmessi.pickupsportsapp.security.ratelimit;
+
+import com.bmessi.pickupsportsapp.web.EdgeFilter;
+import com.bmessi.pickupsportsapp.web.EdgeRouteClassifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Throttles RSVP joins/leaves with two keyed budgets: one per user (per IP when anonymous) and one
+ * per game, so a single client cannot hammer a game and a hot game cannot take the whole node down,
+ * while unrelated users never compete for the same permits. {@code Retry-After} comes from the state
+ * of whichever bucket rejected the request. A request the game budget rejects hands its user permit
+ * back, so a client retrying a full game does not use up its budget for other games.
+ *
+ * The game id comes from the classification {@link EdgeFilter} stored on the request; the path is only
+ * parsed here when that filter did not run.
+ */
+public class RsvpRateLimitFilter extends OncePerRequestFilter {
+
+    public record Budget(int limit, int windowSeconds) {}
+
+    private final SlidingWindowRateLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final Budget perUser;
+    private final Budget perGame;
+
+    public RsvpRateLimitFilter(SlidingWindowRateLimiter limiter, MeterRegistry meterRegistry,
+                               Budget perUser, Budget perGame) {
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+        this.perUser = perUser;
+        this.perGame = perGame;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return gameId(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String gameId = gameId(request);
+
+        Principal principal = request.getUserPrincipal();
+        String caller = principal != null ? "u:" + principal.getName() : "ip:" + request.getRemoteAddr();
+
+        String userKey = "rsvp|" + caller;
+        SlidingWindowRateLimiter.Decision decision =
+                limiter.tryAcquire(userKey, perUser.limit(), perUser.windowSeconds());
+        String scope = "user";
+        if (decision.allowed()) {
+            decision = limiter.tryAcquire("rsvp-game|" + gameId, perGame.limit(), perGame.windowSeconds());
+            scope = "game";
+            if (!decision.allowed()) limiter.release(userKey);
+        }
+        if (!decision.allowed()) {
+            meterRegistry.counter("rsvp.ratelimit.rejected", "scope", scope).increment();
+            long retryAfter = decision.retryAfterSeconds();
+            response.setStatus(429);
+            response.setContentType("application/json");
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.getWriter().write("{\"error\":\"too_many_requests\",\"retryAfter\":" + retryAfter + "}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String gameId(HttpServletRequest request) {
+        if (request.getAttribute(EdgeFilter.ROUTE_ATTRIBUTE) instanceof EdgeRouteClassifier.EdgeRoute route) {
+            return route.rsvpGameId();
+        }
+        return EdgeRouteClassifier.rsvpGameId(request.getMethod(), request.getRequestURI());
+    }
+}
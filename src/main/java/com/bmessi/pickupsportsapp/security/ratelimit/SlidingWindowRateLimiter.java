@@ -0,0 +1,254 @@
+package com.bmessi.pickupsportsapp.security.ratelimit;
+
+import com.bmessi.pickupsportsapp.config.properties.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sliding-window rate limiter with local pre-aggregation.
+ *
+ * Each key keeps the count of the current and previous fixed window; the estimate is
+ * {@code prev * (1 - elapsed/window) + current}. Decisions are always made locally. With
+ * {@code security.rate-limit.redis-enabled} the requests admitted since the last sync are pushed to
+ * Redis every {@code security.rate-limit.sync-ms} in one Lua call for all dirty keys, and the global
+ * counts it returns replace the local ones, so the limit holds across nodes. Between syncs a key can
+ * overshoot by at most what other nodes admit in one interval.
+ *
+ * Keys live in a Caffeine cache capped at {@code security.rate-limit.max-keys} and dropped after two
+ * windows without traffic; Redis keys expire after two windows. When Redis fails the node keeps
+ * counting locally and retries on the next sync.
+ */
+@Slf4j
+@Component
+public class SlidingWindowRateLimiter {
+
+    /**
+     * ARGV[1] = now (ms), then (key, delta, windowMs) per bucket.
+     * Returns (windowId, current, previous) per bucket.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SYNC = new DefaultRedisScript<>("""
+            local now = tonumber(ARGV[1])
+            local out = {}
+            for i = 2, #ARGV, 3 do
+              local window = tonumber(ARGV[i + 2])
+              local wid = math.floor(now / window)
+              local cur = ARGV[i] .. ':' .. wid
+              local c = redis.call('INCRBY', cur, tonumber(ARGV[i + 1]))
+              redis.call('PEXPIRE', cur, window * 2)
+              local p = tonumber(redis.call('GET', ARGV[i] .. ':' .. (wid - 1)) or '0')
+              out[#out + 1] = wid
+              out[#out + 1] = c
+              out[#out + 1] = p
+            end
+            return out
+            """, List.class);
+
+    private static final String KEY_PREFIX = "rl:sw:";
+    private static final int SYNC_BATCH = 256;
+
+    public record Decision(boolean allowed, int limit, int remaining, long retryAfterSeconds) {}
+
+    static final class Bucket {
+        final String key;
+        final long windowMs;
+        final AtomicBoolean queued = new AtomicBoolean();
+        long windowId;
+        long current;
+        long previous;
+        long pending;
+        long inFlight;
+
+        Bucket(String key, long windowMs, long now) {
+            this.key = key;
+            this.windowMs = windowMs;
+            this.windowId = now / windowMs;
+        }
+
+        void roll(long now) {
+            long wid = now / windowMs;
+            if (wid == windowId) return;
+            previous = wid == windowId + 1 ? current : 0;
+            current = 0;
+            windowId = wid;
+        }
+
+        double estimate(long now) {
+            double elapsed = (double) (now % windowMs) / windowMs;
+            return previous * (1.0 - elapsed) + current + pending + inFlight;
+        }
+    }
+
+    private final Optional<StringRedisTemplate> redis;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean distributed;
+    private final Cache<String, Bucket> buckets;
+    private final Queue<Bucket> dirty = new ConcurrentLinkedQueue<>();
+
+    public SlidingWindowRateLimiter(RateLimitProperties props,
+                                    Optional<StringRedisTemplate> redis,
+                                    MeterRegistry meterRegistry,
+                                    Clock clock) {
+        this.redis = redis;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.distributed = props.isRedisEnabled() && redis.isPresent();
+        int longestWindow = props.getRoutes().stream()
+                .mapToInt(RateLimitProperties.Policy::getWindowSeconds)
+                .reduce(props.getDefaults().getWindowSeconds(), Math::max);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(Math.max(1_000, props.getMaxKeys()))
+                .expireAfterAccess(Duration.ofSeconds(Math.max(1, longestWindow) * 2L))
+                .build();
+        Gauge.builder("ratelimit.keys", buckets, Cache::estimatedSize)
+                .description("Rate-limit keys held in memory")
+                .register(meterRegistry);
+    }
+
+    /** Counts one request against {@code key}; rejected requests are not counted. */
+    public Decision tryAcquire(String key, int limit, int windowSeconds) {
+        long now = clock.millis();
+        long windowMs = Math.max(1, windowSeconds) * 1000L;
+        Bucket b = buckets.get(key, k -> new Bucket(k, windowMs, now));
+        boolean enqueue = false;
+        Decision decision;
+        synchronized (b) {
+            b.roll(now);
+            double estimate = b.estimate(now);
+            if (estimate + 1 > limit) {
+                decision = new Decision(false, limit, 0, retryAfterSeconds(b, limit, now));
+            } else {
+                if (distributed) {
+                    b.pending++;
+                    enqueue = b.queued.compareAndSet(false, true);
+                } else {
+                    b.current++;
+                }
+                decision = new Decision(true, limit, (int) Math.max(0, Math.floor(limit - estimate - 1)), 0);
+            }
+        }
+        if (enqueue) dirty.add(b);
+        return decision;
+    }
+
+    /**
+     * Gives back one permit admitted by {@link #tryAcquire} on {@code key}, for a request that a later
+     * check rejected. Permits already synced to Redis are only returned locally.
+     */
+    public void release(String key) {
+        Bucket b = buckets.getIfPresent(key);
+        if (b == null) return;
+        synchronized (b) {
+            b.roll(clock.millis());
+            if (b.pending > 0) {
+                b.pending--;
+            } else if (b.current > 0) {
+                b.current--;
+            }
+        }
+    }
+
+    /** Pushes locally admitted requests to Redis and adopts the global counts. */
+    @Scheduled(fixedDelayString = "${security.rate-limit.sync-ms:200}")
+    public void sync() {
+        if (!distributed) return;
+        List<Bucket> batch = new ArrayList<>(SYNC_BATCH);
+        Bucket b;
+        while ((b = dirty.poll()) != null) {
+            batch.add(b);
+            if (batch.size() == SYNC_BATCH) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) flush(batch);
+    }
+
+    /** Number of keys currently held in memory. */
+    public long trackedKeys() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    // --- Helpers ---
+
+    private void flush(List<Bucket> batch) {
+        List<String> args = new ArrayList<>(1 + batch.size() * 3);
+        args.add(Long.toString(clock.millis()));
+        for (Bucket b : batch) {
+            b.queued.set(false);
+            long delta;
+            synchronized (b) {
+                delta = b.pending;
+                b.inFlight += delta;
+                b.pending = 0;
+            }
+            args.add(KEY_PREFIX + b.key);
+            args.add(Long.toString(delta));
+            args.add(Long.toString(b.windowMs));
+        }
+        List<?> result;
+        try {
+            result = redis.get().execute(SYNC, List.of(), args.toArray());
+        } catch (Exception e) {
+            result = null;
+            meterRegistry.counter("ratelimit.sync.errors").increment();
+            log.debug("Rate-limit sync failed; counting locally: {}", e.getMessage());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Bucket b = batch.get(i);
+            synchronized (b) {
+                if (result == null || result.size() < (i + 1) * 3) {
+                    // Keep what this node admitted; it is pushed again with the next request
+                    b.pending += b.inFlight;
+                    b.inFlight = 0;
+                    continue;
+                }
+                long wid = ((Number) result.get(i * 3)).longValue();
+                long current = ((Number) result.get(i * 3 + 1)).longValue();
+                long previous = ((Number) result.get(i * 3 + 2)).longValue();
+                b.inFlight = 0;
+                if (wid >= b.windowId) {
+                    b.windowId = wid;
+                    b.current = current;
+                    b.previous = previous;
+                } else {
+                    // The window rolled locally while the call was in flight
+                    b.previous = current;
+                }
+            }
+        }
+    }
+
+    private static long retryAfterSeconds(Bucket b, int limit, long now) {
+        long intoWindow = now % b.windowMs;
+        double own = b.current + b.pending + b.inFlight;
+        long waitMs;
+        if (own + 1 > limit || b.previous == 0) {
+            waitMs = b.windowMs - intoWindow;
+        } else {
+            // Fraction of the window after which the previous window's weight has decayed enough
+            double needed = 1.0 - (limit - own - 1) / b.previous;
+            waitMs = Math.max(0L, (long) Math.ceil(needed * b.windowMs) - intoWindow);
+        }
+        return Math.max(1L, (waitMs + 999) / 1000);
+    }
+}
@@ -2,6 +2,8 @@ package com.bmessi.pickupsportsapp.service;
 
 import com.bmessi.pickupsportsapp.entity.AdminAudit;
 import com.bmessi.pickupsportsapp.repository.AdminAuditRepository;
+import com.bmessi.pickupsportsapp.service.audit.AuditEvent;
+import com.bmessi.pickupsportsapp.service.audit.AuditPipeline;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.MDC;
@@ -16,20 +18,23 @@ public class AdminAuditService {
 
     private final AdminAuditRepository repo;
     private final MeterRegistry meterRegistry;
+    private final AuditPipeline pipeline;
 
-    @Transactional
-    public AdminAudit record(String actor, String action, String targetType, Long targetId, String details) {
-        AdminAudit a = AdminAudit.builder()
-                .actor(actor == null ? "system" : actor)
-                .action(action)
-                .targetType(targetType)
-                .targetId(targetId)
-                .details(details)
-                .correlationId(MDC.get("cid"))
-                .build();
-        AdminAudit saved = repo.save(a);
+    /** Records an audit row; with the audit pipeline enabled it is written asynchronously. */
+    public void record(String actor, String action, String targetType, Long targetId, String details) {
+        if (pipeline.isEnabled()) {
+            pipeline.record(AuditEvent.Table.ADMIN, actor, action, targetType, targetId, details);
+        } else {
+            repo.save(AdminAudit.builder()
+                    .actor(actor == null ? "system" : actor)
+                    .action(action)
+                    .targetType(targetType)
+                    .targetId(targetId)
+                    .details(details)
+                    .correlationId(MDC.get("cid"))
+                    .build());
+        }
         try { meterRegistry.counter("admin.audit.recorded", "action", action).increment(); } catch (Exception ignore) {}
-        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -8,6 +8,7 @@ import com.bmessi.pickupsportsapp.repository.EmailChangeTokenRepository;
 import com.bmessi.pickupsportsapp.repository.UserRepository;
 import com.bmessi.pickupsportsapp.repository.VerifiedUserRepository;
 import com.bmessi.pickupsportsapp.security.SecurityAuditService;
+import com.bmessi.pickupsportsapp.service.auth.RefreshTokenService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +33,7 @@ public class ChangeEmailService {
     private final Optional<EmailService> emailService;
     private final AuthFlowProperties props;
     private final SecurityAuditService audit;
+    private final RefreshTokenService refreshTokenService;
 
     @PersistenceContext
     private EntityManager em;
@@ -95,6 +97,7 @@ public class ChangeEmailService {
                     .setParameter("now", Instant.now())
                     .setParameter("user", user)
                     .executeUpdate();
+            refreshTokenService.revokeAllForUser(user.getId());
         }
 
         ect.setConsumedAt(Instant.now());
@@ -21,6 +21,8 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
     private final org.springframework.amqp.rabbit.core.RabbitTemplate rabbitTemplate;
+    private final com.bmessi.pickupsportsapp.service.email.EmailTemplates templates;
+    private final com.bmessi.pickupsportsapp.service.email.PooledSmtpSender smtp;
 
     @Value("${app.mail.from:noreply@localhost}")
     private String from;
@@ -86,19 +88,18 @@ public class EmailService {
     @Retry(name = "mail", fallbackMethod = "fallbackVerificationEmailNow")
     public void sendVerificationEmailNow(String to, String link, java.util.Locale locale) {
         try {
-            var mime = mailSender.createMimeMessage();
+            var mime = smtp.createMimeMessage();
             var helper = new org.springframework.mail.javamail.MimeMessageHelper(mime, "UTF-8");
             helper.setFrom(String.format("%s <%s>", fromName, from));
             helper.setTo(to);
             helper.setSubject("Verify your email");
-            String template = pickTemplate("templates/email/verification", locale);
-            String html = loadTemplate(template)
-                    .replace("{{appName}}", fromName)
-                    .replace("{{link}}", link)
-                    .replace("{{supportEmail}}", supportEmail == null ? "" : supportEmail)
-                    .replace("{{expiryHours}}", "24");
+            String html = templates.get("templates/email/verification", locale).render(vars(
+                    "appName", fromName,
+                    "link", link,
+                    "supportEmail", supportEmail == null ? "" : supportEmail,
+                    "expiryHours", "24"));
             helper.setText(html, true);
-            mailSender.send(mime);
+            smtp.send(mime);
         } catch (Exception e) {
             // Fallback to plain text
             SimpleMailMessage message = new SimpleMailMessage();
@@ -131,19 +132,18 @@ public class EmailService {
     @Retry(name = "mail", fallbackMethod = "fallbackResetEmailNow")
     public void sendPasswordResetEmailNow(String to, String link, java.util.Locale locale) {
         try {
-            var mime = mailSender.createMimeMessage();
+            var mime = smtp.createMimeMessage();
             var helper = new org.springframework.mail.javamail.MimeMessageHelper(mime, "UTF-8");
             helper.setFrom(String.format("%s <%s>", fromName, from));
             helper.setTo(to);
             helper.setSubject("Reset your password");
-            String template = pickTemplate("templates/email/reset", locale);
-            String html = loadTemplate(template)
-                    .replace("{{appName}}", fromName)
-                    .replace("{{link}}", link)
-                    .replace("{{supportEmail}}", supportEmail == null ? "" : supportEmail)
-                    .replace("{{expiryHours}}", "2");
+            String html = templates.get("templates/email/reset", locale).render(vars(
+                    "appName", fromName,
+                    "link", link,
+                    "supportEmail", supportEmail == null ? "" : supportEmail,
+                    "expiryHours", "2"));
             helper.setText(html, true);
-            mailSender.send(mime);
+            smtp.send(mime);
         } catch (Exception e) {
             // Fallback to plain text
             SimpleMailMessage message = new SimpleMailMessage();
@@ -178,13 +178,6 @@ public class EmailService {
         log.error("Failed to send username reminder to {}: {}", to, t.getMessage());
     }
 
-    private String loadTemplate(String path) throws java.io.IOException {
-        try (var is = this.getClass().getClassLoader().getResourceAsStream(path)) {
-            if (is == null) return "";
-            return new String(is.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
-        }
-    }
-
         @Async
         @Retry(name = "mail", fallbackMethod = "fallbackChangeEmail")
         public void sendChangeEmailVerification(String to, String link) {
@@ -195,19 +188,18 @@ public class EmailService {
         @Retry(name = "mail", fallbackMethod = "fallbackChangeEmail")
         public void sendChangeEmailVerification(String to, String link, java.util.Locale locale) {
             try {
-                var mime = mailSender.createMimeMessage();
+                var mime = smtp.createMimeMessage();
                 var helper = new org.springframework.mail.javamail.MimeMessageHelper(mime, "UTF-8");
                 helper.setFrom(String.format("%s <%s>", fromName, from));
                 helper.setTo(to);
                 helper.setSubject("Confirm your new email");
-                String template = pickTemplate("templates/email/change-email", locale);
-                String html = loadTemplate(template)
-                        .replace("{{appName}}", fromName)
-                        .replace("{{link}}", link)
-                        .replace("{{supportEmail}}", supportEmail == null ? "" : supportEmail)
-                        .replace("{{expiryHours}}", "24");
+                String html = templates.get("templates/email/change-email", locale).render(vars(
+                        "appName", fromName,
+                        "link", link,
+                        "supportEmail", supportEmail == null ? "" : supportEmail,
+                        "expiryHours", "24"));
                 helper.setText(html, true);
-                mailSender.send(mime);
+                smtp.send(mime);
             } catch (Exception e) {
                 // Fallback to plain text
                 org.springframework.mail.SimpleMailMessage message = new org.springframework.mail.SimpleMailMessage();
@@ -220,19 +212,6 @@ public class EmailService {
             log.info("Sent change-email verification to {}", to);
         }
 
-        private String pickTemplate(String basePath, java.util.Locale locale) throws java.io.IOException {
-            if (locale != null) {
-                String lang = locale.getLanguage();
-                if (lang != null && !lang.isBlank()) {
-                    String candidate = basePath + "_" + lang + ".html";
-                    try (var is = this.getClass().getClassLoader().getResourceAsStream(candidate)) {
-                        if (is != null) return candidate;
-                    }
-                }
-            }
-            return basePath + ".html";
-        }
-
         @SuppressWarnings("unused")
         private void fallbackChangeEmail(String to, String link, Throwable ex) {
             log.error("Failed to send change-email verification to {} after retries: {}", to, ex.getMessage(), ex);
@@ -292,23 +271,22 @@ public class EmailService {
 
     public void sendGameEventEmailNow(String to, String eventType, java.util.Map<String, String> model, java.util.Locale locale) {
         try {
-            var mime = mailSender.createMimeMessage();
+            var mime = smtp.createMimeMessage();
             var helper = new org.springframework.mail.javamail.MimeMessageHelper(mime, "UTF-8");
             helper.setFrom(String.format("%s <%s>", fromName, from));
             helper.setTo(to);
             String subject = com.bmessi.pickupsportsapp.i18n.EventI18n.subject(eventType, locale);
             helper.setSubject(subject);
 
-            String template = pickTemplate("templates/email/game-event", locale == null ? java.util.Locale.getDefault() : locale);
-            String html = loadTemplate(template)
-                    .replace("{{appName}}", fromName)
-                    .replace("{{eventType}}", String.valueOf(eventType))
-                    .replace("{{sport}}", model.getOrDefault("sport", ""))
-                    .replace("{{location}}", model.getOrDefault("location", ""))
-                    .replace("{{actor}}", model.getOrDefault("actor", ""))
-                    .replace("{{supportEmail}}", supportEmail == null ? "" : supportEmail);
+            String html = templates.get("templates/email/game-event", locale == null ? java.util.Locale.getDefault() : locale).render(vars(
+                    "appName", fromName,
+                    "eventType", String.valueOf(eventType),
+                    "sport", model.getOrDefault("sport", ""),
+                    "location", model.getOrDefault("location", ""),
+                    "actor", model.getOrDefault("actor", ""),
+                    "supportEmail", supportEmail == null ? "" : supportEmail));
             helper.setText(html, true);
-            mailSender.send(mime);
+            smtp.send(mime);
         } catch (Exception e) {
             // Fallback to plain text
             org.springframework.mail.SimpleMailMessage message = new org.springframework.mail.SimpleMailMessage();
@@ -324,6 +302,54 @@ public class EmailService {
         log.info("Sent game event email '{}' to {}", eventType, to);
     }
 
+    /**
+     * Sends the same game event email to many recipients: the template is rendered once and all
+     * messages go out over one pooled SMTP connection. Returns the number of messages handed to the server.
+     */
+    public int sendGameEventEmailsNow(java.util.List<String> recipients, String eventType, java.util.Map<String, String> model, java.util.Locale locale) {
+        if (recipients == null || recipients.isEmpty()) return 0;
+        try {
+            String subject = com.bmessi.pickupsportsapp.i18n.EventI18n.subject(eventType, locale);
+            String html = templates.get("templates/email/game-event", locale == null ? java.util.Locale.getDefault() : locale).render(vars(
+                    "appName", fromName,
+                    "eventType", String.valueOf(eventType),
+                    "sport", model.getOrDefault("sport", ""),
+                    "location", model.getOrDefault("location", ""),
+                    "actor", model.getOrDefault("actor", ""),
+                    "supportEmail", supportEmail == null ? "" : supportEmail));
+
+            jakarta.mail.internet.MimeMessage[] batch = new jakarta.mail.internet.MimeMessage[recipients.size()];
+            for (int i = 0; i < batch.length; i++) {
+                var mime = smtp.createMimeMessage();
+                var helper = new org.springframework.mail.javamail.MimeMessageHelper(mime, "UTF-8");
+                helper.setFrom(String.format("%s <%s>", fromName, from));
+                helper.setTo(recipients.get(i));
+                helper.setSubject(subject);
+                helper.setText(html, true);
+                batch[i] = mime;
+            }
+            smtp.send(batch);
+            log.info("Sent game event email '{}' to {} recipients", eventType, batch.length);
+            return batch.length;
+        } catch (org.springframework.mail.MailSendException e) {
+            int failed = e.getFailedMessages().isEmpty() ? recipients.size() : e.getFailedMessages().size();
+            log.warn("Game event email batch '{}': {} of {} failed", eventType, failed, recipients.size());
+            return recipients.size() - failed;
+        } catch (Exception e) {
+            // Rendering failed; fall back to the per-recipient path (plain-text fallback included)
+            int sent = 0;
+            for (String to : recipients) {
+                try {
+                    sendGameEventEmailNow(to, eventType, model, locale);
+                    sent++;
+                } catch (Exception ex) {
+                    log.warn("Failed to send game event email to {}: {}", to, ex.getMessage());
+                }
+            }
+            return sent;
+        }
+    }
+
     @SuppressWarnings("unused")
     private void fallbackGameEventEmailWithLocale(String to, String eventType, java.util.Map<String, String> model, java.util.Locale locale, Throwable ex) {
         log.error("Failed to send game event email to {} after retries (locale {}): {}", to, locale, ex.getMessage(), ex);
@@ -338,26 +364,13 @@ public class EmailService {
     @Retry(name = "mail", fallbackMethod = "fallbackDigestEmail")
     public void sendDigestEmail(String to, java.util.List<java.util.Map<String, String>> items, java.util.Locale locale) {
         try {
-            var mime = mailSender.createMimeMessage();
+            var mime = smtp.createMimeMessage();
             var helper = new org.springframework.mail.javamail.MimeMessageHelper(mime, "UTF-8");
             helper.setFrom(String.format("%s <%s>", fromName, from));
             helper.setTo(to);
             helper.setSubject("Your upcoming games");
-            String template = pickTemplate("templates/email/digest", locale == null ? java.util.Locale.getDefault() : locale);
-            StringBuilder rows = new StringBuilder();
-            for (var it : items) {
-                rows.append("<li>")
-                        .append(escapeHtml(it.getOrDefault("sport", ""))).append(" @ ")
-                        .append(escapeHtml(it.getOrDefault("location", ""))).append(" — ")
-                        .append(escapeHtml(it.getOrDefault("time", "")))
-                        .append("</li>");
-            }
-            String html = loadTemplate(template)
-                    .replace("{{appName}}", fromName)
-                    .replace("{{items}}", rows.toString())
-                    .replace("{{supportEmail}}", supportEmail == null ? "" : supportEmail);
-            helper.setText(html, true);
-            mailSender.send(mime);
+            helper.setText(digestHtml(items, locale), true);
+            smtp.send(mime);
         } catch (Exception e) {
             // Fallback to plain text
             org.springframework.mail.SimpleMailMessage msg = new org.springframework.mail.SimpleMailMessage();
@@ -376,11 +389,65 @@ public class EmailService {
         log.info("Sent digest email to {}", to);
     }
 
+    /**
+     * Sends a chunk of digest emails over one pooled SMTP connection. Returns the number of
+     * messages handed to the server.
+     */
+    public int sendDigestEmailsNow(java.util.List<com.bmessi.pickupsportsapp.dto.DigestEmailJob.Digest> digests, java.util.Locale locale) {
+        if (digests == null || digests.isEmpty()) return 0;
+        jakarta.mail.internet.MimeMessage[] batch = new jakarta.mail.internet.MimeMessage[digests.size()];
+        try {
+            for (int i = 0; i < batch.length; i++) {
+                var digest = digests.get(i);
+                var mime = smtp.createMimeMessage();
+                var helper = new org.springframework.mail.javamail.MimeMessageHelper(mime, "UTF-8");
+                helper.setFrom(String.format("%s <%s>", fromName, from));
+                helper.setTo(digest.to());
+                helper.setSubject("Your upcoming games");
+                helper.setText(digestHtml(digest.items(), locale), true);
+                batch[i] = mime;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to build digest email batch: {}", e.getMessage());
+            return 0;
+        }
+        try {
+            smtp.send(batch);
+            log.info("Sent {} digest emails", batch.length);
+            return batch.length;
+        } catch (org.springframework.mail.MailSendException e) {
+            int failed = e.getFailedMessages().isEmpty() ? batch.length : e.getFailedMessages().size();
+            log.warn("Digest email batch: {} of {} failed", failed, batch.length);
+            return batch.length - failed;
+        }
+    }
+
+    private String digestHtml(java.util.List<java.util.Map<String, String>> items, java.util.Locale locale) {
+        StringBuilder rows = new StringBuilder();
+        for (var it : items) {
+            rows.append("<li>")
+                    .append(escapeHtml(it.getOrDefault("sport", ""))).append(" @ ")
+                    .append(escapeHtml(it.getOrDefault("location", ""))).append(" — ")
+                    .append(escapeHtml(it.getOrDefault("time", "")))
+                    .append("</li>");
+        }
+        return templates.get("templates/email/digest", locale == null ? java.util.Locale.getDefault() : locale).render(vars(
+                "appName", fromName,
+                "items", rows.toString(),
+                "supportEmail", supportEmail == null ? "" : supportEmail));
+    }
+
     @SuppressWarnings("unused")
     private void fallbackDigestEmail(String to, java.util.List<java.util.Map<String, String>> items, java.util.Locale locale, Throwable ex) {
         log.error("Failed to send digest email to {} after retries: {}", to, ex.getMessage(), ex);
     }
 
+    private static java.util.Map<String, String> vars(String... keyValues) {
+        java.util.Map<String, String> m = new java.util.HashMap<>(keyValues.length);
+        for (int i = 0; i + 1 < keyValues.length; i += 2) m.put(keyValues[i], keyValues[i + 1]);
+        return m;
+    }
+
     private static String escapeHtml(String s) {
         if (s == null) return "";
         return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
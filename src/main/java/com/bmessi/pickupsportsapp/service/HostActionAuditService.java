@@ -2,6 +2,8 @@ package com.bmessi.pickupsportsapp.service;
 
 import com.bmessi.pickupsportsapp.entity.HostActionAudit;
 import com.bmessi.pickupsportsapp.repository.HostActionAuditRepository;
+import com.bmessi.pickupsportsapp.service.audit.AuditEvent;
+import com.bmessi.pickupsportsapp.service.audit.AuditPipeline;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.MDC;
@@ -16,20 +18,23 @@ public class HostActionAuditService {
 
     private final HostActionAuditRepository repo;
     private final MeterRegistry meterRegistry;
+    private final AuditPipeline pipeline;
 
-    @Transactional
-    public HostActionAudit record(String actor, String action, String targetType, Long targetId, String details) {
-        HostActionAudit a = HostActionAudit.builder()
-                .actor(actor == null ? "system" : actor)
-                .action(action)
-                .targetType(targetType)
-                .targetId(targetId)
-                .details(details)
-                .correlationId(MDC.get("cid"))
-                .build();
-        HostActionAudit saved = repo.save(a);
+    /** Records an audit row; with the audit pipeline enabled it is written asynchronously. */
+    public void record(String actor, String action, String targetType, Long targetId, String details) {
+        if (pipeline.isEnabled()) {
+            pipeline.record(AuditEvent.Table.HOST, actor, action, targetType, targetId, details);
+        } else {
+            repo.save(HostActionAudit.builder()
+                    .actor(actor == null ? "system" : actor)
+                    .action(action)
+                    .targetType(targetType)
+                    .targetId(targetId)
+                    .details(details)
+                    .correlationId(MDC.get("cid"))
+                    .build());
+        }
         try { meterRegistry.counter("host.audit.recorded", "action", action).increment(); } catch (Exception ignore) {}
-        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -1,9 +1,15 @@
 package com.bmessi.pickupsportsapp.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
@@ -11,61 +17,233 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.PublicKey;
 import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
 import java.time.Duration;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Verifies provider ID tokens against their JWKS, with keys parsed once and kept warm.
+ *
+ * Per JWKS URL the parsed {@link PublicKey}s are cached by kid, and per key one {@link JwtParser}
+ * per (issuer, audience). A key set is due for refresh after 80% of its lifetime (the response's
+ * {@code Cache-Control: max-age}, else {@code oauth.jwks.ttl-seconds}). Due sets are refreshed in the
+ * background, and in the meantime verification keeps using the current set (stale-while-revalidate).
+ * Only a cold URL, a set older than {@code oauth.jwks.max-stale-seconds}, or a token with an unknown
+ * kid wait for a fetch. Fetches are single-flight per URL, and forced fetches, including those for a
+ * set past its max staleness, are spaced at least {@code oauth.jwks.min-refresh-interval-seconds}
+ * apart, so neither a burst of bogus kids nor a provider outage makes every request hit the provider.
+ * When a fetch fails the previous set stays in use.
+ */
+@Slf4j
 @Service
-public class JwksVerifierService {
+public class JwksVerifierService implements DisposableBean {
 
     private static final HttpClient CLIENT = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(5))
             .build();
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
 
-    private final Map<String, CachedJwks> cache = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Duration defaultTtl;
+    private final Duration maxStale;
+    private final Duration minRefreshInterval;
+    private final ExecutorService refresher;
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+
+    private record KeyEntry(PublicKey key, Map<String, JwtParser> parsers) {}
+
+    private record KeySet(Map<String, KeyEntry> keys, long fetchedAt, long refreshAt) {}
+
+    public JwksVerifierService(MeterRegistry meterRegistry,
+                               Clock clock,
+                               @Value("${oauth.jwks.ttl-seconds:600}") long ttlSeconds,
+                               @Value("${oauth.jwks.max-stale-seconds:86400}") long maxStaleSeconds,
+                               @Value("${oauth.jwks.min-refresh-interval-seconds:30}") long minRefreshIntervalSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.defaultTtl = Duration.ofSeconds(Math.max(60L, ttlSeconds));
+        this.maxStale = Duration.ofSeconds(Math.max(ttlSeconds, maxStaleSeconds));
+        this.minRefreshInterval = Duration.ofSeconds(Math.max(1L, minRefreshIntervalSeconds));
+        this.refresher = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "jwks-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
 
     public Jws<Claims> verify(String token, String expectedIssuer, String expectedAudience, String jwksUrl) {
         Header header = parseHeader(token);
         if (header.kid() == null) throw new IllegalArgumentException("missing kid");
-        PublicKey key = resolveKey(jwksUrl, header.kid());
-        JwtParser parser = Jwts.parser()
+
+        Source source = sources.computeIfAbsent(jwksUrl, Source::new);
+        long now = clock.millis();
+        KeySet set = source.current;
+        if (set == null || now - set.fetchedAt() > maxStale.toMillis()) {
+            if (source.fetching() || source.mayFetch(now)) {
+                meterRegistry.counter("jwks.fetch.blocking").increment();
+                set = await(source.refresh(), set);
+            } else if (set == null) {
+                throw new IllegalStateException("jwks unavailable");
+            } else {
+                // The last forced fetch failed moments ago; keep serving what a failed fetch would fall back to
+                meterRegistry.counter("jwks.stale.served").increment();
+            }
+        } else if (now >= set.refreshAt() && source.mayFetch(now)) {
+            source.refresh();
+        }
+
+        KeyEntry entry = set.keys().get(header.kid());
+        if (entry == null) {
+            meterRegistry.counter("jwks.kid.unknown").increment();
+            if (source.fetching() || source.mayFetch(now)) {
+                set = await(source.refresh(), set);
+            } else {
+                set = source.current; // a refresh may have landed since it was read above
+            }
+            entry = set.keys().get(header.kid());
+            if (entry == null) throw new IllegalArgumentException("kid not found");
+        }
+
+        PublicKey key = entry.key();
+        JwtParser parser = entry.parsers().computeIfAbsent(expectedIssuer + '\n' + expectedAudience, k -> Jwts.parser()
                 .requireIssuer(expectedIssuer)
                 .requireAudience(expectedAudience)
                 .verifyWith(key)
-                .build();
+                .build());
         return parser.parseSignedClaims(token);
     }
 
-    private PublicKey resolveKey(String jwksUrl, String kid) {
-        CachedJwks jwks = cache.compute(jwksUrl, (url, old) -> {
-            if (old != null && !old.isExpired()) return old;
-            try {
-                String json = fetch(url);
-                return CachedJwks.parse(json, Duration.ofMinutes(10));
-            } catch (Exception e) {
-                return old != null ? old : new CachedJwks(Map.of(), System.currentTimeMillis() + 60_000);
+    /** Refreshes key sets that are due, so verification rarely finds one past its refresh time. */
+    @Scheduled(fixedDelayString = "${oauth.jwks.refresh-check-ms:30000}")
+    public void refreshDue() {
+        long now = clock.millis();
+        for (Source source : sources.values()) {
+            KeySet set = source.current;
+            if (set != null && now >= set.refreshAt() && source.mayFetch(now)) {
+                source.refresh();
             }
-        });
-        Map<String, PubKeyParams> keys = jwks.keys();
-        PubKeyParams p = keys.get(kid);
-        if (p == null) throw new IllegalArgumentException("kid not found");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    /** Key set of one JWKS URL plus its single in-flight fetch. */
+    private final class Source {
+        final String url;
+        final AtomicReference<CompletableFuture<KeySet>> inFlight = new AtomicReference<>();
+        volatile KeySet current;
+        volatile long lastFetchStarted = Long.MIN_VALUE / 2;
+
+        Source(String url) {
+            this.url = url;
+        }
+
+        boolean fetching() {
+            return inFlight.get() != null;
+        }
+
+        boolean mayFetch(long now) {
+            return now - lastFetchStarted >= minRefreshInterval.toMillis();
+        }
+
+        CompletableFuture<KeySet> refresh() {
+            for (;;) {
+                CompletableFuture<KeySet> running = inFlight.get();
+                if (running != null) return running;
+                CompletableFuture<KeySet> mine = new CompletableFuture<>();
+                if (!inFlight.compareAndSet(null, mine)) continue;
+                lastFetchStarted = clock.millis();
+                refresher.execute(() -> {
+                    try {
+                        KeySet loaded = load(url, current);
+                        current = loaded;
+                        meterRegistry.counter("jwks.refresh", "result", "success").increment();
+                        mine.complete(loaded);
+                    } catch (Exception e) {
+                        meterRegistry.counter("jwks.refresh", "result", "failure").increment();
+                        log.warn("JWKS refresh failed for {}: {}", url, e.getMessage());
+                        mine.completeExceptionally(e);
+                    } finally {
+                        inFlight.compareAndSet(mine, null);
+                    }
+                });
+                return mine;
+            }
+        }
+    }
+
+    // --- Helpers ---
+
+    private static KeySet await(CompletableFuture<KeySet> fetch, KeySet fallback) {
         try {
-            RSAPublicKeySpec spec = new RSAPublicKeySpec(new BigInteger(1, base64UrlDecode(p.n)), new BigInteger(1, base64UrlDecode(p.e)));
-            return KeyFactory.getInstance("RSA").generatePublic(spec);
+            return fetch.get(FETCH_TIMEOUT.toMillis() + 1_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (fallback != null) return fallback;
+            throw new IllegalStateException("jwks unavailable", e);
         } catch (Exception e) {
-            throw new IllegalArgumentException("invalid jwk", e);
+            if (fallback != null) return fallback;
+            throw new IllegalStateException("jwks unavailable", e);
         }
     }
 
-    private static String fetch(String url) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).GET().timeout(Duration.ofSeconds(5)).build();
+    private KeySet load(String url, KeySet previous) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).GET().timeout(FETCH_TIMEOUT).build();
         HttpResponse<String> resp = CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
         if (resp.statusCode() != 200) throw new IllegalStateException("jwks fetch failed: " + resp.statusCode());
-        return resp.body();
+
+        Duration ttl = resp.headers().firstValue("Cache-Control")
+                .map(MAX_AGE::matcher)
+                .filter(Matcher::find)
+                .map(m -> Duration.ofSeconds(Math.min(86_400L, Math.max(60L, Long.parseLong(m.group(1))))))
+                .orElse(defaultTtl);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> payload = MAPPER.readValue(resp.body(), Map.class);
+        @SuppressWarnings("unchecked")
+        List<Map<String, String>> arr = (List<Map<String, String>>) payload.get("keys");
+        Map<String, KeyEntry> keys = new HashMap<>();
+        if (arr != null) {
+            KeyFactory rsa = KeyFactory.getInstance("RSA");
+            for (Map<String, String> k : arr) {
+                String kid = k.get("kid");
+                String n = k.get("n");
+                String e = k.get("e");
+                if (kid == null || n == null || e == null) continue;
+                try {
+                    PublicKey key = rsa.generatePublic(new RSAPublicKeySpec(
+                            new BigInteger(1, base64UrlDecode(n)), new BigInteger(1, base64UrlDecode(e))));
+                    KeyEntry old = previous == null ? null : previous.keys().get(kid);
+                    // Unchanged keys keep their parsers
+                    keys.put(kid, old != null && old.key().equals(key) ? old : new KeyEntry(key, new ConcurrentHashMap<>()));
+                } catch (Exception ex) {
+                    log.warn("Skipping invalid JWK {} from {}: {}", kid, url, ex.getMessage());
+                }
+            }
+        }
+        long now = clock.millis();
+        return new KeySet(Map.copyOf(keys), now, now + ttl.toMillis() * 8 / 10);
     }
 
     private static byte[] base64UrlDecode(String s) {
@@ -75,9 +253,9 @@ public class JwksVerifierService {
     private static Header parseHeader(String jwt) {
         String[] parts = jwt.split("\\.");
         if (parts.length < 2) throw new IllegalArgumentException("invalid jwt");
-        String json = new String(Base64.getUrlDecoder().decode(parts[0]), java.nio.charset.StandardCharsets.UTF_8);
+        String json = new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8);
         try {
-            Map<String, Object> map = new com.fasterxml.jackson.databind.ObjectMapper().readValue(json, Map.class);
+            Map<?, ?> map = MAPPER.readValue(json, Map.class);
             return new Header((String) map.get("kid"), (String) map.get("alg"));
         } catch (Exception e) {
             throw new IllegalArgumentException("invalid jwt header json", e);
@@ -85,28 +263,4 @@ public class JwksVerifierService {
     }
 
     private record Header(String kid, String alg) {}
-
-    private record PubKeyParams(String n, String e) {}
-
-    private record CachedJwks(Map<String, PubKeyParams> keys, long expiresAt) {
-        boolean isExpired() { return System.currentTimeMillis() > expiresAt; }
-
-        static CachedJwks parse(String json, Duration ttl) throws Exception {
-            var mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            Map<String, Object> payload = mapper.readValue(json, Map.class);
-            java.util.List<Map<String, String>> arr = (java.util.List<Map<String, String>>) payload.get("keys");
-            Map<String, PubKeyParams> map = new java.util.HashMap<>();
-            if (arr != null) {
-                for (Map<String, String> k : arr) {
-                    String kid = k.get("kid");
-                    String n = k.get("n");
-                    String e = k.get("e");
-                    if (kid != null && n != null && e != null) {
-                        map.put(kid, new PubKeyParams(n, e));
-                    }
-                }
-            }
-            return new CachedJwks(map, System.currentTimeMillis() + ttl.toMillis());
-        }
-    }
 }
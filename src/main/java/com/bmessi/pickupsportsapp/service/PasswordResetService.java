@@ -30,6 +30,7 @@ public class PasswordResetService {
     private final AuthFlowProperties props;
     private final EmailService emailService;
     private final com.bmessi.pickupsportsapp.security.SecurityAuditService audit;
+    private final com.bmessi.pickupsportsapp.security.TokenRevocationService tokenRevocations;
     @org.springframework.beans.factory.annotation.Autowired(required = false)
     private io.micrometer.core.instrument.MeterRegistry meterRegistry;
 
@@ -145,7 +146,10 @@ public class PasswordResetService {
         if (user == null) return false;
 
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepo.save(user);
+        // Access tokens issued with the old password stop working on every node
+        tokenRevocations.revokeUserTokensBefore(user.getUsername(), user.getTokenVersion());
 
         prt.setConsumedAt(Instant.now());
         tokenRepo.save(prt);
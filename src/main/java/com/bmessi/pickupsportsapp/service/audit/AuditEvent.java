@@ -0,0 +1,46 @@
+package com.bmessi.pickupsportsapp.service.audit;
+
+/**
+ * One audit row on its way to the database. Fields are clipped to the column sizes when the event is
+ * created, so a long detail string cannot fail a whole batch later.
+ */
+public record AuditEvent(Table table,
+                         String actor,
+                         String action,
+                         String targetType,
+                         Long targetId,
+                         String details,
+                         String correlationId,
+                         long createdAtMs) {
+
+    public enum Table {
+        ADMIN("admin_audit"),
+        HOST("host_action_audit");
+
+        private final String tableName;
+
+        Table(String tableName) {
+            this.tableName = tableName;
+        }
+
+        public String tableName() {
+            return tableName;
+        }
+    }
+
+    public static AuditEvent of(Table table, String actor, String action, String targetType, Long targetId,
+                                String details, String correlationId, long createdAtMs) {
+        return new AuditEvent(table,
+                clip(actor == null ? "system" : actor, 64),
+                clip(action, 64),
+                clip(targetType == null ? "none" : targetType, 64),
+                targetId,
+                clip(details, 1024),
+                clip(correlationId, 64),
+                createdAtMs);
+    }
+
+    private static String clip(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
+    }
+}
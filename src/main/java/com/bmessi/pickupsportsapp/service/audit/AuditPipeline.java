@@ -0,0 +1,226 @@
+package com.bmessi.pickupsportsapp.service.audit;
+
+import com.bmessi.pickupsportsapp.config.properties.AuditPipelineProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes audit rows off the request path.
+ *
+ * Requests append events to an {@link AuditRingBuffer} and return. A single {@code audit-writer}
+ * thread drains it and inserts each drained batch with one JDBC batch per table in one transaction.
+ * When the database fails, the batch goes to the {@link AuditSpillFile}, and for
+ * {@code audit.pipeline.retry-ms} later batches go there too. Once the database takes writes again,
+ * the spill file is replayed. Events that overflow a full ring are spilled by the caller, so nothing is
+ * dropped unless the disk fails as well. A row the database rejects outright (a constraint violation)
+ * is dropped on its own, so it cannot block the rest of its batch.
+ *
+ * Metrics: {@code audit.pipeline.depth} (events buffered), {@code audit.pipeline.lag} (event creation to
+ * commit, per batch), {@code audit.pipeline.spill.bytes}, and the counters written, spilled,
+ * overflow, replayed, dropped and errors.
+ */
+@Component
+public class AuditPipeline implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditPipeline.class);
+
+    static final String INSERT = "INSERT INTO %s (actor, action, target_type, target_id, details, correlation_id, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final AuditPipelineProperties props;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final AuditRingBuffer ring;
+    private final AuditSpillFile spill;
+
+    private final Counter written;
+    private final Counter spilled;
+    private final Counter overflow;
+    private final Counter replayed;
+    private final Counter dropped;
+    private final Counter errors;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private Thread writer;
+    // Writer thread only
+    private long dbRetryAt;
+
+    public AuditPipeline(AuditPipelineProperties props,
+                         JdbcTemplate jdbc,
+                         PlatformTransactionManager txManager,
+                         MeterRegistry meterRegistry,
+                         Clock clock) {
+        this.props = props;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.clock = clock;
+        this.ring = new AuditRingBuffer(props.getCapacity());
+        this.spill = new AuditSpillFile(Path.of(props.getSpillDir()), props.isSpillFsync());
+        this.written = meterRegistry.counter("audit.pipeline.written");
+        this.spilled = meterRegistry.counter("audit.pipeline.spilled");
+        this.overflow = meterRegistry.counter("audit.pipeline.overflow");
+        this.replayed = meterRegistry.counter("audit.pipeline.replayed");
+        this.dropped = meterRegistry.counter("audit.pipeline.dropped");
+        this.errors = meterRegistry.counter("audit.pipeline.errors");
+        this.lag = meterRegistry.timer("audit.pipeline.lag");
+        Gauge.builder("audit.pipeline.depth", ring, AuditRingBuffer::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("audit.pipeline.spill.bytes", spill, AuditSpillFile::bytes)
+                .description("Audit events spilled to disk and not yet replayed")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    /** Queues an audit row; the correlation id is taken from the caller's MDC. */
+    public void record(AuditEvent.Table table, String actor, String action, String targetType, Long targetId, String details) {
+        publish(AuditEvent.of(table, actor, action, targetType, targetId, details, MDC.get("cid"), clock.millis()));
+    }
+
+    public void publish(AuditEvent event) {
+        if (ring.offer(event)) return;
+        overflow.increment();
+        spillOrDrop(List.of(event));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!props.isEnabled()) return;
+        running = true;
+        writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join(Math.max(1L, props.getShutdownTimeoutMs()));
+            if (ring.size() > 0) log.warn("Audit writer stopped with {} events unwritten", ring.size());
+        }
+    }
+
+    private void run() {
+        int batchSize = Math.max(1, props.getBatchSize());
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, props.getIdleWaitMs()));
+        while (running || ring.size() > 0) {
+            try {
+                List<AuditEvent> batch = new ArrayList<>(batchSize);
+                if (ring.drainTo(batch, batchSize) > 0) {
+                    writeOrSpill(batch);
+                    continue;
+                }
+                if (running && clock.millis() >= dbRetryAt && spill.hasBacklog()) {
+                    replay(batchSize);
+                    continue;
+                }
+                LockSupport.parkNanos(idleNanos);
+            } catch (Throwable t) {
+                errors.increment();
+                log.error("Audit writer error: {}", t.getMessage(), t);
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+    }
+
+    private void writeOrSpill(List<AuditEvent> batch) {
+        if (clock.millis() >= dbRetryAt && write(batch)) return;
+        spillOrDrop(batch);
+    }
+
+    private void replay(int chunkSize) {
+        try {
+            spill.replay(chunkSize, chunk -> {
+                if (!write(chunk)) return false;
+                replayed.increment(chunk.size());
+                return true;
+            });
+        } catch (IOException e) {
+            errors.increment();
+            dbRetryAt = clock.millis() + props.getRetryMs();
+            log.warn("Audit spill replay failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean write(List<AuditEvent> batch) {
+        try {
+            try {
+                insert(batch);
+            } catch (DataIntegrityViolationException e) {
+                insertOneByOne(batch);
+            }
+            long oldest = Long.MAX_VALUE;
+            for (AuditEvent e : batch) oldest = Math.min(oldest, e.createdAtMs());
+            lag.record(Math.max(0L, clock.millis() - oldest), TimeUnit.MILLISECONDS);
+            written.increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            errors.increment();
+            dbRetryAt = clock.millis() + props.getRetryMs();
+            log.warn("Audit batch of {} failed, spilling for {} ms: {}", batch.size(), props.getRetryMs(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void insert(List<AuditEvent> batch) {
+        Map<AuditEvent.Table, List<Object[]>> byTable = new EnumMap<>(AuditEvent.Table.class);
+        for (AuditEvent e : batch) {
+            byTable.computeIfAbsent(e.table(), t -> new ArrayList<>()).add(new Object[]{
+                    e.actor(), e.action(), e.targetType(), e.targetId(), e.details(), e.correlationId(),
+                    new Timestamp(e.createdAtMs())});
+        }
+        tx.executeWithoutResult(status -> byTable.forEach((table, args) ->
+                jdbc.batchUpdate(INSERT.formatted(table.tableName()), args)));
+    }
+
+    private void insertOneByOne(List<AuditEvent> batch) {
+        for (AuditEvent e : batch) {
+            try {
+                insert(List.of(e));
+            } catch (DataIntegrityViolationException ex) {
+                dropped.increment();
+                log.error("Dropping audit row {} {} rejected by the database: {}", e.table(), e.action(), ex.getMessage());
+            }
+        }
+    }
+
+    private void spillOrDrop(List<AuditEvent> events) {
+        try {
+            spill.append(events);
+            spilled.increment(events.size());
+        } catch (IOException e) {
+            dropped.increment(events.size());
+            log.error("Dropping {} audit events, spill file not writable: {}", events.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.bmessi.pickupsportsapp.service.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring of audit events: many producers, one consumer.
+ *
+ * Each slot carries a sequence number. A producer claims a position with one CAS on the tail and
+ * publishes its event by advancing the slot's sequence. The consumer takes a slot only once it is
+ * published, and hands it back for the next lap. A full ring makes {@link #offer} return false
+ * immediately; producers never block or spin on the consumer.
+ */
+public final class AuditRingBuffer {
+
+    private final AuditEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public AuditRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new AuditEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+        this.mask = capacity - 1;
+    }
+
+    /** Appends the event, or returns false when the ring is full. Safe from any thread. */
+    public boolean offer(AuditEvent event) {
+        long pos = tail.get();
+        for (;;) {
+            int idx = (int) (pos & mask);
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[idx] = event;
+                    sequences.set(idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** Moves up to {@code max} published events into {@code out}. Consumer thread only. */
+    public int drainTo(List<AuditEvent> out, int max) {
+        long pos = head;
+        int n = 0;
+        while (n < max) {
+            int idx = (int) (pos & mask);
+            if (sequences.get(idx) != pos + 1) break;
+            out.add(slots[idx]);
+            slots[idx] = null;
+            sequences.set(idx, pos + slots.length);
+            pos++;
+            n++;
+        }
+        head = pos;
+        return n;
+    }
+
+    /** Events claimed but not yet drained. */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
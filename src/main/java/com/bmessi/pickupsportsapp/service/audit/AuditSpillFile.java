@@ -0,0 +1,131 @@
+package com.bmessi.pickupsportsapp.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Append-only JSON-lines file holding audit events the database could not take.
+ *
+ * Appends go to {@code audit-spill.jsonl}. A replay first renames that file to
+ * {@code audit-spill.replaying.jsonl}, so new spills start a fresh file, and then feeds it back in
+ * chunks. When a chunk fails, the unreplayed remainder replaces the replaying file and the next replay
+ * resumes from there. Delivery is at least once: a crash between a chunk's commit and the rewrite can
+ * replay that chunk again. A torn last line, left by a crash mid-append, is skipped.
+ */
+public final class AuditSpillFile {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditSpillFile.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path dir;
+    private final Path active;
+    private final Path replaying;
+    private final boolean fsync;
+
+    public AuditSpillFile(Path dir, boolean fsync) {
+        this.dir = dir;
+        this.active = dir.resolve("audit-spill.jsonl");
+        this.replaying = dir.resolve("audit-spill.replaying.jsonl");
+        this.fsync = fsync;
+    }
+
+    public synchronized void append(List<AuditEvent> events) throws IOException {
+        Files.createDirectories(dir);
+        try (FileChannel ch = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             BufferedWriter w = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(ch), StandardCharsets.UTF_8))) {
+            for (AuditEvent e : events) {
+                w.write(MAPPER.writeValueAsString(e));
+                w.write('\n');
+            }
+            w.flush();
+            if (fsync) ch.force(false);
+        }
+    }
+
+    public boolean hasBacklog() {
+        return bytes() > 0;
+    }
+
+    public long bytes() {
+        return size(active) + size(replaying);
+    }
+
+    /**
+     * Feeds spilled events to {@code writer} in chunks of {@code chunkSize}. Returns true once the
+     * backlog is fully replayed, or false when {@code writer} rejected a chunk.
+     */
+    public boolean replay(int chunkSize, Predicate<List<AuditEvent>> writer) throws IOException {
+        synchronized (this) {
+            if (!Files.exists(replaying)) {
+                if (size(active) == 0) return true;
+                Files.move(active, replaying, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        List<AuditEvent> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader r = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    chunk.add(MAPPER.readValue(line, AuditEvent.class));
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable spilled audit event: {}", e.getMessage());
+                    continue;
+                }
+                if (chunk.size() >= chunkSize) {
+                    if (!writer.test(chunk)) {
+                        keepRemaining(chunk, r);
+                        return false;
+                    }
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty() && !writer.test(chunk)) {
+                keepRemaining(chunk, r);
+                return false;
+            }
+        }
+        Files.deleteIfExists(replaying);
+        return true;
+    }
+
+    private void keepRemaining(List<AuditEvent> unwritten, BufferedReader rest) throws IOException {
+        Path tmp = dir.resolve("audit-spill.replaying.tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (AuditEvent e : unwritten) {
+                w.write(MAPPER.writeValueAsString(e));
+                w.write('\n');
+            }
+            String line;
+            while ((line = rest.readLine()) != null) {
+                w.write(line);
+                w.write('\n');
+            }
+        }
+        Files.move(tmp, replaying, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long size(Path p) {
+        try {
+            return Files.exists(p) ? Files.size(p) : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
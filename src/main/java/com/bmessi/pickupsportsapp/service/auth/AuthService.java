@@ -21,6 +21,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final RefreshTokenService refreshTokenService;
     private final com.bmessi.pickupsportsapp.security.SecurityAuditService audit;
+    private final com.bmessi.pickupsportsapp.security.TokenRevocationService tokenRevocations;
 
     // Provide a sane default (e.g., 15 minutes) so missing config doesn't crash startup
     @Value("${security.jwt.expiration-minutes:15}")
@@ -37,7 +38,7 @@ public class AuthService {
         User user = userRepository.findOptionalByUsername(username)
                 .orElseThrow(() -> new BadCredentialsException("User not found"));
 
-        String accessToken = tokenService.generate(user.getUsername());
+        String accessToken = accessToken(user);
         RefreshTokenService.TokenWithNonce refreshPair;
         try {
             refreshPair = refreshTokenService.createToken(user);
@@ -62,7 +63,7 @@ public class AuthService {
 
         try {
             RefreshTokenService.TokenWithNonce pair = refreshTokenService.rotate(stored);
-            String newAccessToken = tokenService.generate(stored.getUser().getUsername());
+            String newAccessToken = accessToken(stored.getUser());
             try { audit.refreshIssued(stored.getUser().getUsername()); } catch (Exception ignore) {}
             try { io.micrometer.core.instrument.Metrics.counter("auth.refresh.success").increment(); } catch (Exception ignore) {}
             return new TokenPairResponse(newAccessToken, pair.token(), pair.nonce(), "Bearer", accessTokenMinutes * 60L);
@@ -74,9 +75,38 @@ public class AuthService {
     @Timed(value = "auth.logout", description = "Time to revoke a refresh token on logout")
     @Transactional
     public void logout(String refreshTokenValue) {
-        if (refreshTokenValue == null || refreshTokenValue.isBlank()) {
+        logout(refreshTokenValue, null);
+    }
+
+    /**
+     * Revokes the refresh token and, when the caller presents it, the access token too, so it stops
+     * authorizing requests and WebSocket CONNECTs before it expires.
+     */
+    @Timed(value = "auth.logout", description = "Time to revoke a refresh token on logout")
+    @Transactional
+    public void logout(String refreshTokenValue, String accessToken) {
+        if (refreshTokenValue != null && !refreshTokenValue.isBlank()) {
+            refreshTokenService.revokeByTokenValue(refreshTokenValue);
+        }
+        if (accessToken == null || accessToken.isBlank()) {
             return;
         }
-        refreshTokenService.revokeByTokenValue(refreshTokenValue);
+        io.jsonwebtoken.Claims claims;
+        try {
+            claims = tokenService.parse(accessToken).getPayload();
+        } catch (io.jsonwebtoken.JwtException | IllegalArgumentException e) {
+            return; // expired or invalid: nothing left to revoke
+        }
+        if (claims.getId() != null) {
+            tokenRevocations.revoke(claims.getId(),
+                    claims.getExpiration() == null ? null : claims.getExpiration().toInstant(), "logout");
+        }
+    }
+
+    /** Access token with the user's roles and token version, so requests authorize without a user lookup. */
+    private String accessToken(User user) {
+        java.util.List<String> roles = user.getRoles() == null ? java.util.List.of()
+                : user.getRoles().stream().map(Enum::name).sorted().toList();
+        return tokenService.generate(user.getUsername(), roles, user.getTokenVersion());
     }
-}
\ No newline at end of file
+}
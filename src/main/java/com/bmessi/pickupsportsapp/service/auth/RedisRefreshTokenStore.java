@@ -0,0 +1,203 @@
+package com.bmessi.pickupsportsapp.service.auth;
+
+import com.bmessi.pickupsportsapp.config.properties.RefreshTokenStoreProperties;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Refresh-token sessions in Redis, keyed by token hash.
+ *
+ * Each token is a hash {@code rt:<tokenHash>} holding the user id, nonce hash, expiry, creation time,
+ * a revoked flag and the hash of the token that replaced it. The key lives until the token's expiry
+ * even after rotation or revocation, so a replayed token is rejected as revoked instead of being
+ * looked up elsewhere. {@code rt:user:<userId>} holds the user's live token hashes for revoke-all.
+ *
+ * Rotation checks and flips the current token and creates its successor in one Lua script, so two
+ * concurrent refreshes with the same token cannot both succeed.
+ */
+@Component
+public class RedisRefreshTokenStore {
+
+    static final String KEY_PREFIX = "rt:";
+    private static final int MAX_CHAIN = 16;
+
+    /**
+     * KEYS[1] = token, KEYS[2] = user set.
+     * ARGV = user id, nonce hash, expiry ms, created ms, token hash, now ms.
+     */
+    private static final RedisScript<Long> ISSUE = new DefaultRedisScript<>("""
+            local ttl = tonumber(ARGV[3]) - tonumber(ARGV[6])
+            if ttl <= 0 then return 0 end
+            redis.call('HSET', KEYS[1], 'u', ARGV[1], 'n', ARGV[2], 'e', ARGV[3], 'c', ARGV[4])
+            redis.call('PEXPIRE', KEYS[1], ttl)
+            redis.call('SADD', KEYS[2], ARGV[5])
+            if redis.call('PTTL', KEYS[2]) < ttl then redis.call('PEXPIRE', KEYS[2], ttl) end
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS[1] = current token, KEYS[2] = next token, KEYS[3] = user set.
+     * ARGV = nonce hash, current hash, next hash, next nonce hash, now ms, next expiry ms.
+     * Returns 1 rotated, 0 missing, -1 revoked or expired, -2 nonce mismatch.
+     */
+    private static final RedisScript<Long> ROTATE = new DefaultRedisScript<>("""
+            local s = redis.call('HMGET', KEYS[1], 'u', 'n', 'e', 'r')
+            if not s[1] then return 0 end
+            if s[4] == '1' or tonumber(s[3]) <= tonumber(ARGV[5]) then return -1 end
+            if s[2] ~= ARGV[1] then return -2 end
+            local ttl = tonumber(ARGV[6]) - tonumber(ARGV[5])
+            redis.call('HSET', KEYS[1], 'r', '1', 'x', ARGV[3])
+            redis.call('HSET', KEYS[2], 'u', s[1], 'n', ARGV[4], 'e', ARGV[6], 'c', ARGV[5])
+            redis.call('PEXPIRE', KEYS[2], ttl)
+            redis.call('SREM', KEYS[3], ARGV[2])
+            redis.call('SADD', KEYS[3], ARGV[3])
+            if redis.call('PTTL', KEYS[3]) < ttl then redis.call('PEXPIRE', KEYS[3], ttl) end
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS[1] = token. ARGV = key prefix, token hash, max hops.
+     * Revokes the token and every token that replaced it; returns the hashes newly revoked.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REVOKE = new DefaultRedisScript<>("""
+            local out = {}
+            local hash = ARGV[2]
+            local key = KEYS[1]
+            for i = 1, tonumber(ARGV[3]) do
+              local s = redis.call('HMGET', key, 'u', 'r', 'x')
+              if not s[1] then break end
+              if s[2] ~= '1' then
+                redis.call('HSET', key, 'r', '1')
+                out[#out + 1] = hash
+              end
+              redis.call('SREM', ARGV[1] .. 'user:' .. s[1], hash)
+              if not s[3] then break end
+              hash = s[3]
+              key = ARGV[1] .. hash
+            end
+            return out
+            """, List.class);
+
+    /**
+     * KEYS[1] = user set. ARGV = key prefix. Revokes every live token of the user; returns their hashes.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REVOKE_USER = new DefaultRedisScript<>("""
+            local out = {}
+            for _, h in ipairs(redis.call('SMEMBERS', KEYS[1])) do
+              local key = ARGV[1] .. h
+              if redis.call('EXISTS', key) == 1 and redis.call('HGET', key, 'r') ~= '1' then
+                redis.call('HSET', key, 'r', '1')
+                out[#out + 1] = h
+              end
+            end
+            redis.call('DEL', KEYS[1])
+            return out
+            """, List.class);
+
+    public record Session(long userId, String nonceHash, Instant expiresAt, Instant createdAt, boolean revoked) {}
+
+    public enum Rotation { ROTATED, MISSING, REVOKED, NONCE_MISMATCH }
+
+    private final RefreshTokenStoreProperties props;
+    private final Optional<StringRedisTemplate> redis;
+    private final Clock clock;
+
+    public RedisRefreshTokenStore(RefreshTokenStoreProperties props, Optional<StringRedisTemplate> redis, Clock clock) {
+        this.props = props;
+        this.redis = redis;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return props.isRedisEnabled() && redis.isPresent();
+    }
+
+    public Optional<Session> find(String tokenHash) {
+        HashOperations<String, String, String> hash = redis.get().opsForHash();
+        List<String> f = hash.multiGet(KEY_PREFIX + tokenHash, List.of("u", "n", "e", "c", "r"));
+        if (f == null || f.get(0) == null) return Optional.empty();
+        return Optional.of(new Session(
+                Long.parseLong(f.get(0)),
+                f.get(1),
+                Instant.ofEpochMilli(Long.parseLong(f.get(2))),
+                f.get(3) == null ? null : Instant.ofEpochMilli(Long.parseLong(f.get(3))),
+                "1".equals(f.get(4))));
+    }
+
+    /** Stores a new, or re-seeds an existing, active token. Already expired tokens are ignored. */
+    public void put(String tokenHash, String nonceHash, long userId, Instant expiresAt, Instant createdAt) {
+        redis.get().execute(ISSUE, List.of(KEY_PREFIX + tokenHash, userKey(userId)),
+                Long.toString(userId), nonceHash, Long.toString(expiresAt.toEpochMilli()),
+                Long.toString(createdAt.toEpochMilli()), tokenHash, Long.toString(clock.millis()));
+    }
+
+    public Rotation rotate(String currentHash, String nonceHash, long userId,
+                           String nextHash, String nextNonceHash, Instant nextExpiresAt) {
+        Long r = redis.get().execute(ROTATE,
+                List.of(KEY_PREFIX + currentHash, KEY_PREFIX + nextHash, userKey(userId)),
+                nonceHash, currentHash, nextHash, nextNonceHash,
+                Long.toString(clock.millis()), Long.toString(nextExpiresAt.toEpochMilli()));
+        if (r == null || r == 0L) return Rotation.MISSING;
+        if (r == 1L) return Rotation.ROTATED;
+        return r == -2L ? Rotation.NONCE_MISMATCH : Rotation.REVOKED;
+    }
+
+    /** Revokes the token and any tokens it was rotated into; returns the hashes newly revoked. */
+    public List<String> revoke(String tokenHash) {
+        return strings(redis.get().execute(REVOKE, List.of(KEY_PREFIX + tokenHash),
+                KEY_PREFIX, tokenHash, Integer.toString(MAX_CHAIN)));
+    }
+
+    /** Revokes all live tokens of a user; returns their hashes. */
+    public List<String> revokeAll(long userId) {
+        return strings(redis.get().execute(REVOKE_USER, List.of(userKey(userId)), KEY_PREFIX));
+    }
+
+    /**
+     * For each hash that Redis holds as revoked, the hash that replaced it ("" when none), in one
+     * pipelined round trip. Hashes Redis does not know are left out.
+     */
+    public Map<String, String> revokedAmong(Collection<String> tokenHashes) {
+        List<String> hashes = new ArrayList<>(tokenHashes);
+        List<Object> replies = redis.get().executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection c = (StringRedisConnection) connection;
+            for (String h : hashes) c.hMGet(KEY_PREFIX + h, "r", "x");
+            return null;
+        });
+        Map<String, String> out = new LinkedHashMap<>();
+        for (int i = 0; i < hashes.size() && i < replies.size(); i++) {
+            if (replies.get(i) instanceof List<?> f && !f.isEmpty() && "1".equals(f.get(0))) {
+                Object next = f.size() > 1 ? f.get(1) : null;
+                out.put(hashes.get(i), next == null ? "" : next.toString());
+            }
+        }
+        return out;
+    }
+
+    private static String userKey(long userId) {
+        return KEY_PREFIX + "user:" + userId;
+    }
+
+    private static List<String> strings(List<?> raw) {
+        if (raw == null) return List.of();
+        List<String> out = new ArrayList<>(raw.size());
+        for (Object o : raw) out.add(o.toString());
+        return out;
+    }
+}
@@ -0,0 +1,82 @@
+package com.bmessi.pickupsportsapp.service.auth;
+
+import com.bmessi.pickupsportsapp.config.properties.RefreshTokenStoreProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consistency check between refresh_token and the Redis store.
+ *
+ * Redis is authoritative for whether a token is live. Each run pages through the active rows of
+ * refresh_token by id, and revokes the rows whose token Redis holds as revoked. That covers writes
+ * dropped after repeated failures and bulk revocations that raced with queued inserts. Rows Redis does
+ * not know are left alone: refresh falls back to the row and re-seeds Redis from it. Runs are
+ * idempotent, so several nodes may run them at once.
+ */
+@Component
+public class RefreshTokenReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenReconciler.class);
+
+    static final String SELECT_ACTIVE = "SELECT id, token_hash FROM refresh_token "
+            + "WHERE revoked_at IS NULL AND expires_at > ? AND id > ? ORDER BY id LIMIT ?";
+    static final String REPAIR = "UPDATE refresh_token SET revoked_at = ?, "
+            + "replaced_by_token_hash = COALESCE(replaced_by_token_hash, ?) WHERE token_hash = ? AND revoked_at IS NULL";
+
+    private final JdbcTemplate jdbc;
+    private final RedisRefreshTokenStore store;
+    private final RefreshTokenStoreProperties props;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    private long cursor;
+
+    public RefreshTokenReconciler(JdbcTemplate jdbc,
+                                  RedisRefreshTokenStore store,
+                                  RefreshTokenStoreProperties props,
+                                  MeterRegistry meterRegistry,
+                                  Clock clock) {
+        this.jdbc = jdbc;
+        this.store = store;
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /** Checks the next page of active rows and returns the number repaired. */
+    @Scheduled(fixedDelayString = "${security.refresh-store.reconcile-ms:300000}",
+            initialDelayString = "${security.refresh-store.reconcile-ms:300000}")
+    public synchronized int reconcile() {
+        if (!store.isEnabled()) return 0;
+        Timestamp now = Timestamp.from(clock.instant());
+        Map<String, Long> rows = new LinkedHashMap<>();
+        jdbc.query(SELECT_ACTIVE, rs -> {
+            rows.put(rs.getString(2), rs.getLong(1));
+        }, now, cursor, Math.max(1, props.getReconcileBatchSize()));
+        if (rows.isEmpty()) {
+            cursor = 0;
+            return 0;
+        }
+        cursor = rows.values().stream().mapToLong(Long::longValue).max().orElse(0);
+
+        Map<String, String> revoked = store.revokedAmong(rows.keySet());
+        if (revoked.isEmpty()) return 0;
+        List<Object[]> args = new ArrayList<>(revoked.size());
+        revoked.forEach((hash, next) -> args.add(new Object[]{now, next.isEmpty() ? null : next, hash}));
+        jdbc.batchUpdate(REPAIR, args);
+        meterRegistry.counter("refresh.store.reconcile.repaired").increment(revoked.size());
+        log.info("Refresh-token consistency check revoked {} rows already revoked in Redis", revoked.size());
+        return revoked.size();
+    }
+}
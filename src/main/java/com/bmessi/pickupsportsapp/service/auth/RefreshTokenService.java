@@ -3,7 +3,11 @@ package com.bmessi.pickupsportsapp.service.auth;
 import com.bmessi.pickupsportsapp.entity.auth.RefreshToken;
 import com.bmessi.pickupsportsapp.entity.User;
 import com.bmessi.pickupsportsapp.repository.RefreshTokenRepository;
+import com.bmessi.pickupsportsapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
@@ -12,13 +16,40 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
+/**
+ * Issues, validates and rotates refresh tokens.
+ *
+ * When the Redis store is enabled it is the source of truth: validation is one Redis read and rotation
+ * one Lua call, and refresh_token is kept up to date by {@link RefreshTokenWriteBehind}. A token Redis
+ * does not know (issued before the store was enabled, or lost with Redis) is looked up in refresh_token
+ * and, if still active there, seeded back into Redis.
+ *
+ * If a Redis call fails the request is served from refresh_token instead, after flushing the
+ * write-behind queue so the table has caught up. Tokens revoked or rotated in the table meanwhile are
+ * remembered and revoked in Redis by the next call that reaches it, so they do not come back live.
+ */
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenService {
 
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int MAX_UNSYNCED_REVOCATIONS = 100_000;
+
     private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final RedisRefreshTokenStore store;
+    private final RefreshTokenWriteBehind writeBehind;
+    private final MeterRegistry meterRegistry;
+
+    // Token hashes revoked in refresh_token while Redis was unreachable
+    private final BlockingQueue<String> unsyncedRevocations = new LinkedBlockingQueue<>(MAX_UNSYNCED_REVOCATIONS);
 
     @Value("${security.jwt.refresh-token-expiration:604800}") // default 7 days
     private long refreshTokenDuration;
@@ -28,12 +59,25 @@ public class RefreshTokenService {
         String rawNonce = UUID.randomUUID().toString();
         String tokenHash = hash(rawToken);
         String nonceHash = hash(rawNonce);
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusSeconds(refreshTokenDuration);
+
+        if (store.isEnabled()) {
+            try {
+                syncRevocations();
+                store.put(tokenHash, nonceHash, user.getId(), expiresAt, now);
+                writeBehind.enqueue(new RefreshTokenWriteBehind.Issue(tokenHash, nonceHash, user.getId(), expiresAt, now));
+                return new TokenWithNonce(rawToken, rawNonce);
+            } catch (RuntimeException e) {
+                storeUnavailable("create", e);
+            }
+        }
 
         RefreshToken token = RefreshToken.builder()
                 .user(user)
                 .tokenHash(tokenHash)
                 .nonceHash(nonceHash)
-                .expiresAt(Instant.now().plusSeconds(refreshTokenDuration))
+                .expiresAt(expiresAt)
                 .build();
 
         refreshTokenRepository.save(token);
@@ -43,6 +87,38 @@ public class RefreshTokenService {
 
     public RefreshToken validate(String rawToken, String rawNonce) {
         String hash = hash(rawToken);
+        String nonceHash = hash(rawNonce);
+
+        boolean storeUp = store.isEnabled();
+        if (storeUp) {
+            Optional<RedisRefreshTokenStore.Session> session;
+            try {
+                syncRevocations();
+                session = store.find(hash);
+            } catch (RuntimeException e) {
+                storeUnavailable("validate", e);
+                writeBehind.flush();
+                session = Optional.empty();
+                storeUp = false;
+            }
+            if (session.isPresent()) {
+                RedisRefreshTokenStore.Session s = session.get();
+                if (s.revoked() || !s.expiresAt().isAfter(Instant.now())) {
+                    throw new BadCredentialsException("Refresh token expired or revoked");
+                }
+                if (!nonceHash.equals(s.nonceHash())) {
+                    throw new BadCredentialsException("Invalid refresh token nonce");
+                }
+                // Detached view of the session; the user is loaded only if the caller touches it
+                return RefreshToken.builder()
+                        .tokenHash(hash)
+                        .nonceHash(s.nonceHash())
+                        .user(userRepository.getReferenceById(s.userId()))
+                        .expiresAt(s.expiresAt())
+                        .createdAt(s.createdAt() != null ? s.createdAt() : Instant.now())
+                        .build();
+            }
+        }
 
         RefreshToken token = refreshTokenRepository.findByTokenHash(hash)
                 .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
@@ -51,11 +127,17 @@ public class RefreshTokenService {
             throw new BadCredentialsException("Refresh token expired or revoked");
         }
 
-        String nonceHash = hash(rawNonce);
         if (!nonceHash.equals(token.getNonceHash())) {
             throw new BadCredentialsException("Invalid refresh token nonce");
         }
 
+        if (storeUp) {
+            try {
+                store.put(hash, token.getNonceHash(), token.getUser().getId(), token.getExpiresAt(), token.getCreatedAt());
+            } catch (RuntimeException e) {
+                storeUnavailable("seed", e);
+            }
+        }
         return token;
     }
 
@@ -64,18 +146,48 @@ public class RefreshTokenService {
         String rawNonce = UUID.randomUUID().toString();
         String newTokenHash = hash(rawToken);
         String newNonceHash = hash(rawNonce);
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusSeconds(refreshTokenDuration);
+
+        if (store.isEnabled()) {
+            long userId = current.getUser().getId();
+            RedisRefreshTokenStore.Rotation r = null;
+            try {
+                syncRevocations();
+                r = store.rotate(current.getTokenHash(), current.getNonceHash(), userId,
+                        newTokenHash, newNonceHash, expiresAt);
+            } catch (RuntimeException e) {
+                storeUnavailable("rotate", e);
+            }
+            if (r != null) {
+                if (r != RedisRefreshTokenStore.Rotation.ROTATED) {
+                    throw new BadCredentialsException("Refresh token expired or revoked");
+                }
+                writeBehind.enqueue(new RefreshTokenWriteBehind.Issue(newTokenHash, newNonceHash, userId, expiresAt, now));
+                writeBehind.enqueue(new RefreshTokenWriteBehind.Rotate(current.getTokenHash(), newTokenHash, now));
+                return new TokenWithNonce(rawToken, rawNonce);
+            }
+            // The caller may hold a detached view of a Redis session: rotate the row as it stands now
+            writeBehind.flush();
+            String nonceHash = current.getNonceHash();
+            current = refreshTokenRepository.findByTokenHash(current.getTokenHash())
+                    .filter(RefreshToken::isActive)
+                    .filter(row -> nonceHash.equals(row.getNonceHash()))
+                    .orElseThrow(() -> new BadCredentialsException("Refresh token expired or revoked"));
+            rememberRevoked(current.getTokenHash());
+        }
 
         RefreshToken next = RefreshToken.builder()
                 .user(current.getUser())
                 .tokenHash(newTokenHash)
                 .nonceHash(newNonceHash)
-                .expiresAt(Instant.now().plusSeconds(refreshTokenDuration))
+                .expiresAt(expiresAt)
                 .build();
         refreshTokenRepository.save(next);
 
-        current.setRevokedAt(Instant.now());
+        current.setRevokedAt(now);
         current.setReplacedByTokenHash(newTokenHash);
-        current.setLastUsedAt(Instant.now());
+        current.setLastUsedAt(now);
         refreshTokenRepository.save(current);
 
         return new TokenWithNonce(rawToken, rawNonce);
@@ -83,7 +195,26 @@ public class RefreshTokenService {
 
     public void revokeByTokenValue(String rawToken) {
         String hash = hash(rawToken);
-        refreshTokenRepository.findByTokenHash(hash).ifPresent(token -> {
+        if (store.isEnabled()) {
+            try {
+                syncRevocations();
+                if (!revokeInStore(hash).contains(hash)) {
+                    // Already revoked, or never seen by Redis. The row is revoked now rather than written
+                    // behind, or a refresh in the meantime would find it active and seed it back as live.
+                    revokeRow(hash);
+                }
+                return;
+            } catch (RuntimeException e) {
+                storeUnavailable("revoke", e);
+                writeBehind.flush();
+                rememberRevoked(hash);
+            }
+        }
+        revokeRow(hash);
+    }
+
+    private void revokeRow(String tokenHash) {
+        refreshTokenRepository.findByTokenHash(tokenHash).ifPresent(token -> {
             if (token.getRevokedAt() == null) {
                 token.setRevokedAt(Instant.now());
                 refreshTokenRepository.save(token);
@@ -91,6 +222,72 @@ public class RefreshTokenService {
         });
     }
 
+    /**
+     * Revokes a session row. With the Redis store, tokens it was already rotated into are revoked too,
+     * since their rows may not have been written yet.
+     */
+    public void revoke(RefreshToken token) {
+        if (token.getRevokedAt() == null) {
+            token.setRevokedAt(Instant.now());
+            refreshTokenRepository.save(token);
+        }
+        if (store.isEnabled()) {
+            try {
+                syncRevocations();
+                revokeInStore(token.getTokenHash());
+            } catch (RuntimeException e) {
+                storeUnavailable("revoke", e);
+                rememberRevoked(token.getTokenHash());
+            }
+        }
+    }
+
+    /**
+     * Revokes the user's tokens held in Redis; refresh_token rows are revoked by the caller, after this
+     * call. If Redis is unreachable the queued writes are flushed instead, so the caller sees every row.
+     */
+    public int revokeAllForUser(Long userId) {
+        if (userId == null || !store.isEnabled()) return 0;
+        Instant now = Instant.now();
+        try {
+            syncRevocations();
+            List<String> hashes = store.revokeAll(userId);
+            for (String h : hashes) writeBehind.enqueue(new RefreshTokenWriteBehind.Revoke(h, now));
+            return hashes.size();
+        } catch (RuntimeException e) {
+            storeUnavailable("revoke-all", e);
+            writeBehind.flush();
+            return 0;
+        }
+    }
+
+    private List<String> revokeInStore(String tokenHash) {
+        Instant now = Instant.now();
+        List<String> revoked = store.revoke(tokenHash);
+        for (String h : revoked) writeBehind.enqueue(new RefreshTokenWriteBehind.Revoke(h, now));
+        return revoked;
+    }
+
+    /** Revokes in Redis the tokens revoked in refresh_token while it was unreachable. */
+    private void syncRevocations() {
+        String h;
+        while ((h = unsyncedRevocations.peek()) != null) {
+            store.revoke(h);
+            unsyncedRevocations.remove(h);
+        }
+    }
+
+    private void rememberRevoked(String tokenHash) {
+        if (!unsyncedRevocations.offer(tokenHash)) {
+            meterRegistry.counter("refresh.store.fallback.unsynced.dropped").increment();
+        }
+    }
+
+    private void storeUnavailable(String op, RuntimeException e) {
+        meterRegistry.counter("refresh.store.fallback", "op", op).increment();
+        log.warn("Refresh-token store unavailable for {}, using refresh_token: {}", op, e.getMessage());
+    }
+
     private String hash(String token) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
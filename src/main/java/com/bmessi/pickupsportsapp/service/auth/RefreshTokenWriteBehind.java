@@ -0,0 +1,149 @@
+package com.bmessi.pickupsportsapp.service.auth;
+
+import com.bmessi.pickupsportsapp.config.properties.RefreshTokenStoreProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes refresh-token changes to refresh_token behind the Redis store.
+ *
+ * Changes are queued in order and flushed every {@code security.refresh-store.flush-ms} as one
+ * transaction of three JDBC batches: inserts, then rotations, then revocations. Within a batch a token
+ * is always issued before it is rotated or revoked, so this order matches the order of events. Every
+ * statement is idempotent, so a failed batch is retried as a whole ahead of newer writes, up to
+ * {@code max-retries} times. When the queue is full new writes are dropped and counted rather than
+ * holding refreshes up on the database. {@link RefreshTokenReconciler} repairs dropped rotations and
+ * revocations from Redis; a dropped insert leaves the session out of the listing until it is rotated.
+ */
+@Component
+public class RefreshTokenWriteBehind implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenWriteBehind.class);
+
+    static final String INSERT = "INSERT INTO refresh_token (token_hash, nonce_hash, user_id, expires_at, created_at) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (token_hash) DO NOTHING";
+    static final String ROTATE = "UPDATE refresh_token SET revoked_at = ?, replaced_by_token_hash = ?, last_used_at = ? "
+            + "WHERE token_hash = ? AND revoked_at IS NULL";
+    static final String REVOKE = "UPDATE refresh_token SET revoked_at = ? WHERE token_hash = ? AND revoked_at IS NULL";
+
+    public sealed interface Op permits Issue, Rotate, Revoke {}
+
+    public record Issue(String tokenHash, String nonceHash, long userId, Instant expiresAt, Instant createdAt) implements Op {}
+
+    public record Rotate(String tokenHash, String nextHash, Instant at) implements Op {}
+
+    public record Revoke(String tokenHash, Instant at) implements Op {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final RefreshTokenStoreProperties props;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<Op> queue;
+
+    // Guarded by this
+    private List<Op> failed = List.of();
+    private int failedAttempts;
+
+    public RefreshTokenWriteBehind(JdbcTemplate jdbc,
+                                   PlatformTransactionManager txManager,
+                                   RefreshTokenStoreProperties props,
+                                   MeterRegistry meterRegistry) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, props.getQueueCapacity()));
+        meterRegistry.gauge("refresh.store.writebehind.pending", queue, BlockingQueue::size);
+    }
+
+    public void enqueue(Op op) {
+        if (queue.offer(op)) return;
+        meterRegistry.counter("refresh.store.writebehind.dropped").increment();
+        log.warn("Refresh-token write queue full; dropped {}", op.getClass().getSimpleName());
+    }
+
+    @Scheduled(fixedDelayString = "${security.refresh-store.flush-ms:500}")
+    public void scheduledFlush() {
+        if (props.isRedisEnabled()) flush();
+    }
+
+    /** Writes queued changes until the queue is empty or a batch fails. Returns the number written. */
+    public synchronized int flush() {
+        int written = 0;
+        if (!failed.isEmpty()) {
+            if (!write(failed)) return 0;
+            written += failed.size();
+            failed = List.of();
+        }
+        int batchSize = Math.max(1, props.getBatchSize());
+        List<Op> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (!write(batch)) return written;
+            written += batch.size();
+            batch = new ArrayList<>(batchSize);
+        }
+        return written;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public void destroy() {
+        if (props.isRedisEnabled()) flush();
+    }
+
+    private boolean write(List<Op> batch) {
+        try {
+            tx.executeWithoutResult(status -> {
+                List<Object[]> inserts = new ArrayList<>();
+                List<Object[]> rotations = new ArrayList<>();
+                List<Object[]> revocations = new ArrayList<>();
+                for (Op op : batch) {
+                    if (op instanceof Issue i) {
+                        inserts.add(new Object[]{i.tokenHash(), i.nonceHash(), i.userId(),
+                                Timestamp.from(i.expiresAt()), Timestamp.from(i.createdAt())});
+                    } else if (op instanceof Rotate r) {
+                        Timestamp at = Timestamp.from(r.at());
+                        rotations.add(new Object[]{at, r.nextHash(), at, r.tokenHash()});
+                    } else if (op instanceof Revoke r) {
+                        revocations.add(new Object[]{Timestamp.from(r.at()), r.tokenHash()});
+                    }
+                }
+                if (!inserts.isEmpty()) jdbc.batchUpdate(INSERT, inserts);
+                if (!rotations.isEmpty()) jdbc.batchUpdate(ROTATE, rotations);
+                if (!revocations.isEmpty()) jdbc.batchUpdate(REVOKE, revocations);
+            });
+            meterRegistry.counter("refresh.store.writebehind.written").increment(batch.size());
+            failedAttempts = 0;
+            return true;
+        } catch (Exception e) {
+            meterRegistry.counter("refresh.store.writebehind.errors").increment();
+            if (++failedAttempts > Math.max(0, props.getMaxRetries())) {
+                meterRegistry.counter("refresh.store.writebehind.dropped").increment(batch.size());
+                log.error("Dropping {} refresh-token writes after {} attempts: {}", batch.size(), failedAttempts, e.getMessage());
+                failed = List.of();
+                failedAttempts = 0;
+            } else {
+                log.warn("Refresh-token write batch failed (attempt {}): {}", failedAttempts, e.getMessage());
+                failed = List.copyOf(batch);
+            }
+            return false;
+        }
+    }
+}
@@ -1,10 +1,19 @@
 package com.bmessi.pickupsportsapp.service.chat;
 
+import com.bmessi.pickupsportsapp.dto.PresenceDeltaDTO;
+import com.bmessi.pickupsportsapp.dto.PresenceSnapshotDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -12,23 +21,63 @@ import java.util.concurrent.ConcurrentHashMap;
  * Tracks presence of users in a game's chat channel.
  * Uses Redis ZSET presence:game:{id} with score=lastSeenEpochSeconds when Redis is available,
  * and falls back to an in-memory map otherwise.
+ *
+ * Every join/leave bumps a per-room version and is appended to a short change log, so clients can
+ * fetch a full snapshot once and then ask only for the deltas since the version they hold.
+ * The sorted user list is cached per (room, version) and rebuilt only when membership changes.
+ *
+ * Each change is also pushed to {@code /topic/games/{id}/presence/delta} as a one-step delta. A client
+ * applies it when its {@code fromVersion} matches the version it holds, and otherwise catches up with
+ * {@code GET /games/{id}/presence?sinceVersion=}.
+ *
+ * In Redis the version counter and change log are written by one script, so a reader never sees a
+ * version whose log entry is missing. Both keys expire {@code chat.presence.history-ttl-seconds} after
+ * the last change; a client holding a version from before that falls back to a full snapshot.
  */
+@Slf4j
 @Service
 public class ChatPresenceService {
 
+    /** KEYS[1] = version, KEYS[2] = log; ARGV = op+user, log size, ttl seconds. Returns the new version. */
+    private static final RedisScript<Long> APPEND_CHANGE = new DefaultRedisScript<>("""
+            local v = redis.call('INCR', KEYS[1])
+            redis.call('RPUSH', KEYS[2], v .. ':' .. ARGV[1])
+            redis.call('LTRIM', KEYS[2], -tonumber(ARGV[2]), -1)
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            return v
+            """, Long.class);
+
     private final Optional<StringRedisTemplate> redis;
+    private final Optional<SimpMessagingTemplate> broker;
     private final Clock clock;
     private final int ttlSeconds;
+    private final int deltaLogSize;
+    private final long historyTtlSeconds;
+
+    // in-memory fallback: gameId -> room state
+    private final ConcurrentHashMap<Long, LocalRoom> local = new ConcurrentHashMap<>();
 
-    // in-memory fallback: gameId -> (username -> lastSeenEpochSeconds)
-    private final ConcurrentHashMap<Long, ConcurrentHashMap<String, Long>> local = new ConcurrentHashMap<>();
+    // gameId -> sorted snapshot for the version it was built at; idle rooms are dropped
+    private final Cache<Long, PresenceSnapshotDTO> snapshots;
 
     public ChatPresenceService(Optional<StringRedisTemplate> redis,
+                               Optional<SimpMessagingTemplate> broker,
                                Clock clock,
-                               @Value("${chat.presence.ttl-seconds:45}") int ttlSeconds) {
+                               @Value("${chat.presence.ttl-seconds:45}") int ttlSeconds,
+                               @Value("${chat.presence.delta-log-size:256}") int deltaLogSize,
+                               @Value("${chat.presence.history-ttl-seconds:86400}") long historyTtlSeconds,
+                               @Value("${chat.presence.snapshot-cache-size:10000}") int snapshotCacheSize) {
         this.redis = redis;
+        this.broker = broker;
         this.clock = clock != null ? clock : Clock.systemUTC();
         this.ttlSeconds = Math.max(10, ttlSeconds);
+        this.deltaLogSize = Math.max(16, deltaLogSize);
+        this.historyTtlSeconds = Math.max(this.ttlSeconds * 2L, historyTtlSeconds);
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(Math.max(100, snapshotCacheSize))
+                .expireAfterAccess(Duration.ofSeconds(this.ttlSeconds * 4L))
+                .build();
     }
 
     public PresenceBeat heartbeat(Long gameId, String username) {
@@ -37,57 +86,261 @@ public class ChatPresenceService {
         long nowSec = nowSeconds();
         long cutoff = nowSec - ttlSeconds;
 
+        List<Change> changes = new ArrayList<>(1);
+        long count;
         if (redis.isPresent()) {
             String key = redisKey(gameId);
-            // prune old
-            redis.get().opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, cutoff);
-            // upsert beat
-            redis.get().opsForZSet().add(key, user, nowSec);
-            Long count = redis.get().opsForZSet().zCard(key);
-            return new PresenceBeat(nowSec, ttlSeconds, count == null ? 0L : count);
+            // prune old (each expired member becomes a LEAVE delta)
+            pruneRedis(gameId, cutoff, changes);
+            // upsert beat; ZADD reports true only when the member is new -> JOIN delta
+            Boolean added = redis.get().opsForZSet().add(key, user, nowSec);
+            if (Boolean.TRUE.equals(added)) {
+                changes.add(appendRedisChange(gameId, '+', user));
+            }
+            Long card = redis.get().opsForZSet().zCard(key);
+            count = card == null ? 0L : card;
         } else {
-            var map = local.computeIfAbsent(gameId, k -> new ConcurrentHashMap<>());
-            // prune old
-            map.entrySet().removeIf(e -> e.getValue() < cutoff);
-            map.put(user, nowSec);
-            return new PresenceBeat(nowSec, ttlSeconds, (long) map.size());
+            LocalRoom room = local.computeIfAbsent(gameId, k -> new LocalRoom());
+            synchronized (room) {
+                room.prune(cutoff, deltaLogSize, changes);
+                if (room.members.put(user, nowSec) == null) {
+                    changes.add(room.record('+', user, deltaLogSize));
+                }
+                count = room.members.size();
+            }
         }
+        push(gameId, changes, count);
+        return new PresenceBeat(nowSec, ttlSeconds, count);
     }
 
     public PresenceList list(Long gameId, boolean includeUsers) {
         Objects.requireNonNull(gameId, "gameId");
-        long nowSec = nowSeconds();
-        long cutoff = nowSec - ttlSeconds;
+        if (includeUsers) {
+            PresenceSnapshotDTO snap = snapshot(gameId);
+            return new PresenceList(snap.count(), new ArrayList<>(snap.users()), snap.version());
+        }
+        long cutoff = nowSeconds() - ttlSeconds;
 
+        List<Change> changes = new ArrayList<>(0);
+        PresenceList result;
         if (redis.isPresent()) {
-            String key = redisKey(gameId);
-            // prune then read
-            redis.get().opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, cutoff);
-            Long count = redis.get().opsForZSet().zCard(key);
-            List<String> users = List.of();
-            if (includeUsers) {
-                Set<String> range = redis.get().opsForZSet().range(key, 0, -1);
-                users = range == null ? List.of() : new ArrayList<>(range);
-                Collections.sort(users, String::compareToIgnoreCase);
+            pruneRedis(gameId, cutoff, changes);
+            Long count = redis.get().opsForZSet().zCard(redisKey(gameId));
+            result = new PresenceList(count == null ? 0L : count, List.of(), redisVersion(gameId));
+        } else {
+            LocalRoom room = local.computeIfAbsent(gameId, k -> new LocalRoom());
+            synchronized (room) {
+                room.prune(cutoff, deltaLogSize, changes);
+                result = new PresenceList((long) room.members.size(), List.of(), room.version);
+            }
+        }
+        push(gameId, changes, result.count());
+        return result;
+    }
+
+    /**
+     * Full, case-insensitively sorted snapshot of the room. The sorted list is reused for as long
+     * as the room version does not change, so repeated polls of a large room cost O(1) instead of
+     * a ZRANGE plus an O(n log n) sort.
+     */
+    public PresenceSnapshotDTO snapshot(Long gameId) {
+        Objects.requireNonNull(gameId, "gameId");
+        long cutoff = nowSeconds() - ttlSeconds;
+
+        List<Change> changes = new ArrayList<>(0);
+        PresenceSnapshotDTO snap;
+        if (redis.isPresent()) {
+            pruneRedis(gameId, cutoff, changes);
+            long version = redisVersion(gameId);
+            PresenceSnapshotDTO cached = snapshots.getIfPresent(gameId);
+            if (cached != null && cached.version() == version) {
+                snap = cached;
+            } else {
+                Set<String> range = redis.get().opsForZSet().range(redisKey(gameId), 0, -1);
+                snap = buildSnapshot(gameId, version, range == null ? List.of() : range);
+                // A concurrent change may have bumped the version while we read; only cache if still current.
+                if (redisVersion(gameId) == version) {
+                    snapshots.put(gameId, snap);
+                }
+            }
+        } else {
+            LocalRoom room = local.computeIfAbsent(gameId, k -> new LocalRoom());
+            synchronized (room) {
+                room.prune(cutoff, deltaLogSize, changes);
+                PresenceSnapshotDTO cached = snapshots.getIfPresent(gameId);
+                if (cached != null && cached.version() == room.version) {
+                    snap = cached;
+                } else {
+                    snap = buildSnapshot(gameId, room.version, room.members.keySet());
+                    snapshots.put(gameId, snap);
+                }
             }
-            return new PresenceList(count == null ? 0L : count, users);
+        }
+        push(gameId, changes, snap.count());
+        return snap;
+    }
+
+    /**
+     * Net join/leave changes between {@code sinceVersion} and the current version.
+     * Returns empty when the client is too far behind (the change log no longer covers the gap)
+     * or claims a version this room never reached; the caller should then send a full snapshot.
+     */
+    public Optional<PresenceDeltaDTO> delta(Long gameId, long sinceVersion) {
+        Objects.requireNonNull(gameId, "gameId");
+        long cutoff = nowSeconds() - ttlSeconds;
+
+        long version;
+        long count;
+        List<String> log;
+        List<Change> changes = new ArrayList<>(0);
+        if (redis.isPresent()) {
+            pruneRedis(gameId, cutoff, changes);
+            version = redisVersion(gameId);
+            Long card = redis.get().opsForZSet().zCard(redisKey(gameId));
+            count = card == null ? 0L : card;
+            if (sinceVersion == version) {
+                push(gameId, changes, count);
+                return Optional.of(new PresenceDeltaDTO(gameId, sinceVersion, version, count, List.of(), List.of()));
+            }
+            List<String> entries = redis.get().opsForList().range(redisLogKey(gameId), 0, -1);
+            log = entries == null ? List.of() : entries;
         } else {
-            var map = local.computeIfAbsent(gameId, k -> new ConcurrentHashMap<>());
-            map.entrySet().removeIf(e -> e.getValue() < cutoff);
-            List<String> users = includeUsers ? new ArrayList<>(map.keySet()) : List.of();
-            if (includeUsers) users.sort(String::compareToIgnoreCase);
-            return new PresenceList((long) map.size(), users);
+            LocalRoom room = local.computeIfAbsent(gameId, k -> new LocalRoom());
+            synchronized (room) {
+                room.prune(cutoff, deltaLogSize, changes);
+                version = room.version;
+                count = room.members.size();
+                log = new ArrayList<>(room.log);
+            }
         }
+        push(gameId, changes, count);
+
+        if (sinceVersion > version || sinceVersion < 0) return Optional.empty();
+        if (sinceVersion == version) {
+            return Optional.of(new PresenceDeltaDTO(gameId, sinceVersion, version, count, List.of(), List.of()));
+        }
+        return netChanges(log, sinceVersion, version)
+                .map(c -> new PresenceDeltaDTO(gameId, sinceVersion, version, count, c.joined(), c.left()));
     }
 
     public int getTtlSeconds() {
         return ttlSeconds;
     }
 
+    // ---------- redis helpers ----------
+
+    private void pruneRedis(Long gameId, long cutoff, List<Change> changes) {
+        String key = redisKey(gameId);
+        Set<String> expired = redis.get().opsForZSet().rangeByScore(key, Double.NEGATIVE_INFINITY, cutoff);
+        if (expired == null || expired.isEmpty()) return;
+        for (String user : expired) {
+            // Only the node whose ZREM actually removed the member records the LEAVE.
+            Long removed = redis.get().opsForZSet().remove(key, user);
+            if (removed != null && removed > 0) {
+                changes.add(appendRedisChange(gameId, '-', user));
+            }
+        }
+    }
+
+    private Change appendRedisChange(Long gameId, char op, String user) {
+        Long version = redis.get().execute(APPEND_CHANGE,
+                List.of(redisVersionKey(gameId), redisLogKey(gameId)),
+                op + user, String.valueOf(deltaLogSize), String.valueOf(historyTtlSeconds));
+        return new Change(version == null ? 0L : version, op, user);
+    }
+
+    /** Best effort: a client that misses a push catches up through {@link #delta}. */
+    private void push(Long gameId, List<Change> changes, long count) {
+        if (changes.isEmpty() || broker.isEmpty()) return;
+        for (Change c : changes) {
+            List<String> user = List.of(c.user());
+            PresenceDeltaDTO delta = new PresenceDeltaDTO(gameId, c.version() - 1, c.version(), count,
+                    c.op() == '+' ? user : List.of(), c.op() == '-' ? user : List.of());
+            try {
+                broker.get().convertAndSend(deltaTopic(gameId), delta);
+            } catch (Exception e) {
+                log.debug("Presence delta push for game {} failed: {}", gameId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public static String deltaTopic(Long gameId) {
+        return "/topic/games/" + gameId + "/presence/delta";
+    }
+
+    private long redisVersion(Long gameId) {
+        String v = redis.get().opsForValue().get(redisVersionKey(gameId));
+        if (v == null) return 0L;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
     private String redisKey(Long gameId) {
         return "presence:game:" + gameId;
     }
 
+    private String redisVersionKey(Long gameId) {
+        return "presence:game:" + gameId + ":version";
+    }
+
+    private String redisLogKey(Long gameId) {
+        return "presence:game:" + gameId + ":log";
+    }
+
+    // ---------- shared helpers ----------
+
+    private static PresenceSnapshotDTO buildSnapshot(Long gameId, long version, Collection<String> members) {
+        List<String> sorted = new ArrayList<>(members);
+        sorted.sort(String::compareToIgnoreCase);
+        return new PresenceSnapshotDTO(gameId, version, sorted.size(), Collections.unmodifiableList(sorted));
+    }
+
+    /** Log entries are encoded as "{version}:{+|-}{username}". */
+    private static String encode(long version, char op, String user) {
+        return version + ":" + op + user;
+    }
+
+    /**
+     * Folds log entries in (since, until] into net joins/leaves. A user's ops always alternate, so the
+     * net effect is the first op if it matches the last one, and nothing otherwise.
+     * Empty when the log does not reach back to {@code since + 1}.
+     */
+    static Optional<NetChanges> netChanges(List<String> log, long since, long until) {
+        Map<String, char[]> firstLast = new HashMap<>();
+        long oldest = Long.MAX_VALUE;
+        for (String entry : log) {
+            int sep = entry.indexOf(':');
+            if (sep <= 0 || sep + 1 >= entry.length()) continue;
+            long v;
+            try {
+                v = Long.parseLong(entry, 0, sep, 10);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            oldest = Math.min(oldest, v);
+            if (v <= since || v > until) continue;
+            char op = entry.charAt(sep + 1);
+            String user = entry.substring(sep + 2);
+            char[] fl = firstLast.computeIfAbsent(user, k -> new char[]{op, op});
+            fl[1] = op;
+        }
+        if (oldest > since + 1) return Optional.empty();
+
+        List<String> joined = new ArrayList<>();
+        List<String> left = new ArrayList<>();
+        firstLast.forEach((user, fl) -> {
+            if (fl[0] != fl[1]) return;
+            if (fl[0] == '+') joined.add(user); else left.add(user);
+        });
+        joined.sort(String::compareToIgnoreCase);
+        left.sort(String::compareToIgnoreCase);
+        return Optional.of(new NetChanges(joined, left));
+    }
+
     private long nowSeconds() {
         return clock.instant().getEpochSecond();
     }
@@ -96,7 +349,36 @@ public class ChatPresenceService {
         return username == null ? "" : username.trim();
     }
 
+    /** In-memory room; all access is synchronized on the instance. */
+    private static final class LocalRoom {
+        final Map<String, Long> members = new HashMap<>();
+        final ArrayDeque<String> log = new ArrayDeque<>();
+        long version;
+
+        void prune(long cutoff, int logSize, List<Change> changes) {
+            Iterator<Map.Entry<String, Long>> it = members.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> e = it.next();
+                if (e.getValue() < cutoff) {
+                    it.remove();
+                    changes.add(record('-', e.getKey(), logSize));
+                }
+            }
+        }
+
+        Change record(char op, String user, int logSize) {
+            version++;
+            log.addLast(encode(version, op, user));
+            while (log.size() > logSize) log.removeFirst();
+            return new Change(version, op, user);
+        }
+    }
+
+    record NetChanges(List<String> joined, List<String> left) {}
+
+    private record Change(long version, char op, String user) {}
+
     // DTOs
     public record PresenceBeat(long timestamp, int ttlSeconds, long count) {}
-    public record PresenceList(long count, List<String> users) {}
+    public record PresenceList(long count, List<String> users, long version) {}
 }
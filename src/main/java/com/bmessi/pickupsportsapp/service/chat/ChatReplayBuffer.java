@@ -0,0 +1,146 @@
+package com.bmessi.pickupsportsapp.service.chat;
+
+import com.bmessi.pickupsportsapp.dto.chat.ChatMessageDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assigns per-room broadcast sequence numbers to chat messages and keeps a short replay buffer
+ * so reconnecting clients can catch up over the socket instead of calling latest/since.
+ *
+ * Uses Redis (INCR chat:seq:{id}, capped list chat:replay:{id}) when available so every node sees
+ * the same sequence, and falls back to in-memory counters and ring buffers otherwise.
+ *
+ * Redis failures never fail a send. If the INCR fails the message goes out without a seq, as before
+ * sequencing existed, and clients cannot gap-check it. If only the buffer write fails the message keeps
+ * its seq but cannot be replayed, and a reconnecting client falls back to REST history.
+ * {@link #after} reports such holes, and any replay it cannot serve, as a gap.
+ */
+@Slf4j
+@Service
+public class ChatReplayBuffer {
+
+    private final Optional<StringRedisTemplate> redis;
+    private final ObjectMapper mapper;
+    private final int capacity;
+    private final Duration ttl;
+
+    // in-memory fallback; counters are kept separately so sequences survive buffer expiry
+    private final ConcurrentHashMap<Long, AtomicLong> localSeq = new ConcurrentHashMap<>();
+    private final Cache<Long, ArrayDeque<ChatMessageDTO>> localBuffers;
+
+    /**
+     * Result of a catch-up read. {@code headSeq} is the room's latest seq, or null if it could not be
+     * read. {@code gap} is true unless {@code messages} is known to continue from the requested seq.
+     */
+    public record Replay(List<ChatMessageDTO> messages, Long headSeq, boolean gap) {}
+
+    public ChatReplayBuffer(Optional<StringRedisTemplate> redis,
+                            ObjectMapper mapper,
+                            @Value("${chat.replay.capacity:200}") int capacity,
+                            @Value("${chat.replay.ttl-seconds:600}") long ttlSeconds) {
+        this.redis = redis;
+        this.mapper = mapper;
+        this.capacity = Math.max(10, capacity);
+        this.ttl = Duration.ofSeconds(Math.max(30L, ttlSeconds));
+        this.localBuffers = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(this.ttl)
+                .build();
+    }
+
+    /** Stamps {@code msg} with the room's next sequence number and retains it for replay. */
+    public ChatMessageDTO append(Long gameId, ChatMessageDTO msg) {
+        Objects.requireNonNull(gameId, "gameId");
+        if (redis.isPresent()) {
+            try {
+                msg.setSeq(redis.get().opsForValue().increment(seqKey(gameId)));
+            } catch (RuntimeException e) {
+                log.warn("Chat sequence unavailable for game {}, sending unsequenced: {}", gameId, e.getMessage());
+                return msg;
+            }
+            try {
+                String key = bufferKey(gameId);
+                redis.get().opsForList().rightPush(key, mapper.writeValueAsString(msg));
+                redis.get().opsForList().trim(key, -capacity, -1);
+                redis.get().expire(key, ttl);
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.warn("Failed to buffer chat message {} for replay: {}", msg.getMessageId(), e.getMessage());
+            }
+        } else {
+            ArrayDeque<ChatMessageDTO> buffer = localBuffers.get(gameId, k -> new ArrayDeque<>());
+            synchronized (buffer) {
+                msg.setSeq(localSeq.computeIfAbsent(gameId, k -> new AtomicLong()).incrementAndGet());
+                buffer.addLast(msg);
+                while (buffer.size() > capacity) buffer.removeFirst();
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * Buffered messages with seq greater than {@code fromSeq}, oldest first. The replay has a gap, and the
+     * client should fall back to the REST history endpoints, when the buffer could not be read, when it
+     * no longer reaches back to {@code fromSeq + 1} (trimmed or expired), or when nothing was returned but
+     * the room's seq is not {@code fromSeq}.
+     */
+    public Replay after(Long gameId, long fromSeq) {
+        Objects.requireNonNull(gameId, "gameId");
+        List<ChatMessageDTO> out = new ArrayList<>();
+        long head;
+        if (redis.isPresent()) {
+            List<String> entries;
+            try {
+                entries = redis.get().opsForList().range(bufferKey(gameId), 0, -1);
+                String seq = redis.get().opsForValue().get(seqKey(gameId));
+                head = seq == null ? 0L : Long.parseLong(seq);
+            } catch (RuntimeException e) {
+                log.warn("Chat replay unavailable for game {}: {}", gameId, e.getMessage());
+                return new Replay(List.of(), null, true);
+            }
+            if (entries == null) entries = List.of();
+            for (String json : entries) {
+                try {
+                    ChatMessageDTO m = mapper.readValue(json, ChatMessageDTO.class);
+                    if (m.getSeq() != null && m.getSeq() > fromSeq) out.add(m);
+                } catch (JsonProcessingException e) {
+                    log.debug("Skipping unreadable replay entry for game {}: {}", gameId, e.getMessage());
+                }
+            }
+            // INCR and RPUSH are not atomic together, so concurrent senders may append out of order
+            out.sort(Comparator.comparing(ChatMessageDTO::getSeq));
+        } else {
+            AtomicLong seq = localSeq.get(gameId);
+            head = seq == null ? 0L : seq.get();
+            ArrayDeque<ChatMessageDTO> buffer = localBuffers.getIfPresent(gameId);
+            if (buffer != null) {
+                synchronized (buffer) {
+                    for (ChatMessageDTO m : buffer) {
+                        if (m.getSeq() > fromSeq) out.add(m);
+                    }
+                }
+            }
+        }
+        boolean gap = out.isEmpty() ? head != fromSeq : out.get(0).getSeq() != fromSeq + 1;
+        return new Replay(out, head, gap);
+    }
+
+    private static String seqKey(Long gameId) {
+        return "chat:seq:" + gameId;
+    }
+
+    private static String bufferKey(Long gameId) {
+        return "chat:replay:" + gameId;
+    }
+}
@@ -0,0 +1,112 @@
+package com.bmessi.pickupsportsapp.service.chat;
+
+import com.bmessi.pickupsportsapp.dto.chat.ChatMessageDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reconnect catch-up for chat subscriptions.
+ *
+ * A client that SUBSCRIBEs to /topic/games/{id}/chat with a {@code from-seq} header receives, on that
+ * same subscription, one frame with header {@code replay:true} whose body is the JSON array of buffered
+ * messages with seq greater than from-seq (possibly empty). The frame is sent once the broker has
+ * registered the subscription, so live messages may overlap it; clients drop any seq they already hold.
+ * The frame also carries {@code replay-gap}: {@code false} means the body continues from from-seq + 1
+ * (an empty body then means the client is caught up), {@code true} means the buffer could not cover the
+ * gap, was unreadable or has expired, and the client should fall back to /games/{id}/chat/since.
+ * {@code head-seq} carries the room's latest seq when it could be read.
+ */
+@Component
+public class ChatReplaySubscribeInterceptor implements ExecutorChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatReplaySubscribeInterceptor.class);
+    private static final Pattern CHAT_TOPIC = Pattern.compile("^/topic/games/(\\d+)/chat$");
+    static final String FROM_SEQ_HEADER = "from-seq";
+    static final String GAP_HEADER = "replay-gap";
+    static final String HEAD_SEQ_HEADER = "head-seq";
+
+    private final ChatReplayBuffer replayBuffer;
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
+
+    public ChatReplaySubscribeInterceptor(ChatReplayBuffer replayBuffer,
+                                          @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                          ObjectMapper mapper,
+                                          MeterRegistry meterRegistry) {
+        this.replayBuffer = replayBuffer;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        // Called once per inbound handler; replay only after the broker itself has registered the subscription.
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)) return;
+
+        StompHeaderAccessor acc = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (acc == null || !StompCommand.SUBSCRIBE.equals(acc.getCommand())) return;
+
+        String fromSeqRaw = acc.getFirstNativeHeader(FROM_SEQ_HEADER);
+        String destination = acc.getDestination();
+        if (fromSeqRaw == null || destination == null) return;
+
+        Matcher m = CHAT_TOPIC.matcher(destination);
+        if (!m.matches()) return;
+
+        long fromSeq;
+        try {
+            fromSeq = Long.parseLong(fromSeqRaw.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid {} header '{}' on {}", FROM_SEQ_HEADER, fromSeqRaw, destination);
+            return;
+        }
+
+        try {
+            ChatReplayBuffer.Replay replay = replayBuffer.after(Long.parseLong(m.group(1)), fromSeq);
+            List<ChatMessageDTO> missed = replay.messages();
+
+            SimpMessageHeaderAccessor out = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            out.setSessionId(acc.getSessionId());
+            out.setSubscriptionId(acc.getSubscriptionId());
+            out.setDestination(destination);
+            out.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            out.setNativeHeader("replay", "true");
+            out.setNativeHeader(FROM_SEQ_HEADER, Long.toString(fromSeq));
+            out.setNativeHeader(GAP_HEADER, Boolean.toString(replay.gap()));
+            if (replay.headSeq() != null) out.setNativeHeader(HEAD_SEQ_HEADER, Long.toString(replay.headSeq()));
+            out.setLeaveMutable(true);
+
+            clientOutboundChannel.send(MessageBuilder.createMessage(mapper.writeValueAsBytes(missed), out.getMessageHeaders()));
+            meterRegistry.counter("chat.replay.frames").increment();
+            meterRegistry.counter("chat.replay.messages").increment(missed.size());
+            if (replay.gap()) meterRegistry.counter("chat.replay.gaps").increment();
+        } catch (Exception e) {
+            // Catch-up is best effort; the client can still use the REST history endpoints.
+            meterRegistry.counter("chat.replay.failed").increment();
+            log.warn("Chat replay failed for {} from seq {}: {}", destination, fromSeq, e.getMessage());
+        }
+    }
+}
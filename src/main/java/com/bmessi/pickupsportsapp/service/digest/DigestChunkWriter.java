@@ -0,0 +1,119 @@
+package com.bmessi.pickupsportsapp.service.digest;
+
+import com.bmessi.pickupsportsapp.dto.DigestEmailJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes one chunk of digest recipients: loads the upcoming games of every user in the chunk with a
+ * single query (games they created or joined), groups them per user and publishes one
+ * {@link DigestEmailJob} for the chunk to the digest email queue. Users with nothing upcoming are skipped.
+ */
+public class DigestChunkWriter implements ItemWriter<DigestRecipient> {
+
+    private final JdbcTemplate jdbc;
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final String queue;
+    private final String mode;
+    private final Duration window;
+
+    record GameRow(long userId, String sport, String location, String time) {}
+
+    public DigestChunkWriter(JdbcTemplate jdbc, RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+                             Clock clock, String queue, String mode, Duration window) {
+        this.jdbc = jdbc;
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.queue = queue;
+        this.mode = mode;
+        this.window = window;
+    }
+
+    @Override
+    public void write(Chunk<? extends DigestRecipient> chunk) {
+        if (chunk.isEmpty()) return;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        meterRegistry.counter("digest.recipients.read", "mode", mode).increment(chunk.size());
+
+        List<DigestEmailJob.Digest> digests = digestsFor(chunk.getItems());
+        if (!digests.isEmpty()) {
+            rabbitTemplate.convertAndSend(queue, new DigestEmailJob(digests, Locale.getDefault()));
+            meterRegistry.counter("digest.emails.queued", "mode", mode).increment(digests.size());
+        }
+        sample.stop(meterRegistry.timer("digest.chunk.write", "mode", mode));
+    }
+
+    List<DigestEmailJob.Digest> digestsFor(List<? extends DigestRecipient> recipients) {
+        Instant now = clock.instant();
+        Timestamp from = Timestamp.from(now);
+        Timestamp until = Timestamp.from(now.plus(window));
+        String in = String.join(",", Collections.nCopies(recipients.size(), "?"));
+
+        List<Object> args = new ArrayList<>(recipients.size() * 2 + 4);
+        for (DigestRecipient r : recipients) args.add(r.id());
+        args.add(from);
+        args.add(until);
+        for (DigestRecipient r : recipients) args.add(r.id());
+        args.add(from);
+        args.add(until);
+
+        List<GameRow> rows = jdbc.query("""
+                SELECT r.user_id, g.sport, COALESCE(CAST(g.location AS TEXT), '') AS location, g.time
+                  FROM (
+                        SELECT g.id AS game_id, g.user_id AS user_id
+                          FROM game g
+                         WHERE g.user_id IN (%1$s) AND g.time >= ? AND g.time < ?
+                        UNION
+                        SELECT gp.game_id, gp.user_id
+                          FROM game_participants gp
+                          JOIN game g ON g.id = gp.game_id
+                         WHERE gp.user_id IN (%1$s) AND g.time >= ? AND g.time < ?
+                       ) r
+                  JOIN game g ON g.id = r.game_id
+                 ORDER BY r.user_id, g.time
+                """.formatted(in), (rs, n) -> {
+                    Object t = rs.getObject("time");
+                    String iso = t instanceof Timestamp ts
+                            ? OffsetDateTime.ofInstant(ts.toInstant(), ZoneOffset.UTC).toString()
+                            : String.valueOf(t);
+                    return new GameRow(rs.getLong("user_id"), String.valueOf(rs.getString("sport")),
+                            rs.getString("location"), iso);
+                }, args.toArray());
+
+        Map<Long, List<Map<String, String>>> byUser = new HashMap<>();
+        for (GameRow row : rows) {
+            byUser.computeIfAbsent(row.userId(), k -> new ArrayList<>())
+                    .add(Map.of("sport", row.sport(), "location", row.location(), "time", row.time()));
+        }
+        // Keep reader (id) order so a chunk's emails go out in a stable order
+        Map<String, List<Map<String, String>>> ordered = new LinkedHashMap<>();
+        for (DigestRecipient r : recipients) {
+            List<Map<String, String>> items = byUser.get(r.id());
+            if (items != null) ordered.putIfAbsent(r.username(), items);
+        }
+        List<DigestEmailJob.Digest> digests = new ArrayList<>(ordered.size());
+        ordered.forEach((to, items) -> digests.add(new DigestEmailJob.Digest(to, List.copyOf(items))));
+        return digests;
+    }
+}
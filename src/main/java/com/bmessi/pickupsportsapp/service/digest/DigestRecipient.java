@@ -0,0 +1,5 @@
+package com.bmessi.pickupsportsapp.service.digest;
+
+/** A user opted in to a digest, as read by the digest job's keyset reader. */
+public record DigestRecipient(long id, String username) {
+}
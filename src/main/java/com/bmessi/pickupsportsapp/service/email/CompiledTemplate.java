@@ -0,0 +1,65 @@
+package com.bmessi.pickupsportsapp.service.email;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email template parsed once into literal segments and {@code {{name}}} placeholders.
+ * Rendering is a single StringBuilder pass; placeholders without a value are emitted unchanged,
+ * matching the previous chained {@code String.replace} behaviour.
+ */
+public final class CompiledTemplate {
+
+    public static final CompiledTemplate EMPTY = new CompiledTemplate(new String[]{""}, new String[0], 0);
+
+    private final String[] literals;   // literals.length == names.length + 1
+    private final String[] names;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] names, int literalLength) {
+        this.literals = literals;
+        this.names = names;
+        this.literalLength = literalLength;
+    }
+
+    public static CompiledTemplate compile(String source) {
+        if (source == null || source.isEmpty()) return EMPTY;
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int literalLength = 0;
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (open < 0 || close < 0) break;
+            String literal = source.substring(pos, open);
+            literals.add(literal);
+            literalLength += literal.length();
+            names.add(source.substring(open + 2, close));
+            pos = close + 2;
+        }
+        String tail = source.substring(pos);
+        literals.add(tail);
+        literalLength += tail.length();
+        return new CompiledTemplate(literals.toArray(String[]::new), names.toArray(String[]::new), literalLength);
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder sb = new StringBuilder(literalLength + names.length * 16);
+        for (int i = 0; i < names.length; i++) {
+            sb.append(literals[i]);
+            String v = values.get(names[i]);
+            if (v != null) {
+                sb.append(v);
+            } else {
+                sb.append("{{").append(names[i]).append("}}");
+            }
+        }
+        return sb.append(literals[names.length]).toString();
+    }
+
+    public List<String> placeholders() {
+        return List.of(names);
+    }
+}
@@ -1,5 +1,6 @@
 package com.bmessi.pickupsportsapp.service.email;
 
+import com.bmessi.pickupsportsapp.dto.DigestEmailJob;
 import com.bmessi.pickupsportsapp.dto.EmailJob;
 import com.bmessi.pickupsportsapp.service.EmailService;
 import lombok.RequiredArgsConstructor;
@@ -40,4 +41,13 @@ public class EmailDispatcher {
             log.error("Email job processing failed (no EmailService available)", e);
         }
     }
+
+    @RabbitListener(queues = "${emails.digest-queue:emails.digest.queue}")
+    public void dispatchDigests(DigestEmailJob job) {
+        if (job == null || job.digests() == null || job.digests().isEmpty()) return;
+        emailService.ifPresent(es -> {
+            int sent = es.sendDigestEmailsNow(job.digests(), job.locale());
+            log.debug("Sent {} of {} digest emails", sent, job.digests().size());
+        });
+    }
 }
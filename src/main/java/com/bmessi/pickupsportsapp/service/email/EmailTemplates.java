@@ -0,0 +1,43 @@
+package com.bmessi.pickupsportsapp.service.email;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Classpath email templates, resolved per language ({@code base_xx.html}, falling back to
+ * {@code base.html}) and compiled once. A template that does not exist compiles to an empty one,
+ * as before.
+ */
+@Component
+public class EmailTemplates {
+
+    private final ConcurrentMap<String, CompiledTemplate> cache = new ConcurrentHashMap<>();
+
+    public CompiledTemplate get(String basePath, Locale locale) {
+        String lang = locale == null || locale.getLanguage() == null ? "" : locale.getLanguage();
+        return cache.computeIfAbsent(basePath + "|" + lang, k -> CompiledTemplate.compile(load(basePath, lang)));
+    }
+
+    private String load(String basePath, String lang) {
+        ClassLoader cl = getClass().getClassLoader();
+        try {
+            if (!lang.isBlank()) {
+                try (InputStream is = cl.getResourceAsStream(basePath + "_" + lang + ".html")) {
+                    if (is != null) return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+            try (InputStream is = cl.getResourceAsStream(basePath + ".html")) {
+                return is == null ? "" : new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
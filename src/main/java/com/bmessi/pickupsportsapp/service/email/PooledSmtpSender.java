@@ -0,0 +1,166 @@
+package com.bmessi.pickupsportsapp.service.email;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sends MIME messages over a small pool of persistent SMTP connections.
+ *
+ * {@link JavaMailSenderImpl#send} connects, authenticates and quits on every call; here a connected
+ * {@link Transport} is borrowed, used for a whole batch and returned for the next send. Connections
+ * idle longer than {@code mail.smtp.pool.idle-timeout-ms} are closed on borrow, and a connection that
+ * fails mid-send is discarded and the remaining messages are retried once on a fresh one. When the
+ * configured sender is not a {@link JavaMailSenderImpl} (e.g. a test double) sends are delegated to it.
+ */
+@Component
+public class PooledSmtpSender implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledSmtpSender.class);
+
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+    private final int maxIdle;
+    private final long idleTimeoutMs;
+    private final Deque<Pooled> idle = new ArrayDeque<>();
+
+    private record Pooled(Transport transport, long lastUsed) {}
+
+    public PooledSmtpSender(JavaMailSender mailSender,
+                            MeterRegistry meterRegistry,
+                            @Value("${mail.smtp.pool.size:4}") int maxIdle,
+                            @Value("${mail.smtp.pool.idle-timeout-ms:30000}") long idleTimeoutMs) {
+        this.mailSender = mailSender;
+        this.meterRegistry = meterRegistry;
+        this.maxIdle = Math.max(0, maxIdle);
+        this.idleTimeoutMs = Math.max(1000L, idleTimeoutMs);
+    }
+
+    public MimeMessage createMimeMessage() {
+        return mailSender.createMimeMessage();
+    }
+
+    /** Sends all messages over one pooled connection. Failed messages are reported in a {@link MailSendException}. */
+    public void send(MimeMessage... messages) {
+        if (messages == null || messages.length == 0) return;
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            mailSender.send(messages);
+            return;
+        }
+
+        Map<Object, Exception> failed = new LinkedHashMap<>();
+        MessagingException connectFailure = null;
+        int next = 0;
+        for (int attempt = 0; attempt < 2 && next < messages.length; attempt++) {
+            Transport transport;
+            try {
+                transport = borrow(impl);
+            } catch (MessagingException e) {
+                // Messages already handed to the server went out; only the rest failed
+                connectFailure = e;
+                for (; next < messages.length; next++) failed.put(messages[next], e);
+                break;
+            }
+            boolean healthy = true;
+            while (next < messages.length) {
+                MimeMessage m = messages[next];
+                try {
+                    if (m.getSentDate() == null) m.setSentDate(new Date());
+                    m.saveChanges();
+                    transport.sendMessage(m, m.getAllRecipients());
+                    next++;
+                } catch (jakarta.mail.SendFailedException e) {
+                    // Rejected recipient(s); the connection itself is fine
+                    failed.put(m, e);
+                    next++;
+                } catch (MessagingException e) {
+                    if (attempt == 1) {
+                        failed.put(m, e);
+                        next++;
+                        continue;
+                    }
+                    healthy = false;
+                    break;
+                }
+            }
+            if (healthy) {
+                release(transport);
+            } else {
+                meterRegistry.counter("mail.smtp.pool.broken").increment();
+                closeQuietly(transport);
+            }
+        }
+        meterRegistry.counter("mail.smtp.sent").increment(messages.length - failed.size());
+        if (connectFailure != null) {
+            throw new MailSendException("SMTP connect failed", connectFailure, failed);
+        }
+        if (!failed.isEmpty()) {
+            throw new MailSendException(failed);
+        }
+    }
+
+    private Transport borrow(JavaMailSenderImpl impl) throws MessagingException {
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Pooled p;
+            while ((p = idle.pollFirst()) != null) {
+                if (now - p.lastUsed() < idleTimeoutMs && p.transport().isConnected()) {
+                    meterRegistry.counter("mail.smtp.pool.reused").increment();
+                    return p.transport();
+                }
+                closeQuietly(p.transport());
+            }
+        }
+        Transport t = impl.getSession().getTransport(impl.getProtocol() == null ? "smtp" : impl.getProtocol());
+        String username = impl.getUsername();
+        String password = impl.getPassword();
+        if (username == null || username.isEmpty()) {
+            username = null;
+            password = null;
+        }
+        t.connect(impl.getHost(), impl.getPort(), username, password);
+        meterRegistry.counter("mail.smtp.pool.opened").increment();
+        return t;
+    }
+
+    private void release(Transport t) {
+        synchronized (idle) {
+            if (idle.size() < maxIdle) {
+                idle.addFirst(new Pooled(t, System.currentTimeMillis()));
+                return;
+            }
+        }
+        closeQuietly(t);
+    }
+
+    private static void closeQuietly(Transport t) {
+        try {
+            t.close();
+        } catch (Exception e) {
+            log.debug("Closing SMTP connection failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (idle) {
+            idle.forEach(p -> closeQuietly(p.transport()));
+            idle.clear();
+        }
+    }
+}
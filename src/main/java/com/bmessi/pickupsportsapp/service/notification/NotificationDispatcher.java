@@ -1,13 +1,17 @@
 package com.bmessi.pickupsportsapp.service.notification;
 
+import com.bmessi.pickupsportsapp.dto.GameEventJob;
 import com.bmessi.pickupsportsapp.dto.NotificationJob;
 import com.bmessi.pickupsportsapp.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import io.micrometer.core.instrument.MeterRegistry;
 
+import java.util.List;
+
 /**
  * Consumes notification jobs from the queue and delivers them via the
  * appropriate channels.
@@ -22,6 +26,9 @@ public class NotificationDispatcher {
     private final EmailService emailService;
     private final MeterRegistry meterRegistry;
 
+    @Value("${notifications.bulk.email-batch-size:50}")
+    private int emailBatchSize;
+
     @RabbitListener(queues = "${notifications.queue:notifications.queue}")
     public void dispatch(NotificationJob job) {
         try {
@@ -35,6 +42,29 @@ public class NotificationDispatcher {
         }
     }
 
+    /**
+     * Bulk counterpart of {@link #dispatch}: one batch insert plus WS events for all recipients,
+     * then emails handed to the mail server in batches of {@code notifications.bulk.email-batch-size}.
+     */
+    @RabbitListener(queues = "${notifications.bulk-queue:notifications.bulk.queue}")
+    public void dispatchBulk(GameEventJob job) {
+        try {
+            String msg = formatGameNotificationMessage(job.actor(), job.action(), job.sport(), job.location());
+            List<String> delivered = notificationService.createNotifications(job.recipients(), msg);
+
+            int batch = Math.max(1, emailBatchSize);
+            for (int i = 0; i < delivered.size(); i += batch) {
+                emailService.sendGameEventEmailsNow(delivered.subList(i, Math.min(delivered.size(), i + batch)),
+                        job.action(), job.model(), job.locale());
+            }
+            meterRegistry.counter("notifications_dispatch_success", "mode", "bulk").increment();
+            meterRegistry.counter("notifications_dispatch_recipients").increment(delivered.size());
+        } catch (Exception e) {
+            meterRegistry.counter("notifications_dispatch_error", "mode", "bulk").increment();
+            log.error("Failed to process game event job", e);
+        }
+    }
+
     private static String formatGameNotificationMessage(String actorUsername, String action, String sport, String location) {
         return "%s %s your %s game at %s".formatted(
                 actorUsername == null ? "" : actorUsername,
@@ -0,0 +1,225 @@
+package com.bmessi.pickupsportsapp.service.notification;
+
+import com.bmessi.pickupsportsapp.dto.NotificationBatchEvent;
+import com.bmessi.pickupsportsapp.dto.NotificationEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Batches a user's notification changes (created / read / all read / deleted) over
+ * {@code notifications.ws.coalesce-ms} into one {@link NotificationBatchEvent}, so a burst of
+ * changes, or one bulk operation, costs the client a single WebSocket frame instead of one per row.
+ *
+ * Changes are recorded after the surrounding transaction commits. Within a window they are merged:
+ * a notification created and deleted is dropped entirely, and reads of notifications created in the
+ * same window just flip their {@code read} flag. A user's batch is flushed early once it holds
+ * {@code notifications.ws.max-batch} changes.
+ *
+ * Batch versions come from a per-user Redis counter ({@code notif:{u}:ver}) shared by all nodes, so a
+ * client sees them increase whichever node flushes. The counter never drops below the wall clock in
+ * microseconds, which keeps versions increasing when the key expires or Redis is flushed; without
+ * Redis (or when it fails) the node's own clock-seeded counter is used.
+ */
+@Slf4j
+@Component
+public class NotificationEventCoalescer implements DisposableBean {
+
+    static final String DESTINATION = "/queue/notifications";
+
+    /** INCR with a floor: returns max(counter + 1, ARGV[1]) and stores it. */
+    private static final RedisScript<Long> NEXT_VERSION = new DefaultRedisScript<>("""
+            local v = redis.call('INCR', KEYS[1])
+            local floor = tonumber(ARGV[1])
+            if v < floor then
+              v = floor
+              redis.call('SET', KEYS[1], v)
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return v
+            """, Long.class);
+
+    private static final long VERSION_TTL_SECONDS = 86_400L;
+
+    private final Optional<StringRedisTemplate> redis;
+    private final SimpMessagingTemplate broker;
+    private final MeterRegistry meterRegistry;
+    private final long windowMs;
+    private final int maxBatch;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    // Fallback without Redis; seeded from the clock so versions keep increasing across restarts
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final ScheduledExecutorService flusher;
+
+    public NotificationEventCoalescer(Optional<StringRedisTemplate> redis,
+                                      SimpMessagingTemplate broker,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${notifications.ws.coalesce-ms:250}") long windowMs,
+                                      @Value("${notifications.ws.max-batch:200}") int maxBatch) {
+        this.redis = redis;
+        this.broker = broker;
+        this.meterRegistry = meterRegistry;
+        this.windowMs = Math.max(0L, windowMs);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notif-ws-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Pending changes for one user; only touched inside {@code pending.compute} or after removal. */
+    static final class Pending {
+        final Map<Long, NotificationEvent> created = new LinkedHashMap<>();
+        final Set<Long> read = new LinkedHashSet<>();
+        final Set<Long> deleted = new LinkedHashSet<>();
+        boolean allRead;
+        int changes;
+
+        int size() {
+            return created.size() + read.size() + deleted.size();
+        }
+    }
+
+    public void created(String username, NotificationEvent event) {
+        if (event == null || event.id() == null) return;
+        record(username, p -> p.created.put(event.id(), event));
+    }
+
+    public void read(String username, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return;
+        List<Long> copy = List.copyOf(ids);
+        record(username, p -> {
+            for (Long id : copy) {
+                NotificationEvent c = p.created.get(id);
+                if (c != null) {
+                    p.created.put(id, new NotificationEvent(c.type(), c.id(), c.message(), true, c.createdAt()));
+                } else {
+                    p.read.add(id);
+                }
+            }
+        });
+    }
+
+    public void allRead(String username) {
+        record(username, p -> {
+            p.created.replaceAll((id, c) -> new NotificationEvent(c.type(), c.id(), c.message(), true, c.createdAt()));
+            p.read.clear();
+            p.allRead = true;
+        });
+    }
+
+    public void deleted(String username, Long id) {
+        if (id == null) return;
+        record(username, p -> {
+            if (p.created.remove(id) != null) return; // never seen by the client
+            p.read.remove(id);
+            p.deleted.add(id);
+        });
+    }
+
+    private void record(String username, Consumer<Pending> change) {
+        if (username == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(username, change);
+                }
+            });
+        } else {
+            apply(username, change);
+        }
+    }
+
+    private void apply(String username, Consumer<Pending> change) {
+        boolean[] opened = {false};
+        Pending p = pending.compute(username, (u, cur) -> {
+            if (cur == null) {
+                cur = new Pending();
+                opened[0] = true;
+            }
+            change.accept(cur);
+            cur.changes++;
+            return cur;
+        });
+        meterRegistry.counter("notifications.ws.changes").increment();
+        try {
+            if (windowMs == 0 || p.size() >= maxBatch) {
+                flusher.execute(() -> flush(username));
+            } else if (opened[0]) {
+                flusher.schedule(() -> flush(username), windowMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            flush(username); // shutting down
+        }
+    }
+
+    void flush(String username) {
+        Pending p = pending.remove(username);
+        if (p == null) return;
+        if (p.size() == 0 && !p.allRead) return; // e.g. created and deleted in the same window
+        NotificationBatchEvent event = new NotificationBatchEvent("batch", nextVersion(username), p.allRead,
+                List.copyOf(p.read), List.copyOf(p.deleted), new ArrayList<>(p.created.values()));
+        try {
+            broker.convertAndSendToUser(username, DESTINATION, event);
+            meterRegistry.counter("notifications.ws.sent", "type", "batch").increment();
+            meterRegistry.counter("notifications.ws.coalesced").increment(Math.max(0, p.changes - 1));
+        } catch (Exception e) {
+            // do not fail user flows on WS issues; clients re-sync on their next fetch
+            meterRegistry.counter("notifications.ws.failed", "type", "batch").increment();
+            log.debug("Failed to send notification batch to {}: {}", username, e.getMessage());
+        }
+    }
+
+    private long nextVersion(String username) {
+        long floor = System.currentTimeMillis() * 1000;
+        if (redis.isPresent()) {
+            try {
+                Long v = redis.get().execute(NEXT_VERSION, List.of("notif:{" + username + "}:ver"),
+                        String.valueOf(floor), String.valueOf(VERSION_TTL_SECONDS));
+                if (v != null) {
+                    versions.accumulateAndGet(v, Math::max);
+                    return v;
+                }
+            } catch (Exception e) {
+                meterRegistry.counter("notifications.ws.version.errors").increment();
+                log.debug("Shared notification version unavailable for {}: {}", username, e.getMessage());
+            }
+        }
+        return versions.updateAndGet(v -> Math.max(v + 1, floor));
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        for (String username : List.copyOf(pending.keySet())) {
+            flush(username);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.bmessi.pickupsportsapp.service.notification;
+
+import com.bmessi.pickupsportsapp.entity.notification.Notification;
+import com.bmessi.pickupsportsapp.repository.NotificationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user notification inbox in Redis: the most recent {@code notifications.inbox.capacity}
+ * notifications plus total and unread counters, so the first page and the badge count are served
+ * without touching Postgres.
+ *
+ * Keys (hash-tagged by username): {@code notif:{u}:meta} (total, unread), {@code notif:{u}:ids}
+ * (ZSET of ids, score = id), {@code notif:{u}:items} (id -> JSON) and {@code notif:{u}:gen}.
+ * An inbox is loaded from the database on first read and then kept current by the write paths
+ * after their transaction commits. Each write bumps the generation before commit and again after it,
+ * ahead of applying the change, and a load only installs its snapshot if the generation is unchanged:
+ * a load that read the database before the commit either fails to install or is installed before the
+ * change is applied on top of it, so it cannot leave stale state behind. When a change cannot be applied exactly (e.g. it touches a notification outside the kept
+ * window) only that user's inbox is dropped. Redis failures fall back to the database.
+ */
+@Slf4j
+@Component
+public class NotificationInbox {
+
+    private static final RedisScript<Long> INSTALL = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[4]) or '0') ~= ARGV[1] then return 0 end
+            redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+            redis.call('HSET', KEYS[1], 'total', ARGV[3], 'unread', ARGV[4])
+            for i = 5, #ARGV, 2 do
+              redis.call('ZADD', KEYS[3], ARGV[i], ARGV[i])
+              redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1])
+            end
+            for i = 1, 3 do redis.call('EXPIRE', KEYS[i], ARGV[2]) end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> ADD = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            if redis.call('HEXISTS', KEYS[2], ARGV[1]) == 1 then return 0 end
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[2])
+            redis.call('ZADD', KEYS[3], ARGV[1], ARGV[1])
+            redis.call('HINCRBY', KEYS[1], 'total', 1)
+            redis.call('HINCRBY', KEYS[1], 'unread', 1)
+            local over = redis.call('ZCARD', KEYS[3]) - tonumber(ARGV[3])
+            if over > 0 then
+              local old = redis.call('ZRANGE', KEYS[3], 0, over - 1)
+              redis.call('ZREMRANGEBYRANK', KEYS[3], 0, over - 1)
+              redis.call('HDEL', KEYS[2], unpack(old))
+            end
+            return 1
+            """, Long.class);
+
+    /** Marks the given ids read (all ids when none are given); returns how many flipped, or -1 when cold. */
+    private static final RedisScript<Long> MARK_READ = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            local now = tonumber(ARGV[1])
+            local ids = {}
+            if #ARGV > 1 then
+              for i = 2, #ARGV do ids[#ids + 1] = ARGV[i] end
+            else
+              ids = redis.call('HKEYS', KEYS[2])
+            end
+            local flipped = 0
+            for _, id in ipairs(ids) do
+              local j = redis.call('HGET', KEYS[2], id)
+              if j then
+                local o = cjson.decode(j)
+                if not o.read then
+                  o.read = true
+                  o.readAt = now
+                  o.updatedAt = now
+                  redis.call('HSET', KEYS[2], id, cjson.encode(o))
+                  flipped = flipped + 1
+                end
+              end
+            end
+            if #ARGV == 1 then
+              redis.call('HSET', KEYS[1], 'unread', 0)
+            elseif flipped > 0 then
+              redis.call('HINCRBY', KEYS[1], 'unread', -flipped)
+            end
+            return flipped
+            """, Long.class);
+
+    /** Removes one id; returns 1 when removed, -1 when cold and -2 when the id is outside the window. */
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            local j = redis.call('HGET', KEYS[2], ARGV[1])
+            if not j then return -2 end
+            redis.call('HDEL', KEYS[2], ARGV[1])
+            redis.call('ZREM', KEYS[3], ARGV[1])
+            redis.call('HINCRBY', KEYS[1], 'total', -1)
+            if not cjson.decode(j).read then redis.call('HINCRBY', KEYS[1], 'unread', -1) end
+            return 1
+            """, Long.class);
+
+    /** Returns [total, unread, json...] newest first, or nil when cold. */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return nil end
+            local m = redis.call('HMGET', KEYS[1], 'total', 'unread')
+            local out = {m[1], m[2]}
+            local ids = redis.call('ZREVRANGE', KEYS[3], 0, -1)
+            for _, id in ipairs(ids) do
+              local j = redis.call('HGET', KEYS[2], id)
+              if j then out[#out + 1] = j end
+            end
+            return out
+            """, List.class);
+
+    private final Optional<StringRedisTemplate> redis;
+    private final NotificationRepository notificationRepository;
+    private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int capacity;
+    private final long ttlSeconds;
+
+    public NotificationInbox(Optional<StringRedisTemplate> redis,
+                             NotificationRepository notificationRepository,
+                             ObjectMapper mapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${notifications.inbox.enabled:true}") boolean enabled,
+                             @Value("${notifications.inbox.capacity:50}") int capacity,
+                             @Value("${notifications.inbox.ttl-seconds:3600}") long ttlSeconds) {
+        this.redis = redis;
+        this.notificationRepository = notificationRepository;
+        this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled && redis.isPresent();
+        this.capacity = Math.max(1, capacity);
+        this.ttlSeconds = Math.max(60L, ttlSeconds);
+    }
+
+    /** Cached view of one notification; field names are shared with the Lua scripts. */
+    public record Entry(long id, String message, long createdAt, long updatedAt, boolean read, Long readAt) {
+
+        static Entry of(Notification n) {
+            long created = n.getCreatedAt() == null ? System.currentTimeMillis() : n.getCreatedAt().toEpochMilli();
+            long updated = n.getUpdatedAt() == null ? created : n.getUpdatedAt().toEpochMilli();
+            return new Entry(n.getId(), n.getMessage(), created, updated, n.isRead(),
+                    n.getReadAt() == null ? null : n.getReadAt().toEpochMilli());
+        }
+
+        Notification toNotification() {
+            return Notification.builder()
+                    .id(id)
+                    .message(message)
+                    .createdAt(Instant.ofEpochMilli(createdAt))
+                    .updatedAt(Instant.ofEpochMilli(updatedAt))
+                    .read(read)
+                    .readAt(readAt == null ? null : Instant.ofEpochMilli(readAt))
+                    .build();
+        }
+    }
+
+    /** A user's inbox: counters plus the newest notifications, newest first. */
+    public record Snapshot(long total, long unread, List<Entry> entries) {
+
+        /**
+         * The requested first page, or null when the kept window cannot answer it (it holds fewer
+         * matching entries than the page size while older notifications exist beyond it).
+         */
+        public Page<Notification> page(boolean unreadOnly, Pageable pageable) {
+            List<Notification> matching = new ArrayList<>();
+            for (Entry e : entries) {
+                if (unreadOnly && e.read()) continue;
+                matching.add(e.toNotification());
+                if (matching.size() == pageable.getPageSize()) break;
+            }
+            boolean windowComplete = entries.size() >= total;
+            if (matching.size() < pageable.getPageSize() && !windowComplete) return null;
+            return new PageImpl<>(matching, pageable, unreadOnly ? unread : total);
+        }
+    }
+
+    /** Whether a request can be answered from the inbox: first page, newest-first, within capacity. */
+    public boolean servable(Pageable pageable) {
+        if (!enabled || pageable == null || pageable.isUnpaged()) return false;
+        if (pageable.getPageNumber() != 0 || pageable.getPageSize() > capacity) return false;
+        for (Sort.Order order : pageable.getSort()) {
+            if (!"createdAt".equals(order.getProperty())) return false;
+        }
+        return true;
+    }
+
+    /** First page from the inbox, loading it on a miss; null means "query the database". */
+    public Page<Notification> firstPage(String username, boolean unreadOnly, Pageable pageable, LongSupplier userId) {
+        if (!servable(pageable)) return null;
+        Snapshot snapshot = snapshotOrLoad(username, userId);
+        return snapshot == null ? null : snapshot.page(unreadOnly, pageable);
+    }
+
+    /** Unread count from the inbox, loading it on a miss; null means "query the database". */
+    public Long unreadCount(String username, LongSupplier userId) {
+        if (!enabled) return null;
+        Snapshot snapshot = snapshotOrLoad(username, userId);
+        return snapshot == null ? null : snapshot.unread();
+    }
+
+    /** Records a new notification once the surrounding transaction commits. */
+    public void added(String username, Notification n) {
+        if (!enabled || n.getId() == null) return;
+        Entry entry = Entry.of(n);
+        onCommit(username, () -> {
+            String json = toJson(entry);
+            if (json == null) {
+                invalidate(username);
+                return;
+            }
+            run(ADD, username, String.valueOf(entry.id()), json, String.valueOf(capacity));
+        });
+    }
+
+    /**
+     * Records that {@code ids} were marked read ({@code changed} rows actually flipped in the
+     * database); with no ids, that all of the user's notifications were.
+     */
+    public void markedRead(String username, Collection<Long> ids, int changed) {
+        if (!enabled) return;
+        onCommit(username, () -> {
+            List<String> args = new ArrayList<>();
+            args.add(String.valueOf(System.currentTimeMillis()));
+            if (ids != null) ids.forEach(id -> args.add(String.valueOf(id)));
+            Long flipped = run(MARK_READ, username, args.toArray(String[]::new));
+            // Some flipped rows were outside the window, so the unread counter cannot be adjusted exactly
+            if (ids != null && !ids.isEmpty() && flipped != null && flipped >= 0 && flipped != changed) {
+                invalidate(username);
+            }
+        });
+    }
+
+    /** Records a deleted notification once the surrounding transaction commits. */
+    public void removed(String username, Long id) {
+        if (!enabled) return;
+        onCommit(username, () -> {
+            Long result = run(REMOVE, username, String.valueOf(id));
+            if (result != null && result == -2L) invalidate(username);
+        });
+    }
+
+    /** Drops the user's inbox once the surrounding transaction commits, e.g. after a bulk delete. */
+    public void invalidateOnCommit(String username) {
+        if (!enabled) return;
+        onCommit(username, () -> invalidate(username));
+    }
+
+    /** Drops one user's inbox; the next read reloads it. */
+    public void invalidate(String username) {
+        if (!enabled) return;
+        try {
+            redis.get().delete(List.of(metaKey(username), itemsKey(username), idsKey(username)));
+        } catch (Exception e) {
+            meterRegistry.counter("notifications.inbox.errors").increment();
+            log.debug("Inbox invalidate failed for {}: {}", username, e.getMessage());
+        }
+    }
+
+    // --- Helpers ---
+
+    private Snapshot snapshotOrLoad(String username, LongSupplier userId) {
+        try {
+            Snapshot cached = read(username);
+            if (cached != null) {
+                meterRegistry.counter("notifications.inbox.hit").increment();
+                return cached;
+            }
+            meterRegistry.counter("notifications.inbox.miss").increment();
+            return load(username, userId.getAsLong());
+        } catch (IllegalArgumentException e) {
+            throw e; // unknown user
+        } catch (Exception e) {
+            meterRegistry.counter("notifications.inbox.errors").increment();
+            log.debug("Inbox read failed for {}: {}", username, e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Snapshot read(String username) throws JsonProcessingException {
+        List<Object> raw = redis.get().execute(READ, keys(username));
+        if (raw == null || raw.size() < 2 || raw.get(0) == null || raw.get(1) == null) return null;
+        List<Entry> entries = new ArrayList<>(raw.size() - 2);
+        for (int i = 2; i < raw.size(); i++) {
+            entries.add(mapper.readValue(String.valueOf(raw.get(i)), Entry.class));
+        }
+        return new Snapshot(Long.parseLong(String.valueOf(raw.get(0))), Long.parseLong(String.valueOf(raw.get(1))), entries);
+    }
+
+    private Snapshot load(String username, long userId) throws JsonProcessingException {
+        String generation = redis.get().opsForValue().get(genKey(username));
+        Page<Notification> newest = notificationRepository.findByUser_IdOrderByCreatedAtDesc(userId, PageRequest.of(0, capacity));
+        long unread = notificationRepository.countByUser_IdAndReadFalse(userId);
+
+        List<Entry> entries = newest.getContent().stream().map(Entry::of).toList();
+        List<String> args = new ArrayList<>(4 + entries.size() * 2);
+        args.add(generation == null ? "0" : generation);
+        args.add(String.valueOf(ttlSeconds));
+        args.add(String.valueOf(newest.getTotalElements()));
+        args.add(String.valueOf(unread));
+        for (Entry e : entries) {
+            args.add(String.valueOf(e.id()));
+            args.add(mapper.writeValueAsString(e));
+        }
+        Long installed = redis.get().execute(INSTALL, keys(username), args.toArray());
+        if (installed == null || installed == 0L) {
+            meterRegistry.counter("notifications.inbox.load.skipped").increment();
+        }
+        return new Snapshot(newest.getTotalElements(), unread, entries);
+    }
+
+    private void onCommit(String username, Runnable apply) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpGeneration(username);
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                bumpGeneration(username);
+            }
+
+            @Override
+            public void afterCommit() {
+                bumpGeneration(username);
+                apply.run();
+            }
+        });
+    }
+
+    private void bumpGeneration(String username) {
+        try {
+            String key = genKey(username);
+            redis.get().opsForValue().increment(key);
+            redis.get().expire(key, Duration.ofSeconds(ttlSeconds * 2));
+        } catch (Exception e) {
+            meterRegistry.counter("notifications.inbox.errors").increment();
+            log.debug("Inbox generation bump failed for {}: {}", username, e.getMessage());
+        }
+    }
+
+    private Long run(RedisScript<Long> script, String username, String... args) {
+        try {
+            return redis.get().execute(script, keys(username), (Object[]) args);
+        } catch (Exception e) {
+            meterRegistry.counter("notifications.inbox.errors").increment();
+            log.debug("Inbox update failed for {}: {}", username, e.getMessage());
+            invalidate(username);
+            return null;
+        }
+    }
+
+    private String toJson(Entry entry) {
+        try {
+            return mapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static List<String> keys(String username) {
+        return List.of(metaKey(username), itemsKey(username), idsKey(username), genKey(username));
+    }
+
+    private static String metaKey(String username) {
+        return "notif:{" + username + "}:meta";
+    }
+
+    private static String itemsKey(String username) {
+        return "notif:{" + username + "}:items";
+    }
+
+    private static String idsKey(String username) {
+        return "notif:{" + username + "}:ids";
+    }
+
+    private static String genKey(String username) {
+        return "notif:{" + username + "}:gen";
+    }
+}
@@ -7,8 +7,6 @@ import com.bmessi.pickupsportsapp.repository.UserRepository;
 import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -29,16 +27,23 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
-    private final org.springframework.messaging.simp.SimpMessagingTemplate broker;
     private final io.micrometer.core.instrument.MeterRegistry meterRegistry;
     private final org.springframework.amqp.rabbit.core.RabbitTemplate rabbitTemplate;
+    private final org.springframework.jdbc.core.JdbcTemplate jdbc;
+    private final NotificationInbox inbox;
+    private final NotificationEventCoalescer events;
 
     @org.springframework.beans.factory.annotation.Value("${notifications.queue:notifications.queue}")
     private String notificationQueue;
 
+    @org.springframework.beans.factory.annotation.Value("${notifications.bulk-queue:notifications.bulk.queue}")
+    private String bulkQueue;
+
+    @org.springframework.beans.factory.annotation.Value("${notifications.bulk.max-recipients:500}")
+    private int bulkMaxRecipients;
+
     @Timed(value = "notifications.create", description = "Time to create a notification")
     @Transactional
-    @CacheEvict(cacheNames = "notifications-first-page", allEntries = true)
     public Notification createNotification(String username, String message) {
         String normalizedMessage = validateAndNormalizeMessage(message);
         User user = requireUserByUsername(username);
@@ -49,17 +54,10 @@ public class NotificationService {
                 .build();
 
         Notification savedNotification = notificationRepository.save(notification);
+        inbox.added(user.getUsername(), savedNotification);
         log.debug("Created notification {} for user {}", savedNotification.getId(), username);
 
-        // WS event
-        try {
-            broker.convertAndSendToUser(user.getUsername(), "/queue/notifications",
-                    com.bmessi.pickupsportsapp.dto.NotificationEvent.created(savedNotification));
-            meterRegistry.counter("notifications.ws.sent", "type", "created").increment();
-        } catch (Exception ignore) {
-            meterRegistry.counter("notifications.ws.failed", "type", "created").increment();
-            // do not fail user flow on WS issues
-        }
+        events.created(user.getUsername(), com.bmessi.pickupsportsapp.dto.NotificationEvent.created(savedNotification));
         return savedNotification;
     }
 
@@ -81,6 +79,96 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Game-wide variant of {@link #createGameNotification}: publishes one job per chunk of
+     * {@code notifications.bulk.max-recipients} recipients instead of one job per recipient.
+     * Returns the recipients whose chunk was handed to the broker; a failed chunk does not stop the rest.
+     */
+    public List<String> createGameNotifications(java.util.Collection<String> recipientUsernames, String actorUsername, String sport, String location, String action) {
+        if (recipientUsernames == null || recipientUsernames.isEmpty()) return List.of();
+        java.util.Map<String, String> model = java.util.Map.of(
+                "actor", actorUsername == null ? "" : actorUsername,
+                "sport", sport == null ? "" : sport,
+                "location", location == null ? "" : location
+        );
+        List<String> recipients = recipientUsernames.stream().filter(java.util.Objects::nonNull).distinct().toList();
+        int chunk = Math.max(1, bulkMaxRecipients);
+        List<String> published = new java.util.ArrayList<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i += chunk) {
+            List<String> part = List.copyOf(recipients.subList(i, Math.min(recipients.size(), i + chunk)));
+            try {
+                rabbitTemplate.convertAndSend(bulkQueue,
+                        new com.bmessi.pickupsportsapp.dto.GameEventJob(part, actorUsername, sport, location, action, model, java.util.Locale.getDefault()));
+                meterRegistry.counter("notifications_publish_success", "mode", "bulk").increment();
+                published.addAll(part);
+            } catch (Exception e) {
+                meterRegistry.counter("notifications_publish_error", "mode", "bulk").increment();
+                log.error("Failed to publish game event job for {} recipients", part.size(), e);
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Inserts the same message for many users with one JDBC batch, then sends each user's WS
+     * "created" event. Unknown usernames are skipped. Returns the usernames that got a notification.
+     */
+    @Timed(value = "notifications.create.bulk", description = "Time to create notifications in bulk")
+    @Transactional
+    public List<String> createNotifications(java.util.Collection<String> usernames, String message) {
+        String normalizedMessage = validateAndNormalizeMessage(message);
+        if (usernames == null || usernames.isEmpty()) return List.of();
+
+        List<String> distinct = usernames.stream().filter(java.util.Objects::nonNull).distinct().toList();
+        String in = String.join(",", java.util.Collections.nCopies(distinct.size(), "?"));
+        java.util.Map<Long, String> usernameById = new java.util.LinkedHashMap<>();
+        jdbc.query("SELECT id, username FROM app_user WHERE username IN (" + in + ")",
+                rs -> { usernameById.put(rs.getLong("id"), rs.getString("username")); }, distinct.toArray());
+        if (usernameById.isEmpty()) return List.of();
+
+        Instant now = Instant.now();
+        java.sql.Timestamp ts = java.sql.Timestamp.from(now);
+        List<Long> userIds = List.copyOf(usernameById.keySet());
+        // Generated ids come back in batch order, so the i-th key belongs to userIds.get(i)
+        org.springframework.jdbc.support.GeneratedKeyHolder keys = new org.springframework.jdbc.support.GeneratedKeyHolder();
+        jdbc.batchUpdate(con -> con.prepareStatement("""
+                INSERT INTO notification ("timestamp", message, "read", updated_at, "version", user_id)
+                VALUES (?, ?, false, ?, 0, ?)
+                """, new String[]{"id"}), new org.springframework.jdbc.core.BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(java.sql.PreparedStatement ps, int i) throws java.sql.SQLException {
+                ps.setTimestamp(1, ts);
+                ps.setString(2, normalizedMessage);
+                ps.setTimestamp(3, ts);
+                ps.setLong(4, userIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return userIds.size();
+            }
+        }, keys);
+
+        List<java.util.Map<String, Object>> keyList = keys.getKeyList();
+        java.util.Map<Long, Long> notificationIdByUser = new java.util.HashMap<>();
+        for (int i = 0; i < keyList.size() && i < userIds.size(); i++) {
+            Long id = generatedId(keyList.get(i));
+            if (id != null) notificationIdByUser.put(userIds.get(i), id);
+        }
+
+        long createdAt = now.toEpochMilli();
+        usernameById.forEach((userId, username) -> {
+            Long notificationId = notificationIdByUser.get(userId);
+            if (notificationId != null) {
+                inbox.added(username, Notification.builder()
+                        .id(notificationId).message(normalizedMessage).createdAt(now).updatedAt(now).build());
+                events.created(username, new com.bmessi.pickupsportsapp.dto.NotificationEvent("created", notificationId, normalizedMessage, false, createdAt));
+            }
+        });
+        log.debug("Created {} notifications in bulk", usernameById.size());
+        return List.copyOf(usernameById.values());
+    }
+
     // Legacy API preserved: returns all notifications unpaged
     @Timed(value = "notifications.list.all", description = "Time to list all notifications (unpaged)")
     @Transactional(readOnly = true)
@@ -98,10 +186,10 @@ public class NotificationService {
     // New pageable-aware API with unreadOnly flag (DB-side filtering)
     @Timed(value = "notifications.list.page.flag", description = "Time to list notifications (paged/unreadOnly)")
     @Transactional(readOnly = true)
-    @Cacheable(cacheNames = "notifications-first-page",
-            key = "T(java.util.Objects).hash(#username) + '|' + #unreadOnly + '|' + #pageable.pageSize + '|' + #pageable.sort.toString()",
-            condition = "#pageable != null && #pageable.pageNumber == 0")
     public Page<Notification> getUserNotifications(String username, boolean unreadOnly, Pageable pageable) {
+        // First pages come from the per-user inbox; other pages, sorts and cold misses go to the database
+        Page<Notification> firstPage = inbox.firstPage(username, unreadOnly, pageable, () -> requireUserByUsername(username).getId());
+        if (firstPage != null) return firstPage;
         User user = requireUserByUsername(username);
         if (unreadOnly) {
             return notificationRepository.findByUser_IdAndReadFalseOrderByCreatedAtDesc(user.getId(), pageable);
@@ -111,69 +199,78 @@ public class NotificationService {
 
     @Timed(value = "notifications.read", description = "Time to mark one notification read")
     @Transactional
-    @CacheEvict(cacheNames = "notifications-first-page", allEntries = true)
     public Notification markAsReadForUser(Long id, String username) {
         User user = requireUserByUsername(username);
         Notification notification = notificationRepository.findByIdAndUser_Id(id, user.getId())
                 .orElseThrow(() -> new IllegalArgumentException(String.format(ERR_NOTIFICATION_NOT_FOUND, id)));
+        boolean wasUnread = !notification.isRead();
         notification.markRead();
         Notification saved = notificationRepository.save(notification);
-        // WS event
-        try {
-            broker.convertAndSendToUser(user.getUsername(), "/queue/notifications",
-                    com.bmessi.pickupsportsapp.dto.NotificationEvent.read(saved));
-            meterRegistry.counter("notifications.ws.sent", "type", "read").increment();
-        } catch (Exception ignore) {
-            meterRegistry.counter("notifications.ws.failed", "type", "read").increment();
+        inbox.markedRead(user.getUsername(), List.of(id), wasUnread ? 1 : 0);
+        if (wasUnread) {
+            events.read(user.getUsername(), List.of(saved.getId()));
         }
         return saved;
     }
 
     @Timed(value = "notifications.read.all", description = "Time to mark all notifications read")
     @Transactional
-    @CacheEvict(cacheNames = "notifications-first-page", allEntries = true)
     public int markAllAsReadForUser(String username) {
         User user = requireUserByUsername(username);
-        return notificationRepository.markAllAsRead(user.getId(), Instant.now());
+        int changed = notificationRepository.markAllAsRead(user.getId(), Instant.now());
+        inbox.markedRead(user.getUsername(), null, changed);
+        if (changed > 0) {
+            events.allRead(user.getUsername());
+        }
+        return changed;
     }
 
     @Timed(value = "notifications.read.bulk", description = "Time to mark a set of notifications read")
     @Transactional
-    @CacheEvict(cacheNames = "notifications-first-page", allEntries = true)
     public int markAsReadForUser(java.util.Collection<Long> ids, String username) {
         if (ids == null || ids.isEmpty()) return 0;
         User user = requireUserByUsername(username);
-        return notificationRepository.markAsRead(user.getId(), ids, Instant.now());
+        // Clients are only told about rows this call flips, not foreign, missing or already-read ids
+        List<Long> unread = notificationRepository.findUnreadIds(user.getId(), ids);
+        int changed = unread.isEmpty() ? 0 : notificationRepository.markAsRead(user.getId(), unread, Instant.now());
+        inbox.markedRead(user.getUsername(), ids, changed);
+        if (changed > 0) {
+            events.read(user.getUsername(), unread);
+        }
+        return changed;
     }
 
     @Timed(value = "notifications.unread.count", description = "Time to count unread notifications")
     @Transactional(readOnly = true)
     public long unreadCount(String username) {
+        Long cached = inbox.unreadCount(username, () -> requireUserByUsername(username).getId());
+        if (cached != null) return cached;
         User user = requireUserByUsername(username);
         return notificationRepository.countByUser_IdAndReadFalse(user.getId());
     }
 
     @Timed(value = "notifications.delete", description = "Time to delete a notification")
     @Transactional
-    @CacheEvict(cacheNames = "notifications-first-page", allEntries = true)
     public void deleteNotificationForUser(Long id, String username) {
         User user = requireUserByUsername(username);
         int deleted = notificationRepository.deleteByIdAndUser_Id(id, user.getId());
         if (deleted == 0) {
             throw new IllegalArgumentException(String.format(ERR_NOTIFICATION_NOT_FOUND, id));
         }
-        // WS event
-        try {
-            broker.convertAndSendToUser(user.getUsername(), "/queue/notifications",
-                    com.bmessi.pickupsportsapp.dto.NotificationEvent.deleted(id));
-            meterRegistry.counter("notifications.ws.sent", "type", "deleted").increment();
-        } catch (Exception ignore) {
-            meterRegistry.counter("notifications.ws.failed", "type", "deleted").increment();
-        }
+        inbox.removed(user.getUsername(), id);
+        events.deleted(user.getUsername(), id);
     }
 
     // --- Helpers ---
 
+    /** The generated {@code id}; drivers differ in the case of the key name. */
+    private static Long generatedId(java.util.Map<String, Object> key) {
+        for (java.util.Map.Entry<String, Object> e : key.entrySet()) {
+            if ("id".equalsIgnoreCase(e.getKey()) && e.getValue() instanceof Number n) return n.longValue();
+        }
+        return null;
+    }
+
     private static String validateAndNormalizeMessage(String message) {
         if (message == null || message.isBlank()) {
             throw new IllegalArgumentException(ERR_MESSAGE_BLANK);
@@ -0,0 +1,201 @@
+package com.bmessi.pickupsportsapp.service.push;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking Web Push client.
+ *
+ * Each push-service origin (FCM, Mozilla autopush, APNs web, ...) gets its own HTTP/2 client, so its
+ * connections are multiplexed and reused across sends, and its own in-flight limit
+ * ({@code push.webpush.max-concurrency-per-origin}); a slow or throttling service cannot starve the
+ * others. A send that finds its origin at the limit waits in that origin's queue and is started when a
+ * slot frees up; no caller thread ever blocks. Once {@code push.webpush.queue-capacity-per-origin} sends
+ * are waiting, further ones come back at once as transient errors and are retried with the outbox
+ * backoff, and a send still waiting after {@code push.webpush.queue-timeout-ms} gives up the same way.
+ * Queue wait plus request timeout should stay well inside {@code push.delivery.lease-ms}. The VAPID Authorization header comes from
+ * {@link VapidTokenCache}, signed once per origin rather than per request.
+ *
+ * Payloads are sent as plain JSON like {@link HttpWebPushClient}; aes128gcm encryption needs the
+ * subscription's p256dh/auth keys, which this interface does not carry.
+ */
+@Component
+@ConditionalOnExpression("${push.webpush.enabled:false} and '${push.webpush.client:async}' == 'async'")
+public class AsyncHttpWebPushClient implements WebPushClient {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncHttpWebPushClient.class);
+
+    private final VapidTokenCache vapidTokens;
+    private final MeterRegistry meterRegistry;
+    private final int maxPerOrigin;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final int queueCapacity;
+    private final long queueTimeoutMs;
+    private final ConcurrentMap<String, Origin> origins = new ConcurrentHashMap<>();
+
+    private record Origin(String key, HttpClient http, Semaphore permits, Queue<Waiting> waiting, AtomicInteger queued) {}
+
+    private record Waiting(URI uri, String payloadJson, CompletableFuture<Result> result) {}
+
+    public AsyncHttpWebPushClient(VapidTokenCache vapidTokens,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${push.webpush.max-concurrency-per-origin:32}") int maxPerOrigin,
+                                  @Value("${push.webpush.connect-timeout-ms:5000}") long connectTimeoutMs,
+                                  @Value("${push.webpush.request-timeout-ms:10000}") long requestTimeoutMs,
+                                  @Value("${push.webpush.queue-capacity-per-origin:1024}") int queueCapacity,
+                                  @Value("${push.webpush.queue-timeout-ms:30000}") long queueTimeoutMs) {
+        this.vapidTokens = vapidTokens;
+        this.meterRegistry = meterRegistry;
+        this.maxPerOrigin = Math.max(1, maxPerOrigin);
+        this.connectTimeout = Duration.ofMillis(Math.max(100L, connectTimeoutMs));
+        this.requestTimeout = Duration.ofMillis(Math.max(100L, requestTimeoutMs));
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.queueTimeoutMs = Math.max(1L, queueTimeoutMs);
+    }
+
+    @Override
+    public Result send(String endpoint, String payloadJson, String vapidPublic, String vapidPrivate, String subject) {
+        return sendAsync(endpoint, payloadJson, vapidPublic, vapidPrivate, subject).join();
+    }
+
+    @Override
+    public CompletableFuture<Result> sendAsync(String endpoint, String payloadJson, String vapidPublic, String vapidPrivate, String subject) {
+        if (endpoint == null || endpoint.isBlank()) {
+            return CompletableFuture.completedFuture(Result.transientError("missing endpoint"));
+        }
+        URI uri;
+        String originKey;
+        try {
+            uri = URI.create(endpoint);
+            originKey = originOf(uri);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(Result.notFound("invalid endpoint"));
+        }
+
+        Origin origin = origins.computeIfAbsent(originKey, this::newOrigin);
+        if (origin.permits().tryAcquire()) {
+            return dispatch(origin, uri, payloadJson);
+        }
+        if (origin.queued().incrementAndGet() > queueCapacity) {
+            origin.queued().decrementAndGet();
+            meterRegistry.counter("push.webpush.saturated").increment();
+            return CompletableFuture.completedFuture(Result.transientError("origin_saturated"));
+        }
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        Waiting waiting = new Waiting(uri, payloadJson, result);
+        origin.waiting().add(waiting);
+        Result timedOut = Result.transientError("queue_timeout");
+        result.completeOnTimeout(timedOut, queueTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((r, e) -> {
+            if (r == timedOut && origin.waiting().remove(waiting)) {
+                origin.queued().decrementAndGet();
+                meterRegistry.counter("push.webpush.queue_timeout").increment();
+            }
+        });
+        // A slot may have been released between the failed tryAcquire and the add
+        startWaiting(origin);
+        return result;
+    }
+
+    /** Sends on a slot the caller already holds; the slot is released when the response arrives. */
+    private CompletableFuture<Result> dispatch(Origin origin, URI uri, String payloadJson) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("TTL", "60")
+                .POST(HttpRequest.BodyPublishers.ofString(payloadJson == null ? "" : payloadJson));
+        try {
+            String authorization = vapidTokens.authorization(origin.key());
+            if (authorization != null) req.header("Authorization", authorization);
+        } catch (RuntimeException e) {
+            log.debug("VAPID signing failed for {}: {}", origin.key(), e.toString());
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<Void>> inFlight;
+        try {
+            inFlight = origin.http().sendAsync(req.build(), HttpResponse.BodyHandlers.discarding());
+        } catch (RuntimeException e) {
+            release(origin);
+            return CompletableFuture.completedFuture(Result.notFound("unsupported endpoint"));
+        }
+        return inFlight
+                .handle((resp, err) -> {
+                    release(origin);
+                    meterRegistry.timer("push.webpush.send").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    if (err != null) {
+                        log.debug("WebPush send error: {}", err.toString());
+                        Throwable cause = err.getCause() != null ? err.getCause() : err;
+                        return Result.transientError(cause.getClass().getSimpleName());
+                    }
+                    return classify(resp.statusCode());
+                });
+    }
+
+    private void release(Origin origin) {
+        origin.permits().release();
+        startWaiting(origin);
+    }
+
+    /** Starts queued sends while the origin has free slots. */
+    private void startWaiting(Origin origin) {
+        while (!origin.waiting().isEmpty() && origin.permits().tryAcquire()) {
+            Waiting next = origin.waiting().poll();
+            if (next == null) {
+                origin.permits().release();
+                continue;
+            }
+            origin.queued().decrementAndGet();
+            if (next.result().isDone()) {
+                // Timed out, or given up by the caller, while it waited
+                origin.permits().release();
+                continue;
+            }
+            dispatch(origin, next.uri(), next.payloadJson()).whenComplete((r, e) ->
+                    next.result().complete(e == null ? r : Result.transientError(e.getClass().getSimpleName())));
+        }
+    }
+
+    private Origin newOrigin(String key) {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        return new Origin(key, http, new Semaphore(maxPerOrigin), new ConcurrentLinkedQueue<>(), new AtomicInteger());
+    }
+
+    static Result classify(int status) {
+        if (status >= 200 && status < 300) return Result.ok();
+        if (status == 404) return Result.notFound("not_found");
+        if (status == 410) return Result.gone("gone");
+        return Result.transientError("status=" + status);
+    }
+
+    static String originOf(URI uri) {
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            throw new IllegalArgumentException("endpoint must be absolute");
+        }
+        return uri.getPort() < 0
+                ? uri.getScheme() + "://" + uri.getHost()
+                : uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+}
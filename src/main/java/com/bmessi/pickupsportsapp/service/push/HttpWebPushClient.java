@@ -2,7 +2,7 @@ package com.bmessi.pickupsportsapp.service.push;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
 
 import java.net.URI;
@@ -15,9 +15,11 @@ import java.net.http.HttpResponse;
  * This attempts an HTTP request to the push endpoint and maps common statuses
  * to GONE/NOT_FOUND vs transient. In production, replace with a proper Web Push
  * library that handles VAPID and payload encryption.
+ * Blocking, one request per call; selected with push.webpush.client=blocking
+ * (the default when enabled is {@link AsyncHttpWebPushClient}).
  */
 @Component
-@ConditionalOnProperty(name = "push.webpush.enabled", havingValue = "true")
+@ConditionalOnExpression("${push.webpush.enabled:false} and '${push.webpush.client:async}' == 'blocking'")
 public class HttpWebPushClient implements WebPushClient {
 
     private static final Logger log = LoggerFactory.getLogger(HttpWebPushClient.class);
@@ -2,6 +2,7 @@ package com.bmessi.pickupsportsapp.service.push;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Component;
  * (e.g., library-backed) by providing another bean of WebPushClient.
  */
 @Component
+@ConditionalOnProperty(name = "push.webpush.enabled", havingValue = "false", matchIfMissing = true)
 public class NoopWebPushClient implements WebPushClient {
 
     private static final Logger log = LoggerFactory.getLogger(NoopWebPushClient.class);
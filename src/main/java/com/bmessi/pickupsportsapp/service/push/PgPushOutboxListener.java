@@ -0,0 +1,110 @@
+package com.bmessi.pickupsportsapp.service.push;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * LISTENs on {@code push_outbox} and rings the local dispatcher whenever any node commits new rows.
+ *
+ * Holds one connection from the pool for its lifetime. The PostgreSQL driver is a runtime-only
+ * dependency, so {@code PGConnection.getNotifications(int)} is looked up reflectively. On other
+ * databases, or with {@code push.delivery.listen.enabled=false}, this does nothing and nodes rely on
+ * local signals plus the dispatcher's idle poll.
+ */
+@Component
+public class PgPushOutboxListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PgPushOutboxListener.class);
+    private static final int WAIT_MS = 5_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+
+    private final DataSource dataSource;
+    private final PushOutboxNotifier notifier;
+    private final PushOutboxWakeup wakeup;
+    private final boolean enabled;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    public PgPushOutboxListener(DataSource dataSource,
+                                PushOutboxNotifier notifier,
+                                PushOutboxWakeup wakeup,
+                                @Value("${push.delivery.listen.enabled:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.notifier = notifier;
+        this.wakeup = wakeup;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || !notifier.isPostgres()) {
+            log.info("Push outbox LISTEN disabled; relying on local wake-ups and idle polling.");
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listenLoop, "push-outbox-listen");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Returns once the listen thread has given its connection back, or after one notification wait. */
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = thread;
+        if (t == null) return;
+        t.interrupt();
+        try {
+            // getNotifications does not react to interrupts, so this can take up to one wait
+            t.join(WAIT_MS + 1_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (t.isAlive()) log.warn("Push outbox listener did not stop within {} ms", WAIT_MS + 1_000L);
+        thread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection c = dataSource.getConnection()) {
+                c.setAutoCommit(true);
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + PushOutboxNotifier.CHANNEL);
+                }
+                Class<?> pgConnection = Class.forName("org.postgresql.PGConnection");
+                Object pg = c.unwrap(pgConnection);
+                Method getNotifications = pgConnection.getMethod("getNotifications", int.class);
+                log.info("Listening for push outbox notifications");
+                wakeup.signal(); // anything committed while we were not listening
+
+                while (running) {
+                    Object[] received = (Object[]) getNotifications.invoke(pg, WAIT_MS);
+                    if (received != null && received.length > 0) wakeup.signal();
+                }
+            } catch (Exception e) {
+                if (!running) return;
+                log.warn("Push outbox LISTEN connection lost: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.bmessi.pickupsportsapp.service.push;
+
+import com.bmessi.pickupsportsapp.config.properties.PushDeliveryProperties;
+import com.bmessi.pickupsportsapp.config.properties.VapidProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the push outbox in claimed batches.
+ *
+ * A batch is claimed in a short transaction with {@code FOR UPDATE SKIP LOCKED}: due PENDING rows are
+ * locked, leased by pushing {@code next_attempt_at} forward by {@code push.delivery.lease-ms} and
+ * stamped with a fresh {@code claim_token}, and the transaction commits. Nodes racing for the same rows
+ * skip each other's locks, and once committed the lease keeps leased rows out of everyone else's claims,
+ * so a row is sent by one node at a time. A node that dies mid-batch simply lets the lease lapse and the
+ * rows become due again. Outcomes are only written while the row still carries the batch's token, so a
+ * node whose lease lapsed mid-send cannot overwrite the outcome of the node that reclaimed the row.
+ * Sends still unanswered half-way through the lease are given up as transient failures, which leaves the
+ * rest of the lease for the commit.
+ *
+ * Subscriptions for the whole batch are fetched in one IN query and rows are grouped by recipient, so
+ * each user's rows go out on one task against that user's endpoints. Tasks run concurrently on the
+ * bounded {@code pushSendExecutor} with no transaction open, and the outcomes are written back with one
+ * batch UPDATE per outcome kind plus one DELETE for endpoints the push service reported gone.
+ */
+@Component
+public class PushOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PushOutboxDispatcher.class);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final WebPushClient client;
+    private final VapidProperties vapid;
+    private final PushDeliveryProperties props;
+    private final ThreadPoolTaskExecutor sendExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    record Claimed(long id, long userId, String title, String body, String link, int retryCount, String claimToken) {}
+
+    enum Kind { SENT, DEAD, RETRY }
+
+    record Outcome(Claimed row, Kind kind, String reason, List<String> goneEndpoints) {}
+
+    public PushOutboxDispatcher(JdbcTemplate jdbc,
+                                PlatformTransactionManager txManager,
+                                WebPushClient client,
+                                VapidProperties vapid,
+                                PushDeliveryProperties props,
+                                @Qualifier("pushSendExecutor") ThreadPoolTaskExecutor sendExecutor,
+                                MeterRegistry meterRegistry,
+                                Clock clock) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.client = client;
+        this.vapid = vapid;
+        this.props = props;
+        this.sendExecutor = sendExecutor;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Claims and delivers batches until the outbox has no more due rows or
+     * {@code push.delivery.max-batches-per-run} is reached. Returns the number of rows processed.
+     */
+    public int drain() {
+        int batchSize = Math.max(1, props.getBatchSize());
+        int total = 0;
+        for (int i = 0; i < Math.max(1, props.getMaxBatchesPerRun()); i++) {
+            List<Claimed> batch = claim(batchSize);
+            if (batch.isEmpty()) break;
+            commit(deliver(batch));
+            total += batch.size();
+            if (batch.size() < batchSize) break;
+        }
+        return total;
+    }
+
+    List<Claimed> claim(int limit) {
+        List<Claimed> claimed = tx.execute(status -> {
+            Instant now = clock.instant();
+            List<Long> ids = jdbc.queryForList("""
+                    SELECT id FROM push_outbox
+                     WHERE status = 'PENDING'
+                       AND (next_attempt_at IS NULL OR next_attempt_at <= ?)
+                     ORDER BY created_at
+                     LIMIT ?
+                     FOR UPDATE SKIP LOCKED
+                    """, Long.class, Timestamp.from(now), limit);
+            if (ids.isEmpty()) return List.of();
+
+            Timestamp leaseUntil = Timestamp.from(now.plusMillis(leaseMillis()));
+            String token = UUID.randomUUID().toString();
+            jdbc.batchUpdate("UPDATE push_outbox SET next_attempt_at = ?, claim_token = ? WHERE id = ?",
+                    ids, ids.size(), (ps, id) -> {
+                        ps.setTimestamp(1, leaseUntil);
+                        ps.setString(2, token);
+                        ps.setLong(3, id);
+                    });
+
+            String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+            return jdbc.query("""
+                    SELECT o.id, o.user_id, o.title, o.body, o.link, o.retry_count
+                      FROM push_outbox o
+                     WHERE o.id IN (%s)
+                     ORDER BY o.created_at
+                    """.formatted(in), (rs, n) -> new Claimed(
+                    rs.getLong("id"), rs.getLong("user_id"), rs.getString("title"),
+                    rs.getString("body"), rs.getString("link"), rs.getInt("retry_count"), token), ids.toArray());
+        });
+        return claimed == null ? List.of() : claimed;
+    }
+
+    List<Outcome> deliver(List<Claimed> batch) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis() / 2);
+        Map<Long, List<String>> endpointsByUser = endpointsFor(batch);
+        Map<Long, List<Claimed>> rowsByUser = batch.stream()
+                .collect(Collectors.groupingBy(Claimed::userId, LinkedHashMap::new, Collectors.toList()));
+
+        List<CompletableFuture<List<Outcome>>> futures = new ArrayList<>(rowsByUser.size());
+        rowsByUser.forEach((userId, rows) -> {
+            List<String> endpoints = endpointsByUser.getOrDefault(userId, List.of());
+            futures.add(CompletableFuture.supplyAsync(() -> sendAll(rows, endpoints, deadline), sendExecutor)
+                    .exceptionally(e -> {
+                        String reason = rootName(e);
+                        return rows.stream().map(r -> new Outcome(r, Kind.RETRY, reason, List.of())).toList();
+                    }));
+        });
+        return futures.stream().map(CompletableFuture::join).flatMap(List::stream).toList();
+    }
+
+    /** One query for every recipient in the batch instead of one lookup per outbox row. */
+    Map<Long, List<String>> endpointsFor(List<Claimed> batch) {
+        List<Long> userIds = batch.stream().map(Claimed::userId).distinct().toList();
+        String in = String.join(",", Collections.nCopies(userIds.size(), "?"));
+        Map<Long, List<String>> byUser = new HashMap<>();
+        jdbc.query("SELECT user_id, endpoint FROM push_subscription WHERE user_id IN (%s)".formatted(in),
+                rs -> {
+                    byUser.computeIfAbsent(rs.getLong("user_id"), k -> new ArrayList<>()).add(rs.getString("endpoint"));
+                }, userIds.toArray());
+        return byUser;
+    }
+
+    /** Sends one user's rows in order; an endpoint reported gone is not retried for the user's later rows. */
+    private List<Outcome> sendAll(List<Claimed> rows, List<String> endpoints, long deadline) {
+        List<String> live = new ArrayList<>(endpoints);
+        List<Outcome> out = new ArrayList<>(rows.size());
+        for (Claimed row : rows) {
+            if (live.isEmpty() && !endpoints.isEmpty()) {
+                // An earlier row found every endpoint gone: same outcome as if this row had been sent there
+                out.add(new Outcome(row, Kind.DEAD, "unsubscribed", List.of()));
+            } else {
+                out.add(send(row, live, deadline));
+            }
+        }
+        return out;
+    }
+
+    private Outcome send(Claimed row, List<String> live, long deadline) {
+        if (live.isEmpty()) {
+            // Nothing to send to; mark sent so the row is not retried
+            return new Outcome(row, Kind.SENT, null, List.of());
+        }
+        if (System.nanoTime() - deadline >= 0) {
+            return new Outcome(row, Kind.RETRY, "lease_timeout", List.of());
+        }
+
+        int delivered = 0;
+        int transientErr = 0;
+        List<String> gone = new ArrayList<>();
+        String payload = toJson(row);
+        // All of the user's endpoints in flight at once; the client bounds concurrency per push service
+        List<CompletableFuture<WebPushClient.Result>> inFlight = new ArrayList<>(live.size());
+        for (String endpoint : live) {
+            inFlight.add(client.sendAsync(endpoint, payload, vapid.getPublicKey(), vapid.getPrivateKey(), row.title()));
+        }
+        for (int i = 0; i < live.size(); i++) {
+            String endpoint = live.get(i);
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            var result = inFlight.get(i)
+                    .completeOnTimeout(WebPushClient.Result.transientError("lease_timeout"), remaining, TimeUnit.NANOSECONDS)
+                    .join();
+            switch (result.code()) {
+                case OK -> delivered++;
+                case GONE, NOT_FOUND -> gone.add(endpoint);
+                case TRANSIENT_ERROR -> transientErr++;
+            }
+        }
+        live.removeAll(gone);
+
+        if (delivered > 0) return new Outcome(row, Kind.SENT, null, gone);
+        if (!gone.isEmpty() && transientErr == 0) return new Outcome(row, Kind.DEAD, "unsubscribed", gone);
+        return new Outcome(row, Kind.RETRY, "transient", gone);
+    }
+
+    void commit(List<Outcome> outcomes) {
+        Timestamp now = Timestamp.from(clock.instant());
+        List<Outcome> sent = new ArrayList<>();
+        List<Outcome> dead = new ArrayList<>();
+        List<Outcome> retry = new ArrayList<>();
+        Set<String> goneEndpoints = new LinkedHashSet<>();
+
+        for (Outcome o : outcomes) {
+            goneEndpoints.addAll(o.goneEndpoints());
+            switch (o.kind()) {
+                case SENT -> sent.add(o);
+                case DEAD -> dead.add(o);
+                case RETRY -> {
+                    if (o.row().retryCount() + 1 >= props.getMaxRetries()) {
+                        dead.add(new Outcome(o.row(), Kind.DEAD, "max_retries", List.of()));
+                    } else {
+                        retry.add(o);
+                    }
+                }
+            }
+        }
+
+        int[] lost = {0};
+        tx.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                lost[0] += unmatched(jdbc.batchUpdate("UPDATE push_outbox SET status = 'SENT', sent_at = ?, error = NULL "
+                                + "WHERE id = ? AND status = 'PENDING' AND claim_token = ?",
+                        sent, sent.size(), (ps, o) -> {
+                            ps.setTimestamp(1, now);
+                            ps.setLong(2, o.row().id());
+                            ps.setString(3, o.row().claimToken());
+                        }));
+            }
+            if (!dead.isEmpty()) {
+                lost[0] += unmatched(jdbc.batchUpdate("UPDATE push_outbox SET status = 'FAILED', dead_at = ?, dead_reason = ?, retry_count = ? "
+                                + "WHERE id = ? AND status = 'PENDING' AND claim_token = ?",
+                        dead, dead.size(), (ps, o) -> {
+                            ps.setTimestamp(1, now);
+                            ps.setString(2, o.reason());
+                            ps.setInt(3, "max_retries".equals(o.reason()) ? o.row().retryCount() + 1 : o.row().retryCount());
+                            ps.setLong(4, o.row().id());
+                            ps.setString(5, o.row().claimToken());
+                        }));
+            }
+            if (!retry.isEmpty()) {
+                lost[0] += unmatched(jdbc.batchUpdate("UPDATE push_outbox SET retry_count = ?, next_attempt_at = ?, error = ? "
+                                + "WHERE id = ? AND status = 'PENDING' AND claim_token = ?",
+                        retry, retry.size(), (ps, o) -> {
+                            int rc = o.row().retryCount() + 1;
+                            ps.setInt(1, rc);
+                            ps.setTimestamp(2, Timestamp.from(now.toInstant().plusMillis(backoffMillis(rc))));
+                            ps.setString(3, o.reason());
+                            ps.setLong(4, o.row().id());
+                            ps.setString(5, o.row().claimToken());
+                        }));
+            }
+            if (!goneEndpoints.isEmpty()) {
+                String in = String.join(",", Collections.nCopies(goneEndpoints.size(), "?"));
+                jdbc.update("DELETE FROM push_subscription WHERE endpoint IN (%s)".formatted(in), goneEndpoints.toArray());
+            }
+        });
+
+        meter("push.delivered", "ok", sent.size());
+        dead.forEach(o -> meter("push.dead", o.reason(), 1));
+        meter("push.retry", "transient", retry.size());
+        if (lost[0] > 0) {
+            meter("push.lease.lost", "reclaimed", lost[0]);
+            log.warn("{} push outcomes discarded: their rows were reclaimed after the lease lapsed", lost[0]);
+        }
+    }
+
+    private long leaseMillis() {
+        return Math.max(1000, props.getLeaseMs());
+    }
+
+    private static int unmatched(int[][] counts) {
+        int n = 0;
+        for (int[] batch : counts) {
+            for (int c : batch) if (c == 0) n++;
+        }
+        return n;
+    }
+
+    long backoffMillis(int retryCount) {
+        long base = Math.max(1000, props.getBaseBackoffMs());
+        long max = Math.max(base, props.getMaxBackoffMs());
+        long exp = Math.min(max, (long) (base * Math.pow(2, Math.min(retryCount, 10))));
+        long jitter = ThreadLocalRandom.current().nextLong(Math.max(1, base / 2));
+        return exp + jitter;
+    }
+
+    private void meter(String name, String reason, int n) {
+        if (n <= 0) return;
+        try { meterRegistry.counter(name, "reason", reason).increment(n); } catch (Exception ignore) {}
+    }
+
+    private static String rootName(Throwable e) {
+        Throwable t = e;
+        while (t.getCause() != null && t.getCause() != t) t = t.getCause();
+        log.warn("Push delivery failed: {}", t.getMessage(), t);
+        return t.getClass().getSimpleName();
+    }
+
+    private static String toJson(Claimed row) {
+        String title = row.title() == null ? "" : row.title();
+        String body = row.body() == null ? "" : row.body();
+        String link = row.link() == null ? "" : row.link();
+        return "{\"title\":\"" + escape(title) + "\",\"body\":\"" + escape(body) + "\",\"link\":\"" + escape(link) + "\"}";
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,75 @@
+package com.bmessi.pickupsportsapp.service.push;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Announces new push outbox rows.
+ *
+ * Once the enqueueing transaction has committed, the local dispatcher is rung directly and, on
+ * PostgreSQL, a {@code NOTIFY push_outbox} is sent on a separate autocommit connection so the other
+ * nodes wake up too. Nothing is sent inside the enqueueing transaction: a failed statement there would
+ * abort it, and a rolled-back enqueue must not wake anyone. Without a transaction both happen at once.
+ */
+@Component
+public class PushOutboxNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(PushOutboxNotifier.class);
+    public static final String CHANNEL = "push_outbox";
+
+    private final DataSource dataSource;
+    private final PushOutboxWakeup wakeup;
+    private final boolean postgres;
+
+    public PushOutboxNotifier(DataSource dataSource, PushOutboxWakeup wakeup) {
+        this.dataSource = dataSource;
+        this.wakeup = wakeup;
+        this.postgres = isPostgres(dataSource);
+    }
+
+    public boolean isPostgres() {
+        return postgres;
+    }
+
+    /** Call from the transaction that inserted outbox rows; without one, announces them immediately. */
+    public void rowsEnqueued() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    announce();
+                }
+            });
+        } else {
+            announce();
+        }
+    }
+
+    private void announce() {
+        wakeup.signal();
+        if (!postgres) return;
+        // Straight from the pool rather than through JdbcTemplate, which would join the finished transaction
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement()) {
+            if (!c.getAutoCommit()) c.setAutoCommit(true);
+            st.execute("NOTIFY " + CHANNEL);
+        } catch (Exception e) {
+            // Other nodes pick the row up on their next idle poll
+            log.debug("NOTIFY {} failed: {}", CHANNEL, e.getMessage());
+        }
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try (Connection c = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(c.getMetaData().getDatabaseProductName());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
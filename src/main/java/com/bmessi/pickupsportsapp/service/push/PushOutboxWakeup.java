@@ -0,0 +1,28 @@
+package com.bmessi.pickupsportsapp.service.push;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process doorbell for the push dispatch loop. Any number of signals between two waits collapse
+ * into one wake-up; the dispatcher drains everything due when it wakes anyway.
+ */
+@Component
+public class PushOutboxWakeup {
+
+    private final Semaphore bell = new Semaphore(0);
+
+    public void signal() {
+        if (bell.availablePermits() == 0) bell.release();
+    }
+
+    /** Waits up to {@code timeout} for a signal; returns true when woken by one. */
+    public boolean await(Duration timeout) throws InterruptedException {
+        boolean rung = bell.tryAcquire(Math.max(0L, timeout.toMillis()), TimeUnit.MILLISECONDS);
+        bell.drainPermits();
+        return rung;
+    }
+}
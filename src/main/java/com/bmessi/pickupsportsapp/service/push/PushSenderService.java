@@ -15,6 +15,7 @@ public class PushSenderService {
 
     private final PushOutboxRepository outbox;
     private final UserRepository users;
+    private final PushOutboxNotifier notifier;
 
     @Timed("push.enqueue")
     @Transactional
@@ -28,6 +29,8 @@ public class PushSenderService {
                 .link(link)
                 .status(PushOutbox.Status.PENDING)
                 .build();
-        return outbox.save(row);
+        PushOutbox saved = outbox.save(row);
+        notifier.rowsEnqueued();
+        return saved;
     }
 }
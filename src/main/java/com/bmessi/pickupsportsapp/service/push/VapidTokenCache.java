@@ -0,0 +1,115 @@
+package com.bmessi.pickupsportsapp.service.push;
+
+import com.bmessi.pickupsportsapp.config.properties.VapidProperties;
+import io.jsonwebtoken.Jwts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPrivateKeySpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Signs VAPID (RFC 8292) JWTs once per push-service origin and reuses them until shortly before
+ * they expire, so sending is not an ES256 signature per request.
+ *
+ * The private key may be the raw 32-byte scalar used by most VAPID tooling or a PKCS#8 encoding
+ * (what {@code VapidKeyGenerator} prints), both base64url. When no usable key is configured,
+ * {@link #authorization} returns null and pushes go out unauthenticated as before.
+ */
+@Component
+public class VapidTokenCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VapidTokenCache.class);
+
+    private final VapidProperties vapid;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration refreshBefore;
+    private final ConcurrentMap<String, Token> tokens = new ConcurrentHashMap<>();
+
+    private volatile PrivateKey signingKey;
+    private volatile String loadedFrom;
+
+    private record Token(String header, Instant refreshAt) {}
+
+    public VapidTokenCache(VapidProperties vapid,
+                           Clock clock,
+                           @Value("${push.vapid.token-ttl-seconds:43200}") long ttlSeconds,
+                           @Value("${push.vapid.token-refresh-before-seconds:600}") long refreshBeforeSeconds) {
+        this.vapid = vapid;
+        this.clock = clock;
+        // RFC 8292: exp must be no more than 24h out
+        this.ttl = Duration.ofSeconds(Math.min(Math.max(60L, ttlSeconds), 86_400L));
+        this.refreshBefore = Duration.ofSeconds(Math.max(0L, Math.min(refreshBeforeSeconds, ttl.getSeconds() / 2)));
+    }
+
+    /** {@code Authorization} header value for pushes to {@code origin}, e.g. {@code https://fcm.googleapis.com}. */
+    public String authorization(String origin) {
+        PrivateKey key = key();
+        if (key == null) return null;
+        Instant now = clock.instant();
+        Token t = tokens.get(origin);
+        if (t == null || !now.isBefore(t.refreshAt())) {
+            t = tokens.compute(origin, (o, cur) -> cur != null && now.isBefore(cur.refreshAt()) ? cur : sign(o, key, now));
+        }
+        return t.header();
+    }
+
+    private Token sign(String origin, PrivateKey key, Instant now) {
+        Instant exp = now.plus(ttl);
+        String jwt = Jwts.builder()
+                .audience().single(origin)
+                .expiration(Date.from(exp))
+                .subject(vapid.getSubject())
+                .signWith(key, Jwts.SIG.ES256)
+                .compact();
+        return new Token("vapid t=" + jwt + ", k=" + vapid.getPublicKey(), exp.minus(refreshBefore));
+    }
+
+    private PrivateKey key() {
+        String configured = vapid.getPrivateKey();
+        if (configured == null || configured.isBlank() || vapid.getPublicKey() == null) return null;
+        if (!configured.equals(loadedFrom)) {
+            synchronized (this) {
+                if (!configured.equals(loadedFrom)) {
+                    signingKey = parse(configured);
+                    loadedFrom = configured;
+                    tokens.clear();
+                }
+            }
+        }
+        return signingKey;
+    }
+
+    private static PrivateKey parse(String base64url) {
+        try {
+            byte[] raw = Base64.getUrlDecoder().decode(base64url.trim());
+            KeyFactory kf = KeyFactory.getInstance("EC");
+            if (raw.length == 32) {
+                AlgorithmParameters params = AlgorithmParameters.getInstance("EC");
+                params.init(new ECGenParameterSpec("secp256r1"));
+                ECParameterSpec spec = params.getParameterSpec(ECParameterSpec.class);
+                return kf.generatePrivate(new ECPrivateKeySpec(new BigInteger(1, raw), spec));
+            }
+            return kf.generatePrivate(new PKCS8EncodedKeySpec(raw));
+        } catch (Exception e) {
+            log.warn("Ignoring unusable VAPID private key: {}", e.getMessage());
+            return null;
+        }
+    }
+}
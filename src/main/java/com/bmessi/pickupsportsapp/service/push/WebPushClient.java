@@ -1,5 +1,7 @@
 package com.bmessi.pickupsportsapp.service.push;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface WebPushClient {
 
     final class Result {
@@ -19,4 +21,9 @@ public interface WebPushClient {
     }
 
     Result send(String endpoint, String payloadJson, String vapidPublic, String vapidPrivate, String subject);
+
+    /** Non-blocking variant; clients without native async I/O complete it on the calling thread. */
+    default CompletableFuture<Result> sendAsync(String endpoint, String payloadJson, String vapidPublic, String vapidPrivate, String subject) {
+        return CompletableFuture.completedFuture(send(endpoint, payloadJson, vapidPublic, vapidPrivate, subject));
+    }
 }
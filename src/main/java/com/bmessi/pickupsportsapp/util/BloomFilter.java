@@ -0,0 +1,78 @@
+package com.bmessi.pickupsportsapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings: no false negatives, a false-positive rate close to the one
+ * it was sized for while it holds at most {@code expectedInsertions} items. Items cannot be removed;
+ * rebuild a new filter instead.
+ *
+ * Uses double hashing over a 64-bit FNV-1a / murmur-style mix of the UTF-8 bytes.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1L, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64L, (m + 63) & ~63L);
+        this.bitCount = m;
+        this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, m >>> 6));
+        this.hashes = (int) Math.max(1, Math.round((double) m / n * Math.log(2)));
+    }
+
+    public void put(String item) {
+        long h = hash(item);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long index = index(h1 + i * h2);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long cur;
+            do {
+                cur = bits.get(word);
+                if ((cur & mask) != 0) break;
+            } while (!bits.compareAndSet(word, cur, cur | mask));
+        }
+    }
+
+    public boolean mightContain(String item) {
+        long h = hash(item);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long index = index(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitCount;
+    }
+
+    private long index(int combined) {
+        return (combined & Integer.MAX_VALUE) % ((long) bits.length() << 6);
+    }
+
+    private static long hash(String item) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        // final avalanche so both 32-bit halves are well mixed
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,223 @@
+package com.bmessi.pickupsportsapp.web;
+
+import com.bmessi.pickupsportsapp.config.properties.RateLimitProperties;
+import com.bmessi.pickupsportsapp.security.ratelimit.RouteTemplateResolver;
+import com.bmessi.pickupsportsapp.security.ratelimit.SlidingWindowRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * First filter of every request: correlation ids, security headers and per-IP rate limiting in one pass.
+ *
+ * <ul>
+ *   <li>{@code X-Correlation-Id} and {@code X-Request-Id} are taken from the request (trimmed, capped at
+ *   64 characters, reduced to {@code [A-Za-z0-9._-]}) or generated, then exposed as request attributes,
+ *   in the MDC ({@code cid}, {@code requestId}) and on the response. Generated ids are random UUIDs from
+ *   {@link ThreadLocalRandom}; they only need to be unique, not unguessable.</li>
+ *   <li>Security headers come from four name/value arrays built at startup: strict or Swagger CSP, with
+ *   or without HSTS. HSTS is sent on secure requests and, under the {@code prod} profile, also on
+ *   requests whose TLS ended at the proxy. The CSP is the same in every profile.</li>
+ *   <li>The request is classified once by {@link EdgeRouteClassifier} and the result is stored under
+ *   {@link #ROUTE_ATTRIBUTE}. Rate limiting ({@code security.rate-limit}) uses its route template and
+ *   runs before Spring Security, so rejected requests never reach token parsing. Clients are keyed on
+ *   {@code getRemoteAddr()}, which the container resolves through trusted proxies only.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class EdgeFilter extends OncePerRequestFilter {
+
+    public static final String CORRELATION_HEADER = "X-Correlation-Id";
+    public static final String CORRELATION_MDC_KEY = "cid";
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String REQUEST_ID_MDC_KEY = "requestId";
+    public static final String ROUTE_ATTRIBUTE = EdgeFilter.class.getName() + ".route";
+
+    static final int MAX_ID_LENGTH = 64;
+
+    // Strict CSP for API and most endpoints, in every profile. The prod-only filter this replaced also
+    // carried a looser fallback CSP (default-src 'self'), but it only set it when none was present and
+    // this policy was always set first, so it never reached a response and is deliberately not kept.
+    static final String CSP_STRICT =
+            "default-src 'none'; " +
+                    "img-src 'self' data:; " +
+                    "script-src 'none'; " +
+                    "style-src 'self'; " +
+                    "font-src 'self' data:; " +
+                    "connect-src 'self'; " +
+                    "frame-ancestors 'none'; " +
+                    "base-uri 'self'";
+
+    // Relaxed CSP for Swagger UI pages (needs scripts and some inline code/styles)
+    static final String CSP_SWAGGER =
+            "default-src 'self'; " +
+                    "img-src 'self' data:; " +
+                    "script-src 'self' 'unsafe-inline'; " +
+                    "style-src 'self' 'unsafe-inline'; " +
+                    "font-src 'self' data:; " +
+                    "connect-src 'self'; " +
+                    "frame-ancestors 'self'; " +
+                    "base-uri 'self'";
+
+    private static final String PERMISSIONS_POLICY =
+            "geolocation=(), microphone=(), camera=(), " +
+                    "payment=(), usb=(), bluetooth=(), accelerometer=(), " +
+                    "ambient-light-sensor=(), gyroscope=(), magnetometer=(), " +
+                    "screen-wake-lock=(), clipboard-read=(), clipboard-write=()";
+
+    static final String HSTS = "max-age=31536000; includeSubDomains";
+    // Production sits behind a TLS-terminating proxy, so plain requests still get HSTS there
+    static final String HSTS_PROXIED = "max-age=15552000; includeSubDomains; preload";
+
+    private final EdgeRouteClassifier classifier;
+    private final SlidingWindowRateLimiter limiter;
+    private final RateLimitProperties rateLimit;
+    private final MeterRegistry meterRegistry;
+
+    // Indexed by (docs ? 2 : 0) + (secure ? 1 : 0); each array alternates header name and value
+    private final String[][] headerSets;
+
+    public EdgeFilter(EdgeRouteClassifier classifier,
+                      SlidingWindowRateLimiter limiter,
+                      RateLimitProperties rateLimit,
+                      MeterRegistry meterRegistry,
+                      Environment environment) {
+        this.classifier = classifier;
+        this.limiter = limiter;
+        this.rateLimit = rateLimit;
+        this.meterRegistry = meterRegistry;
+        String insecureHsts = environment.acceptsProfiles(Profiles.of("prod")) ? HSTS_PROXIED : null;
+        this.headerSets = new String[][]{
+                headerSet(CSP_STRICT, insecureHsts),
+                headerSet(CSP_STRICT, HSTS),
+                headerSet(CSP_SWAGGER, insecureHsts),
+                headerSet(CSP_SWAGGER, HSTS)
+        };
+    }
+
+    private static String[] headerSet(String csp, String hsts) {
+        String[] common = {
+                "X-Content-Type-Options", "nosniff",
+                "X-Frame-Options", "DENY",
+                "Referrer-Policy", "no-referrer",
+                "X-XSS-Protection", "0",
+                "Permissions-Policy", PERMISSIONS_POLICY,
+                "Content-Security-Policy", csp
+        };
+        if (hsts == null) return common;
+        String[] withHsts = Arrays.copyOf(common, common.length + 2);
+        withHsts[common.length] = "Strict-Transport-Security";
+        withHsts[common.length + 1] = hsts;
+        return withHsts;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String cid = idOrNew(request.getHeader(CORRELATION_HEADER));
+        String requestId = idOrNew(request.getHeader(REQUEST_ID_HEADER));
+        request.setAttribute(CORRELATION_HEADER, cid);
+        request.setAttribute(REQUEST_ID_HEADER, requestId);
+        response.setHeader(CORRELATION_HEADER, cid);
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        boolean limiting = rateLimit.isEnabled();
+        EdgeRouteClassifier.EdgeRoute route = classifier.classify(request.getMethod(), request.getRequestURI(), limiting);
+        request.setAttribute(ROUTE_ATTRIBUTE, route);
+
+        // Nothing runs before this filter, so there is no upstream value to preserve
+        String[] headers = headerSets[(route.docs() ? 2 : 0) + (request.isSecure() ? 1 : 0)];
+        for (int i = 0; i < headers.length; i += 2) {
+            response.setHeader(headers[i], headers[i + 1]);
+        }
+
+        MDC.put(CORRELATION_MDC_KEY, cid);
+        MDC.put(REQUEST_ID_MDC_KEY, requestId);
+        try {
+            if (limiting && !admit(request, response, route.rateLimit())) return;
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(CORRELATION_MDC_KEY);
+            MDC.remove(REQUEST_ID_MDC_KEY);
+        }
+    }
+
+    private boolean admit(HttpServletRequest request, HttpServletResponse response,
+                          RouteTemplateResolver.Route route) throws IOException {
+        // Tomcat has already resolved trusted proxies (server.forward-headers-strategy); the raw
+        // X-Forwarded-For and X-Real-IP headers are client-controlled and not used as the key
+        String clientIp = request.getRemoteAddr();
+        String key = route.policyName() + "|" + clientIp + "|" + route.template();
+        SlidingWindowRateLimiter.Decision decision = limiter.tryAcquire(key, route.limit(), route.windowSeconds());
+        if (decision.allowed()) return true;
+
+        log.warn("Rate limit exceeded for IP: {} on route: {}", clientIp, route.template());
+        meterRegistry.counter("ratelimit.rejected", "policy", route.policyName()).increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType("application/json");
+        response.setHeader("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+        response.getWriter().write("{\"error\":\"too_many_requests\",\"retryAfter\":" + decision.retryAfterSeconds() + "}");
+        return false;
+    }
+
+    private static String idOrNew(String incoming) {
+        String id = sanitizeId(incoming);
+        return id != null ? id : newId();
+    }
+
+    /**
+     * The incoming id trimmed, capped and stripped of disallowed characters, or null when nothing is left.
+     * Returns {@code raw} itself when it is already clean.
+     */
+    static String sanitizeId(String raw) {
+        if (raw == null) return null;
+        int from = 0;
+        int to = raw.length();
+        while (from < to && raw.charAt(from) <= ' ') from++;
+        while (to > from && raw.charAt(to - 1) <= ' ') to--;
+        to = Math.min(to, from + MAX_ID_LENGTH);
+        if (from == to) return null;
+
+        int i = from;
+        while (i < to && isIdChar(raw.charAt(i))) i++;
+        if (i == to) return from == 0 && to == raw.length() ? raw : raw.substring(from, to);
+
+        StringBuilder sb = new StringBuilder(to - from).append(raw, from, i);
+        for (; i < to; i++) {
+            char c = raw.charAt(i);
+            if (isIdChar(c)) sb.append(c);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static boolean isIdChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '_' || c == '-';
+    }
+
+    static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+}
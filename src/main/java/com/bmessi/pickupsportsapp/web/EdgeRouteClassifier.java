@@ -0,0 +1,61 @@
+package com.bmessi.pickupsportsapp.web;
+
+import com.bmessi.pickupsportsapp.security.ratelimit.RouteTemplateResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Classifies a request once, at the edge, for every filter that needs to know what it is.
+ *
+ * The answer says whether the path is API documentation (which gets the relaxed CSP), the game id
+ * when it is an RSVP join or leave, and the rate-limit route from {@link RouteTemplateResolver},
+ * whose patterns are compiled at startup. {@link EdgeFilter} stores it under
+ * {@link EdgeFilter#ROUTE_ATTRIBUTE}, so later filters read it instead of matching the path again.
+ * Matching is done with prefix and character checks, without regular expressions.
+ */
+@Component
+public class EdgeRouteClassifier {
+
+    public record EdgeRoute(boolean docs, String rsvpGameId, RouteTemplateResolver.Route rateLimit) {}
+
+    private static final String[] DOCS_PREFIXES = {"/swagger-ui", "/v3/api-docs"};
+    private static final String GAMES_PREFIX = "/games/";
+    private static final EdgeRoute API = new EdgeRoute(false, null, null);
+    private static final EdgeRoute DOCS = new EdgeRoute(true, null, null);
+
+    private final RouteTemplateResolver routes;
+
+    public EdgeRouteClassifier(RouteTemplateResolver routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * @param withRateLimit resolve the rate-limit route too; skipped when rate limiting is off
+     */
+    public EdgeRoute classify(String method, String uri, boolean withRateLimit) {
+        boolean docs = isDocs(uri);
+        String gameId = rsvpGameId(method, uri);
+        if (!withRateLimit && gameId == null) return docs ? DOCS : API;
+        return new EdgeRoute(docs, gameId, withRateLimit ? routes.resolve(method, uri) : null);
+    }
+
+    static boolean isDocs(String uri) {
+        if (uri == null) return false;
+        for (String prefix : DOCS_PREFIXES) {
+            if (uri.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The game id of {@code POST /games/{id}/join} or {@code DELETE /games/{id}/leave}, otherwise null.
+     */
+    public static String rsvpGameId(String method, String uri) {
+        String action = "POST".equals(method) ? "/join" : "DELETE".equals(method) ? "/leave" : null;
+        if (action == null || uri == null || !uri.startsWith(GAMES_PREFIX)) return null;
+        int start = GAMES_PREFIX.length();
+        int i = start;
+        while (i < uri.length() && uri.charAt(i) >= '0' && uri.charAt(i) <= '9') i++;
+        if (i == start || uri.length() - i != action.length() || !uri.startsWith(action, i)) return null;
+        return uri.substring(start, i);
+    }
+}
@@ -0,0 +1,203 @@
+package com.bmessi.pickupsportsapp.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, non-blocking outbound queue for one WebSocket session.
+ *
+ * sendMessage only enqueues; a single drain task per session writes to the underlying socket on the
+ * policy's executor, so a slow client never blocks the broker's outbound threads.
+ * When the queue is full, the oldest typing/presence frame (any destination with a {@code typing} or
+ * {@code presence} segment, including presence deltas) is dropped to make room. If only chat
+ * (guaranteed) frames are queued, the session is evicted instead of silently losing messages.
+ */
+public class BackpressureSessionDecorator extends WebSocketSessionDecorator {
+
+    enum FrameClass { DROPPABLE, GUARANTEED }
+
+    private record Queued(WebSocketMessage<?> message, FrameClass frameClass, String destination) {}
+
+    private final OutboundBackpressurePolicy policy;
+    private final int capacity;
+
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>(); // guarded by itself
+    private boolean draining;                                     // guarded by queue
+
+    private final Map<String, Instant> lastDelivered = new ConcurrentHashMap<>();
+    private volatile String username;
+    private volatile long sendStartedAt; // 0 while idle
+    private volatile boolean evicted;
+
+    BackpressureSessionDecorator(WebSocketSession delegate, OutboundBackpressurePolicy policy, int capacity) {
+        super(delegate);
+        this.policy = policy;
+        this.capacity = Math.max(8, capacity);
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (evicted) return;
+
+        String payload = (message instanceof TextMessage t) ? t.getPayload() : null;
+        if (payload != null && payload.startsWith("CONNECTED")) {
+            username = header(payload, "user-name");
+        }
+        String destination = (payload != null && payload.startsWith("MESSAGE")) ? header(payload, "destination") : null;
+        FrameClass frameClass = classify(destination);
+
+        boolean schedule = false;
+        boolean overflow = false;
+        synchronized (queue) {
+            if (queue.size() >= capacity && !dropOldestDroppable()) {
+                if (frameClass == FrameClass.DROPPABLE) {
+                    policy.onDropped(destination);
+                    return;
+                }
+                // Queue is full of guaranteed frames: the client cannot keep up.
+                overflow = true;
+            } else {
+                queue.addLast(new Queued(message, frameClass, destination));
+                if (!draining) {
+                    draining = true;
+                    schedule = true;
+                }
+            }
+        }
+        if (overflow) {
+            policy.evict(this, "overflow");
+        } else if (schedule) {
+            policy.drain(this);
+        }
+    }
+
+    /** Writes queued frames until the queue is empty. At most one drain runs per session. */
+    void drain() {
+        while (true) {
+            Queued next;
+            synchronized (queue) {
+                next = evicted ? null : queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                getDelegate().sendMessage(next.message());
+                if (next.frameClass() == FrameClass.GUARANTEED && next.destination() != null) {
+                    lastDelivered.put(next.destination(), Instant.now());
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (queue) {
+                    queue.clear();
+                    draining = false;
+                }
+                policy.evict(this, "send_error");
+                return;
+            } finally {
+                sendStartedAt = 0L;
+            }
+        }
+    }
+
+    /** Stops accepting and writing frames and drops anything still queued; does not touch the socket. */
+    void markEvicted() {
+        evicted = true;
+        synchronized (queue) {
+            queue.clear();
+        }
+    }
+
+    /** Closes the underlying socket. May block while a write is stuck, so callers run it off their own thread. */
+    void closeQuietly(CloseStatus status) {
+        try {
+            getDelegate().close(status);
+        } catch (IOException | RuntimeException ignore) {
+            // connection is already broken
+        }
+    }
+
+    int queued() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /** Milliseconds the current socket write has been blocked, or 0 when idle. */
+    long blockedMillis(long now) {
+        long started = sendStartedAt;
+        return started == 0L ? 0L : now - started;
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    String username() {
+        return username;
+    }
+
+    Map<String, Instant> lastDelivered() {
+        return Map.copyOf(lastDelivered);
+    }
+
+    // caller holds queue lock
+    private boolean dropOldestDroppable() {
+        Iterator<Queued> it = queue.iterator();
+        while (it.hasNext()) {
+            Queued q = it.next();
+            if (q.frameClass() == FrameClass.DROPPABLE) {
+                it.remove();
+                policy.onDropped(q.destination());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static FrameClass classify(String destination) {
+        if (hasSegment(destination, "typing") || hasSegment(destination, "presence")) {
+            return FrameClass.DROPPABLE;
+        }
+        return FrameClass.GUARANTEED;
+    }
+
+    /** True when {@code segment} is a whole path segment of {@code destination}, e.g. .../presence/delta. */
+    static boolean hasSegment(String destination, String segment) {
+        if (destination == null) return false;
+        int from = 0;
+        while (true) {
+            int i = destination.indexOf(segment, from);
+            if (i < 0) return false;
+            int end = i + segment.length();
+            if (i > 0 && destination.charAt(i - 1) == '/'
+                    && (end == destination.length() || destination.charAt(end) == '/')) {
+                return true;
+            }
+            from = i + 1;
+        }
+    }
+
+    /** Reads a header from an encoded STOMP frame without decoding the whole frame. */
+    static String header(String frame, String name) {
+        int headersEnd = frame.indexOf("\n\n");
+        if (headersEnd < 0) headersEnd = frame.length();
+        String needle = "\n" + name + ":";
+        int i = frame.indexOf(needle);
+        if (i < 0 || i >= headersEnd) return null;
+        int start = i + needle.length();
+        int end = frame.indexOf('\n', start);
+        return frame.substring(start, end < 0 ? frame.length() : end);
+    }
+}
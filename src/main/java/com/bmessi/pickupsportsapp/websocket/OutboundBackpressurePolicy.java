@@ -0,0 +1,183 @@
+package com.bmessi.pickupsportsapp.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound policy layer for STOMP sessions.
+ *
+ * Wraps every session in a {@link BackpressureSessionDecorator} so the broker hands frames off without
+ * blocking, and writes happen on a dedicated bounded pool. A sweeper evicts sessions whose socket write
+ * has been stuck longer than {@code ws.outbound.slow-send-ms}, well before the transport's 10s send limit.
+ * Evicted clients get close code 4008 with a resume token they can redeem after reconnecting. The close
+ * itself runs on a separate small pool, since closing a socket that is stuck mid-write can block; the
+ * sweeper and the broker threads never wait for it.
+ *
+ * Each session has at most one drain task waiting for a writer, so {@code ws.outbound.writer-queue-capacity}
+ * bounds how many sessions can wait for a free writer thread. A session that finds the pool saturated is
+ * evicted as well. It is never written from the broker thread.
+ */
+@Slf4j
+@Component
+public class OutboundBackpressurePolicy implements WebSocketHandlerDecoratorFactory, DisposableBean {
+
+    /** Application close code for "evicted as slow consumer". */
+    public static final int SLOW_CONSUMER_CLOSE_CODE = 4008;
+
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final long slowSendMillis;
+    private final WsResumeTokenService resumeTokens;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, BackpressureSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskExecutor writers;
+    private final ThreadPoolTaskExecutor closers;
+    private final ScheduledExecutorService sweeper;
+
+    public OutboundBackpressurePolicy(@Value("${ws.outbound.backpressure.enabled:true}") boolean enabled,
+                                      @Value("${ws.outbound.queue-capacity:256}") int queueCapacity,
+                                      @Value("${ws.outbound.slow-send-ms:3000}") long slowSendMillis,
+                                      @Value("${ws.outbound.writer-threads:16}") int writerThreads,
+                                      @Value("${ws.outbound.writer-queue-capacity:256}") int writerQueueCapacity,
+                                      WsResumeTokenService resumeTokens,
+                                      MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.queueCapacity = Math.max(8, queueCapacity);
+        this.slowSendMillis = Math.max(250L, slowSendMillis);
+        this.resumeTokens = resumeTokens;
+        this.meterRegistry = meterRegistry;
+
+        this.writers = new ThreadPoolTaskExecutor();
+        writers.setCorePoolSize(Math.max(1, writerThreads / 4));
+        writers.setMaxPoolSize(Math.max(1, writerThreads));
+        writers.setQueueCapacity(Math.max(1, writerQueueCapacity));
+        writers.setKeepAliveSeconds(30);
+        writers.setThreadNamePrefix("ws-out-");
+        writers.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        writers.initialize();
+
+        this.closers = new ThreadPoolTaskExecutor();
+        closers.setCorePoolSize(Math.max(2, writerThreads / 4));
+        closers.setMaxPoolSize(Math.max(2, writerThreads / 4));
+        closers.setQueueCapacity(Math.max(1, writerQueueCapacity));
+        closers.setAllowCoreThreadTimeOut(true);
+        closers.setKeepAliveSeconds(30);
+        closers.setDaemon(true);
+        closers.setThreadNamePrefix("ws-out-close-");
+        closers.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        closers.initialize();
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ws-out-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(100L, this.slowSendMillis / 4);
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("ws.outbound.sessions", sessions, Map::size)
+                .description("WebSocket sessions under outbound backpressure control")
+                .register(meterRegistry);
+        Gauge.builder("ws.outbound.queued", sessions,
+                        m -> m.values().stream().mapToInt(BackpressureSessionDecorator::queued).sum())
+                .description("Frames queued for delivery across all sessions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        if (!enabled) return handler;
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                var decorated = new BackpressureSessionDecorator(session, OutboundBackpressurePolicy.this, queueCapacity);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    void drain(BackpressureSessionDecorator session) {
+        try {
+            writers.execute(session::drain);
+        } catch (RejectedExecutionException e) {
+            evict(session, "writers_saturated");
+        }
+    }
+
+    void onDropped(String destination) {
+        meterRegistry.counter("ws.outbound.dropped", "kind", kindOf(destination)).increment();
+    }
+
+    /** Idempotent: only the first call per session issues a resume token and closes the socket. */
+    void evict(BackpressureSessionDecorator session, String reason) {
+        if (sessions.remove(session.getId()) == null) return;
+
+        String token = resumeTokens.issue(session.username(), session.lastDelivered());
+        meterRegistry.counter("ws.outbound.evicted", "reason", reason).increment();
+        log.info("Evicting slow WebSocket consumer session={} user={} reason={}",
+                session.getId(), session.username(), reason);
+        session.markEvicted();
+        // Close reasons are capped at 123 bytes; the token is 22 chars.
+        CloseStatus status = new CloseStatus(SLOW_CONSUMER_CLOSE_CODE, "slow_consumer resume-token=" + token);
+        try {
+            closers.execute(() -> session.closeQuietly(status));
+        } catch (RejectedExecutionException e) {
+            // Every closer is stuck: the session no longer takes frames, and the transport's send limit closes it
+            meterRegistry.counter("ws.outbound.close_rejected").increment();
+            log.warn("Could not schedule close of evicted session={}", session.getId());
+        }
+    }
+
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            for (BackpressureSessionDecorator s : sessions.values()) {
+                if (s.blockedMillis(now) > slowSendMillis) {
+                    evict(s, "slow_send");
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbound backpressure sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private static String kindOf(String destination) {
+        if (destination == null) return "other";
+        if (BackpressureSessionDecorator.hasSegment(destination, "typing")) return "typing";
+        if (BackpressureSessionDecorator.hasSegment(destination, "presence")) return "presence";
+        return "other";
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+        writers.shutdown();
+        closers.shutdown();
+    }
+}
@@ -0,0 +1,53 @@
+package com.bmessi.pickupsportsapp.websocket;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Short-lived tokens handed to clients evicted as slow consumers.
+ * A token records what the session had received per destination so the client can resume
+ * from there after reconnecting. Tokens are single-use and bound to the evicted user.
+ *
+ * Held in-process: a client reconnecting to a different node simply falls back to a fresh load.
+ */
+@Component
+public class WsResumeTokenService {
+
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, ResumeState> tokens;
+
+    public WsResumeTokenService(@Value("${ws.outbound.resume-ttl-seconds:120}") long ttlSeconds) {
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(10L, ttlSeconds)))
+                .build();
+    }
+
+    public String issue(String username, Map<String, Instant> lastDelivered) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tokens.put(token, new ResumeState(username, Instant.now(), Map.copyOf(lastDelivered)));
+        return token;
+    }
+
+    /** Consumes the token if it exists and belongs to {@code username}. */
+    public Optional<ResumeState> redeem(String token, String username) {
+        if (token == null || username == null) return Optional.empty();
+        ResumeState state = tokens.getIfPresent(token);
+        if (state == null || !username.equals(state.username())) return Optional.empty();
+        tokens.invalidate(token);
+        return Optional.of(state);
+    }
+
+    public record ResumeState(String username, Instant evictedAt, Map<String, Instant> lastDelivered) {}
+}
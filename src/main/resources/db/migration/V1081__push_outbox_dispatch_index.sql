@@ -0,0 +1,5 @@
+-- Claim path for the push outbox dispatcher: PENDING rows walked oldest first (ORDER BY created_at),
+-- with next_attempt_at in the index so rows still leased or backing off are skipped without a heap visit.
+CREATE INDEX IF NOT EXISTS idx_push_outbox_pending_due
+    ON push_outbox (created_at, next_attempt_at)
+    WHERE status = 'PENDING';
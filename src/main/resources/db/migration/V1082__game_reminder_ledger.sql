@@ -0,0 +1,16 @@
+-- One row per reminder actually sent; the primary key makes re-runs idempotent.
+CREATE TABLE IF NOT EXISTS game_reminder_sent (
+    game_id BIGINT NOT NULL REFERENCES game(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES app_user(id) ON DELETE CASCADE,
+    kind VARCHAR(8) NOT NULL,
+    sent_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (game_id, user_id, kind)
+);
+
+CREATE INDEX IF NOT EXISTS idx_game_reminder_sent_at ON game_reminder_sent (sent_at);
+
+-- Upper bound of the reminder-time interval already processed, per reminder kind.
+CREATE TABLE IF NOT EXISTS game_reminder_watermark (
+    kind VARCHAR(8) PRIMARY KEY,
+    processed_until TIMESTAMPTZ NOT NULL
+);
@@ -0,0 +1,10 @@
+-- V1083: Support the in-memory JWT revocation filter
+-- token_version: bumped to invalidate every token issued to a user ("uv" claim)
+-- revoked_token.expires_at: entries past the token's own expiry are dropped on rebuild
+-- revoked_at index: incremental refresh reads rows revoked since the last watermark
+
+ALTER TABLE app_user ADD COLUMN IF NOT EXISTS token_version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE revoked_token ADD COLUMN IF NOT EXISTS expires_at TIMESTAMPTZ NULL;
+
+CREATE INDEX IF NOT EXISTS idx_revoked_token_revoked_at ON revoked_token (revoked_at);
@@ -0,0 +1,28 @@
+-- V1084: Tables written in JDBC batches by the asynchronous audit pipeline
+-- admin_audit: add the columns the AdminAudit entity maps (actor, target, correlation id); target_id is optional
+-- host_action_audit: was only ever created by Hibernate DDL
+
+ALTER TABLE admin_audit ADD COLUMN IF NOT EXISTS actor VARCHAR(64);
+ALTER TABLE admin_audit ADD COLUMN IF NOT EXISTS target_type VARCHAR(64);
+ALTER TABLE admin_audit ADD COLUMN IF NOT EXISTS target_id BIGINT NULL;
+ALTER TABLE admin_audit ADD COLUMN IF NOT EXISTS correlation_id VARCHAR(64);
+
+UPDATE admin_audit SET actor = COALESCE(LEFT(username, 64), 'system') WHERE actor IS NULL;
+UPDATE admin_audit SET target_type = 'none' WHERE target_type IS NULL;
+
+ALTER TABLE admin_audit ALTER COLUMN actor SET NOT NULL;
+ALTER TABLE admin_audit ALTER COLUMN target_type SET NOT NULL;
+
+CREATE TABLE IF NOT EXISTS host_action_audit (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    actor VARCHAR(64) NOT NULL,
+    action VARCHAR(64) NOT NULL,
+    target_type VARCHAR(64) NOT NULL,
+    target_id BIGINT,
+    details VARCHAR(1024),
+    correlation_id VARCHAR(64),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_host_action_audit_action ON host_action_audit (action);
+CREATE INDEX IF NOT EXISTS idx_host_action_audit_created_at ON host_action_audit (created_at);
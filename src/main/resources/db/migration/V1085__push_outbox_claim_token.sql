@@ -0,0 +1,5 @@
+-- V1085: Claim token for the push outbox dispatcher
+-- Written by each claim; outcome updates require it, so a node whose lease lapsed mid-send cannot
+-- overwrite the outcome recorded by the node that reclaimed the row.
+
+ALTER TABLE push_outbox ADD COLUMN IF NOT EXISTS claim_token VARCHAR(36);
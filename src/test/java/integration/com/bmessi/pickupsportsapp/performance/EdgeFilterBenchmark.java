@@ -0,0 +1,264 @@
+package integration.com.bmessi.pickupsportsapp.performance;
+
+import com.bmessi.pickupsportsapp.config.properties.RateLimitProperties;
+import com.bmessi.pickupsportsapp.security.ratelimit.RouteTemplateResolver;
+import com.bmessi.pickupsportsapp.security.ratelimit.RsvpRateLimitFilter;
+import com.bmessi.pickupsportsapp.security.ratelimit.SlidingWindowRateLimiter;
+import com.bmessi.pickupsportsapp.web.EdgeFilter;
+import com.bmessi.pickupsportsapp.web.EdgeRouteClassifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.GenericServlet;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.MDC;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-request cost of the edge of the filter chain: {@link EdgeFilter} plus {@link RsvpRateLimitFilter}
+ * against the five filters they replaced (two correlation filters, the security header filter, the
+ * per-IP rate limiter and the regex-matching RSVP filter). Both chains run through a
+ * {@link MockFilterChain} ending in an empty servlet, so {@code emptyChain} is the floor to subtract.
+ * Limits are high enough that every request is admitted.
+ *
+ * Run with: {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=integration.com.bmessi.pickupsportsapp.performance.EdgeFilterBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EdgeFilterBenchmark {
+
+    private static final int HIGH_LIMIT = Integer.MAX_VALUE / 2;
+    private static final Servlet SERVLET = new GenericServlet() {
+        @Override
+        public void service(ServletRequest req, ServletResponse res) {
+        }
+    };
+
+    /** A plain read, an RSVP join and a Swagger page. */
+    @Param({"GET /games/42", "POST /games/42/join", "GET /swagger-ui/index.html"})
+    public String request;
+
+    private String method;
+    private String uri;
+    private Filter[] edge;
+    private Filter[] legacy;
+
+    @Setup
+    public void setUp() {
+        int space = request.indexOf(' ');
+        method = request.substring(0, space);
+        uri = request.substring(space + 1);
+
+        RateLimitProperties props = new RateLimitProperties();
+        props.getDefaults().setLimit(HIGH_LIMIT);
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        RouteTemplateResolver routes = new RouteTemplateResolver(props);
+        RsvpRateLimitFilter.Budget budget = new RsvpRateLimitFilter.Budget(HIGH_LIMIT, 10);
+
+        SlidingWindowRateLimiter edgeLimiter = new SlidingWindowRateLimiter(props, Optional.empty(), meters, Clock.systemUTC());
+        edge = new Filter[]{
+                new EdgeFilter(new EdgeRouteClassifier(routes), edgeLimiter, props, meters, new MockEnvironment()),
+                new RsvpRateLimitFilter(edgeLimiter, meters, budget, budget)
+        };
+
+        SlidingWindowRateLimiter legacyLimiter = new SlidingWindowRateLimiter(props, Optional.empty(), meters, Clock.systemUTC());
+        legacy = new Filter[]{
+                new LegacyCorrelationFilter("X-Request-Id", "requestId"),
+                new LegacyCorrelationFilter("X-Correlation-Id", "cid"),
+                new LegacySecurityHeadersFilter(),
+                new LegacyRateLimitingFilter(routes, legacyLimiter),
+                new LegacyRsvpFilter(legacyLimiter, budget)
+        };
+    }
+
+    @Benchmark
+    public MockHttpServletResponse emptyChain() throws Exception {
+        return run();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse edgeChain() throws Exception {
+        return run(edge);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse legacyChain() throws Exception {
+        return run(legacy);
+    }
+
+    private MockHttpServletResponse run(Filter... filters) throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest(method, uri);
+        req.addHeader("X-Correlation-Id", "edge-bench-0001");
+        req.addHeader("X-Forwarded-For", "198.51.100.7, 10.0.0.1");
+        req.setUserPrincipal(() -> "alice@example.com");
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        new MockFilterChain(SERVLET, filters).doFilter(req, res);
+        return res;
+    }
+
+    /** The filters this replaced, kept here as the baseline. */
+    static final class LegacyCorrelationFilter extends OncePerRequestFilter {
+        private final String header;
+        private final String mdcKey;
+
+        LegacyCorrelationFilter(String header, String mdcKey) {
+            this.header = header;
+            this.mdcKey = mdcKey;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            String incoming = request.getHeader(header);
+            String id = (incoming != null && !incoming.isBlank()) ? sanitize(incoming) : UUID.randomUUID().toString();
+            request.setAttribute(header, id);
+            MDC.put(mdcKey, id);
+            response.setHeader(header, id);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                MDC.remove(mdcKey);
+            }
+        }
+
+        private static String sanitize(String raw) {
+            String v = raw.trim();
+            if (v.length() > 64) v = v.substring(0, 64);
+            return v.replaceAll("[^A-Za-z0-9._-]", "");
+        }
+    }
+
+    static final class LegacySecurityHeadersFilter extends OncePerRequestFilter {
+        private static final String CSP_STRICT = "default-src 'none'; img-src 'self' data:; script-src 'none'; "
+                + "style-src 'self'; font-src 'self' data:; connect-src 'self'; frame-ancestors 'none'; base-uri 'self'";
+        private static final String CSP_SWAGGER = "default-src 'self'; img-src 'self' data:; "
+                + "script-src 'self' 'unsafe-inline'; style-src 'self' 'unsafe-inline'; font-src 'self' data:; "
+                + "connect-src 'self'; frame-ancestors 'self'; base-uri 'self'";
+        private static final String PERMISSIONS_POLICY = "geolocation=(), microphone=(), camera=(), "
+                + "payment=(), usb=(), bluetooth=(), accelerometer=(), ambient-light-sensor=(), gyroscope=(), "
+                + "magnetometer=(), screen-wake-lock=(), clipboard-read=(), clipboard-write=()";
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            String path = request.getRequestURI();
+            boolean isSwagger = path != null && (path.equals("/swagger-ui.html")
+                    || path.startsWith("/swagger-ui") || path.startsWith("/v3/api-docs"));
+            setIfAbsent(response, "X-Content-Type-Options", "nosniff");
+            setIfAbsent(response, "X-Frame-Options", "DENY");
+            setIfAbsent(response, "Referrer-Policy", "no-referrer");
+            setIfAbsent(response, "X-XSS-Protection", "0");
+            setIfAbsent(response, "Permissions-Policy", PERMISSIONS_POLICY);
+            setIfAbsent(response, "Content-Security-Policy", isSwagger ? CSP_SWAGGER : CSP_STRICT);
+            if (request.isSecure()) {
+                setIfAbsent(response, "Strict-Transport-Security", "max-age=31536000; includeSubDomains");
+            }
+            chain.doFilter(request, response);
+        }
+
+        private static void setIfAbsent(HttpServletResponse resp, String header, String value) {
+            if (resp.getHeader(header) == null) resp.setHeader(header, value);
+        }
+    }
+
+    static final class LegacyRateLimitingFilter extends OncePerRequestFilter {
+        private final RouteTemplateResolver routes;
+        private final SlidingWindowRateLimiter limiter;
+
+        LegacyRateLimitingFilter(RouteTemplateResolver routes, SlidingWindowRateLimiter limiter) {
+            this.routes = routes;
+            this.limiter = limiter;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            String xForwardedFor = request.getHeader("X-Forwarded-For");
+            String clientIp = xForwardedFor != null && !xForwardedFor.isEmpty()
+                    ? xForwardedFor.split(",")[0].trim() : request.getRemoteAddr();
+            RouteTemplateResolver.Route route = routes.resolve(request.getMethod(), request.getRequestURI());
+            String key = route.policyName() + "|" + clientIp + "|" + route.template();
+            if (!limiter.tryAcquire(key, route.limit(), route.windowSeconds()).allowed()) {
+                response.setStatus(429);
+                return;
+            }
+            chain.doFilter(request, response);
+        }
+    }
+
+    static final class LegacyRsvpFilter extends OncePerRequestFilter {
+        private static final Pattern RSVP_PATH = Pattern.compile("/games/(\\d+)/(join|leave)");
+        private final SlidingWindowRateLimiter limiter;
+        private final RsvpRateLimitFilter.Budget budget;
+
+        LegacyRsvpFilter(SlidingWindowRateLimiter limiter, RsvpRateLimitFilter.Budget budget) {
+            this.limiter = limiter;
+            this.budget = budget;
+        }
+
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            Matcher m = RSVP_PATH.matcher(request.getRequestURI());
+            if (!m.matches()) return true;
+            String method = request.getMethod();
+            return !(("POST".equals(method) && "join".equals(m.group(2)))
+                    || ("DELETE".equals(method) && "leave".equals(m.group(2))));
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            Matcher m = RSVP_PATH.matcher(request.getRequestURI());
+            String gameId = m.matches() ? m.group(1) : "unknown";
+            String caller = "u:" + request.getUserPrincipal().getName();
+            if (!limiter.tryAcquire("rsvp|" + caller, budget.limit(), budget.windowSeconds()).allowed()
+                    || !limiter.tryAcquire("rsvp-game|" + gameId, budget.limit(), budget.windowSeconds()).allowed()) {
+                response.setStatus(429);
+                return;
+            }
+            chain.doFilter(request, response);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EdgeFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,145 @@
+package integration.com.bmessi.pickupsportsapp.performance;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+/**
+ * In-memory stand-in for the handful of Redis commands the chat/presence WebSocket paths use
+ * (ZSET presence, INCR sequences, capped lists). Lets the load harness boot without a Redis server.
+ * Key expiry is ignored; unknown commands fall back to Mockito defaults.
+ */
+@TestConfiguration
+public class InMemoryRedisStandIn {
+
+    private final Map<String, Map<String, Double>> zsets = new HashMap<>();
+    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, List<String>> lists = new HashMap<>();
+
+    @Bean
+    @Primary
+    public StringRedisTemplate inMemoryStringRedisTemplate() {
+        ZSetOperations<String, String> zset = mock(ZSetOperations.class, this::zset);
+        ValueOperations<String, String> value = mock(ValueOperations.class, this::value);
+        ListOperations<String, String> list = mock(ListOperations.class, this::list);
+
+        return mock(StringRedisTemplate.class, inv -> switch (inv.getMethod().getName()) {
+            case "opsForZSet" -> zset;
+            case "opsForValue" -> value;
+            case "opsForList" -> list;
+            case "expire" -> Boolean.TRUE;
+            case "convertAndSend" -> 0L;
+            case "delete" -> delete(inv.getArgument(0));
+            default -> RETURNS_DEFAULTS.answer(inv);
+        });
+    }
+
+    private synchronized Object zset(InvocationOnMock inv) throws Throwable {
+        Object[] a = inv.getArguments();
+        String key = (String) a[0];
+        Map<String, Double> z = zsets.computeIfAbsent(key, k -> new HashMap<>());
+        return switch (inv.getMethod().getName()) {
+            case "add" -> z.put((String) a[1], ((Number) a[2]).doubleValue()) == null;
+            case "remove" -> {
+                long n = 0;
+                for (int i = 1; i < a.length; i++) if (z.remove(String.valueOf(a[i])) != null) n++;
+                yield n;
+            }
+            case "removeRangeByScore" -> {
+                double min = ((Number) a[1]).doubleValue(), max = ((Number) a[2]).doubleValue();
+                int before = z.size();
+                z.values().removeIf(s -> s >= min && s <= max);
+                yield (long) (before - z.size());
+            }
+            case "score" -> z.get(String.valueOf(a[1]));
+            case "zCard", "size" -> (long) z.size();
+            case "count" -> byScore(z, a[1], a[2]).count();
+            case "range" -> slice(sorted(z), (Long) a[1], (Long) a[2]).stream()
+                    .map(Map.Entry::getKey).collect(Collectors.toCollection(LinkedHashSet::new));
+            case "rangeByScore" -> byScore(z, a[1], a[2]).map(Map.Entry::getKey)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            case "rangeByScoreWithScores" -> byScore(z, a[1], a[2])
+                    .map(e -> new DefaultTypedTuple<>(e.getKey(), e.getValue()))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            default -> RETURNS_DEFAULTS.answer(inv);
+        };
+    }
+
+    private synchronized Object value(InvocationOnMock inv) throws Throwable {
+        Object[] a = inv.getArguments();
+        String key = String.valueOf(a[0]);
+        return switch (inv.getMethod().getName()) {
+            case "increment" -> {
+                long delta = a.length > 1 ? ((Number) a[1]).longValue() : 1L;
+                long next = Long.parseLong(values.getOrDefault(key, "0")) + delta;
+                values.put(key, Long.toString(next));
+                yield next;
+            }
+            case "get" -> values.get(key);
+            case "set" -> {
+                values.put(key, (String) a[1]);
+                yield null;
+            }
+            case "setIfAbsent" -> values.putIfAbsent(key, (String) a[1]) == null;
+            default -> RETURNS_DEFAULTS.answer(inv);
+        };
+    }
+
+    private synchronized Object list(InvocationOnMock inv) throws Throwable {
+        Object[] a = inv.getArguments();
+        List<String> l = lists.computeIfAbsent((String) a[0], k -> new ArrayList<>());
+        return switch (inv.getMethod().getName()) {
+            case "rightPush" -> {
+                l.add((String) a[1]);
+                yield (long) l.size();
+            }
+            case "size" -> (long) l.size();
+            case "range" -> new ArrayList<>(slice(l, (Long) a[1], (Long) a[2]));
+            case "trim" -> {
+                List<String> kept = new ArrayList<>(slice(l, (Long) a[1], (Long) a[2]));
+                l.clear();
+                l.addAll(kept);
+                yield null;
+            }
+            default -> RETURNS_DEFAULTS.answer(inv);
+        };
+    }
+
+    private synchronized Boolean delete(Object key) {
+        String k = String.valueOf(key);
+        return zsets.remove(k) != null | values.remove(k) != null | lists.remove(k) != null;
+    }
+
+    private static List<Map.Entry<String, Double>> sorted(Map<String, Double> z) {
+        return z.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(e -> Map.entry(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    private static java.util.stream.Stream<Map.Entry<String, Double>> byScore(Map<String, Double> z, Object min, Object max) {
+        double lo = ((Number) min).doubleValue(), hi = ((Number) max).doubleValue();
+        return sorted(z).stream().filter(e -> e.getValue() >= lo && e.getValue() <= hi);
+    }
+
+    /** Redis-style inclusive range with negative indexes counting from the end. */
+    private static <T> List<T> slice(List<T> src, long start, long end) {
+        int n = src.size();
+        long s = start < 0 ? Math.max(0, n + start) : start;
+        long e = end < 0 ? n + end : Math.min(end, n - 1L);
+        if (s > e || s >= n) return List.of();
+        return src.subList((int) s, (int) e + 1);
+    }
+}
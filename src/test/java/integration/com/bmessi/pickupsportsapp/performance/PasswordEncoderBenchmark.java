@@ -0,0 +1,68 @@
+package integration.com.bmessi.pickupsportsapp.performance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one login-time {@code matches} per candidate encoder, to pick
+ * {@code security.password.encoder} / {@code security.password.bcrypt-strength} and size
+ * {@code security.password.hashing.threads}: threads / average time is the login throughput per node.
+ *
+ * Run with: {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=integration.com.bmessi.pickupsportsapp.performance.PasswordEncoderBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"bcrypt-10", "bcrypt-12", "argon2", "pbkdf2"})
+    public String encoder;
+
+    private PasswordEncoder passwordEncoder;
+    private String stored;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = switch (encoder) {
+            case "bcrypt-10" -> new BCryptPasswordEncoder(10);
+            case "bcrypt-12" -> new BCryptPasswordEncoder(12);
+            case "argon2" -> Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+            case "pbkdf2" -> Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+            default -> throw new IllegalArgumentException(encoder);
+        };
+        stored = passwordEncoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("correct horse battery staple", stored);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PasswordEncoderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+package integration.com.bmessi.pickupsportsapp.performance;
+
+import com.bmessi.pickupsportsapp.security.VelocityCheckService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VelocityCheckService} under contention, against the previous deque-per-key implementation:
+ * all threads on one high-limit key (the worst case for the old synchronized deque) and threads
+ * spread over many keys.
+ *
+ * Run with: {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=integration.com.bmessi.pickupsportsapp.performance.VelocityCheckBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class VelocityCheckBenchmark {
+
+    private static final int LIMIT = 10_000;
+    private static final long WINDOW_MS = 60_000;
+
+    private VelocityCheckService sliding;
+    private DequeVelocityCheck deque;
+
+    @Setup
+    public void setUp() {
+        sliding = new VelocityCheckService(Clock.systemUTC(), 100_000);
+        deque = new DequeVelocityCheck();
+    }
+
+    @Benchmark
+    public boolean slidingHotKey() {
+        return sliding.incrementAndCheck("auth:login:hot", LIMIT, WINDOW_MS);
+    }
+
+    @Benchmark
+    public boolean dequeHotKey() {
+        return deque.incrementAndCheck("auth:login:hot", LIMIT, WINDOW_MS);
+    }
+
+    @Benchmark
+    public boolean slidingSpreadKeys() {
+        return sliding.incrementAndCheck("auth:login:" + ThreadLocalRandom.current().nextInt(10_000), LIMIT, WINDOW_MS);
+    }
+
+    @Benchmark
+    public boolean dequeSpreadKeys() {
+        return deque.incrementAndCheck("auth:login:" + ThreadLocalRandom.current().nextInt(10_000), LIMIT, WINDOW_MS);
+    }
+
+    /** The implementation this replaced, kept here as the baseline. */
+    static final class DequeVelocityCheck {
+        private final Map<String, Deque<Long>> events = new ConcurrentHashMap<>();
+
+        boolean incrementAndCheck(String key, int limit, long windowMs) {
+            long now = System.currentTimeMillis();
+            Deque<Long> d = events.computeIfAbsent(key, k -> new ArrayDeque<>());
+            synchronized (d) {
+                while (!d.isEmpty() && now - d.peekFirst() > windowMs) {
+                    d.pollFirst();
+                }
+                d.addLast(now);
+                return d.size() <= limit;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VelocityCheckBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
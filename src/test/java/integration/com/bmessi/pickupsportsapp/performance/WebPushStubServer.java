@@ -0,0 +1,71 @@
+package integration.com.bmessi.pickupsportsapp.performance;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for a push service, mirroring NoopWebPushClient's conventions: paths containing
+ * /gone answer 410, /nf answer 404, everything else 201. An optional fixed latency simulates a
+ * remote service. Tracks request counts and the peak number of concurrent requests.
+ */
+public class WebPushStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final long latencyMs;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong authorized = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    public WebPushStubServer(long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.workers = Executors.newCachedThreadPool();
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String endpoint(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public long requests() { return requests.get(); }
+
+    public long authorized() { return authorized.get(); }
+
+    public int peakInFlight() { return peakInFlight.get(); }
+
+    private void handle(HttpExchange ex) throws IOException {
+        int now = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(now, Math::max);
+        try (ex; InputStream body = ex.getRequestBody()) {
+            body.readAllBytes();
+            requests.incrementAndGet();
+            if (ex.getRequestHeaders().getFirst("Authorization") != null) authorized.incrementAndGet();
+            if (latencyMs > 0) Thread.sleep(latencyMs);
+            String path = ex.getRequestURI().getPath();
+            int status = path.contains("/gone") ? 410 : path.contains("/nf") ? 404 : 201;
+            ex.sendResponseHeaders(status, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+}
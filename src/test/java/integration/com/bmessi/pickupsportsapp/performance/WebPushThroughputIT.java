@@ -0,0 +1,70 @@
+package integration.com.bmessi.pickupsportsapp.performance;
+
+import com.bmessi.pickupsportsapp.config.properties.VapidProperties;
+import com.bmessi.pickupsportsapp.service.push.AsyncHttpWebPushClient;
+import com.bmessi.pickupsportsapp.service.push.VapidTokenCache;
+import com.bmessi.pickupsportsapp.service.push.WebPushClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of AsyncHttpWebPushClient against a local stub push service.
+ *
+ * Run with e.g. -Dpush.load.enabled=true -Dpush.load.sends=20000 -Dpush.load.latency-ms=50
+ * -Dpush.load.per-origin=64. Reports sends/second and checks the per-origin in-flight cap holds.
+ */
+@Tag("load")
+@EnabledIfSystemProperty(named = "push.load.enabled", matches = "true")
+@Slf4j
+class WebPushThroughputIT {
+
+    private static final int SENDS = Integer.getInteger("push.load.sends", 5_000);
+    private static final long LATENCY_MS = Long.getLong("push.load.latency-ms", 20L);
+    private static final int PER_ORIGIN = Integer.getInteger("push.load.per-origin", 32);
+
+    @Test
+    void asyncClientSaturatesOriginWithinLimit() throws Exception {
+        var kpg = KeyPairGenerator.getInstance("EC");
+        kpg.initialize(256);
+        VapidProperties vapid = new VapidProperties();
+        vapid.setPublicKey("BPUB");
+        vapid.setPrivateKey(Base64.getUrlEncoder().withoutPadding().encodeToString(kpg.generateKeyPair().getPrivate().getEncoded()));
+
+        WebPushClient client = new AsyncHttpWebPushClient(
+                new VapidTokenCache(vapid, Clock.systemUTC(), 3600, 300),
+                new SimpleMeterRegistry(), PER_ORIGIN, 2_000, 30_000, SENDS, 120_000);
+
+        try (WebPushStubServer stub = new WebPushStubServer(LATENCY_MS)) {
+            long started = System.nanoTime();
+            List<CompletableFuture<WebPushClient.Result>> futures = new ArrayList<>(SENDS);
+            for (int i = 0; i < SENDS; i++) {
+                String path = i % 100 == 0 ? "/push/gone/" + i : "/push/" + i;
+                futures.add(client.sendAsync(stub.endpoint(path), "{\"title\":\"t\"}", null, null, "t"));
+            }
+            long ok = futures.stream().map(CompletableFuture::join)
+                    .filter(r -> r.code() == WebPushClient.Result.Code.OK).count();
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            log.info("WebPush throughput: sends={} ok={} in {}s -> {}/s, peak in-flight={} (limit {}), authorized={}",
+                    SENDS, ok, String.format("%.2f", seconds), String.format("%.0f", SENDS / seconds),
+                    stub.peakInFlight(), PER_ORIGIN, stub.authorized());
+
+            assertThat(stub.requests()).isEqualTo(SENDS);
+            assertThat(ok).isEqualTo(SENDS - (SENDS + 99) / 100);
+            assertThat(stub.peakInFlight()).isLessThanOrEqualTo(PER_ORIGIN);
+            assertThat(stub.authorized()).isEqualTo(SENDS);
+        }
+    }
+}
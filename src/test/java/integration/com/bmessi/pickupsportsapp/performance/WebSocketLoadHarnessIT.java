@@ -0,0 +1,334 @@
+package integration.com.bmessi.pickupsportsapp.performance;
+
+import com.bmessi.pickupsportsapp.PickupSportsAppApplication;
+import com.bmessi.pickupsportsapp.dto.PresenceDeltaDTO;
+import com.bmessi.pickupsportsapp.dto.TypingEventDTO;
+import com.bmessi.pickupsportsapp.dto.chat.ChatMessageDTO;
+import com.bmessi.pickupsportsapp.security.JwtTokenService;
+import com.bmessi.pickupsportsapp.service.chat.ChatPresenceService;
+import com.bmessi.pickupsportsapp.service.gameaccess.GameAccessService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * WebSocket load harness: boots the app on a random port (H2 + in-memory Redis stand-in), opens N STOMP
+ * sessions spread over a few game rooms, and drives chat, typing and presence at configurable rates.
+ *
+ * Reports connect time and end-to-end chat fan-out latency percentiles (HdrHistogram), typing/presence
+ * delivery counts and the peak depth of the broker's inbound/outbound executor queues.
+ *
+ * Presence is driven through the HTTP heartbeat, the path that feeds {@code /topic/games/{id}/presence/delta},
+ * and sessions count the deltas they receive there. Deltas are only pushed on joins and leaves, so a
+ * steady run sees one join per session plus a leave for every session whose beats stop landing.
+ *
+ * Disabled by default; run with e.g.
+ *   mvn verify -Dit.test=WebSocketLoadHarnessIT -Dws.load.enabled=true -Dws.load.sessions=500
+ *
+ * Tunables (system properties): ws.load.sessions, ws.load.rooms, ws.load.duration-seconds,
+ * ws.load.chat-per-second, ws.load.typing-per-second, ws.load.presence-per-second (per session),
+ * ws.load.sockjs (true to go through SockJS instead of raw WebSocket),
+ * ws.load.max-p99-ms (fail the run when fan-out p99 exceeds it; 0 disables).
+ */
+@SpringBootTest(
+        classes = PickupSportsAppApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.flyway.enabled=false",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.websocket.enabled=true",
+                "chat.redis.enabled=false",
+                // the harness measures the transport, not the abuse limits
+                "chat.ratelimit.enabled=false",
+                "security.rate-limit.enabled=false",
+                "chat.ratelimit.userBurst=1000000",
+                "chat.subscription.max=1000",
+                "resilience4j.ratelimiter.instances.chat.limit-for-period=1000000"
+        })
+@AutoConfigureTestDatabase
+@Import(InMemoryRedisStandIn.class)
+@Tag("load")
+@EnabledIfSystemProperty(named = "ws.load.enabled", matches = "true")
+@Slf4j
+class WebSocketLoadHarnessIT {
+
+    private static final int SESSIONS = Integer.getInteger("ws.load.sessions", 100);
+    private static final int ROOMS = Integer.getInteger("ws.load.rooms", 5);
+    private static final int DURATION_SECONDS = Integer.getInteger("ws.load.duration-seconds", 30);
+    private static final double CHAT_RATE = Double.parseDouble(System.getProperty("ws.load.chat-per-second", "0.5"));
+    private static final double TYPING_RATE = Double.parseDouble(System.getProperty("ws.load.typing-per-second", "2"));
+    private static final double PRESENCE_RATE = Double.parseDouble(System.getProperty("ws.load.presence-per-second", "0.1"));
+    private static final boolean SOCKJS = Boolean.getBoolean("ws.load.sockjs");
+    private static final long MAX_P99_MS = Long.getLong("ws.load.max-p99-ms", 0L);
+
+    /** Chat content prefix carrying the sender's System.nanoTime(); client and server share the JVM clock. */
+    private static final String STAMP = "lt:";
+
+    @LocalServerPort int port;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired JwtTokenService tokens;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired @Qualifier("clientInboundChannelExecutor") ThreadPoolTaskExecutor inboundExecutor;
+    @Autowired @Qualifier("clientOutboundChannelExecutor") ThreadPoolTaskExecutor outboundExecutor;
+
+    @MockBean GameAccessService gameAccessService;
+
+    private final Recorder connectMicros = new Recorder(3);
+    private final Recorder fanOutMicros = new Recorder(3);
+    private final AtomicLong chatSent = new AtomicLong();
+    private final AtomicLong chatReceived = new AtomicLong();
+    private final AtomicLong typingReceived = new AtomicLong();
+    private final AtomicLong presenceReceived = new AtomicLong();
+    private final AtomicLong presenceBeatsFailed = new AtomicLong();
+    private final AtomicInteger maxInboundQueue = new AtomicInteger();
+    private final AtomicInteger maxOutboundQueue = new AtomicInteger();
+
+    private final List<Long> gameIds = new ArrayList<>();
+    private final List<StompSession> sessions = new CopyOnWriteArrayList<>();
+    private ThreadPoolTaskScheduler clientScheduler;
+    private ScheduledExecutorService drivers;
+    private HttpClient http;
+
+    @BeforeEach
+    void setUp() {
+        when(gameAccessService.canAccessGame(any(), anyString())).thenReturn(true);
+
+        jdbc.update("INSERT INTO app_user (username, password) VALUES (?, ?)", "load-owner@example.com", "pw");
+        Long ownerId = jdbc.queryForObject("SELECT id FROM app_user WHERE username = ?", Long.class, "load-owner@example.com");
+        OffsetDateTime t = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1);
+        for (int r = 0; r < ROOMS; r++) {
+            jdbc.update("""
+                    INSERT INTO game (sport, location, time, user_id, capacity, waitlist_enabled)
+                    VALUES (?, ?, ?, ?, ?, ?)
+                    """, "Soccer", "Load Park " + r, java.sql.Timestamp.from(t.toInstant()), ownerId, SESSIONS, false);
+            gameIds.add(jdbc.queryForObject("SELECT id FROM game ORDER BY id DESC LIMIT 1", Long.class));
+        }
+
+        clientScheduler = new ThreadPoolTaskScheduler();
+        clientScheduler.setPoolSize(4);
+        clientScheduler.setThreadNamePrefix("load-hb-");
+        clientScheduler.initialize();
+        drivers = Executors.newScheduledThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessions.forEach(s -> {
+            try { s.disconnect(); } catch (Exception ignore) { }
+        });
+        if (drivers != null) drivers.shutdownNow();
+        if (clientScheduler != null) clientScheduler.shutdown();
+    }
+
+    @Test
+    void driveChatTypingAndPresence() throws Exception {
+        WebSocketStompClient stomp = stompClient();
+
+        // 1) connect + subscribe
+        List<CompletableFuture<StompSession>> connecting = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            String user = "load-user-" + i;
+            long gameId = gameIds.get(i % gameIds.size());
+            connecting.add(connect(stomp, user, gameId));
+        }
+        CompletableFuture.allOf(connecting.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+        log.info("Connected {} sessions ({} rooms, transport={})", sessions.size(), ROOMS, SOCKJS ? "sockjs" : "websocket");
+
+        // 2) sample broker queue depth while driving load
+        drivers.scheduleAtFixedRate(this::sampleQueues, 0, 100, TimeUnit.MILLISECONDS);
+        Histogram connect = connectMicros.getIntervalHistogram();
+        fanOutMicros.reset();
+
+        for (int i = 0; i < sessions.size(); i++) {
+            StompSession s = sessions.get(i);
+            long gameId = gameIds.get(i % gameIds.size());
+            String user = "load-user-" + i;
+            schedule(CHAT_RATE, () -> sendChat(s, gameId, user));
+            schedule(TYPING_RATE, () -> sendTyping(s, gameId, user));
+            String bearer = "Bearer " + tokens.generate(user);
+            schedule(PRESENCE_RATE, () -> sendPresenceBeat(gameId, bearer));
+        }
+        Thread.sleep(Duration.ofSeconds(DURATION_SECONDS).toMillis());
+        drivers.shutdownNow();
+        Thread.sleep(1_000); // let in-flight frames land
+
+        // 3) report
+        Histogram fanOut = fanOutMicros.getIntervalHistogram();
+        log.info("""
+                        WebSocket load report
+                          sessions={} rooms={} duration={}s
+                          connect ms: p50={} p95={} p99={} max={}
+                          chat: sent={} delivered={} fan-out ms: p50={} p95={} p99={} max={}
+                          typing delivered={} presence deltas delivered={} presence beats failed={}
+                          broker queue peak: inbound={} outbound={} ws.outbound.queued={}""",
+                sessions.size(), ROOMS, DURATION_SECONDS,
+                ms(connect, 50), ms(connect, 95), ms(connect, 99), connect.getMaxValue() / 1000.0,
+                chatSent.get(), chatReceived.get(), ms(fanOut, 50), ms(fanOut, 95), ms(fanOut, 99), fanOut.getMaxValue() / 1000.0,
+                typingReceived.get(), presenceReceived.get(), presenceBeatsFailed.get(),
+                maxInboundQueue.get(), maxOutboundQueue.get(), outboundQueuedGauge());
+
+        assertThat(sessions).hasSize(SESSIONS);
+        assertThat(chatReceived.get()).isPositive();
+        if (MAX_P99_MS > 0) {
+            assertThat(fanOut.getValueAtPercentile(99) / 1000).isLessThanOrEqualTo(MAX_P99_MS);
+        }
+    }
+
+    private WebSocketStompClient stompClient() {
+        WebSocketClient ws = new StandardWebSocketClient();
+        WebSocketStompClient client = SOCKJS
+                ? new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(ws))))
+                : new WebSocketStompClient(ws);
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        client.setTaskScheduler(clientScheduler);
+        client.setDefaultHeartbeat(new long[]{10_000, 10_000});
+        return client;
+    }
+
+    private CompletableFuture<StompSession> connect(WebSocketStompClient client, String user, long gameId) {
+        String url = SOCKJS ? "http://localhost:" + port + "/ws" : "ws://localhost:" + port + "/ws/websocket";
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + tokens.generate(user));
+
+        long started = System.nanoTime();
+        return client.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() { })
+                .thenApply(session -> {
+                    connectMicros.recordValue((System.nanoTime() - started) / 1_000);
+                    session.subscribe("/topic/games/" + gameId + "/chat", handler(ChatMessageDTO.class, this::onChat));
+                    session.subscribe("/topic/games/" + gameId + "/typing", handler(Map.class, m -> typingReceived.incrementAndGet()));
+                    session.subscribe(ChatPresenceService.deltaTopic(gameId), handler(PresenceDeltaDTO.class, d -> presenceReceived.incrementAndGet()));
+                    sessions.add(session);
+                    return session;
+                });
+    }
+
+    private void sendChat(StompSession s, long gameId, String user) {
+        ChatMessageDTO msg = new ChatMessageDTO();
+        msg.setSender(user);
+        msg.setContent(STAMP + System.nanoTime());
+        s.send("/app/games/" + gameId + "/chat", msg);
+        chatSent.incrementAndGet();
+    }
+
+    private void sendTyping(StompSession s, long gameId, String user) {
+        TypingEventDTO ev = new TypingEventDTO();
+        ev.setSender(user);
+        ev.setTyping(true);
+        s.send("/app/games/" + gameId + "/typing", ev);
+    }
+
+    private void sendPresenceBeat(long gameId, String bearer) {
+        HttpRequest beat = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/games/" + gameId + "/presence/heartbeat"))
+                .header("Authorization", bearer)
+                .timeout(Duration.ofSeconds(5))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        http.sendAsync(beat, HttpResponse.BodyHandlers.discarding()).whenComplete((res, err) -> {
+            if (err != null || res.statusCode() != 200) presenceBeatsFailed.incrementAndGet();
+        });
+    }
+
+    private void onChat(ChatMessageDTO msg) {
+        chatReceived.incrementAndGet();
+        String c = msg.getContent();
+        if (c != null && c.startsWith(STAMP)) {
+            try {
+                long sentAt = Long.parseLong(c.substring(STAMP.length()));
+                fanOutMicros.recordValue(Math.max(0, (System.nanoTime() - sentAt) / 1_000));
+            } catch (NumberFormatException ignore) {
+                // not one of ours
+            }
+        }
+    }
+
+    /** Fixed-rate driver with a random phase so sessions do not fire in lockstep. */
+    private void schedule(double perSecond, Runnable action) {
+        if (perSecond <= 0) return;
+        long periodMicros = (long) (1_000_000 / perSecond);
+        long phase = ThreadLocalRandom.current().nextLong(periodMicros);
+        drivers.scheduleAtFixedRate(() -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.debug("load driver send failed: {}", e.getMessage());
+            }
+        }, phase, periodMicros, TimeUnit.MICROSECONDS);
+    }
+
+    private void sampleQueues() {
+        maxInboundQueue.accumulateAndGet(inboundExecutor.getThreadPoolExecutor().getQueue().size(), Math::max);
+        maxOutboundQueue.accumulateAndGet(outboundExecutor.getThreadPoolExecutor().getQueue().size(), Math::max);
+    }
+
+    private double outboundQueuedGauge() {
+        var gauge = meterRegistry.find("ws.outbound.queued").gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+
+    private static double ms(Histogram h, double percentile) {
+        return h.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static <T> StompFrameHandler handler(Class<T> type, java.util.function.Consumer<T> onFrame) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return type;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                onFrame.accept((T) payload);
+            }
+        };
+    }
+}
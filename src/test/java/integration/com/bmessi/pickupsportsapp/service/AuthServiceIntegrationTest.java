@@ -5,6 +5,8 @@ import com.bmessi.pickupsportsapp.entity.auth.RefreshToken;
 import com.bmessi.pickupsportsapp.entity.User;
 import com.bmessi.pickupsportsapp.repository.RefreshTokenRepository;
 import com.bmessi.pickupsportsapp.repository.UserRepository;
+import com.bmessi.pickupsportsapp.security.JwtTokenService;
+import com.bmessi.pickupsportsapp.security.TokenRevocationService;
 import com.bmessi.pickupsportsapp.service.auth.AuthService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +44,12 @@ class AuthServiceIntegrationTest {
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocations;
+
     @Test
     void issueTokens_persistsRefreshToken() {
         User user = userRepository.save(User.builder().username("alice@example.com").password("pw").build());
@@ -76,6 +84,18 @@ class AuthServiceIntegrationTest {
         assertNotNull(stored.getRevokedAt());
     }
 
+    @Test
+    void logout_revokesPresentedAccessToken() {
+        User user = userRepository.save(User.builder().username("dave@example.com").password("pw").build());
+        TokenPairResponse pair = authService.issueTokensForAuthenticatedUser(user.getUsername());
+        String jti = jwtTokenService.parse(pair.accessToken()).getPayload().getId();
+
+        authService.logout(pair.refreshToken(), pair.accessToken());
+
+        assertTrue(tokenRevocations.isRevoked(jti));
+        assertNotNull(refreshTokenRepository.findByTokenHash(hash(pair.refreshToken())).orElseThrow().getRevokedAt());
+    }
+
     private static String hash(String value) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
@@ -0,0 +1,208 @@
+package integration.com.bmessi.pickupsportsapp.service.push;
+
+import com.bmessi.pickupsportsapp.config.properties.PushDeliveryProperties;
+import com.bmessi.pickupsportsapp.config.properties.VapidProperties;
+import com.bmessi.pickupsportsapp.entity.PushOutbox;
+import com.bmessi.pickupsportsapp.entity.PushSubscription;
+import com.bmessi.pickupsportsapp.entity.User;
+import com.bmessi.pickupsportsapp.repository.PushOutboxRepository;
+import com.bmessi.pickupsportsapp.repository.PushSubscriptionRepository;
+import com.bmessi.pickupsportsapp.repository.UserRepository;
+import com.bmessi.pickupsportsapp.service.push.PushOutboxDispatcher;
+import com.bmessi.pickupsportsapp.service.push.WebPushClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import support.MutableClock;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The application's own dispatch loop would race the test's dispatchers for the rows
+@SpringBootTest(properties = "push.delivery.auto-start=false")
+@ActiveProfiles("test")
+class PushOutboxDispatcherIntegrationTest {
+
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private PlatformTransactionManager txManager;
+    @Autowired @Qualifier("pushSendExecutor") private ThreadPoolTaskExecutor sendExecutor;
+    @Autowired private UserRepository users;
+    @Autowired private PushOutboxRepository outbox;
+    @Autowired private PushSubscriptionRepository subs;
+
+    private final MutableClock clock = new MutableClock(Instant.now());
+    private final PushDeliveryProperties props = new PushDeliveryProperties();
+    private final Map<String, WebPushClient.Result> results = new ConcurrentHashMap<>();
+    private final AtomicInteger sends = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        outbox.deleteAll();
+        subs.deleteAll();
+        props.setLeaseMs(60_000);
+        props.setMaxRetries(3);
+    }
+
+    @Test
+    void claimedRowsAreLeasedSoAnotherNodeSkipsThem() {
+        User ann = user();
+        subscribe(ann, "https://push.example/ann");
+        long id = enqueue(ann);
+        int[] otherNode = {-1};
+        PushOutboxDispatcher other = dispatcher((endpoint, payload, pub, priv, subject) -> WebPushClient.Result.ok());
+        PushOutboxDispatcher node = dispatcher((endpoint, payload, pub, priv, subject) -> {
+            // The claim has committed and the send runs with no transaction open
+            otherNode[0] = other.drain();
+            return WebPushClient.Result.ok();
+        });
+
+        assertEquals(1, node.drain());
+
+        assertEquals(0, otherNode[0]);
+        assertEquals("SENT", status(id));
+    }
+
+    @Test
+    void nodeWhoseLeaseLapsedMidSendDoesNotOverwriteTheReclaimingNode() {
+        User ann = user();
+        subscribe(ann, "https://push.example/ann");
+        long id = enqueue(ann);
+        PushOutboxDispatcher other = dispatcher((endpoint, payload, pub, priv, subject) ->
+                WebPushClient.Result.transientError("503"));
+        PushOutboxDispatcher slow = dispatcher((endpoint, payload, pub, priv, subject) -> {
+            // The send outlives the lease: another node reclaims the row and records a retry
+            clock.advance(Duration.ofMillis(props.getLeaseMs() + 1));
+            assertEquals(1, other.drain());
+            return WebPushClient.Result.ok();
+        });
+
+        assertEquals(1, slow.drain());
+
+        assertEquals("PENDING", status(id));
+        assertEquals(1, jdbc.queryForObject("SELECT retry_count FROM push_outbox WHERE id = ?", Integer.class, id));
+    }
+
+    @Test
+    void leaseOfACrashedNodeLapsesAndTheRowIsClaimedAgain() {
+        User ann = user();
+        subscribe(ann, "https://push.example/ann");
+        long id = enqueue(ann);
+        // What a node that died after claiming leaves behind
+        jdbc.update("UPDATE push_outbox SET next_attempt_at = ? WHERE id = ?",
+                Timestamp.from(clock.instant().plusMillis(props.getLeaseMs())), id);
+        PushOutboxDispatcher node = dispatcher(recordingClient());
+
+        assertEquals(0, node.drain());
+        assertEquals(0, sends.get());
+
+        clock.advance(Duration.ofMillis(props.getLeaseMs() + 1));
+        assertEquals(1, node.drain());
+        assertEquals(1, sends.get());
+        assertEquals("SENT", status(id));
+    }
+
+    @Test
+    void outcomesAreCommittedPerKind() {
+        User ann = user();
+        User bob = user();
+        User cy = user();
+        subscribe(ann, "https://push.example/ann");
+        subscribe(bob, "https://push.example/bob");
+        subscribe(cy, "https://push.example/cy");
+        results.put("https://push.example/bob", WebPushClient.Result.gone("410"));
+        results.put("https://push.example/cy", WebPushClient.Result.transientError("503"));
+        long sent = enqueue(ann);
+        long dead = enqueue(bob);
+        long retry = enqueue(cy);
+
+        assertEquals(3, dispatcher(recordingClient()).drain());
+
+        assertEquals("SENT", status(sent));
+        assertEquals("FAILED", status(dead));
+        assertEquals("unsubscribed", jdbc.queryForObject("SELECT dead_reason FROM push_outbox WHERE id = ?", String.class, dead));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM push_subscription WHERE endpoint = ?",
+                Integer.class, "https://push.example/bob"));
+        assertEquals("PENDING", status(retry));
+        assertEquals(1, jdbc.queryForObject("SELECT retry_count FROM push_outbox WHERE id = ?", Integer.class, retry));
+        assertTrue(jdbc.queryForObject("SELECT next_attempt_at FROM push_outbox WHERE id = ?", Timestamp.class, retry)
+                .toInstant().isAfter(clock.instant()));
+    }
+
+    @Test
+    void laterRowsOfAUserWhoseLastEndpointWentAwayAreDeadToo() {
+        User bob = user();
+        subscribe(bob, "https://push.example/bob");
+        results.put("https://push.example/bob", WebPushClient.Result.gone("410"));
+        long first = enqueue(bob);
+        long second = enqueue(bob);
+
+        assertEquals(2, dispatcher(recordingClient()).drain());
+
+        assertEquals(1, sends.get());
+        for (long id : new long[]{first, second}) {
+            assertEquals("FAILED", status(id));
+            assertEquals("unsubscribed", jdbc.queryForObject("SELECT dead_reason FROM push_outbox WHERE id = ?", String.class, id));
+        }
+    }
+
+    @Test
+    void rowDiesAfterMaxRetries() {
+        User cy = user();
+        subscribe(cy, "https://push.example/cy");
+        results.put("https://push.example/cy", WebPushClient.Result.transientError("503"));
+        long id = enqueue(cy);
+        PushOutboxDispatcher node = dispatcher(recordingClient());
+
+        for (int i = 0; i < props.getMaxRetries(); i++) {
+            assertEquals(1, node.drain());
+            clock.advance(Duration.ofMillis(props.getMaxBackoffMs() * 2));
+        }
+
+        assertEquals("FAILED", status(id));
+        assertEquals("max_retries", jdbc.queryForObject("SELECT dead_reason FROM push_outbox WHERE id = ?", String.class, id));
+        assertEquals(0, node.drain());
+    }
+
+    private PushOutboxDispatcher dispatcher(WebPushClient client) {
+        return new PushOutboxDispatcher(jdbc, txManager, client, new VapidProperties(), props, sendExecutor,
+                new SimpleMeterRegistry(), clock);
+    }
+
+    private WebPushClient recordingClient() {
+        return (endpoint, payload, pub, priv, subject) -> {
+            sends.incrementAndGet();
+            return results.getOrDefault(endpoint, WebPushClient.Result.ok());
+        };
+    }
+
+    private User user() {
+        return users.save(User.builder().username(UUID.randomUUID() + "@example.com").password("x").build());
+    }
+
+    private void subscribe(User user, String endpoint) {
+        subs.save(PushSubscription.builder().user(user).endpoint(endpoint).build());
+    }
+
+    private long enqueue(User user) {
+        return outbox.save(PushOutbox.builder().user(user).title("t").body("b").status(PushOutbox.Status.PENDING)
+                .createdAt(clock.instant()).build()).getId();
+    }
+
+    private String status(long id) {
+        return jdbc.queryForObject("SELECT status FROM push_outbox WHERE id = ?", String.class, id);
+    }
+}
@@ -0,0 +1,91 @@
+package support;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server for tests (GreenMail-style, no dependency): accepts any
+ * sender/recipient, records each DATA payload and counts connections.
+ */
+public class SmtpStubServer implements AutoCloseable {
+
+    private final ServerSocket socket;
+    private final ExecutorService workers = Executors.newCachedThreadPool();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    public SmtpStubServer() throws IOException {
+        socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        workers.submit(this::acceptLoop);
+    }
+
+    public int port() { return socket.getLocalPort(); }
+
+    public int connections() { return connections.get(); }
+
+    public List<String> messages() { return messages; }
+
+    private void acceptLoop() {
+        while (!socket.isClosed()) {
+            try {
+                Socket s = socket.accept();
+                connections.incrementAndGet();
+                workers.submit(() -> session(s));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket s) {
+        try (s; var in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = s.getOutputStream()) {
+            reply(out, "220 stub ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String cmd = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (cmd) {
+                    case "EHLO", "HELO" -> reply(out, "250 stub");
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder body = new StringBuilder();
+                        String l;
+                        while ((l = in.readLine()) != null && !l.equals(".")) body.append(l).append('\n');
+                        messages.add(body.toString());
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException ignore) {
+            // client went away
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        workers.shutdownNow();
+    }
+}
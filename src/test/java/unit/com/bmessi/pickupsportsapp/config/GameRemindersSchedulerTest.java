@@ -0,0 +1,151 @@
+package unit.com.bmessi.pickupsportsapp.config;
+
+import com.bmessi.pickupsportsapp.config.GameRemindersScheduler;
+import com.bmessi.pickupsportsapp.service.notification.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import support.MutableClock;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GameRemindersSchedulerTest {
+
+    private static final Instant T0 = Instant.parse("2026-03-01T10:00:00Z");
+
+    private final NotificationService notifications = mock(NotificationService.class);
+    private final MutableClock clock = new MutableClock(T0);
+    private JdbcTemplate jdbc;
+    private GameRemindersScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE TABLE app_user (id BIGINT PRIMARY KEY, username VARCHAR(100))");
+        jdbc.execute("CREATE TABLE game (id BIGINT PRIMARY KEY, user_id BIGINT, time TIMESTAMP, sport VARCHAR(50), location VARCHAR(100))");
+        jdbc.execute("CREATE TABLE game_participants (game_id BIGINT, user_id BIGINT)");
+        jdbc.execute("CREATE TABLE game_reminder_sent (game_id BIGINT, user_id BIGINT, kind VARCHAR(8), sent_at TIMESTAMP, "
+                + "PRIMARY KEY (game_id, user_id, kind))");
+        jdbc.execute("CREATE TABLE game_reminder_watermark (kind VARCHAR(8) PRIMARY KEY, processed_until TIMESTAMP)");
+        jdbc.update("INSERT INTO app_user (id, username) VALUES (1, 'ann'), (2, 'bob'), (3, 'cy')");
+        scheduler = new GameRemindersScheduler(jdbc, new DataSourceTransactionManager(ds), notifications, clock, 5, 7);
+        when(notifications.createGameNotifications(anyCollection(), any(), any(), any(), any()))
+                .thenAnswer(inv -> List.copyOf(inv.<Collection<String>>getArgument(0)));
+    }
+
+    @Test
+    void consecutiveRunsRemindEveryGameExactlyOnce() {
+        game(10, 1, T0.plus(Duration.ofHours(24)), "soccer");                      // due on the first run's upper bound
+        game(11, 1, T0.plus(Duration.ofHours(24)).plus(Duration.ofMinutes(3)), "tennis");
+        game(12, 3, T0.plus(Duration.ofHours(24)).plus(Duration.ofMinutes(5)), "golf"); // second run's upper bound
+        participant(11, 2);
+
+        scheduler.run();
+        verify(notifications).createGameNotifications(eq(List.of("ann")), eq("system"), eq("soccer"), any(), eq("reminder"));
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.run();
+        verify(notifications).createGameNotifications(argThat(sameUsers("ann", "bob")), eq("system"), eq("tennis"), any(), eq("reminder"));
+        verify(notifications).createGameNotifications(eq(List.of("cy")), eq("system"), eq("golf"), any(), eq("reminder"));
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.run();
+        scheduler.run();
+        verify(notifications, times(3)).createGameNotifications(anyCollection(), any(), any(), any(), any());
+        assertEquals(4, jdbc.queryForObject("SELECT COUNT(*) FROM game_reminder_sent WHERE kind = '24h'", Integer.class));
+    }
+
+    @Test
+    void failedPublishKeepsTheWindowOpenUntilItGoesOut() {
+        scheduler.run();
+        game(11, 1, T0.plus(Duration.ofHours(24)).plus(Duration.ofMinutes(3)), "tennis");
+        when(notifications.createGameNotifications(anyCollection(), any(), any(), any(), any()))
+                .thenReturn(List.of())
+                .thenAnswer(inv -> List.copyOf(inv.<Collection<String>>getArgument(0)));
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.run();
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM game_reminder_sent", Integer.class));
+        assertEquals(T0, watermark("24h"));
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.run();
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM game_reminder_sent", Integer.class));
+        assertEquals(clock.instant(), watermark("24h"));
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.run();
+        verify(notifications, times(2)).createGameNotifications(anyCollection(), any(), any(), any(), any());
+    }
+
+    @Test
+    void recipientsOfAFailedChunkAreRetriedAloneAfterTheRestWereRecorded() {
+        scheduler.run();
+        game(11, 1, T0.plus(Duration.ofHours(24)).plus(Duration.ofMinutes(3)), "tennis");
+        participant(11, 2);
+        participant(11, 3);
+        // ann's chunk reached the broker, the chunk holding bob and cy did not
+        when(notifications.createGameNotifications(anyCollection(), any(), any(), any(), any()))
+                .thenReturn(List.of("ann"))
+                .thenAnswer(inv -> List.copyOf(inv.<Collection<String>>getArgument(0)));
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.run();
+        assertEquals(List.of(1L), jdbc.queryForList("SELECT user_id FROM game_reminder_sent", Long.class));
+        assertEquals(T0, watermark("24h"));
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.run();
+        verify(notifications).createGameNotifications(argThat(sameUsers("bob", "cy")), eq("system"), eq("tennis"), any(), eq("reminder"));
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM game_reminder_sent", Integer.class));
+        assertEquals(clock.instant(), watermark("24h"));
+    }
+
+    @Test
+    void rerunOverAnAlreadySentWindowSendsNothing() {
+        game(11, 1, T0.plus(Duration.ofHours(24)).plus(Duration.ofMinutes(3)), "tennis");
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.run();
+        verify(notifications, times(1)).createGameNotifications(anyCollection(), any(), any(), any(), any());
+
+        // Watermark lost (restore, manual replay): the window is processed again
+        jdbc.update("DELETE FROM game_reminder_watermark");
+        clock.advance(Duration.ofMinutes(1));
+        scheduler.run();
+
+        verify(notifications, times(1)).createGameNotifications(anyCollection(), any(), any(), any(), any());
+        assertEquals(clock.instant(), watermark("24h"));
+    }
+
+    private void game(long id, long ownerId, Instant time, String sport) {
+        jdbc.update("INSERT INTO game (id, user_id, time, sport, location) VALUES (?, ?, ?, ?, 'park')",
+                id, ownerId, Timestamp.from(time), sport);
+    }
+
+    private void participant(long gameId, long userId) {
+        jdbc.update("INSERT INTO game_participants (game_id, user_id) VALUES (?, ?)", gameId, userId);
+    }
+
+    private Instant watermark(String kind) {
+        return jdbc.queryForObject("SELECT processed_until FROM game_reminder_watermark WHERE kind = ?",
+                Timestamp.class, kind).toInstant();
+    }
+
+    private static ArgumentMatcher<Collection<String>> sameUsers(String... users) {
+        return c -> c != null && c.size() == users.length && c.containsAll(List.of(users));
+    }
+}
@@ -7,6 +7,7 @@ import com.bmessi.pickupsportsapp.entity.User;
 import com.bmessi.pickupsportsapp.repository.PushOutboxRepository;
 import com.bmessi.pickupsportsapp.repository.PushSubscriptionRepository;
 import com.bmessi.pickupsportsapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
@@ -26,6 +27,7 @@ class PushDeliverySchedulerTest {
     @Autowired PushOutboxRepository outbox;
     @Autowired PushSubscriptionRepository subs;
     @Autowired UserRepository users;
+    @Autowired EntityManager em;
 
     @Test
     @Transactional
@@ -36,6 +38,7 @@ class PushDeliverySchedulerTest {
                 .user(u).title("t").body("b").status(PushOutbox.Status.PENDING).build());
 
         scheduler.flush();
+        em.clear(); // the dispatcher writes outcomes with JDBC batch updates
 
         PushOutbox saved = outbox.findById(row.getId()).orElseThrow();
         assertEquals(PushOutbox.Status.SENT, saved.getStatus());
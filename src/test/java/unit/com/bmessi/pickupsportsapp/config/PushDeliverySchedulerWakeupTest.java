@@ -0,0 +1,48 @@
+package unit.com.bmessi.pickupsportsapp.config;
+
+import com.bmessi.pickupsportsapp.config.PushDeliveryScheduler;
+import com.bmessi.pickupsportsapp.config.properties.PushDeliveryProperties;
+import com.bmessi.pickupsportsapp.service.push.PushOutboxDispatcher;
+import com.bmessi.pickupsportsapp.service.push.PushOutboxWakeup;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PushDeliverySchedulerWakeupTest {
+
+    private final PushOutboxDispatcher dispatcher = mock(PushOutboxDispatcher.class);
+    private final PushOutboxWakeup wakeup = new PushOutboxWakeup();
+    private final AtomicInteger drains = new AtomicInteger();
+
+    @Test
+    void idleLoopDrainsAsSoonAsItIsWokenAndStopWaitsForIt() throws Exception {
+        PushDeliveryProperties props = new PushDeliveryProperties();
+        props.setMinIdlePollMs(50);
+        props.setMaxIdlePollMs(60_000);
+        when(dispatcher.drain()).thenAnswer(inv -> {
+            drains.incrementAndGet();
+            return 0;
+        });
+        PushDeliveryScheduler scheduler = new PushDeliveryScheduler(dispatcher, wakeup, props, true, null);
+
+        scheduler.start();
+        // Idle backoff: 50 + 100 + 200 + 400 ms, after which the next poll is 800 ms away
+        verify(dispatcher, timeout(2_000).times(5)).drain();
+        Thread.sleep(100);
+        int before = drains.get();
+
+        wakeup.signal();
+        verify(dispatcher, timeout(300).times(before + 1)).drain();
+
+        scheduler.stop();
+        assertFalse(scheduler.isRunning());
+        int atStop = drains.get();
+        Thread.sleep(200);
+        wakeup.signal();
+        Thread.sleep(100);
+        assertEquals(atStop, drains.get());
+    }
+}
@@ -0,0 +1,87 @@
+package unit.com.bmessi.pickupsportsapp.security;
+
+import com.bmessi.pickupsportsapp.security.JwtAuthorizationFilter;
+import com.bmessi.pickupsportsapp.security.JwtTokenService;
+import com.bmessi.pickupsportsapp.security.TokenRevocationService;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthorizationFilterTest {
+
+    private final JwtTokenService tokens = new JwtTokenService(Jwts.SIG.HS256.key().build(), "test", "test-aud", 15);
+    private final UserDetailsService users = mock(UserDetailsService.class);
+    private final TokenRevocationService revocations = new TokenRevocationService(mock(JdbcTemplate.class),
+            Optional.empty(), Optional.empty(), new SimpleMeterRegistry(), Clock.systemUTC(),
+            false, 1_000, 0.001, 0, 15);
+    private final JwtAuthorizationFilter filter = new JwtAuthorizationFilter(users, tokens, revocations, "Authorization", "Bearer ");
+
+    @AfterEach
+    void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tokenWithClaims_isAuthorizedWithoutLoadingTheUser() throws Exception {
+        Authentication auth = authenticate(tokens.generate("ann", List.of("ADMIN", "USER"), 3));
+
+        assertNotNull(auth);
+        assertEquals("ann", auth.getName());
+        assertEquals(Set.of("ROLE_ADMIN", "ROLE_USER"),
+                auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+        verifyNoInteractions(users);
+    }
+
+    @Test
+    void revokedJti_isRejected() throws Exception {
+        String token = tokens.generate("ann", List.of("USER"), 0);
+        revocations.revoke(tokens.parse(token).getPayload().getId(), Instant.now().plusSeconds(900), "logout");
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void tokenBelowUserVersion_isRejected() throws Exception {
+        String old = tokens.generate("ann", List.of("USER"), 0);
+        revocations.revokeUserTokensBefore("ann", 1);
+
+        assertNull(authenticate(old));
+        assertNotNull(authenticate(tokens.generate("ann", List.of("USER"), 1)));
+    }
+
+    @Test
+    void legacyTokenWithoutClaims_fallsBackToUserLookup() throws Exception {
+        when(users.loadUserByUsername("ann")).thenReturn(User.withUsername("ann").password("x").roles("USER").build());
+
+        assertNotNull(authenticate(tokens.generate("ann")));
+        verify(users).loadUserByUsername("ann");
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/notifications");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,143 @@
+package unit.com.bmessi.pickupsportsapp.security;
+
+import com.bmessi.pickupsportsapp.config.properties.LoginPolicyProperties;
+import com.bmessi.pickupsportsapp.security.LoginAttemptService;
+import com.bmessi.pickupsportsapp.security.LoginAttemptService.Verdict;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import support.MutableClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoginAttemptServiceTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final LoginPolicyProperties props = new LoginPolicyProperties();
+
+    @Test
+    void userLocksAfterMaxFailuresAndUnlocksAfterLockout() {
+        LoginAttemptService svc = new LoginAttemptService(props, new SimpleMeterRegistry(), Optional.empty(), clock);
+
+        for (int i = 0; i < 4; i++) svc.onFailure("Alice@Example.com", "198.51.100.7");
+        assertEquals(Verdict.ALLOWED, svc.check("alice@example.com", "198.51.100.7"));
+        svc.onFailure("alice@example.com", "198.51.100.7");
+        assertEquals(Verdict.USER_LOCKED, svc.check("ALICE@example.com", "198.51.100.8"));
+
+        clock.advance(Duration.ofMinutes(props.getLockoutMinutes()));
+        assertEquals(Verdict.ALLOWED, svc.check("alice@example.com", "198.51.100.7"));
+    }
+
+    @Test
+    void lockedUserIsOnlyChallengedFromAnUninvolvedAddress() {
+        LoginAttemptService svc = new LoginAttemptService(props, new SimpleMeterRegistry(), Optional.empty(), clock);
+
+        for (int i = 0; i < props.getMaxFailuresPerUser(); i++) svc.onFailure("carol@example.com", "198.51.100.7");
+
+        assertEquals(Verdict.USER_LOCKED, svc.check("carol@example.com", "198.51.100.7"));
+        assertEquals(Verdict.USER_CHALLENGED, svc.check("carol@example.com", "192.0.2.44"));
+        assertTrue(svc.isUserLocked("carol@example.com"));
+        assertEquals(Verdict.ALLOWED, svc.check("dave@example.com", "192.0.2.44"));
+    }
+
+    @Test
+    void botnetSpreadAcrossOneNetworkIsBlockedAsAWhole() {
+        LoginAttemptService svc = new LoginAttemptService(props, new SimpleMeterRegistry(), Optional.empty(), clock);
+
+        for (int i = 0; i <= props.getMaxFailuresPerNetwork(); i++) {
+            svc.onFailure("victim" + i + "@example.com", "203.0.113." + (i % 250));
+        }
+
+        assertEquals(Verdict.NETWORK_BLOCKED, svc.check("someone@example.com", "203.0.113.251"));
+        assertEquals(Verdict.ALLOWED, svc.check("someone@example.com", "203.0.114.1"));
+        assertTrue(svc.isIpBlocked("203.0.113.9"));
+    }
+
+    @Test
+    void networksAreDerivedOnlyFromLiteralAddresses() {
+        assertEquals("203.0.113.0/24", LoginAttemptService.networkOf("203.0.113.77"));
+        assertEquals("2001:db8:1:2::/64", LoginAttemptService.networkOf("2001:db8:1:2:aaaa::1"));
+        assertEquals("10.1.2.0/24", LoginAttemptService.networkOf("::ffff:10.1.2.3"));
+        assertNull(LoginAttemptService.networkOf("example.com"));
+        assertNull(LoginAttemptService.networkOf("300.1.1.1"));
+        assertNull(LoginAttemptService.networkOf("unknown"));
+    }
+
+    @Test
+    void credentialStuffingKeepsMemoryBounded() {
+        props.setMaxTrackedKeys(1_000);
+        LoginAttemptService svc = new LoginAttemptService(props, new SimpleMeterRegistry(), Optional.empty(), clock);
+
+        for (int i = 0; i < 50_000; i++) {
+            svc.onFailure("user" + i + "@example.com", "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff));
+        }
+
+        // users (1k) + locks (1k) + addresses and networks (2k)
+        assertTrue(svc.trackedKeys() <= 4_000, "tracked " + svc.trackedKeys());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void distributedModeAdoptsGlobalCountsFromOnePipelinedRoundTrip() {
+        props.setDistributedEnabled(true);
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        // Other nodes already saw four failures for this user
+        when(redis.executePipelined(any(RedisCallback.class))).thenReturn(List.of(5L, true, 1L, true, 1L, true));
+        LoginAttemptService svc = new LoginAttemptService(props, new SimpleMeterRegistry(), Optional.of(redis), clock);
+
+        svc.onFailure("bob@example.com", "192.0.2.10");
+
+        verify(redis, times(1)).executePipelined(any(RedisCallback.class));
+        verify(ops).set(eq("lock:user:bob@example.com"), eq("1"), any(Duration.class));
+
+        when(ops.multiGet(anyList())).thenReturn(Arrays.asList("1", "1", "1"));
+        assertEquals(Verdict.USER_LOCKED, svc.check("bob@example.com", "192.0.2.10"));
+        when(ops.multiGet(anyList())).thenReturn(Arrays.asList("1", null, null));
+        assertEquals(Verdict.USER_CHALLENGED, svc.check("bob@example.com", "198.51.100.20"));
+
+        when(ops.multiGet(anyList())).thenThrow(new IllegalStateException("redis down"));
+        assertEquals(Verdict.USER_LOCKED, svc.check("bob@example.com", "192.0.2.10"), "falls back to the local lock");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void successAfterALockClearsItInRedis() {
+        props.setDistributedEnabled(true);
+        Map<String, String> stored = new HashMap<>();
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        doAnswer(inv -> stored.put(inv.getArgument(0), inv.getArgument(1))).when(ops).set(anyString(), anyString(), any(Duration.class));
+        when(ops.multiGet(anyList())).thenAnswer(inv -> inv.<List<String>>getArgument(0).stream().map(stored::get).toList());
+        when(redis.delete(anyCollection())).thenAnswer(inv -> {
+            long n = 0;
+            for (Object k : inv.<java.util.Collection<Object>>getArgument(0)) if (stored.remove(k) != null) n++;
+            return n;
+        });
+        when(redis.executePipelined(any(RedisCallback.class))).thenReturn(List.of(5L, true, 1L, true, 1L, true));
+        LoginAttemptService svc = new LoginAttemptService(props, new SimpleMeterRegistry(), Optional.of(redis), clock);
+
+        svc.onFailure("bob@example.com", "192.0.2.10");
+        assertEquals(Verdict.USER_CHALLENGED, svc.check("bob@example.com", "198.51.100.20"));
+
+        // Passed the CAPTCHA and logged in
+        svc.onSuccess("bob@example.com", "198.51.100.20");
+
+        assertFalse(stored.containsKey("lock:user:bob@example.com"));
+        assertEquals(Verdict.ALLOWED, svc.check("bob@example.com", "198.51.100.20"));
+    }
+}
@@ -0,0 +1,88 @@
+package unit.com.bmessi.pickupsportsapp.security;
+
+import com.bmessi.pickupsportsapp.config.SecurityConfig;
+import com.bmessi.pickupsportsapp.security.IsolatedPasswordEncoder;
+import com.bmessi.pickupsportsapp.security.PasswordHashingExecutor;
+import com.bmessi.pickupsportsapp.security.PasswordHashingSaturatedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private PasswordHashingExecutor hashing;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (hashing != null) hashing.destroy();
+    }
+
+    @Test
+    void shedsImmediatelyWhenThreadsAndQueueAreFull() throws Exception {
+        hashing = new PasswordHashingExecutor(registry, 1, 1, 5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hashing.run(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }), callers);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hashing.run(() -> "second"), callers);
+        while (hashing.queueDepth() < 1) Thread.onSpinWait();
+
+        long t0 = System.nanoTime();
+        PasswordHashingSaturatedException shed =
+                assertThrows(PasswordHashingSaturatedException.class, () -> hashing.run(() -> "third"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) < 1_000);
+        assertTrue(shed.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, registry.counter("security.password.hash.rejected").count());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void legacyAndWeakHashesMatchAndAreFlaggedForRehash() {
+        hashing = new PasswordHashingExecutor(registry, 1, 4, 5_000);
+        PasswordEncoder encoder = new IsolatedPasswordEncoder(SecurityConfig.delegatingPasswordEncoder("bcrypt", 5), hashing);
+
+        String legacy = new BCryptPasswordEncoder(4).encode("s3cret-pass");
+        assertTrue(encoder.matches("s3cret-pass", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+
+        String weak = "{bcrypt}" + legacy;
+        assertTrue(encoder.matches("s3cret-pass", weak));
+        assertTrue(encoder.upgradeEncoding(weak));
+
+        String fresh = encoder.encode("s3cret-pass");
+        assertTrue(fresh.startsWith("{bcrypt}"));
+        assertTrue(encoder.matches("s3cret-pass", fresh));
+        assertFalse(encoder.matches("wrong", fresh));
+        assertFalse(encoder.upgradeEncoding(fresh));
+        assertEquals(5L, registry.timer("security.password.hash").count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package unit.com.bmessi.pickupsportsapp.security;
+
+import com.bmessi.pickupsportsapp.security.VelocityCheckService;
+import org.junit.jupiter.api.Test;
+import support.MutableClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityCheckServiceTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final VelocityCheckService svc = new VelocityCheckService(clock, 1_000);
+
+    @Test
+    void limitHoldsWithinTheWindowAndPreviousWindowDecays() {
+        for (int i = 0; i < 10; i++) assertTrue(svc.incrementAndCheck("k", 10, 60_000));
+        assertFalse(svc.incrementAndCheck("k", 10, 60_000));
+
+        clock.advance(Duration.ofSeconds(60)); // 11 events in the previous window, fully weighted
+        assertFalse(svc.incrementAndCheck("k", 10, 60_000));
+
+        clock.advance(Duration.ofSeconds(45)); // a quarter of the previous window still overlaps
+        assertTrue(svc.incrementAndCheck("k", 10, 60_000));
+
+        clock.advance(Duration.ofSeconds(120)); // nothing left in range
+        assertTrue(svc.incrementAndCheck("k", 1, 60_000));
+    }
+
+    @Test
+    void everyCallIsJudgedAgainstTheWindowItAsksFor() {
+        for (int i = 0; i < 3; i++) assertTrue(svc.incrementAndCheck("k", 3, 1_000));
+        assertFalse(svc.incrementAndCheck("k", 3, 1_000));
+
+        clock.advance(Duration.ofSeconds(5)); // the short window has long passed
+        assertTrue(svc.incrementAndCheck("k", 3, 1_000));
+        for (int i = 0; i < 3; i++) assertTrue(svc.incrementAndCheck("k", 3, 60_000));
+        assertFalse(svc.incrementAndCheck("k", 3, 60_000));
+    }
+
+    @Test
+    void concurrentIncrementsAreNeverLost() throws Exception {
+        int threads = 16;
+        int perThread = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    for (int i = 0; i < perThread; i++) svc.incrementAndCheck("hot", Integer.MAX_VALUE, 60_000);
+                    return null;
+                });
+            }
+            for (Future<Void> f : pool.invokeAll(tasks)) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int total = threads * perThread;
+        assertTrue(svc.incrementAndCheck("hot", total + 1, 60_000));
+        assertFalse(svc.incrementAndCheck("hot", total + 1, 60_000));
+    }
+
+    @Test
+    void idleKeysAreEvictedAfterTwoWindows() {
+        for (int i = 0; i < 500; i++) svc.incrementAndCheck("user-" + i, 5, 1_000);
+        assertEquals(500, svc.trackedKeys());
+
+        clock.advance(Duration.ofSeconds(3));
+        assertEquals(0, svc.trackedKeys());
+    }
+}
@@ -0,0 +1,142 @@
+package unit.com.bmessi.pickupsportsapp.security;
+
+import com.bmessi.pickupsportsapp.security.JwtTokenService;
+import com.bmessi.pickupsportsapp.security.TokenRevocationService;
+import com.bmessi.pickupsportsapp.security.WsConnectAuthCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.MessagingException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import support.MutableClock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WsConnectAuthCacheTest {
+
+    private final JwtTokenService tokens = spy(new JwtTokenService(Jwts.SIG.HS256.key().build(), "test", "test-aud", 15));
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final TokenRevocationService revocations = new TokenRevocationService(jdbc,
+            Optional.empty(), Optional.empty(), meters, Clock.systemUTC(), false, 1_000, 0.001, 0, 15);
+    private final MutableClock clock = new MutableClock(Instant.now());
+    private final WsConnectAuthCache cache = new WsConnectAuthCache(tokens, revocations, meters, clock, 1_000, 60);
+
+    private final Function<Claims, Authentication> toAuth =
+            c -> new UsernamePasswordAuthenticationToken(c.getSubject(), "N/A", List.of());
+
+    @Test
+    void secondConnectWithTheSameTokenIsServedFromTheCache() {
+        String token = tokens.generate("ann", List.of("USER"), 0);
+
+        assertEquals("ann", cache.authenticate(token, toAuth).getName());
+        assertEquals("ann", cache.authenticate(token, toAuth).getName());
+
+        verify(tokens, times(1)).parse(token);
+        assertEquals(1.0, count("miss"));
+        assertEquals(1.0, count("hit"));
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void differentTokensAreVerifiedSeparately() {
+        String a = tokens.generate("ann", List.of("USER"), 0);
+        String b = tokens.generate("bob", List.of("USER"), 0);
+
+        assertEquals("ann", cache.authenticate(a, toAuth).getName());
+        assertEquals("bob", cache.authenticate(b, toAuth).getName());
+
+        assertEquals(2.0, count("miss"));
+        assertThrows(RuntimeException.class, () -> cache.authenticate("not-a-jwt", toAuth));
+        assertThrows(RuntimeException.class, () -> cache.authenticate("not-a-jwt", toAuth));
+        verify(tokens, times(2)).parse("not-a-jwt");
+    }
+
+    @Test
+    void revokedTokenIsRejectedAndNeverCached() {
+        String token = tokens.generate("ann", List.of("USER"), 0);
+        revocations.revoke(jti(token), Instant.now().plusSeconds(900), "logout");
+
+        assertThrows(MessagingException.class, () -> cache.authenticate(token, toAuth));
+        assertThrows(MessagingException.class, () -> cache.authenticate(token, toAuth));
+
+        assertEquals(2.0, count("revoked"));
+        assertEquals(0.0, count("hit"));
+    }
+
+    @Test
+    void cachedTokenRevokedLaterIsDroppedOnRecheck() {
+        String token = tokens.generate("ann", List.of("USER"), 0);
+        cache.authenticate(token, toAuth);
+
+        revocations.revoke(jti(token), Instant.now().plusSeconds(900), "logout");
+        cache.recheckRevocations();
+
+        assertThrows(MessagingException.class, () -> cache.authenticate(token, toAuth));
+        assertEquals(1.0, meters.counter("ws.connect.auth.revoked-evictions").count());
+    }
+
+    @Test
+    void cachedTokenRevokedLaterIsRejectedOnTheNextConnect() {
+        String token = tokens.generate("ann", List.of("USER"), 0);
+        cache.authenticate(token, toAuth);
+
+        revocations.revoke(jti(token), Instant.now().plusSeconds(900), "logout");
+
+        assertThrows(MessagingException.class, () -> cache.authenticate(token, toAuth));
+        assertEquals(1.0, count("revoked"));
+    }
+
+    @Test
+    void tokensBelowTheUsersCurrentVersionAreRejected() {
+        String before = tokens.generate("ann", List.of("USER"), 3);
+        String cached = tokens.generate("ann", List.of("USER"), 3);
+        cache.authenticate(cached, toAuth);
+
+        revocations.revokeUserTokensBefore("ann", 4);
+
+        assertThrows(MessagingException.class, () -> cache.authenticate(before, toAuth));
+        assertThrows(MessagingException.class, () -> cache.authenticate(cached, toAuth));
+        assertEquals("ann", cache.authenticate(tokens.generate("ann", List.of("USER"), 4), toAuth).getName());
+        assertEquals("bob", cache.authenticate(tokens.generate("bob", List.of("USER"), 3), toAuth).getName());
+    }
+
+    @Test
+    void revocationsLoadBeforeTheWebServerStarts() {
+        // The embedded web server starts in phase DEFAULT_PHASE - 1024; lower phases start first
+        assertTrue(revocations.getPhase() < SmartLifecycle.DEFAULT_PHASE - 1024);
+    }
+
+    @Test
+    void cachedEntryPastTokenExpiryIsVerifiedAgain() {
+        String token = tokens.generate("ann", List.of("USER"), 0);
+        cache.authenticate(token, toAuth);
+
+        clock.advance(Duration.ofMinutes(16));
+        cache.authenticate(token, toAuth);
+
+        verify(tokens, times(2)).parse(token);
+        assertEquals(2.0, count("miss"));
+        assertEquals(0.0, count("hit"));
+    }
+
+    private String jti(String token) {
+        return tokens.parse(token).getPayload().getId();
+    }
+
+    private double count(String result) {
+        return meters.counter("ws.connect.auth", "result", result).count();
+    }
+}
@@ -0,0 +1,132 @@
+package unit.com.bmessi.pickupsportsapp.security.ratelimit;
+
+import com.bmessi.pickupsportsapp.config.properties.RateLimitProperties;
+import com.bmessi.pickupsportsapp.security.ratelimit.RsvpRateLimitFilter;
+import com.bmessi.pickupsportsapp.security.ratelimit.SlidingWindowRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RsvpRateLimitFilterTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void spikeOfUsersAcrossGamesEachGetTheirOwnBudget() throws Exception {
+        RsvpRateLimitFilter filter = filter(4, 10_000);
+        Map<String, AtomicInteger> admittedPerUser = new ConcurrentHashMap<>();
+
+        List<Callable<Integer>> calls = new ArrayList<>();
+        for (int u = 0; u < 500; u++) {
+            String user = "user" + u + "@example.com";
+            long gameId = u % 20;
+            for (int attempt = 0; attempt < 6; attempt++) {
+                calls.add(() -> {
+                    MockHttpServletResponse res = join(filter, user, gameId,
+                            (req, r) -> admittedPerUser.computeIfAbsent(user, k -> new AtomicInteger()).incrementAndGet());
+                    return res.getStatus();
+                });
+            }
+        }
+        List<Integer> statuses = runConcurrently(calls);
+
+        assertEquals(500, admittedPerUser.size());
+        admittedPerUser.forEach((user, n) -> assertEquals(4, n.get(), user));
+        assertEquals(1_000, statuses.stream().filter(s -> s == 429).count());
+    }
+
+    @Test
+    void hotGameIsCappedExactlyAndRejectionsCarryRetryAfter() throws Exception {
+        RsvpRateLimitFilter filter = filter(4, 60);
+        AtomicInteger admitted = new AtomicInteger();
+
+        List<Callable<MockHttpServletResponse>> calls = new ArrayList<>();
+        for (int u = 0; u < 300; u++) {
+            String user = "fan" + u + "@example.com";
+            calls.add(() -> join(filter, user, 7L, (req, r) -> admitted.incrementAndGet()));
+        }
+        List<MockHttpServletResponse> responses = runConcurrently(calls);
+
+        assertEquals(60, admitted.get());
+        for (MockHttpServletResponse res : responses) {
+            if (res.getStatus() == 429) {
+                assertEquals("10", res.getHeader("Retry-After"));
+            }
+        }
+    }
+
+    @Test
+    void rejectionByAFullGameDoesNotUseUpTheUsersBudget() throws Exception {
+        RsvpRateLimitFilter filter = filter(2, 1);
+        String user = "ann@example.com";
+
+        assertEquals(200, join(filter, user, 1L, (req, res) -> {}).getStatus());
+        assertEquals(429, join(filter, user, 1L, (req, res) -> {}).getStatus());
+        assertEquals(429, join(filter, user, 1L, (req, res) -> {}).getStatus());
+
+        assertEquals(200, join(filter, user, 2L, (req, res) -> {}).getStatus());
+        assertEquals(429, join(filter, user, 3L, (req, res) -> {}).getStatus());
+    }
+
+    @Test
+    void anonymousCallersAreKeyedByAddressAndOtherPathsPassThrough() throws Exception {
+        RsvpRateLimitFilter filter = filter(1, 100);
+
+        assertEquals(200, join(filter, null, 1L, (req, res) -> {}).getStatus());
+        assertEquals(429, join(filter, null, 1L, (req, res) -> {}).getStatus());
+
+        MockHttpServletRequest other = new MockHttpServletRequest("GET", "/games/1");
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        AtomicInteger passed = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            filter.doFilter(other, res, (req, r) -> passed.incrementAndGet());
+        }
+        assertEquals(5, passed.get());
+    }
+
+    private RsvpRateLimitFilter filter(int perUser, int perGame) {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(
+                new RateLimitProperties(), Optional.empty(), new SimpleMeterRegistry(), clock);
+        return new RsvpRateLimitFilter(limiter, new SimpleMeterRegistry(),
+                new RsvpRateLimitFilter.Budget(perUser, 10), new RsvpRateLimitFilter.Budget(perGame, 10));
+    }
+
+    private static MockHttpServletResponse join(RsvpRateLimitFilter filter, String user, long gameId, FilterChain chain)
+            throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/games/" + gameId + "/join");
+        req.setRemoteAddr("203.0.113.9");
+        if (user != null) req.setUserPrincipal(() -> user);
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        filter.doFilter(req, res, chain);
+        return res;
+    }
+
+    private static <T> List<T> runConcurrently(List<Callable<T>> calls) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            List<T> out = new ArrayList<>(calls.size());
+            for (Future<T> f : pool.invokeAll(calls)) out.add(f.get());
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package unit.com.bmessi.pickupsportsapp.security.ratelimit;
+
+import com.bmessi.pickupsportsapp.config.properties.RateLimitProperties;
+import com.bmessi.pickupsportsapp.security.ratelimit.RouteTemplateResolver;
+import com.bmessi.pickupsportsapp.security.ratelimit.SlidingWindowRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import support.MutableClock;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SlidingWindowRateLimiterTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+
+    @Test
+    void previousWindowDecaysInsteadOfResettingAtTheBoundary() {
+        SlidingWindowRateLimiter limiter = limiter(props(false), Optional.empty());
+
+        for (int i = 0; i < 5; i++) assertTrue(limiter.tryAcquire("k", 5, 60).allowed());
+        SlidingWindowRateLimiter.Decision rejected = limiter.tryAcquire("k", 5, 60);
+        assertFalse(rejected.allowed());
+        assertTrue(rejected.retryAfterSeconds() >= 1);
+
+        clock.advanceSeconds(60); // previous window still counts fully
+        assertFalse(limiter.tryAcquire("k", 5, 60).allowed());
+
+        clock.advanceSeconds(30); // half of it has slid out
+        assertTrue(limiter.tryAcquire("k", 5, 60).allowed());
+    }
+
+    @Test
+    void keysAreBoundedUnderScanning() {
+        RateLimitProperties props = props(false);
+        props.setMaxKeys(1_000);
+        SlidingWindowRateLimiter limiter = limiter(props, Optional.empty());
+
+        for (int i = 0; i < 20_000; i++) limiter.tryAcquire("10.0.0.1|/probe/" + i, 100, 60);
+
+        assertTrue(limiter.trackedKeys() <= 1_000, "tracked " + limiter.trackedKeys());
+    }
+
+    @Test
+    void resolverCollapsesIdsAndDepthAndHonoursConfiguredRoutes() {
+        RateLimitProperties props = props(false);
+        props.getRoutes().add(new RateLimitProperties.Policy("rsvp", "/games/{id}/join", List.of("POST"), 20, 60));
+        RouteTemplateResolver resolver = new RouteTemplateResolver(props);
+
+        RouteTemplateResolver.Route join = resolver.resolve("POST", "/games/17/join");
+        assertEquals("rsvp", join.policyName());
+        assertEquals(20, join.limit());
+        assertSame(join, resolver.resolve("POST", "/games/18/join"));
+
+        assertEquals("/games/{id}/join", resolver.resolve("GET", "/games/17/join").template());
+        assertEquals("/users/{id}/avatar", resolver.resolve("GET", "/users/6f1c2a9e-0d43-4b8e-9a51-2c7f0e9b1d33/avatar").template());
+        assertEquals("/a/b/c/d/**", resolver.resolve("GET", "/a/b/c/d/e/f/g").template());
+        assertEquals("default", resolver.resolve("GET", "/").policyName());
+    }
+
+    @Test
+    void nodesShareOneLimitThroughRedis() {
+        FakeRedis fake = new FakeRedis();
+        SlidingWindowRateLimiter a = limiter(props(true), Optional.of(fake.template));
+        SlidingWindowRateLimiter b = limiter(props(true), Optional.of(fake.template));
+
+        for (int i = 0; i < 6; i++) assertTrue(a.tryAcquire("k", 10, 60).allowed());
+        a.sync();
+        assertTrue(b.tryAcquire("k", 10, 60).allowed());
+        b.sync(); // b learns a's six requests
+
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (b.tryAcquire("k", 10, 60).allowed()) admitted++;
+        }
+        assertEquals(3, admitted);
+        b.sync();
+        assertEquals(10L, fake.counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void redisFailureKeepsCountingLocally() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        SlidingWindowRateLimiter limiter = limiter(props(true), Optional.of(redis));
+
+        for (int i = 0; i < 3; i++) assertTrue(limiter.tryAcquire("k", 5, 60).allowed());
+        limiter.sync();
+        assertTrue(limiter.tryAcquire("k", 5, 60).allowed());
+        assertTrue(limiter.tryAcquire("k", 5, 60).allowed());
+        assertFalse(limiter.tryAcquire("k", 5, 60).allowed());
+    }
+
+    private SlidingWindowRateLimiter limiter(RateLimitProperties props, Optional<StringRedisTemplate> redis) {
+        return new SlidingWindowRateLimiter(props, redis, new SimpleMeterRegistry(), clock);
+    }
+
+    private static RateLimitProperties props(boolean redis) {
+        RateLimitProperties props = new RateLimitProperties();
+        props.setRedisEnabled(redis);
+        return props;
+    }
+
+    /** Applies the sync script's INCRBY/GET semantics to an in-memory map. */
+    private static final class FakeRedis {
+        final Map<String, Long> counts = new HashMap<>();
+        final StringRedisTemplate template = mock(StringRedisTemplate.class);
+
+        FakeRedis() {
+            when(template.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(inv -> {
+                Object[] argv = (Object[]) inv.getRawArguments()[2];
+                long now = Long.parseLong((String) argv[0]);
+                List<Long> out = new ArrayList<>();
+                for (int i = 1; i < argv.length; i += 3) {
+                    long window = Long.parseLong((String) argv[i + 2]);
+                    long wid = now / window;
+                    long c = counts.merge(argv[i] + ":" + wid, Long.parseLong((String) argv[i + 1]), Long::sum);
+                    out.add(wid);
+                    out.add(c);
+                    out.add(counts.getOrDefault(argv[i] + ":" + (wid - 1), 0L));
+                }
+                return out;
+            });
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package unit.com.bmessi.pickupsportsapp.service;
+
+import com.bmessi.pickupsportsapp.service.JwksVerifierService;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import support.MutableClock;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwksVerifierServiceTest {
+
+    private static final String ISS = "https://issuer.example.com";
+    private static final String AUD = "client-1";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final Map<String, KeyPair> published = new ConcurrentHashMap<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicReference<CountDownLatch> gate = new AtomicReference<>();
+    private final AtomicBoolean down = new AtomicBoolean();
+    private HttpServer server;
+    private String url;
+    private JwksVerifierService svc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jwks", exchange -> {
+            fetches.incrementAndGet();
+            CountDownLatch latch = gate.get();
+            try {
+                if (latch != null) latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (down.get()) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = jwks().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=600");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/jwks";
+        svc = new JwksVerifierService(new SimpleMeterRegistry(), clock, 600, 86_400, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        svc.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void keysAreFetchedOnceAndReused() throws Exception {
+        KeyPair k1 = publish("k1");
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("user-" + i, svc.verify(token("k1", k1, "user-" + i), ISS, AUD, url).getPayload().getSubject());
+        }
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void unknownKidTriggersOneSharedRefresh() throws Exception {
+        publish("k1");
+        svc.verify(token("k1", published.get("k1"), "a"), ISS, AUD, url);
+        clock.advance(Duration.ofSeconds(31));
+
+        KeyPair k2 = publish("k2"); // provider rotates keys
+        String rotated = token("k2", k2, "b");
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<String>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> svc.verify(rotated, ISS, AUD, url).getPayload().getSubject());
+            }
+            for (Future<String> f : pool.invokeAll(tasks)) assertEquals("b", f.get());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, fetches.get());
+
+        // Bogus kids right after a refresh do not reach the provider again
+        assertThrows(IllegalArgumentException.class,
+                () -> svc.verify(token("nope", k2, "c"), ISS, AUD, url));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void dueKeySetIsServedStaleWhileRefreshingInTheBackground() throws Exception {
+        KeyPair k1 = publish("k1");
+        svc.verify(token("k1", k1, "a"), ISS, AUD, url);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        gate.set(latch);
+        clock.advance(Duration.ofSeconds(500)); // past 80% of max-age=600
+
+        long start = System.nanoTime();
+        assertEquals("b", svc.verify(token("k1", k1, "b"), ISS, AUD, url).getPayload().getSubject());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "verification waited for the refresh");
+
+        latch.countDown();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (fetches.get() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void setPastMaxStaleRetriesTheProviderAtMostOncePerInterval() throws Exception {
+        KeyPair k1 = publish("k1");
+        svc.verify(token("k1", k1, "a"), ISS, AUD, url);
+
+        down.set(true);
+        clock.advance(Duration.ofSeconds(86_401));
+        for (int i = 0; i < 10; i++) {
+            assertEquals("b", svc.verify(token("k1", k1, "b"), ISS, AUD, url).getPayload().getSubject());
+        }
+        assertEquals(2, fetches.get());
+
+        clock.advance(Duration.ofSeconds(31));
+        down.set(false);
+        svc.verify(token("k1", k1, "c"), ISS, AUD, url);
+        svc.verify(token("k1", k1, "d"), ISS, AUD, url);
+        assertEquals(3, fetches.get());
+    }
+
+    private KeyPair publish(String kid) throws Exception {
+        KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+        gen.initialize(2048);
+        KeyPair kp = gen.generateKeyPair();
+        published.put(kid, kp);
+        return kp;
+    }
+
+    private String jwks() {
+        Base64.Encoder enc = Base64.getUrlEncoder().withoutPadding();
+        StringBuilder sb = new StringBuilder("{\"keys\":[");
+        published.forEach((kid, kp) -> {
+            RSAPublicKey pub = (RSAPublicKey) kp.getPublic();
+            if (sb.charAt(sb.length() - 1) != '[') sb.append(',');
+            sb.append("{\"kty\":\"RSA\",\"kid\":\"").append(kid)
+                    .append("\",\"n\":\"").append(enc.encodeToString(pub.getModulus().toByteArray()))
+                    .append("\",\"e\":\"").append(enc.encodeToString(pub.getPublicExponent().toByteArray()))
+                    .append("\"}");
+        });
+        return sb.append("]}").toString();
+    }
+
+    private static String token(String kid, KeyPair kp, String subject) {
+        return Jwts.builder()
+                .header().keyId(kid).and()
+                .issuer(ISS)
+                .audience().add(AUD).and()
+                .subject(subject)
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(kp.getPrivate())
+                .compact();
+    }
+}
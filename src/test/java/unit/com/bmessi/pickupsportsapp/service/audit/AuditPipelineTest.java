@@ -0,0 +1,165 @@
+package unit.com.bmessi.pickupsportsapp.service.audit;
+
+import com.bmessi.pickupsportsapp.config.properties.AuditPipelineProperties;
+import com.bmessi.pickupsportsapp.service.audit.AuditEvent;
+import com.bmessi.pickupsportsapp.service.audit.AuditPipeline;
+import com.bmessi.pickupsportsapp.service.audit.AuditRingBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditPipelineTest {
+
+    @TempDir
+    Path spillDir;
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private AuditPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pipeline != null) pipeline.destroy();
+    }
+
+    @Test
+    void ringBufferLosesNothingUnderContentionAndRejectsWhenFull() throws Exception {
+        AuditRingBuffer ring = new AuditRingBuffer(1_000);
+        assertEquals(1_024, ring.capacity());
+        int producers = 8;
+        int perProducer = 20_000;
+        Set<String> seen = new HashSet<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int id = p;
+                tasks.add(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        AuditEvent e = event("p" + id + "-" + i);
+                        while (!ring.offer(e)) Thread.onSpinWait();
+                    }
+                    return null;
+                });
+            }
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> t : tasks) futures.add(pool.submit(t));
+            Thread consumer = new Thread(() -> {
+                List<AuditEvent> out = new ArrayList<>();
+                while (!done.get() || ring.size() > 0) {
+                    out.clear();
+                    ring.drainTo(out, 256);
+                    for (AuditEvent e : out) if (!seen.add(e.action())) duplicates.incrementAndGet();
+                }
+            });
+            consumer.start();
+            for (Future<Void> f : futures) f.get();
+            done.set(true);
+            consumer.join(10_000);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, duplicates.get());
+        assertEquals(producers * perProducer, seen.size());
+
+        for (int i = 0; i < ring.capacity(); i++) assertTrue(ring.offer(event("fill")));
+        assertFalse(ring.offer(event("overflow")));
+    }
+
+    @Test
+    void eventsAreBatchInsertedPerTableOffTheCallingThread() throws Exception {
+        AtomicInteger rows = new AtomicInteger();
+        AtomicInteger oversized = new AtomicInteger();
+        when(jdbc.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            List<Object[]> args = inv.getArgument(1);
+            for (Object[] row : args) if (((String) row[4]).length() > 1024) oversized.incrementAndGet();
+            rows.addAndGet(args.size());
+            return new int[0];
+        });
+        pipeline = start(props());
+
+        for (int i = 0; i < 600; i++) {
+            pipeline.record(i % 2 == 0 ? AuditEvent.Table.ADMIN : AuditEvent.Table.HOST,
+                    "alice", "action-" + i, "game", (long) i, "x".repeat(2_000));
+        }
+
+        await(() -> rows.get() == 600);
+        verify(jdbc, atLeastOnce()).batchUpdate(startsWith("INSERT INTO admin_audit"), anyList());
+        verify(jdbc, atLeastOnce()).batchUpdate(startsWith("INSERT INTO host_action_audit"), anyList());
+        assertEquals(0, oversized.get(), "details are clipped to the column size");
+        assertEquals(600.0, meters.counter("audit.pipeline.written").count());
+    }
+
+    @Test
+    void databaseOutageSpillsToDiskAndReplaysOnRecovery() throws Exception {
+        AtomicBoolean dbUp = new AtomicBoolean(false);
+        AtomicInteger rows = new AtomicInteger();
+        when(jdbc.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            if (!dbUp.get()) throw new DataAccessResourceFailureException("connection refused");
+            rows.addAndGet(inv.<List<?>>getArgument(1).size());
+            return new int[0];
+        });
+        AuditPipelineProperties props = props();
+        props.setRetryMs(50);
+        pipeline = start(props);
+
+        for (int i = 0; i < 100; i++) pipeline.record(AuditEvent.Table.HOST, "bob", "a" + i, "game", null, null);
+        await(() -> meters.counter("audit.pipeline.spilled").count() == 100);
+        assertEquals(0, rows.get());
+
+        dbUp.set(true);
+        await(() -> rows.get() == 100);
+        assertEquals(100.0, meters.counter("audit.pipeline.replayed").count());
+        assertEquals(0.0, meters.counter("audit.pipeline.dropped").count());
+    }
+
+    private AuditPipelineProperties props() {
+        AuditPipelineProperties props = new AuditPipelineProperties();
+        props.setSpillDir(spillDir.toString());
+        props.setIdleWaitMs(5);
+        props.setBatchSize(500);
+        return props;
+    }
+
+    private AuditPipeline start(AuditPipelineProperties props) {
+        AuditPipeline p = new AuditPipeline(props, jdbc, mock(PlatformTransactionManager.class), meters, Clock.systemUTC());
+        p.afterPropertiesSet();
+        return p;
+    }
+
+    private static AuditEvent event(String action) {
+        return AuditEvent.of(AuditEvent.Table.ADMIN, "t", action, "x", null, null, null, 0L);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package unit.com.bmessi.pickupsportsapp.service.auth;
+
+import com.bmessi.pickupsportsapp.config.properties.RefreshTokenStoreProperties;
+import com.bmessi.pickupsportsapp.entity.User;
+import com.bmessi.pickupsportsapp.entity.auth.RefreshToken;
+import com.bmessi.pickupsportsapp.repository.RefreshTokenRepository;
+import com.bmessi.pickupsportsapp.repository.UserRepository;
+import com.bmessi.pickupsportsapp.service.auth.RedisRefreshTokenStore;
+import com.bmessi.pickupsportsapp.service.auth.RedisRefreshTokenStore.Rotation;
+import com.bmessi.pickupsportsapp.service.auth.RedisRefreshTokenStore.Session;
+import com.bmessi.pickupsportsapp.service.auth.RefreshTokenService;
+import com.bmessi.pickupsportsapp.service.auth.RefreshTokenWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceTest {
+
+    private final RefreshTokenRepository repo = mock(RefreshTokenRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final RedisRefreshTokenStore store = mock(RedisRefreshTokenStore.class);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final RefreshTokenStoreProperties props = new RefreshTokenStoreProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RefreshTokenWriteBehind writeBehind;
+    private RefreshTokenService svc;
+
+    @BeforeEach
+    void setUp() {
+        props.setRedisEnabled(true);
+        props.setBatchSize(100);
+        writeBehind = new RefreshTokenWriteBehind(jdbc, mock(PlatformTransactionManager.class), props, meterRegistry);
+        svc = new RefreshTokenService(repo, users, store, writeBehind, meterRegistry);
+        ReflectionTestUtils.setField(svc, "refreshTokenDuration", 3600L);
+        when(store.isEnabled()).thenReturn(true);
+        User user = User.builder().username("alice@example.com").password("pw").build();
+        user.setId(7L);
+        when(users.getReferenceById(7L)).thenReturn(user);
+    }
+
+    @Test
+    void refreshIsServedFromRedisAndWrittenBehindInOneBatch() {
+        String token = "raw-token";
+        String nonce = "raw-nonce";
+        when(store.find(hash(token))).thenReturn(Optional.of(
+                new Session(7L, hash(nonce), Instant.now().plusSeconds(600), Instant.now(), false)));
+        when(store.rotate(eq(hash(token)), eq(hash(nonce)), eq(7L), anyString(), anyString(), any()))
+                .thenReturn(Rotation.ROTATED);
+
+        RefreshToken current = svc.validate(token, nonce);
+        RefreshTokenService.TokenWithNonce next = svc.rotate(current);
+
+        assertNotNull(next.token());
+        verifyNoInteractions(repo, jdbc);
+        assertEquals(2, writeBehind.pending());
+
+        assertEquals(2, writeBehind.flush());
+        InOrder order = inOrder(jdbc);
+        order.verify(jdbc).batchUpdate(startsWith("INSERT INTO refresh_token"), anyList());
+        order.verify(jdbc).batchUpdate(startsWith("UPDATE refresh_token SET revoked_at = ?, replaced_by_token_hash"), anyList());
+    }
+
+    @Test
+    void losingARotationRaceIsRejected() {
+        when(store.find(hash("t"))).thenReturn(Optional.of(
+                new Session(7L, hash("n"), Instant.now().plusSeconds(600), Instant.now(), false)));
+        when(store.rotate(anyString(), anyString(), anyLong(), anyString(), anyString(), any()))
+                .thenReturn(Rotation.REVOKED);
+
+        RefreshToken current = svc.validate("t", "n");
+        assertThrows(BadCredentialsException.class, () -> svc.rotate(current));
+        assertEquals(0, writeBehind.pending());
+    }
+
+    @Test
+    void tokenUnknownToRedisFallsBackToTheTableAndIsSeeded() {
+        User user = users.getReferenceById(7L);
+        RefreshToken row = RefreshToken.builder()
+                .user(user).tokenHash(hash("old")).nonceHash(hash("n"))
+                .expiresAt(Instant.now().plusSeconds(600)).build();
+        when(store.find(hash("old"))).thenReturn(Optional.empty());
+        when(repo.findByTokenHash(hash("old"))).thenReturn(Optional.of(row));
+
+        assertSame(row, svc.validate("old", "n"));
+        verify(store).put(eq(hash("old")), eq(hash("n")), eq(7L), eq(row.getExpiresAt()), any());
+    }
+
+    @Test
+    void revokingATokenRedisNeverSawRevokesTheRowBeforeARefreshCanReseedIt() {
+        RefreshToken row = RefreshToken.builder()
+                .user(users.getReferenceById(7L)).tokenHash(hash("legacy")).nonceHash(hash("n"))
+                .expiresAt(Instant.now().plusSeconds(600)).build();
+        when(store.revoke(hash("legacy"))).thenReturn(List.of());
+        when(store.find(hash("legacy"))).thenReturn(Optional.empty());
+        when(repo.findByTokenHash(hash("legacy"))).thenReturn(Optional.of(row));
+
+        svc.revokeByTokenValue("legacy");
+
+        assertNotNull(row.getRevokedAt());
+        verify(repo).save(row);
+        assertThrows(BadCredentialsException.class, () -> svc.validate("legacy", "n"));
+        verify(store, never()).put(anyString(), anyString(), anyLong(), any(), any());
+    }
+
+    @Test
+    void failedBatchIsRetriedBeforeNewerWrites() {
+        when(store.revoke(anyString())).thenAnswer(inv -> List.of(inv.getArgument(0, String.class)));
+        when(jdbc.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(new int[]{1});
+
+        svc.revokeByTokenValue("a");
+        assertEquals(0, writeBehind.flush());
+
+        svc.revokeByTokenValue("b");
+        assertEquals(2, writeBehind.flush());
+        verify(jdbc, times(3)).batchUpdate(startsWith("UPDATE refresh_token SET revoked_at = ? WHERE"), anyList());
+    }
+
+    @Test
+    void redisOutageIssuesAndRotatesInTheTableAndRevokesInRedisOnceItIsBack() {
+        User user = users.getReferenceById(7L);
+        RedisConnectionFailureException down = new RedisConnectionFailureException("redis down");
+        doThrow(down).when(store).put(anyString(), anyString(), anyLong(), any(), any());
+        when(store.find(anyString())).thenThrow(down);
+        when(repo.save(any(RefreshToken.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        RefreshTokenService.TokenWithNonce issued = svc.createToken(user);
+        RefreshToken row = RefreshToken.builder()
+                .user(user).tokenHash(hash(issued.token())).nonceHash(hash(issued.nonce()))
+                .expiresAt(Instant.now().plusSeconds(600)).build();
+        verify(repo).save(argThat((RefreshToken t) -> t.getTokenHash().equals(row.getTokenHash())));
+        when(repo.findByTokenHash(row.getTokenHash())).thenReturn(Optional.of(row));
+
+        when(store.rotate(anyString(), anyString(), anyLong(), anyString(), anyString(), any())).thenThrow(down);
+        RefreshToken current = svc.validate(issued.token(), issued.nonce());
+        assertNotNull(svc.rotate(current).token());
+        assertNotNull(row.getRevokedAt());
+        assertNotNull(row.getReplacedByTokenHash());
+        assertEquals(0, writeBehind.pending());
+
+        // Redis is back: the token rotated in the table must not stay live there
+        reset(store);
+        when(store.isEnabled()).thenReturn(true);
+        when(store.find(anyString())).thenReturn(Optional.empty());
+        when(repo.findByTokenHash(row.getTokenHash())).thenReturn(Optional.of(row));
+        assertThrows(BadCredentialsException.class, () -> svc.validate(issued.token(), issued.nonce()));
+        verify(store).revoke(row.getTokenHash());
+        assertEquals(3.0, meterRegistry.find("refresh.store.fallback").counters().stream()
+                .mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void fullWriteQueueDropsInsteadOfFlushingOnTheCaller() {
+        props.setQueueCapacity(1);
+        writeBehind = new RefreshTokenWriteBehind(jdbc, mock(PlatformTransactionManager.class), props, meterRegistry);
+
+        writeBehind.enqueue(new RefreshTokenWriteBehind.Revoke("a", Instant.now()));
+        writeBehind.enqueue(new RefreshTokenWriteBehind.Revoke("b", Instant.now()));
+
+        verifyNoInteractions(jdbc);
+        assertEquals(1, writeBehind.pending());
+        assertEquals(1.0, meterRegistry.counter("refresh.store.writebehind.dropped").count());
+    }
+
+    private static String hash(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(d);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package unit.com.bmessi.pickupsportsapp.service.chat;
+
+import com.bmessi.pickupsportsapp.dto.PresenceDeltaDTO;
+import com.bmessi.pickupsportsapp.dto.PresenceSnapshotDTO;
+import com.bmessi.pickupsportsapp.service.chat.ChatPresenceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import support.MutableClock;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatPresenceServiceTest {
+
+    private MutableClock clock;
+    private SimpMessagingTemplate broker;
+    private ChatPresenceService svc;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        broker = mock(SimpMessagingTemplate.class);
+        svc = new ChatPresenceService(Optional.empty(), Optional.of(broker), clock, 45, 16, 3600, 1000);
+    }
+
+    @Test
+    void snapshot_isSortedAndReusedWhileVersionUnchanged() {
+        svc.heartbeat(1L, "carol");
+        svc.heartbeat(1L, "Alice");
+        svc.heartbeat(1L, "bob");
+
+        PresenceSnapshotDTO first = svc.snapshot(1L);
+        assertEquals(3L, first.version());
+        assertEquals(List.of("Alice", "bob", "carol"), first.users());
+
+        // a beat from an existing member does not change membership
+        svc.heartbeat(1L, "bob");
+        assertSame(first, svc.snapshot(1L));
+    }
+
+    @Test
+    void delta_reportsNetJoinsAndLeavesSinceVersion() {
+        svc.heartbeat(7L, "alice");
+        svc.heartbeat(7L, "bob");
+        long v = svc.snapshot(7L).version();
+
+        clock.advanceSeconds(30);
+        svc.heartbeat(7L, "bob");
+        svc.heartbeat(7L, "carol");
+        clock.advanceSeconds(20); // alice expires
+        svc.heartbeat(7L, "dave");
+
+        PresenceDeltaDTO delta = svc.delta(7L, v).orElseThrow();
+        assertEquals(v, delta.fromVersion());
+        assertEquals(List.of("carol", "dave"), delta.joined());
+        assertEquals(List.of("alice"), delta.left());
+        assertEquals(3L, delta.count());
+        assertEquals(svc.snapshot(7L).version(), delta.version());
+    }
+
+    @Test
+    void delta_emptyWhenClientTooFarBehindOrAhead() {
+        for (int i = 0; i < 40; i++) {
+            svc.heartbeat(3L, "user" + i);
+        }
+        assertTrue(svc.delta(3L, 0L).isEmpty());
+        assertTrue(svc.delta(3L, 1_000L).isEmpty());
+        assertTrue(svc.delta(3L, 39L).isPresent());
+    }
+
+    @Test
+    void joinsAndLeavesArePushedAsOneStepDeltas() {
+        svc.heartbeat(5L, "alice");
+        svc.heartbeat(5L, "alice");
+        clock.advanceSeconds(50);
+        svc.heartbeat(5L, "bob");
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(broker, times(3)).convertAndSend(eq("/topic/games/5/presence/delta"), sent.capture());
+        List<PresenceDeltaDTO> deltas = sent.getAllValues().stream().map(PresenceDeltaDTO.class::cast).toList();
+        assertEquals(List.of("alice"), deltas.get(0).joined());
+        assertEquals(0L, deltas.get(0).fromVersion());
+        assertEquals(List.of("alice"), deltas.get(1).left());
+        assertEquals(List.of("bob"), deltas.get(2).joined());
+        assertEquals(3L, deltas.get(2).version());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisVersionAndLogAreWrittenByOneScriptWithExpiry() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ZSetOperations<String, String> zset = mock(ZSetOperations.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForZSet()).thenReturn(zset);
+        when(redis.opsForValue()).thenReturn(values);
+        when(zset.add(anyString(), anyString(), anyDouble())).thenReturn(true);
+        when(zset.zCard(anyString())).thenReturn(1L);
+        when(redis.execute(any(RedisScript.class), anyList(), any(), any(), any())).thenReturn(7L);
+        ChatPresenceService redisSvc = new ChatPresenceService(Optional.of(redis), Optional.of(broker), clock, 45, 16, 3600, 1000);
+
+        redisSvc.heartbeat(9L, "alice");
+
+        verify(redis).execute(any(RedisScript.class),
+                eq(List.of("presence:game:9:version", "presence:game:9:log")), eq("+alice"), eq("16"), eq("3600"));
+        verify(values, never()).increment(anyString());
+        verify(redis, never()).opsForList();
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(broker).convertAndSend(eq("/topic/games/9/presence/delta"), sent.capture());
+        assertEquals(7L, ((PresenceDeltaDTO) sent.getValue()).version());
+    }
+}
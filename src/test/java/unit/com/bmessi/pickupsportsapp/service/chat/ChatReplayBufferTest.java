@@ -0,0 +1,113 @@
+package unit.com.bmessi.pickupsportsapp.service.chat;
+
+import com.bmessi.pickupsportsapp.dto.chat.ChatMessageDTO;
+import com.bmessi.pickupsportsapp.service.chat.ChatReplayBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatReplayBufferTest {
+
+    private ChatReplayBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new ChatReplayBuffer(Optional.empty(), new ObjectMapper(), 10, 600);
+    }
+
+    @Test
+    void append_assignsMonotonicSequencePerRoom() {
+        assertEquals(1L, buffer.append(1L, msg("a")).getSeq());
+        assertEquals(2L, buffer.append(1L, msg("b")).getSeq());
+        assertEquals(1L, buffer.append(2L, msg("c")).getSeq());
+    }
+
+    @Test
+    void after_returnsOnlyMissedMessagesOldestFirst() {
+        for (int i = 0; i < 5; i++) buffer.append(7L, msg("m" + i));
+
+        ChatReplayBuffer.Replay replay = buffer.after(7L, 3L);
+        List<ChatMessageDTO> missed = replay.messages();
+
+        assertEquals(2, missed.size());
+        assertEquals(4L, missed.get(0).getSeq());
+        assertEquals("m4", missed.get(1).getContent());
+        assertFalse(replay.gap());
+
+        ChatReplayBuffer.Replay caughtUp = buffer.after(7L, 5L);
+        assertTrue(caughtUp.messages().isEmpty());
+        assertFalse(caughtUp.gap());
+        assertEquals(5L, caughtUp.headSeq());
+    }
+
+    @Test
+    void after_exposesGapWhenBufferNoLongerCoversIt() {
+        for (int i = 0; i < 25; i++) buffer.append(3L, msg("m" + i));
+
+        ChatReplayBuffer.Replay replay = buffer.after(3L, 2L);
+
+        assertEquals(10, replay.messages().size());
+        assertEquals(16L, replay.messages().get(0).getSeq());
+        assertTrue(replay.gap());
+    }
+
+    @Test
+    void after_reportsAnExpiredBufferAsAGapNotAsCaughtUp() {
+        for (int i = 0; i < 3; i++) buffer.append(4L, msg("m" + i));
+        // What expireAfterAccess does to an idle room
+        ((Cache<?, ?>) ReflectionTestUtils.getField(buffer, "localBuffers")).invalidateAll();
+
+        ChatReplayBuffer.Replay replay = buffer.after(4L, 1L);
+
+        assertTrue(replay.messages().isEmpty());
+        assertTrue(replay.gap());
+        assertEquals(3L, replay.headSeq());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisOutageNeverFailsASend() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        ListOperations<String, String> lists = mock(ListOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(redis.opsForList()).thenReturn(lists);
+        ChatReplayBuffer redisBuffer = new ChatReplayBuffer(Optional.of(redis), new ObjectMapper(), 10, 600);
+
+        when(values.increment("chat:seq:1")).thenThrow(new RedisConnectionFailureException("down"));
+        ChatMessageDTO unsequenced = redisBuffer.append(1L, msg("a"));
+        assertNull(unsequenced.getSeq());
+        verify(lists, never()).rightPush(anyString(), anyString());
+
+        reset(values);
+        when(values.increment("chat:seq:1")).thenReturn(42L);
+        when(lists.rightPush(anyString(), anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        assertEquals(42L, redisBuffer.append(1L, msg("b")).getSeq());
+
+        when(lists.range(anyString(), anyLong(), anyLong())).thenThrow(new RedisConnectionFailureException("down"));
+        ChatReplayBuffer.Replay unavailable = redisBuffer.after(1L, 0L);
+        assertTrue(unavailable.messages().isEmpty());
+        assertTrue(unavailable.gap());
+        assertNull(unavailable.headSeq());
+    }
+
+    private static ChatMessageDTO msg(String content) {
+        ChatMessageDTO m = new ChatMessageDTO();
+        m.setSender("alice");
+        m.setContent(content);
+        return m;
+    }
+}
@@ -0,0 +1,87 @@
+package unit.com.bmessi.pickupsportsapp.service.digest;
+
+import com.bmessi.pickupsportsapp.dto.DigestEmailJob;
+import com.bmessi.pickupsportsapp.service.digest.DigestChunkWriter;
+import com.bmessi.pickupsportsapp.service.digest.DigestRecipient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.batch.item.Chunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DigestChunkWriterTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final RabbitTemplate rabbit = mock(RabbitTemplate.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final Clock clock = Clock.fixed(Instant.parse("2026-01-05T07:00:00Z"), ZoneOffset.UTC);
+    private final DigestChunkWriter writer =
+            new DigestChunkWriter(jdbc, rabbit, meters, clock, "emails.digest.queue", "daily", Duration.ofDays(1));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_loadsWholeChunkInOneQueryAndPublishesOneJob() throws Exception {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        when(jdbc.query(sql.capture(), any(RowMapper.class), args.capture())).thenAnswer(inv -> {
+            RowMapper<Object> mapper = inv.getArgument(1);
+            List<Object> out = new ArrayList<>();
+            out.add(mapper.mapRow(row(2L, "tennis", "court 1", "2026-01-05T18:00:00Z"), 0));
+            out.add(mapper.mapRow(row(1L, "soccer", "park", "2026-01-05T09:00:00Z"), 1));
+            out.add(mapper.mapRow(row(1L, "basketball", "gym", "2026-01-05T20:00:00Z"), 2));
+            return out;
+        });
+
+        writer.write(new Chunk<>(List.of(
+                new DigestRecipient(1L, "ann@example.com"),
+                new DigestRecipient(2L, "bob@example.com"),
+                new DigestRecipient(3L, "cy@example.com"))));
+
+        verify(jdbc, times(1)).query(anyString(), any(RowMapper.class), any(Object[].class));
+        assertTrue(sql.getValue().contains("game_participants"));
+        assertEquals(10, args.getValue().length);
+
+        ArgumentCaptor<DigestEmailJob> job = ArgumentCaptor.forClass(DigestEmailJob.class);
+        verify(rabbit).convertAndSend(eq("emails.digest.queue"), job.capture());
+        List<DigestEmailJob.Digest> digests = job.getValue().digests();
+        assertEquals(List.of("ann@example.com", "bob@example.com"), digests.stream().map(DigestEmailJob.Digest::to).toList());
+        assertEquals(2, digests.get(0).items().size());
+        assertEquals("soccer", digests.get(0).items().get(0).get("sport"));
+        assertEquals(3.0, meters.counter("digest.recipients.read", "mode", "daily").count());
+        assertEquals(2.0, meters.counter("digest.emails.queued", "mode", "daily").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_publishesNothingWhenNoGamesAreUpcoming() throws Exception {
+        when(jdbc.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of());
+
+        writer.write(new Chunk<>(List.of(new DigestRecipient(1L, "ann@example.com"))));
+
+        verifyNoInteractions(rabbit);
+    }
+
+    private static ResultSet row(long userId, String sport, String location, String time) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("user_id")).thenReturn(userId);
+        when(rs.getString("sport")).thenReturn(sport);
+        when(rs.getString("location")).thenReturn(location);
+        when(rs.getObject("time")).thenReturn(Timestamp.from(Instant.parse(time)));
+        return rs;
+    }
+}
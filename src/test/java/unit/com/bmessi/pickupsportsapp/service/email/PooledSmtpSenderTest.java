@@ -0,0 +1,109 @@
+package unit.com.bmessi.pickupsportsapp.service.email;
+
+import com.bmessi.pickupsportsapp.service.email.CompiledTemplate;
+import com.bmessi.pickupsportsapp.service.email.PooledSmtpSender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import support.SmtpStubServer;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PooledSmtpSenderTest {
+
+    private SmtpStubServer server;
+    private PooledSmtpSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new SmtpStubServer();
+        JavaMailSenderImpl impl = new JavaMailSenderImpl();
+        impl.setHost("127.0.0.1");
+        impl.setPort(server.port());
+        sender = new PooledSmtpSender(impl, new SimpleMeterRegistry(), 2, 30_000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        sender.destroy();
+        server.close();
+    }
+
+    @Test
+    void batchAndFollowUpSendsShareOneConnection() throws Exception {
+        sender.send(message("a@example.com"), message("b@example.com"), message("c@example.com"));
+        sender.send(message("d@example.com"));
+
+        assertEquals(4, server.messages().size());
+        assertEquals(1, server.connections());
+        assertTrue(server.messages().get(3).contains("d@example.com"));
+    }
+
+    @Test
+    void reconnectFailureReportsOnlyTheMessagesNotYetSent() throws Exception {
+        Transport first = mock(Transport.class);
+        Transport second = mock(Transport.class);
+        doNothing().doThrow(new MessagingException("connection reset"))
+                .when(first).sendMessage(any(Message.class), any(Address[].class));
+        doThrow(new MessagingException("connection refused"))
+                .when(second).connect(any(), anyInt(), any(), any());
+        Session session = mock(Session.class);
+        when(session.getTransport("smtp")).thenReturn(first, second);
+        JavaMailSenderImpl impl = mock(JavaMailSenderImpl.class);
+        when(impl.getSession()).thenReturn(session);
+        PooledSmtpSender broken = new PooledSmtpSender(impl, new SimpleMeterRegistry(), 2, 30_000);
+        MimeMessage a = plain("a@example.com");
+        MimeMessage b = plain("b@example.com");
+        MimeMessage c = plain("c@example.com");
+
+        MailSendException e = assertThrows(MailSendException.class, () -> broken.send(a, b, c));
+
+        assertEquals(List.of(b, c), List.copyOf(e.getFailedMessages().keySet()));
+        assertEquals("connection refused", e.getFailedMessages().get(c).getMessage());
+        verify(first).close();
+    }
+
+    @Test
+    void compiledTemplateRendersInOnePassAndKeepsUnknownPlaceholders() {
+        CompiledTemplate t = CompiledTemplate.compile("<p>{{actor}} {{eventType}} {{sport}}</p>{{missing}}");
+
+        assertEquals("<p>ann joined soccer</p>{{missing}}",
+                t.render(Map.of("actor", "ann", "eventType", "joined", "sport", "soccer")));
+        assertEquals("", CompiledTemplate.compile(null).render(Map.of()));
+    }
+
+    private MimeMessage message(String to) throws Exception {
+        MimeMessage mime = sender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, "UTF-8");
+        helper.setFrom("noreply@example.com");
+        helper.setTo(to);
+        helper.setSubject("Game reminder");
+        helper.setText("<p>hi</p>", true);
+        return mime;
+    }
+
+    private static MimeMessage plain(String to) throws Exception {
+        MimeMessage mime = new MimeMessage((Session) null);
+        mime.setFrom(new InternetAddress("noreply@example.com"));
+        mime.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        mime.setSubject("Game reminder");
+        mime.setText("hi");
+        return mime;
+    }
+}
@@ -0,0 +1,108 @@
+package unit.com.bmessi.pickupsportsapp.service.notification;
+
+import com.bmessi.pickupsportsapp.dto.NotificationBatchEvent;
+import com.bmessi.pickupsportsapp.dto.NotificationEvent;
+import com.bmessi.pickupsportsapp.service.notification.NotificationEventCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationEventCoalescerTest {
+
+    private final SimpMessagingTemplate broker = mock(SimpMessagingTemplate.class);
+    private final NotificationEventCoalescer coalescer = new NotificationEventCoalescer(Optional.empty(), broker,
+            new SimpleMeterRegistry(), 100, 200);
+
+    @AfterEach
+    void tearDown() {
+        coalescer.destroy();
+    }
+
+    @Test
+    void changesWithinWindow_areMergedIntoOneFrame() {
+        coalescer.created("ann", created(1));
+        coalescer.created("ann", created(2));
+        coalescer.read("ann", List.of(1L, 5L));
+        coalescer.deleted("ann", 2L);
+        coalescer.deleted("ann", 7L);
+
+        ArgumentCaptor<NotificationBatchEvent> event = ArgumentCaptor.forClass(NotificationBatchEvent.class);
+        verify(broker, timeout(2000).times(1)).convertAndSendToUser(eq("ann"), eq("/queue/notifications"), event.capture());
+
+        NotificationBatchEvent e = event.getValue();
+        assertEquals("batch", e.type());
+        assertEquals(1, e.created().size());
+        assertTrue(e.created().get(0).read());
+        assertEquals(List.of(5L), e.read());
+        assertEquals(List.of(7L), e.deleted());
+        assertFalse(e.allRead());
+    }
+
+    @Test
+    void allRead_flipsPendingCreatesAndIsSentPerUser() {
+        coalescer.created("ann", created(1));
+        coalescer.read("ann", List.of(9L));
+        coalescer.allRead("ann");
+        coalescer.allRead("bob");
+
+        ArgumentCaptor<NotificationBatchEvent> ann = ArgumentCaptor.forClass(NotificationBatchEvent.class);
+        verify(broker, timeout(2000)).convertAndSendToUser(eq("ann"), anyString(), ann.capture());
+        verify(broker, timeout(2000)).convertAndSendToUser(eq("bob"), anyString(), any(NotificationBatchEvent.class));
+
+        assertTrue(ann.getValue().allRead());
+        assertTrue(ann.getValue().read().isEmpty());
+        assertTrue(ann.getValue().created().get(0).read());
+    }
+
+    @Test
+    void versionsIncreaseAcrossFlushes() throws Exception {
+        coalescer.created("ann", created(1));
+        verify(broker, timeout(2000).times(1)).convertAndSendToUser(eq("ann"), anyString(), any(NotificationBatchEvent.class));
+        coalescer.created("ann", created(2));
+
+        ArgumentCaptor<NotificationBatchEvent> events = ArgumentCaptor.forClass(NotificationBatchEvent.class);
+        verify(broker, timeout(2000).times(2)).convertAndSendToUser(eq("ann"), anyString(), events.capture());
+        assertTrue(events.getAllValues().get(1).version() > events.getAllValues().get(0).version());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void versionsComeFromTheSharedCounterAndKeepIncreasingWhenItFails() {
+        // Another node with a clock a minute ahead has already moved ann's counter past ours
+        AtomicLong shared = new AtomicLong((System.currentTimeMillis() + 60_000) * 1000);
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        when(redis.execute(any(RedisScript.class), eq(List.of("notif:{ann}:ver")), any(Object[].class)))
+                .thenAnswer(inv -> shared.incrementAndGet())
+                .thenThrow(new IllegalStateException("redis down"));
+        NotificationEventCoalescer node = new NotificationEventCoalescer(Optional.of(redis), broker,
+                new SimpleMeterRegistry(), 0, 200);
+        try {
+            node.created("ann", created(1));
+            verify(broker, timeout(2000).times(1)).convertAndSendToUser(eq("ann"), anyString(), any(NotificationBatchEvent.class));
+            node.created("ann", created(2));
+
+            ArgumentCaptor<NotificationBatchEvent> events = ArgumentCaptor.forClass(NotificationBatchEvent.class);
+            verify(broker, timeout(2000).times(2)).convertAndSendToUser(eq("ann"), anyString(), events.capture());
+            assertEquals(shared.get(), events.getAllValues().get(0).version());
+            assertTrue(events.getAllValues().get(1).version() > shared.get());
+        } finally {
+            node.destroy();
+        }
+    }
+
+    private static NotificationEvent created(long id) {
+        return new NotificationEvent("created", id, "n" + id, false, 1_000L * id);
+    }
+}
@@ -0,0 +1,162 @@
+package unit.com.bmessi.pickupsportsapp.service.notification;
+
+import com.bmessi.pickupsportsapp.entity.notification.Notification;
+import com.bmessi.pickupsportsapp.repository.NotificationRepository;
+import com.bmessi.pickupsportsapp.service.notification.NotificationInbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationInboxTest {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final NotificationRepository repository = mock(NotificationRepository.class);
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final NotificationInbox inbox = new NotificationInbox(Optional.of(redis), repository, mapper,
+            registry, true, 50, 3600);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void snapshotPage_servesNewestFirstAndUnreadOnly() {
+        NotificationInbox.Snapshot snapshot = new NotificationInbox.Snapshot(3, 2, List.of(
+                entry(3, false), entry(2, true), entry(1, false)));
+
+        Page<Notification> all = snapshot.page(false, PageRequest.of(0, 2));
+        assertEquals(List.of(3L, 2L), all.map(Notification::getId).getContent());
+        assertEquals(3, all.getTotalElements());
+
+        Page<Notification> unread = snapshot.page(true, PageRequest.of(0, 10));
+        assertEquals(List.of(3L, 1L), unread.map(Notification::getId).getContent());
+        assertEquals(2, unread.getTotalElements());
+    }
+
+    @Test
+    void snapshotPage_fallsBackWhenWindowIsShortOfThePage() {
+        // 100 notifications exist but only 2 are kept; an unread-only page of 5 cannot be answered
+        NotificationInbox.Snapshot snapshot = new NotificationInbox.Snapshot(100, 40, List.of(entry(100, false), entry(99, true)));
+
+        assertNull(snapshot.page(true, PageRequest.of(0, 5)));
+        assertNotNull(snapshot.page(true, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    void servable_onlyFirstPageSortedByCreatedAtWithinCapacity() {
+        assertTrue(inbox.servable(PageRequest.of(0, 10, Sort.by("createdAt"))));
+        assertTrue(inbox.servable(PageRequest.of(0, 10)));
+        assertFalse(inbox.servable(PageRequest.of(1, 10)));
+        assertFalse(inbox.servable(PageRequest.of(0, 51)));
+        assertFalse(inbox.servable(PageRequest.of(0, 10, Sort.by("message"))));
+        assertFalse(inbox.servable(Pageable.unpaged()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void firstPage_hitDoesNotTouchTheDatabase() throws Exception {
+        List<Object> raw = new ArrayList<>(List.of("2", "1",
+                mapper.writeValueAsString(entry(8, false)), mapper.writeValueAsString(entry(7, true))));
+        when(redis.execute(any(RedisScript.class), anyList())).thenReturn(raw);
+
+        Page<Notification> page = inbox.firstPage("ann", false, PageRequest.of(0, 10), () -> {
+            throw new AssertionError("user lookup on hit");
+        });
+
+        assertEquals(List.of(8L, 7L), page.map(Notification::getId).getContent());
+        assertEquals(1L, inbox.unreadCount("ann", () -> {
+            throw new AssertionError("user lookup on hit");
+        }));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void loadThatReadTheDatabaseBeforeAWriteCommittedIsNotInstalled() {
+        AtomicInteger installs = redisWithGeneration();
+        TransactionSynchronizationManager.initSynchronization();
+        inbox.added("ann", Notification.builder().id(9L).message("moved to 7pm").build());
+        synchronizations().forEach(s -> s.beforeCommit(false));
+        // The load runs inside the commit window: its query misses row 9, which commits right after
+        when(repository.findByUser_IdOrderByCreatedAtDesc(eq(1L), any())).thenAnswer(inv -> {
+            synchronizations().forEach(TransactionSynchronization::afterCommit);
+            return new PageImpl<>(List.of());
+        });
+
+        inbox.unreadCount("ann", () -> 1L);
+
+        assertEquals(0, installs.get());
+        assertEquals(1.0, registry.counter("notifications.inbox.load.skipped").count());
+    }
+
+    @Test
+    void loadAfterTheCommitIsInstalled() {
+        AtomicInteger installs = redisWithGeneration();
+        TransactionSynchronizationManager.initSynchronization();
+        inbox.added("ann", Notification.builder().id(9L).message("moved to 7pm").build());
+        synchronizations().forEach(s -> s.beforeCommit(false));
+        synchronizations().forEach(TransactionSynchronization::afterCommit);
+        when(repository.findByUser_IdOrderByCreatedAtDesc(eq(1L), any())).thenReturn(new PageImpl<>(List.of()));
+
+        inbox.unreadCount("ann", () -> 1L);
+
+        assertEquals(1, installs.get());
+        assertEquals(0.0, registry.counter("notifications.inbox.load.skipped").count());
+    }
+
+    /**
+     * Redis stand-in: a generation counter, an always-cold inbox and the INSTALL script's
+     * compare-and-set on the generation. Returns the number of snapshots installed.
+     */
+    @SuppressWarnings("unchecked")
+    private AtomicInteger redisWithGeneration() {
+        AtomicLong generation = new AtomicLong();
+        AtomicInteger installs = new AtomicInteger();
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.get("notif:{ann}:gen")).thenAnswer(inv -> String.valueOf(generation.get()));
+        when(values.increment("notif:{ann}:gen")).thenAnswer(inv -> generation.incrementAndGet());
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(inv -> {
+            String lua = inv.<RedisScript<?>>getArgument(0).getScriptAsString();
+            Object[] args = (Object[]) inv.getRawArguments()[2];
+            if (lua.contains("ZREVRANGE")) return null;
+            if (!lua.contains("KEYS[4]")) return -1L;
+            if (!String.valueOf(generation.get()).equals(args[0])) return 0L;
+            installs.incrementAndGet();
+            return 1L;
+        });
+        return installs;
+    }
+
+    private static List<TransactionSynchronization> synchronizations() {
+        return TransactionSynchronizationManager.getSynchronizations();
+    }
+
+    private static NotificationInbox.Entry entry(long id, boolean read) {
+        return new NotificationInbox.Entry(id, "n" + id, 1_000L * id, 1_000L * id, read, read ? 1_000L * id : null);
+    }
+}
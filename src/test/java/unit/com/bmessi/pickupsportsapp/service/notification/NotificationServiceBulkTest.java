@@ -0,0 +1,119 @@
+package unit.com.bmessi.pickupsportsapp.service.notification;
+
+import com.bmessi.pickupsportsapp.dto.NotificationEvent;
+import com.bmessi.pickupsportsapp.entity.User;
+import com.bmessi.pickupsportsapp.entity.notification.Notification;
+import com.bmessi.pickupsportsapp.repository.NotificationRepository;
+import com.bmessi.pickupsportsapp.repository.UserRepository;
+import com.bmessi.pickupsportsapp.service.notification.NotificationEventCoalescer;
+import com.bmessi.pickupsportsapp.service.notification.NotificationInbox;
+import com.bmessi.pickupsportsapp.service.notification.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationServiceBulkTest {
+
+    private final NotificationRepository repository = mock(NotificationRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final NotificationInbox inbox = mock(NotificationInbox.class);
+    private final NotificationEventCoalescer events = mock(NotificationEventCoalescer.class);
+    private JdbcTemplate jdbc;
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("CREATE TABLE app_user (id BIGINT PRIMARY KEY, username VARCHAR(100))");
+        jdbc.execute("""
+                CREATE TABLE notification (id BIGINT AUTO_INCREMENT PRIMARY KEY, "timestamp" TIMESTAMP,
+                  message VARCHAR(1000), "read" BOOLEAN, updated_at TIMESTAMP, "version" BIGINT, user_id BIGINT)
+                """);
+        jdbc.update("INSERT INTO app_user (id, username) VALUES (1, 'ann'), (2, 'bob'), (3, 'cy')");
+        service = new NotificationService(repository, users,
+                new SimpleMeterRegistry(), mock(RabbitTemplate.class), jdbc, inbox, events);
+    }
+
+    @Test
+    void eventsCarryTheIdsOfTheRowsThisBatchInserted() {
+        // Same message for ann already exists, as it would after a retried or repeated job
+        service.createNotifications(List.of("ann"), "Game moved to 7pm");
+        clearInvocations(inbox, events);
+
+        List<String> delivered = service.createNotifications(List.of("bob", "ann", "nobody", "ann"), "Game moved to 7pm");
+
+        assertEquals(List.of("ann", "bob"), delivered.stream().sorted().toList());
+        Map<Long, Long> newIdByUser = jdbc.query(
+                "SELECT user_id, MAX(id) AS id FROM notification GROUP BY user_id",
+                rs -> {
+                    Map<Long, Long> m = new HashMap<>();
+                    while (rs.next()) m.put(rs.getLong("user_id"), rs.getLong("id"));
+                    return m;
+                });
+        assertEquals(Map.of("ann", newIdByUser.get(1L), "bob", newIdByUser.get(2L)), createdIds());
+
+        ArgumentCaptor<Notification> added = ArgumentCaptor.forClass(Notification.class);
+        verify(inbox).added(eq("ann"), added.capture());
+        assertEquals(newIdByUser.get(1L), added.getValue().getId());
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM notification", Integer.class));
+    }
+
+    @Test
+    void unknownRecipientsInsertNothing() {
+        assertEquals(List.of(), service.createNotifications(List.of("nobody"), "hello"));
+
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM notification", Integer.class));
+        verifyNoInteractions(inbox, events);
+    }
+
+    @Test
+    void bulkReadAnnouncesOnlyTheRowsItFlipped() {
+        User ann = User.builder().id(1L).username("ann").build();
+        when(users.findOptionalByUsername("ann")).thenReturn(Optional.of(ann));
+        Set<Long> requested = Set.of(5L, 6L, 7L); // 5 already read, 7 belongs to someone else
+        when(repository.findUnreadIds(1L, requested)).thenReturn(List.of(6L));
+        when(repository.markAsRead(eq(1L), eq(List.of(6L)), any())).thenReturn(1);
+
+        assertEquals(1, service.markAsReadForUser(requested, "ann"));
+
+        verify(events).read("ann", List.of(6L));
+        verify(inbox).markedRead("ann", requested, 1);
+    }
+
+    @Test
+    void bulkReadOfNothingUnreadAnnouncesNothing() {
+        when(users.findOptionalByUsername("ann")).thenReturn(Optional.of(User.builder().id(1L).username("ann").build()));
+        when(repository.findUnreadIds(eq(1L), any())).thenReturn(List.of());
+
+        assertEquals(0, service.markAsReadForUser(List.of(5L), "ann"));
+
+        verify(repository, never()).markAsRead(any(), any(), any());
+        verifyNoInteractions(events);
+    }
+
+    private Map<String, Long> createdIds() {
+        ArgumentCaptor<String> users = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<NotificationEvent> created = ArgumentCaptor.forClass(NotificationEvent.class);
+        verify(events, atLeastOnce()).created(users.capture(), created.capture());
+        return IntStream.range(0, users.getAllValues().size()).boxed()
+                .collect(Collectors.toMap(i -> users.getAllValues().get(i), i -> created.getAllValues().get(i).id()));
+    }
+}
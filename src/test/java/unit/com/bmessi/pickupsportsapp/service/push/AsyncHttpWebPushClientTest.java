@@ -0,0 +1,106 @@
+package unit.com.bmessi.pickupsportsapp.service.push;
+
+import com.bmessi.pickupsportsapp.config.properties.VapidProperties;
+import com.bmessi.pickupsportsapp.service.push.AsyncHttpWebPushClient;
+import com.bmessi.pickupsportsapp.service.push.VapidTokenCache;
+import com.bmessi.pickupsportsapp.service.push.WebPushClient;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHttpWebPushClientTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger received = new AtomicInteger();
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private ExecutorService workers;
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        workers = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+        server.setExecutor(workers);
+        server.createContext("/", ex -> {
+            try (ex) {
+                ex.getRequestBody().readAllBytes();
+                received.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                ex.sendResponseHeaders(201, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    @Test
+    void sendsBeyondTheOriginLimitQueueOrFailFastWithoutBlocking() throws Exception {
+        WebPushClient client = new AsyncHttpWebPushClient(
+                new VapidTokenCache(new VapidProperties(), Clock.systemUTC(), 3600, 300),
+                meters, 1, 2_000, 10_000, 1, 30_000);
+
+        long start = System.nanoTime();
+        CompletableFuture<WebPushClient.Result> first = client.sendAsync(endpoint("/a"), "{}", null, null, "t");
+        CompletableFuture<WebPushClient.Result> queued = client.sendAsync(endpoint("/b"), "{}", null, null, "t");
+        CompletableFuture<WebPushClient.Result> rejected = client.sendAsync(endpoint("/c"), "{}", null, null, "t");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000, "callers never wait for a slot");
+
+        assertTrue(rejected.isDone());
+        assertEquals(WebPushClient.Result.Code.TRANSIENT_ERROR, rejected.join().code());
+        assertEquals("origin_saturated", rejected.join().message());
+        assertEquals(1.0, meters.counter("push.webpush.saturated").count());
+        assertFalse(queued.isDone());
+
+        release.countDown();
+        assertEquals(WebPushClient.Result.Code.OK, first.get(10, TimeUnit.SECONDS).code());
+        assertEquals(WebPushClient.Result.Code.OK, queued.get(10, TimeUnit.SECONDS).code());
+        assertEquals(2, received.get());
+    }
+
+    @Test
+    void queuedSendGivesUpAfterTheQueueTimeoutAndIsNeverStarted() throws Exception {
+        WebPushClient client = new AsyncHttpWebPushClient(
+                new VapidTokenCache(new VapidProperties(), Clock.systemUTC(), 3600, 300),
+                meters, 1, 2_000, 10_000, 1, 200);
+
+        CompletableFuture<WebPushClient.Result> first = client.sendAsync(endpoint("/a"), "{}", null, null, "t");
+        CompletableFuture<WebPushClient.Result> queued = client.sendAsync(endpoint("/b"), "{}", null, null, "t");
+
+        WebPushClient.Result timedOut = queued.get(5, TimeUnit.SECONDS);
+        assertEquals(WebPushClient.Result.Code.TRANSIENT_ERROR, timedOut.code());
+        assertEquals("queue_timeout", timedOut.message());
+        assertEquals(1.0, meters.counter("push.webpush.queue_timeout").count());
+
+        // The queue slot was freed, and releasing the first send does not start the abandoned one
+        CompletableFuture<WebPushClient.Result> next = client.sendAsync(endpoint("/c"), "{}", null, null, "t");
+        release.countDown();
+        assertEquals(WebPushClient.Result.Code.OK, first.get(10, TimeUnit.SECONDS).code());
+        assertEquals(WebPushClient.Result.Code.OK, next.get(10, TimeUnit.SECONDS).code());
+        assertEquals(2, received.get());
+    }
+
+    private String endpoint(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+}
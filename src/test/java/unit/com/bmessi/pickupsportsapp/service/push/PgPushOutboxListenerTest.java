@@ -0,0 +1,67 @@
+package unit.com.bmessi.pickupsportsapp.service.push;
+
+import com.bmessi.pickupsportsapp.service.push.PgPushOutboxListener;
+import com.bmessi.pickupsportsapp.service.push.PushOutboxNotifier;
+import com.bmessi.pickupsportsapp.service.push.PushOutboxWakeup;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class PgPushOutboxListenerTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final PushOutboxNotifier notifier = mock(PushOutboxNotifier.class);
+    private final PushOutboxWakeup wakeup = mock(PushOutboxWakeup.class);
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    @Test
+    void notificationsRingTheWakeupAndStopReleasesTheConnection() throws Exception {
+        Class<?> pgConnectionType = Class.forName("org.postgresql.PGConnection");
+        Class<?> notificationType = Class.forName("org.postgresql.PGNotification");
+        Object pgConnection = mock(pgConnectionType);
+        Method getNotifications = pgConnectionType.getMethod("getNotifications", int.class);
+        // Stands in for the driver's blocking wait: a short sleep, then whatever arrived meanwhile
+        getNotifications.invoke(doAnswer(inv -> {
+            Thread.sleep(20);
+            Object batch = Array.newInstance(notificationType, pending.getAndSet(false) ? 1 : 0);
+            if (Array.getLength(batch) > 0) Array.set(batch, 0, mock(notificationType));
+            return batch;
+        }).when(pgConnection), anyInt());
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        doReturn(pgConnection).when(connection).unwrap(pgConnectionType);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(notifier.isPostgres()).thenReturn(true);
+
+        PgPushOutboxListener listener = new PgPushOutboxListener(dataSource, notifier, wakeup, true);
+        listener.start();
+        verify(wakeup, timeout(2_000)).signal(); // catch-up signal once LISTEN is in place
+
+        pending.set(true);
+        verify(wakeup, timeout(2_000).times(2)).signal();
+
+        listener.stop();
+        verify(connection).close();
+        assertFalse(listener.isRunning());
+    }
+
+    @Test
+    void staysIdleWithoutPostgres() throws Exception {
+        when(notifier.isPostgres()).thenReturn(false);
+
+        PgPushOutboxListener listener = new PgPushOutboxListener(dataSource, notifier, wakeup, true);
+        listener.start();
+        listener.stop();
+
+        verifyNoInteractions(dataSource, wakeup);
+    }
+}
@@ -0,0 +1,106 @@
+package unit.com.bmessi.pickupsportsapp.service.push;
+
+import com.bmessi.pickupsportsapp.service.push.PushOutboxNotifier;
+import com.bmessi.pickupsportsapp.service.push.PushOutboxWakeup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PushOutboxNotifierTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final Statement statement = mock(Statement.class);
+    private final PushOutboxWakeup wakeup = new PushOutboxWakeup();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DatabaseMetaData meta = mock(DatabaseMetaData.class);
+        when(meta.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(connection.getMetaData()).thenReturn(meta);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.createStatement()).thenReturn(statement);
+        when(dataSource.getConnection()).thenReturn(connection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void notifiesOnItsOwnConnectionOnlyAfterCommit() throws Exception {
+        PushOutboxNotifier notifier = new PushOutboxNotifier(dataSource, wakeup);
+        TransactionSynchronizationManager.initSynchronization();
+
+        notifier.rowsEnqueued();
+
+        verify(statement, never()).execute(anyString());
+        assertFalse(wakeup.await(Duration.ZERO));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(statement).execute("NOTIFY " + PushOutboxNotifier.CHANNEL);
+        verify(connection, times(2)).close(); // the metadata probe and the NOTIFY
+        assertTrue(wakeup.await(Duration.ZERO));
+    }
+
+    @Test
+    void rolledBackEnqueueWakesNobody() throws Exception {
+        PushOutboxNotifier notifier = new PushOutboxNotifier(dataSource, wakeup);
+        TransactionSynchronizationManager.initSynchronization();
+
+        notifier.rowsEnqueued();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(statement, never()).execute(anyString());
+        assertFalse(wakeup.await(Duration.ZERO));
+    }
+
+    @Test
+    void failedNotifyStillWakesTheLocalDispatcher() throws Exception {
+        when(statement.execute(anyString())).thenThrow(new SQLException("connection refused"));
+        PushOutboxNotifier notifier = new PushOutboxNotifier(dataSource, wakeup);
+
+        assertDoesNotThrow(notifier::rowsEnqueued);
+
+        assertTrue(wakeup.await(Duration.ZERO));
+    }
+
+    @Test
+    void otherDatabasesOnlyGetTheLocalSignal() throws Exception {
+        when(connection.getMetaData().getDatabaseProductName()).thenReturn("H2");
+        PushOutboxNotifier notifier = new PushOutboxNotifier(dataSource, wakeup);
+
+        notifier.rowsEnqueued();
+
+        verify(statement, never()).execute(anyString());
+        assertTrue(wakeup.await(Duration.ZERO));
+    }
+
+    @Test
+    void signalsBetweenWaitsCollapseIntoOneWakeUp() throws Exception {
+        wakeup.signal();
+        wakeup.signal();
+        wakeup.signal();
+
+        assertTrue(wakeup.await(Duration.ofMillis(10)));
+        assertFalse(wakeup.await(Duration.ofMillis(10)));
+    }
+}
@@ -0,0 +1,56 @@
+package unit.com.bmessi.pickupsportsapp.service.push;
+
+import com.bmessi.pickupsportsapp.config.properties.VapidProperties;
+import com.bmessi.pickupsportsapp.service.push.VapidTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import support.MutableClock;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VapidTokenCacheTest {
+
+    private MutableClock clock;
+    private VapidProperties props;
+    private VapidTokenCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+        kpg.initialize(256);
+        KeyPair kp = kpg.generateKeyPair();
+        props = new VapidProperties();
+        props.setPublicKey("BPUB");
+        props.setPrivateKey(Base64.getUrlEncoder().withoutPadding().encodeToString(kp.getPrivate().getEncoded()));
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        cache = new VapidTokenCache(props, clock, 3600, 300);
+    }
+
+    @Test
+    void reusesTokenPerOriginUntilRefreshWindow() {
+        String first = cache.authorization("https://fcm.googleapis.com");
+        assertTrue(first.startsWith("vapid t="));
+        assertTrue(first.endsWith(", k=BPUB"));
+
+        clock.advanceSeconds(3000);
+        assertSame(first, cache.authorization("https://fcm.googleapis.com"));
+        assertNotEquals(first, cache.authorization("https://updates.push.services.mozilla.com"));
+
+        clock.advanceSeconds(301); // inside the last 5 minutes of the hour
+        assertNotEquals(first, cache.authorization("https://fcm.googleapis.com"));
+    }
+
+    @Test
+    void returnsNullWithoutUsableKey() {
+        props.setPrivateKey(null);
+        assertNull(cache.authorization("https://fcm.googleapis.com"));
+
+        props.setPrivateKey("not-a-key");
+        assertNull(cache.authorization("https://fcm.googleapis.com"));
+    }
+}
@@ -0,0 +1,132 @@
+package unit.com.bmessi.pickupsportsapp.web;
+
+import com.bmessi.pickupsportsapp.config.properties.RateLimitProperties;
+import com.bmessi.pickupsportsapp.security.ratelimit.RouteTemplateResolver;
+import com.bmessi.pickupsportsapp.security.ratelimit.SlidingWindowRateLimiter;
+import com.bmessi.pickupsportsapp.web.EdgeFilter;
+import com.bmessi.pickupsportsapp.web.EdgeRouteClassifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeFilterTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void correlationIdsAreSanitizedOrGeneratedAndVisibleDownstream() throws Exception {
+        EdgeFilter filter = filter(new RateLimitProperties(), false);
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/games");
+        req.addHeader(EdgeFilter.CORRELATION_HEADER, "  abc<script>-1.2_x  ");
+        AtomicReference<String> mdcCid = new AtomicReference<>();
+        AtomicReference<String> mdcRequestId = new AtomicReference<>();
+
+        MockHttpServletResponse res = run(filter, req, (rq, rs) -> {
+            mdcCid.set(MDC.get(EdgeFilter.CORRELATION_MDC_KEY));
+            mdcRequestId.set(MDC.get(EdgeFilter.REQUEST_ID_MDC_KEY));
+        });
+
+        assertEquals("abcscript-1.2_x", res.getHeader(EdgeFilter.CORRELATION_HEADER));
+        assertEquals("abcscript-1.2_x", req.getAttribute(EdgeFilter.CORRELATION_HEADER));
+        assertEquals("abcscript-1.2_x", mdcCid.get());
+        String requestId = res.getHeader(EdgeFilter.REQUEST_ID_HEADER);
+        assertTrue(requestId.matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"), requestId);
+        assertEquals(requestId, mdcRequestId.get());
+        assertNull(MDC.get(EdgeFilter.CORRELATION_MDC_KEY));
+        assertNull(MDC.get(EdgeFilter.REQUEST_ID_MDC_KEY));
+
+        MockHttpServletRequest longAndInvalid = new MockHttpServletRequest("GET", "/games");
+        longAndInvalid.addHeader(EdgeFilter.REQUEST_ID_HEADER, "x".repeat(100));
+        longAndInvalid.addHeader(EdgeFilter.CORRELATION_HEADER, "<>!");
+        MockHttpServletResponse res2 = run(filter, longAndInvalid, (rq, rs) -> {});
+        assertEquals("x".repeat(64), res2.getHeader(EdgeFilter.REQUEST_ID_HEADER));
+        assertEquals(36, res2.getHeader(EdgeFilter.CORRELATION_HEADER).length());
+    }
+
+    @Test
+    void headerSetDependsOnRouteTransportAndProfile() throws Exception {
+        EdgeFilter dev = filter(new RateLimitProperties(), false);
+        EdgeFilter prod = filter(new RateLimitProperties(), true);
+
+        MockHttpServletResponse api = run(dev, new MockHttpServletRequest("GET", "/games/1"), (rq, rs) -> {});
+        assertEquals("nosniff", api.getHeader("X-Content-Type-Options"));
+        assertEquals("DENY", api.getHeader("X-Frame-Options"));
+        assertTrue(api.getHeader("Content-Security-Policy").startsWith("default-src 'none'"));
+        assertNull(api.getHeader("Strict-Transport-Security"));
+
+        MockHttpServletResponse docs = run(dev, new MockHttpServletRequest("GET", "/swagger-ui/index.html"), (rq, rs) -> {});
+        assertTrue(docs.getHeader("Content-Security-Policy").contains("'unsafe-inline'"));
+
+        MockHttpServletRequest secure = new MockHttpServletRequest("GET", "/games/1");
+        secure.setSecure(true);
+        assertEquals("max-age=31536000; includeSubDomains",
+                run(dev, secure, (rq, rs) -> {}).getHeader("Strict-Transport-Security"));
+
+        MockHttpServletResponse proxied = run(prod, new MockHttpServletRequest("GET", "/games/1"), (rq, rs) -> {});
+        assertEquals("max-age=15552000; includeSubDomains; preload", proxied.getHeader("Strict-Transport-Security"));
+        assertEquals(api.getHeader("Content-Security-Policy"), proxied.getHeader("Content-Security-Policy"));
+    }
+
+    @Test
+    void rateLimitsByRemoteAddressAndRouteTemplateBeforeTheChain() throws Exception {
+        RateLimitProperties props = new RateLimitProperties();
+        props.getDefaults().setLimit(2);
+        EdgeFilter filter = filter(props, false);
+        int[] passed = {0};
+
+        for (long gameId = 1; gameId <= 3; gameId++) {
+            MockHttpServletRequest req = new MockHttpServletRequest("POST", "/games/" + gameId + "/join");
+            req.setRemoteAddr("198.51.100.7");
+            // Forged on every attempt: must not give the client a fresh budget
+            req.addHeader("X-Forwarded-For", "203.0.113." + gameId);
+            req.addHeader("X-Real-IP", "203.0.113." + gameId);
+            MockHttpServletResponse res = run(filter, req, (rq, rs) -> passed[0]++);
+            EdgeRouteClassifier.EdgeRoute route = (EdgeRouteClassifier.EdgeRoute) req.getAttribute(EdgeFilter.ROUTE_ATTRIBUTE);
+            assertEquals(String.valueOf(gameId), route.rsvpGameId());
+            assertEquals("/games/{id}/join", route.rateLimit().template());
+            if (gameId == 3) {
+                assertEquals(429, res.getStatus());
+                assertNotNull(res.getHeader("Retry-After"));
+                assertNotNull(res.getHeader(EdgeFilter.CORRELATION_HEADER));
+                assertEquals("nosniff", res.getHeader("X-Content-Type-Options"));
+            }
+        }
+        assertEquals(2, passed[0]);
+
+        MockHttpServletRequest otherClient = new MockHttpServletRequest("POST", "/games/4/join");
+        otherClient.setRemoteAddr("198.51.100.8");
+        assertEquals(200, run(filter, otherClient, (rq, rs) -> {}).getStatus());
+
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/games/4/join");
+        run(filter, get, (rq, rs) -> {});
+        assertNull(((EdgeRouteClassifier.EdgeRoute) get.getAttribute(EdgeFilter.ROUTE_ATTRIBUTE)).rsvpGameId());
+    }
+
+    private EdgeFilter filter(RateLimitProperties props, boolean prod) {
+        MockEnvironment env = new MockEnvironment();
+        if (prod) env.setActiveProfiles("prod");
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(
+                props, Optional.empty(), new SimpleMeterRegistry(), clock);
+        return new EdgeFilter(new EdgeRouteClassifier(new RouteTemplateResolver(props)), limiter, props,
+                new SimpleMeterRegistry(), env);
+    }
+
+    private static MockHttpServletResponse run(EdgeFilter filter, MockHttpServletRequest req, FilterChain chain)
+            throws Exception {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        filter.doFilter(req, res, chain);
+        return res;
+    }
+}
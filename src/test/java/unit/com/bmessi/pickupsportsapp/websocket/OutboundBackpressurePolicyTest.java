@@ -0,0 +1,184 @@
+package unit.com.bmessi.pickupsportsapp.websocket;
+
+import com.bmessi.pickupsportsapp.websocket.OutboundBackpressurePolicy;
+import com.bmessi.pickupsportsapp.websocket.WsResumeTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboundBackpressurePolicyTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final WsResumeTokenService tokens = new WsResumeTokenService(120);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private OutboundBackpressurePolicy policy;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (policy != null) policy.destroy();
+    }
+
+    @Test
+    void fullQueueDropsTypingFirstAndEvictsWithAResumeToken() throws Exception {
+        policy = new OutboundBackpressurePolicy(true, 8, 60_000, 1, 4, tokens, meters);
+        CountDownLatch writing = new CountDownLatch(1);
+        WebSocketSession delegate = blockingSession("s1", writing);
+        WebSocketSession session = connect(delegate);
+
+        session.sendMessage(new TextMessage("CONNECTED\nuser-name:alice\n\n"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 7; i++) session.sendMessage(frame("/topic/games/1/chat"));
+        session.sendMessage(frame("/topic/games/1/typing"));
+        session.sendMessage(frame("/topic/games/1/chat"));   // full: the queued typing frame makes room
+        session.sendMessage(frame("/topic/games/1/typing")); // full of chat: this typing frame is dropped
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000, "sends never wait for the socket");
+        assertEquals(2.0, meters.counter("ws.outbound.dropped", "kind", "typing").count());
+        verify(delegate, never()).close(any());
+
+        session.sendMessage(frame("/topic/games/1/chat"));   // full of chat: the client cannot keep up
+
+        ArgumentCaptor<CloseStatus> status = ArgumentCaptor.forClass(CloseStatus.class);
+        verify(delegate, timeout(2_000)).close(status.capture());
+        assertEquals(OutboundBackpressurePolicy.SLOW_CONSUMER_CLOSE_CODE, status.getValue().getCode());
+        String token = status.getValue().getReason().substring("slow_consumer resume-token=".length());
+        assertEquals(1.0, meters.counter("ws.outbound.evicted", "reason", "overflow").count());
+
+        assertTrue(tokens.redeem(token, "mallory").isEmpty(), "tokens are bound to the evicted user");
+        assertTrue(tokens.redeem(token, "alice").isPresent());
+        assertTrue(tokens.redeem(token, "alice").isEmpty(), "tokens are single-use");
+
+        session.sendMessage(frame("/topic/games/1/chat"));
+        verify(delegate, times(1)).close(any());
+    }
+
+    @Test
+    void presenceDeltaBurstsAreDroppedNotEvicted() throws Exception {
+        policy = new OutboundBackpressurePolicy(true, 8, 60_000, 1, 4, tokens, meters);
+        CountDownLatch writing = new CountDownLatch(1);
+        WebSocketSession delegate = blockingSession("s1", writing);
+        WebSocketSession session = connect(delegate);
+        session.sendMessage(frame("/topic/games/1/chat"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 20; i++) session.sendMessage(frame("/topic/games/1/presence/delta"));
+        session.sendMessage(frame("/topic/games/1/chat"));
+
+        assertEquals(13.0, meters.counter("ws.outbound.dropped", "kind", "presence").count());
+        verify(delegate, never()).close(any());
+    }
+
+    @Test
+    void saturatedWritersEvictInsteadOfWritingOnTheCaller() throws Exception {
+        policy = new OutboundBackpressurePolicy(true, 8, 60_000, 1, 1, tokens, meters);
+        CountDownLatch writing = new CountDownLatch(1);
+        WebSocketSession busy = connect(blockingSession("busy", writing));
+        busy.sendMessage(frame("/topic/games/1/chat"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        WebSocketSession waitingDelegate = blockingSession("waiting", new CountDownLatch(1));
+        connect(waitingDelegate).sendMessage(frame("/topic/games/1/chat"));
+
+        WebSocketSession rejectedDelegate = blockingSession("rejected", new CountDownLatch(1));
+        connect(rejectedDelegate).sendMessage(frame("/topic/games/1/chat"));
+
+        verify(rejectedDelegate, never()).sendMessage(any());
+        verify(rejectedDelegate, timeout(2_000)).close(any());
+        verify(waitingDelegate, never()).close(any());
+        assertEquals(1.0, meters.counter("ws.outbound.evicted", "reason", "writers_saturated").count());
+    }
+
+    @Test
+    void stuckSocketWriteIsEvictedBySweeper() throws Exception {
+        policy = new OutboundBackpressurePolicy(true, 8, 250, 2, 4, tokens, meters);
+        CountDownLatch writing = new CountDownLatch(1);
+        WebSocketSession delegate = blockingSession("stuck", writing);
+        connect(delegate).sendMessage(frame("/topic/games/1/chat"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        await(() -> meters.counter("ws.outbound.evicted", "reason", "slow_send").count() == 1.0);
+        verify(delegate, timeout(2_000)).close(any());
+    }
+
+    @Test
+    void closeThatHangsDoesNotHoldUpTheSweeper() throws Exception {
+        // Two core writers, so both stuck sessions get a writer thread
+        policy = new OutboundBackpressurePolicy(true, 8, 250, 8, 4, tokens, meters);
+        CountDownLatch writingA = new CountDownLatch(1);
+        WebSocketSession hangs = blockingSession("hangs", writingA);
+        doAnswer(inv -> {
+            release.await(30, TimeUnit.SECONDS);
+            return null;
+        }).when(hangs).close(any());
+        connect(hangs).sendMessage(frame("/topic/games/1/chat"));
+        assertTrue(writingA.await(5, TimeUnit.SECONDS));
+        await(() -> meters.counter("ws.outbound.evicted", "reason", "slow_send").count() == 1.0);
+
+        CountDownLatch writingB = new CountDownLatch(1);
+        WebSocketSession stuck = blockingSession("stuck", writingB);
+        connect(stuck).sendMessage(frame("/topic/games/1/chat"));
+        assertTrue(writingB.await(5, TimeUnit.SECONDS));
+
+        verify(stuck, timeout(5_000)).close(any());
+        assertEquals(2.0, meters.counter("ws.outbound.evicted", "reason", "slow_send").count());
+    }
+
+    @Test
+    void resumeTokenRecordsLastDeliveredPerDestination() {
+        Instant at = Instant.parse("2025-01-01T00:00:00Z");
+        String token = tokens.issue("alice", Map.of("/topic/games/1/chat", at));
+
+        WsResumeTokenService.ResumeState state = tokens.redeem(token, "alice").orElseThrow();
+        assertEquals(at, state.lastDelivered().get("/topic/games/1/chat"));
+        assertTrue(tokens.redeem(null, "alice").isEmpty());
+    }
+
+    private WebSocketSession connect(WebSocketSession delegate) throws Exception {
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        policy.decorate(handler).afterConnectionEstablished(delegate);
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        return decorated.getValue();
+    }
+
+    /** A session whose first write signals {@code writing} and then blocks until the test ends. */
+    private WebSocketSession blockingSession(String id, CountDownLatch writing) throws Exception {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn(id);
+        doAnswer(inv -> {
+            writing.countDown();
+            release.await(30, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).sendMessage(any());
+        return delegate;
+    }
+
+    private static TextMessage frame(String destination) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\n\n{}");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+}